@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.benchmarks;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Contracts;
+import com.selfxdsd.api.InvoicedTasks;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Payment;
+import com.selfxdsd.api.PaymentMethods;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Tasks;
+import com.selfxdsd.api.Wallet;
+import com.selfxdsd.api.Wallets;
+import com.selfxdsd.selfweb.loadtest.Stand;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Realistic object graphs for the benchmarks, made of in-memory
+ * stand-ins: Contracts of one Project with an active Stripe Wallet,
+ * assigned Tasks and Invoices, half of them paid.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+final class Graphs {
+
+    /**
+     * Repo of the Project.
+     */
+    private static final String REPO = "self-xdsd/self-web";
+
+    /**
+     * Fixed moment, so all the runs serialize the same dates.
+     */
+    private static final LocalDateTime NOW = LocalDateTime.of(
+        2021, 3, 1, 10, 30, 15
+    );
+
+    /**
+     * Hidden ctor.
+     */
+    private Graphs() { }
+
+    /**
+     * Active Stripe Wallet, without payment methods.
+     * @return Wallet.
+     */
+    static Wallet wallet() {
+        return new Stand<>(Wallet.class)
+            .with("type", "STRIPE")
+            .with("active", Boolean.TRUE)
+            .with("cash", BigDecimal.valueOf(1_000_000))
+            .with("debt", BigDecimal.valueOf(25_050))
+            .with("available", BigDecimal.valueOf(974_950))
+            .with(
+                "paymentMethods",
+                new Stand<>(PaymentMethods.class).build()
+            )
+            .build();
+    }
+
+    /**
+     * Project whose Contracts are serialized, with an active Wallet.
+     * @return Project.
+     */
+    static Project project() {
+        final Wallet wallet = Graphs.wallet();
+        final Wallets wallets = new Stand<>(Wallets.class, List.of(wallet))
+            .with("active", wallet)
+            .build();
+        return new Stand<>(Project.class)
+            .with("repoFullName", REPO)
+            .with("provider", "github")
+            .with("wallets", wallets)
+            .build();
+    }
+
+    /**
+     * One Contract of the given Project.
+     * @param project Project.
+     * @param idx Index of the Contract, gives the contributor's name.
+     * @return Contract.
+     */
+    static Contract contract(final Project project, final int idx) {
+        return new Stand<>(Contract.class)
+            .with(
+                "contractId",
+                new Contract.Id(REPO, "contributor" + idx, "github", "DEV")
+            )
+            .with("hourlyRate", BigDecimal.valueOf(2500 + idx % 100))
+            .with("value", BigDecimal.valueOf(125_000L + idx))
+            .with("revenue", BigDecimal.valueOf(5_000L + idx))
+            .with("markedForRemoval", null)
+            .with("project", project)
+            .build();
+    }
+
+    /**
+     * One assigned Task.
+     * @param idx Index of the Task, gives the issue id.
+     * @return Task.
+     */
+    static Task task(final int idx) {
+        return new Stand<>(Task.class)
+            .with("issueId", String.valueOf(idx))
+            .with("assignmentDate", NOW.minusDays(idx % 10))
+            .with("deadline", NOW.plusDays(10 - idx % 10))
+            .with("estimation", 60)
+            .with("value", BigDecimal.valueOf(2500 + idx % 100))
+            .build();
+    }
+
+    /**
+     * One Invoice, paid if the index is even.
+     * @param idx Index of the Invoice, gives its id.
+     * @return Invoice.
+     */
+    static Invoice invoice(final int idx) {
+        final boolean paid = idx % 2 == 0;
+        Payment latest = null;
+        if(paid) {
+            latest = new Stand<>(Payment.class)
+                .with("status", "SUCCESSFUL")
+                .with("failReason", "")
+                .with("transactionId", "pi_" + idx)
+                .with("paymentTime", NOW.minusHours(idx % 24))
+                .build();
+        }
+        return new Stand<>(Invoice.class)
+            .with("invoiceId", idx)
+            .with("createdAt", NOW.minusDays(idx % 30))
+            .with("isPaid", paid)
+            .with("amount", BigDecimal.valueOf(100_000L + idx))
+            .with("totalAmount", BigDecimal.valueOf(108_000L + idx))
+            .with("latest", latest)
+            .with("tasks", new Stand<>(InvoicedTasks.class).build())
+            .build();
+    }
+
+    /**
+     * Contracts of the same Project.
+     * @param size Number of Contracts.
+     * @return Contracts.
+     */
+    static Contracts contracts(final int size) {
+        final Project project = Graphs.project();
+        return new Stand<>(
+            Contracts.class,
+            Graphs.list(size, idx -> Graphs.contract(project, idx))
+        ).build();
+    }
+
+    /**
+     * Tasks.
+     * @param size Number of Tasks.
+     * @return Tasks.
+     */
+    static Tasks tasks(final int size) {
+        return new Stand<>(
+            Tasks.class, Graphs.list(size, Graphs::task)
+        ).build();
+    }
+
+    /**
+     * Invoices.
+     * @param size Number of Invoices.
+     * @return Invoices.
+     */
+    static Invoices invoices(final int size) {
+        return new Stand<>(
+            Invoices.class, Graphs.list(size, Graphs::invoice)
+        ).build();
+    }
+
+    /**
+     * Build a list of elements.
+     * @param size Number of elements.
+     * @param element Builds the element with the given index.
+     * @param <T> Type of the elements.
+     * @return List.
+     */
+    private static <T> List<T> list(
+        final int size,
+        final IntFunction<T> element
+    ) {
+        final List<T> list = new ArrayList<>(size);
+        for(int idx = 0; idx < size; ++idx) {
+            list.add(element.apply(idx));
+        }
+        return list;
+    }
+}
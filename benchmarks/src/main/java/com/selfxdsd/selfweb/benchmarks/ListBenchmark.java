@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.benchmarks;
+
+import com.selfxdsd.api.Contracts;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Tasks;
+import com.selfxdsd.selfweb.api.output.JsonContracts;
+import com.selfxdsd.selfweb.api.output.JsonInvoices;
+import com.selfxdsd.selfweb.api.output.JsonTasks;
+import com.selfxdsd.selfweb.api.output.StreamedContracts;
+import com.selfxdsd.selfweb.api.output.StreamedInvoices;
+import com.selfxdsd.selfweb.api.output.StreamedTasks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of lists of 10, 1k and 100k elements: the JsonArray
+ * classes, which build the whole array in memory before writing it,
+ * against the Streamed* classes, which write each element straight to
+ * the response. The streamed benchmarks write to a counting
+ * OutputStream and return the number of bytes.
+ * Run with "-prof gc" to see the allocation rate per operation.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListBenchmark {
+
+    /**
+     * Number of elements in each list.
+     * @checkstyle VisibilityModifier (3 lines)
+     */
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    /**
+     * Contracts of one Project.
+     */
+    private Contracts contracts;
+
+    /**
+     * Tasks.
+     */
+    private Tasks tasks;
+
+    /**
+     * Invoices.
+     */
+    private Invoices invoices;
+
+    /**
+     * Build the stand-ins once per size.
+     */
+    @Setup
+    public void setup() {
+        this.contracts = Graphs.contracts(this.size);
+        this.tasks = Graphs.tasks(this.size);
+        this.invoices = Graphs.invoices(this.size);
+    }
+
+    /**
+     * JsonContracts, built in memory.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String contracts() {
+        return new JsonContracts(this.contracts).toString();
+    }
+
+    /**
+     * JsonContracts with the Wallet types, built in memory.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String contractsWithWalletType() {
+        return new JsonContracts(this.contracts, true).toString();
+    }
+
+    /**
+     * StreamedContracts.
+     * @return Bytes written.
+     * @throws IOException Never, we write in memory.
+     */
+    @Benchmark
+    public long streamedContracts() throws IOException {
+        final Counting out = new Counting();
+        new StreamedContracts(this.contracts).writeTo(out);
+        return out.count;
+    }
+
+    /**
+     * JsonTasks, built in memory.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String tasks() {
+        return new JsonTasks(this.tasks).toString();
+    }
+
+    /**
+     * StreamedTasks.
+     * @return Bytes written.
+     * @throws IOException Never, we write in memory.
+     */
+    @Benchmark
+    public long streamedTasks() throws IOException {
+        final Counting out = new Counting();
+        new StreamedTasks(this.tasks).writeTo(out);
+        return out.count;
+    }
+
+    /**
+     * JsonInvoices, built in memory.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String invoices() {
+        return new JsonInvoices(this.invoices).toString();
+    }
+
+    /**
+     * StreamedInvoices.
+     * @return Bytes written.
+     * @throws IOException Never, we write in memory.
+     */
+    @Benchmark
+    public long streamedInvoices() throws IOException {
+        final Counting out = new Counting();
+        new StreamedInvoices(this.invoices).writeTo(out);
+        return out.count;
+    }
+
+    /**
+     * OutputStream which only counts the written bytes, so the
+     * streamed benchmarks do not measure a growing buffer.
+     */
+    private static final class Counting extends OutputStream {
+
+        /**
+         * Bytes written so far.
+         */
+        private long count;
+
+        @Override
+        public void write(final int data) {
+            this.count = this.count + 1;
+        }
+
+        @Override
+        public void write(final byte[] data, final int off, final int len) {
+            this.count = this.count + len;
+        }
+    }
+}
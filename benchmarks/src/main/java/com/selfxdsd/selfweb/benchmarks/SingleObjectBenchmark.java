@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.benchmarks;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Wallet;
+import com.selfxdsd.selfweb.api.output.JsonContract;
+import com.selfxdsd.selfweb.api.output.JsonInvoice;
+import com.selfxdsd.selfweb.api.output.JsonTask;
+import com.selfxdsd.selfweb.api.output.JsonWallet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of building and serializing single JSON objects of the API.
+ * Each benchmark returns the serialized String, so JMH consumes it.
+ * Run with "-prof gc" to see the allocation rate per operation.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleObjectBenchmark {
+
+    /**
+     * Contract to serialize.
+     */
+    private Contract contract;
+
+    /**
+     * Task to serialize.
+     */
+    private Task task;
+
+    /**
+     * Paid Invoice to serialize.
+     */
+    private Invoice invoice;
+
+    /**
+     * Wallet to serialize.
+     */
+    private Wallet wallet;
+
+    /**
+     * Build the stand-ins once per run.
+     */
+    @Setup
+    public void setup() {
+        this.contract = Graphs.contract(Graphs.project(), 1);
+        this.task = Graphs.task(1);
+        this.invoice = Graphs.invoice(2);
+        this.wallet = Graphs.wallet();
+    }
+
+    /**
+     * JsonContract, as in the Project's contracts.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String contract() {
+        return new JsonContract(this.contract).toString();
+    }
+
+    /**
+     * JsonContract with the Project's Wallet type, as in the
+     * Contributor's dashboard.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String contractWithWalletType() {
+        return new JsonContract(this.contract, true).toString();
+    }
+
+    /**
+     * JsonContract with the values already computed, as built by the
+     * concurrent dashboard.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String contractPrecomputed() {
+        return new JsonContract(
+            this.contract,
+            BigDecimal.valueOf(125_000),
+            BigDecimal.valueOf(5_000),
+            "STRIPE"
+        ).toString();
+    }
+
+    /**
+     * JsonTask.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String task() {
+        return new JsonTask(this.task).toString();
+    }
+
+    /**
+     * JsonInvoice with its latest Payment.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String invoice() {
+        return new JsonInvoice(this.invoice).toString();
+    }
+
+    /**
+     * JsonWallet without payment methods.
+     * @return Serialized JSON.
+     */
+    @Benchmark
+    public String wallet() {
+        return new JsonWallet(this.wallet, false).toString();
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import com.selfxdsd.core.Env;
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Produces the configuration of the database connection pool.<br><br>
+ *
+ * The connection details are read from the environment, as before,
+ * while the pool settings (size, idle eviction, leak detection etc.)
+ * are bound from the "self.db.pool.*" properties. The pool publishes
+ * its metrics (hikaricp.connections.*) to Micrometer: the "usage" timer
+ * is how long each database call held its connection.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Configuration
+public class DbPoolProducer {
+
+    /**
+     * Database connection pool configuration.
+     * @param registry Metrics registry.
+     * @return HikariConfig.
+     */
+    @Bean
+    @ConfigurationProperties("self.db.pool")
+    public HikariConfig dbPool(final MeterRegistry registry) {
+        final HikariConfig config = new HikariConfig();
+        config.setPoolName("self-db-pool");
+        config.setJdbcUrl(System.getenv(Env.DB_URL));
+        config.setUsername(System.getenv(Env.DB_USER));
+        config.setPassword(System.getenv(Env.DB_PASSWORD));
+        config.setMetricRegistry(registry);
+        return config;
+    }
+}
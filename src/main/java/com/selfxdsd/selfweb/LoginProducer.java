@@ -26,6 +26,9 @@ import com.selfxdsd.api.Login;
 import com.selfxdsd.api.Provider;
 import com.selfxdsd.api.Self;
 import com.selfxdsd.api.User;
+import com.selfxdsd.selfweb.db.DbRoute;
+import com.selfxdsd.selfweb.oauth.CachedAccessToken;
+import com.selfxdsd.selfweb.oauth.TokenRefresher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,17 +55,33 @@ public class LoginProducer {
      */
     private final Self self;
 
+    /**
+     * Refreshes the access tokens ahead of their expiry.
+     */
+    private final TokenRefresher refresher;
+
     /**
      * Ctor.
      * @param self Self.
      */
-    @Autowired
     public LoginProducer(final Self self){
+        this(self, new TokenRefresher());
+    }
+
+    /**
+     * Ctor.
+     * @param self Self.
+     * @param refresher Refreshes the access tokens ahead of their expiry.
+     */
+    @Autowired
+    public LoginProducer(final Self self, final TokenRefresher refresher){
         this.self = self;
+        this.refresher = refresher;
     }
 
     /**
-     * Authenticate and return the User.
+     * Authenticate and return the User. Logging in may register the
+     * User, so it always goes to the primary database.
      * @param clientService Spring OAuth2 client service.
      * @return Login.
      */
@@ -76,16 +95,22 @@ public class LoginProducer {
                 .getContext()
                 .getAuthentication();
         final String provider = oauthToken.getAuthorizedClientRegistrationId();
+        final CachedAccessToken token = new CachedAccessToken(
+            clientService,
+            this.refresher,
+            provider.toLowerCase(),
+            oauthToken.getName()
+        );
         final Login login;
         if (provider.equalsIgnoreCase(Provider.Names.GITHUB)) {
-            login = new GithubLogin(oauthToken, clientService);
+            login = new GithubLogin(oauthToken, token);
         } else if(provider.equalsIgnoreCase(Provider.Names.GITLAB)) {
-            login = new GitlabLogin(oauthToken, clientService);
+            login = new GitlabLogin(oauthToken, token);
         } else{
             throw new UnsupportedOperationException("Unsupported provider "
                 + provider +" for login.");
         }
-        return this.self.login(login);
+        return DbRoute.within(DbRoute.PRIMARY, () -> this.self.login(login));
     }
 
     /**
@@ -100,28 +125,24 @@ public class LoginProducer {
         private final OAuth2AuthenticationToken oauthToken;
 
         /**
-         * Service used to obtain the access token.
+         * The access token, loaded once and kept until it expires.
          */
-        private final OAuth2AuthorizedClientService clientService;
+        private final CachedAccessToken token;
 
         /**
          * Ctor.
          * @param oauthToken The OAuth2 token.
-         * @param clientService Service used to obtain the access token.
+         * @param token The access token.
          */
         OAuth2Login(final OAuth2AuthenticationToken oauthToken,
-                    final OAuth2AuthorizedClientService clientService) {
+                    final CachedAccessToken token) {
             this.oauthToken = oauthToken;
-            this.clientService = clientService;
+            this.token = token;
         }
 
         @Override
         public String accessToken() {
-            return this.clientService
-                .loadAuthorizedClient(this.provider(),
-                    this.oauthToken.getName())
-                .getAccessToken()
-                .getTokenValue();
+            return this.token.value();
         }
 
         @Override
@@ -151,11 +172,11 @@ public class LoginProducer {
          * Ctor.
          *
          * @param oauthToken The OAuth2 token.
-         * @param clientService Service used to obtain the access token.
+         * @param token The access token.
          */
         GithubLogin(final OAuth2AuthenticationToken oauthToken,
-                    final OAuth2AuthorizedClientService clientService) {
-            super(oauthToken, clientService);
+                    final CachedAccessToken token) {
+            super(oauthToken, token);
         }
 
         @Override
@@ -189,11 +210,11 @@ public class LoginProducer {
          * Ctor.
          *
          * @param oauthToken The OAuth2 token.
-         * @param clientService Service used to obtain the access token.
+         * @param token The access token.
          */
         GitlabLogin(final OAuth2AuthenticationToken oauthToken,
-                    final OAuth2AuthorizedClientService clientService) {
-            super(oauthToken, clientService);
+                    final CachedAccessToken token) {
+            super(oauthToken, token);
         }
 
         @Override
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import com.selfxdsd.selfweb.metrics.SqlTimings;
+import com.selfxdsd.storage.Database;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+
+import javax.sql.DataSource;
+
+/**
+ * MySql Database backed by a connection pool.<br><br>
+ *
+ * Unlike {@link com.selfxdsd.storage.MySql}, which holds one JDBC
+ * Connection, this Database borrows a Connection from the pool for
+ * each statement and gives it back right after, so it can be shared
+ * by all the sessions of the application. Each statement is timed and
+ * traced by {@link SqlTimings}. The pool can also be a
+ * {@link com.selfxdsd.selfweb.db.ReadReplicas}, which sends the reads of
+ * the requests to the read replicas.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PooledMySql implements Database {
+
+    /**
+     * Closes the connection pool.
+     */
+    private final Runnable closing;
+
+    /**
+     * JOOQ context working on top of the pool.
+     */
+    private final DSLContext context;
+
+    /**
+     * Ctor.
+     * @param pool The connection pool.
+     */
+    public PooledMySql(final HikariDataSource pool) {
+        this(pool, pool::close);
+    }
+
+    /**
+     * Ctor.
+     * @param pool The connection pool.
+     * @param closing Closes the connection pool.
+     */
+    public PooledMySql(final DataSource pool, final Runnable closing) {
+        this.closing = closing;
+        this.context = DSL.using(
+            new DefaultConfiguration()
+                .set(pool)
+                .set(SQLDialect.MYSQL)
+                .set(new DefaultExecuteListenerProvider(new SqlTimings()))
+        );
+    }
+
+    @Override
+    public Database connect() {
+        return this;
+    }
+
+    @Override
+    public DSLContext jooq() {
+        return this.context;
+    }
+
+    @Override
+    public void close() {
+        this.closing.run();
+    }
+}
@@ -22,15 +22,21 @@
  */
 package com.selfxdsd.selfweb;
 
-import com.selfxdsd.api.Project;
 import com.selfxdsd.api.Self;
+import com.selfxdsd.selfweb.badges.Badge;
+import com.selfxdsd.selfweb.badges.BadgeCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Projects controller.
  * @author Mihai Andronache (amihaiemil@gmail.com)
@@ -41,17 +47,25 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class ProjectsController {
 
     /**
-     * Self's core.
+     * Cached repository badges.
      */
-    private final Self self;
+    private final BadgeCache badges;
 
     /**
      * Ctor.
      * @param self Self's core.
      */
-    @Autowired
     public ProjectsController(final Self self) {
-        this.self = self;
+        this(new BadgeCache(self));
+    }
+
+    /**
+     * Ctor.
+     * @param badges Cached repository badges.
+     */
+    @Autowired
+    public ProjectsController(final BadgeCache badges) {
+        this.badges = badges;
     }
 
     /**
@@ -107,20 +121,60 @@ public class ProjectsController {
         @RequestParam(name = "provider", required = false) final String provider,
         final Model model
     ) {
-        final String prov;
-        if(provider == null || provider.isEmpty()) {
-            prov = "github";
-        } else {
-            prov = provider;
-        }
-        final Project found = this.self.projects().getProjectById(
-            owner + "/" + name, prov
+        final Badge badge = this.badges.badge(
+            owner + "/" + name, ProjectsController.provider(provider)
         );
-        if (found != null) {
+        if (badge.managed()) {
             model.addAttribute("managed", true);
         } else {
             model.addAttribute("managed", false);
         }
         return "badge.html";
     }
+
+    /**
+     * SVG badge of a repository, to be embedded in its README. It is
+     * served from memory, with an ETag, so the image proxies can
+     * revalidate it cheaply.
+     * @param owner Owner's login.
+     * @param name Repos short name.
+     * @param provider Project provider (github, gitlab etc).
+     * @return SVG badge.
+     * @checkstyle LineLength (10 lines)
+     */
+    @GetMapping(value = "/b/{owner}/{name}.svg", produces = "image/svg+xml")
+    public ResponseEntity<String> badge(
+        @PathVariable("owner") final String owner,
+        @PathVariable("name") final String name,
+        @RequestParam(name = "provider", required = false) final String provider
+    ) {
+        final Badge badge = this.badges.badge(
+            owner + "/" + name, ProjectsController.provider(provider)
+        );
+        return ResponseEntity.ok()
+            .contentType(MediaType.valueOf("image/svg+xml"))
+            .eTag(badge.etag())
+            .cacheControl(
+                CacheControl.maxAge(5, TimeUnit.MINUTES)
+                    .cachePublic()
+                    .sMaxAge(5, TimeUnit.MINUTES)
+                    .staleWhileRevalidate(1, TimeUnit.HOURS)
+            )
+            .body(badge.svg());
+    }
+
+    /**
+     * Provider from the request, Github by default.
+     * @param provider Provider parameter, may be null or empty.
+     * @return Provider name.
+     */
+    private static String provider(final String provider) {
+        final String prov;
+        if(provider == null || provider.isEmpty()) {
+            prov = "github";
+        } else {
+            prov = provider;
+        }
+        return prov;
+    }
 }
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+/**
+ * Security of the public routes, which anyone may access: the badge
+ * pages, the SVG badges, the ping and the health endpoint.<br><br>
+ *
+ * The metrics (/actuator/prometheus) are public only on the management
+ * port (management.server.port, e.g. set with MANAGEMENT_SERVER_PORT),
+ * which is not exposed to the internet. On the application's port they
+ * need a login, like any other page.<br><br>
+ *
+ * They are hit all the time by bots and image proxies, so they get
+ * their own filter chain, ahead of the one in {@link SelfWebApplication}:
+ * no session is read or created, the security context is not stored,
+ * there is no CSRF token, no saved request and no login. Only the
+ * security headers are written. The controllers behind them use the
+ * singleton beans (e.g. the cached badges), never the session-scoped User.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Configuration
+@Order(1)
+public class PublicRoutesSecurity extends WebSecurityConfigurerAdapter {
+
+    /**
+     * The public routes.
+     */
+    static final String[] ROUTES = {
+        "/p/**",
+        "/b/**",
+        "/ping",
+        "/actuator/health"
+    };
+
+    /**
+     * The metrics scraped by Prometheus.
+     */
+    static final String METRICS = "/actuator/prometheus";
+
+    /**
+     * Port of the actuator, -1 if it is served on the application's port.
+     */
+    private final int management;
+
+    /**
+     * Ctor, without a management port.
+     */
+    public PublicRoutesSecurity() {
+        this(-1);
+    }
+
+    /**
+     * Ctor, without Spring Security's default configuration.
+     * @param management Port of the actuator, -1 if it is served on the
+     *  application's port.
+     */
+    @Autowired
+    public PublicRoutesSecurity(
+        @Value("${management.server.port:-1}") final int management
+    ) {
+        super(true);
+        this.management = management;
+    }
+
+    @Override
+    protected void configure(final HttpSecurity http) throws Exception {
+        http.requestMatchers(
+            match -> match.antMatchers(ROUTES).requestMatchers(this.metrics())
+        ).securityContext(
+            context -> context.securityContextRepository(
+                new NullSecurityContextRepository()
+            )
+        ).headers(Customizer.withDefaults())
+            .anonymous(Customizer.withDefaults())
+            .authorizeRequests(link -> link.anyRequest().permitAll());
+    }
+
+    /**
+     * Matches the requests for the metrics made on the management port.
+     * If there is no management port, it matches nothing.
+     * @return RequestMatcher.
+     */
+    RequestMatcher metrics() {
+        final int port = this.management;
+        return new AndRequestMatcher(
+            new AntPathRequestMatcher(METRICS),
+            request -> port > 0 && request.getLocalPort() == port
+        );
+    }
+}
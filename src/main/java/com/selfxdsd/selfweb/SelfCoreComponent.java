@@ -23,21 +23,34 @@
 package com.selfxdsd.selfweb;
 
 import com.selfxdsd.api.*;
-import com.selfxdsd.core.Env;
 import com.selfxdsd.core.SelfCore;
-import com.selfxdsd.storage.MySql;
+import com.selfxdsd.selfweb.db.ReadReplicas;
 import com.selfxdsd.storage.SelfJooq;
+import com.zaxxer.hikari.HikariConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.SessionScope;
+
+import java.time.Duration;
 
 /**
- * Self Core component.
+ * Self Core component. It is a singleton shared by all the sessions,
+ * working on top of a pool of database connections. Each session
+ * still gets its own User, see {@link LoginProducer}.<br><br>
+ *
+ * If read replicas are configured, the reads of the requests go to them
+ * and everything else goes to the primary, see {@link ReadReplicas}
+ * and {@link com.selfxdsd.selfweb.db.DbRouting}.<br><br>
+ *
+ * It is replaced by an in-memory Self when running the load tests
+ * (the "loadtest" profile).
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.1
  */
 @Component
-@SessionScope
+@Profile("!loadtest")
 public class SelfCoreComponent implements Self {
 
     /**
@@ -46,17 +59,39 @@ public class SelfCoreComponent implements Self {
     private final Self core;
 
     /**
-     * Default constructor for Spring.
+     * Constructor for Spring.
+     * @param pool Database connection pool configuration.
+     * @param replicas Comma-separated JDBC URLs of the read replicas.
+     * @param maxLag Max lag of a used replica, in seconds.
+     * @param check How often is the lag of the replicas checked, in seconds.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public SelfCoreComponent(
+        final HikariConfig pool,
+        @Value("${self.db.replicas.urls}") final String replicas,
+        @Value("${self.db.replicas.max-lag-seconds}") final long maxLag,
+        @Value("${self.db.replicas.check-seconds}") final long check
+    ) {
+        this(
+            new ReadReplicas(
+                pool,
+                replicas,
+                Duration.ofSeconds(maxLag),
+                Duration.ofSeconds(check)
+            )
+        );
+    }
+
+    /**
+     * Constructor.
+     * @param database Primary database and its read replicas.
      */
-    public SelfCoreComponent() {
+    public SelfCoreComponent(final ReadReplicas database) {
         this(
             new SelfCore(
                 new SelfJooq(
-                    new MySql(
-                        System.getenv(Env.DB_URL),
-                        System.getenv(Env.DB_USER),
-                        System.getenv(Env.DB_PASSWORD)
-                    )
+                    new PooledMySql(database, database::close)
                 )
             )
         );
@@ -33,7 +33,9 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
- * Spring Boot entry point.
+ * Spring Boot entry point and security of the pages and API which
+ * need the User's session. The public routes have their own, stateless,
+ * filter chain: see {@link PublicRoutesSecurity}.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.1
@@ -51,10 +53,7 @@ public class SelfWebApplication extends WebSecurityConfigurerAdapter {
                 "/images/illustrations/*",
                 "/css/*",
                 "/error",
-                "/webjars/**",
-                "/p/**",
-                "/b/**",
-                "/ping"
+                "/webjars/**"
                 )
             .permitAll()
             .anyRequest()
@@ -24,6 +24,7 @@ package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.exceptions.InvoiceException;
 import com.selfxdsd.api.exceptions.WalletPaymentException;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -40,7 +41,8 @@ import java.util.Map;
 import java.util.stream.StreamSupport;
 
 /**
- * Base API Controller.
+ * Base API Controller. Every error handled here is also counted by the
+ * "self.api.errors" counter, tagged with its category.
  * @author Mihai Andronache (amihaiemil@gmail.com)
  * @version $Id$
  * @since 0.0.1
@@ -55,6 +57,11 @@ public class BaseApiController {
         BaseApiController.class
     );
 
+    /**
+     * Name of the errors counter.
+     */
+    private static final String ERRORS = "self.api.errors";
+
     /**
      * Handle validation errors, send back a map
      * of the fields and their errors.
@@ -65,6 +72,7 @@ public class BaseApiController {
     @ExceptionHandler(BindException.class)
     public Map<String, String> handleValidationExceptions(
         final BindException exception) {
+        Metrics.counter(ERRORS, "category", "validation").increment();
         final Map<String, String> errors = new HashMap<>();
         exception.getBindingResult().getAllErrors().forEach(
             error -> errors.put(
@@ -85,6 +93,7 @@ public class BaseApiController {
     @ExceptionHandler(ConstraintViolationException.class)
     public Map<String, String> handleConstraintViolationExceptions(
         final ConstraintViolationException exception) {
+        Metrics.counter(ERRORS, "category", "constraint").increment();
         final Map<String, String> errors = new HashMap<>();
         exception.getConstraintViolations().forEach(
             error -> {
@@ -114,6 +123,7 @@ public class BaseApiController {
     public String handlePaymentException(
         final WalletPaymentException exception
     ) {
+        Metrics.counter(ERRORS, "category", "payment").increment();
         return exception.toString();
     }
 
@@ -127,6 +137,7 @@ public class BaseApiController {
     public String handleInvoiceAlreadyPaidException(
         final InvoiceException.AlreadyPaid exception
     ) {
+        Metrics.counter(ERRORS, "category", "invoice_paid").increment();
         return exception.toString();
     }
     /**
@@ -141,6 +152,7 @@ public class BaseApiController {
     public String handleInternalSeverExceptions(
         final Exception exception
     ){
+        Metrics.counter(ERRORS, "category", "internal").increment();
         LOG.error("Caught unexpected exception", exception);
         return "Something went wrong while executing this request.";
     }
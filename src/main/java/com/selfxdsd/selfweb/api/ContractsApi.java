@@ -24,7 +24,16 @@ package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
 import com.selfxdsd.selfweb.api.input.ContractInput;
+import com.selfxdsd.selfweb.api.input.TablePage;
 import com.selfxdsd.selfweb.api.output.*;
+import com.selfxdsd.selfweb.pdf.InvoicePdfs;
+import com.selfxdsd.selfweb.pdf.PdfPrerender;
+import com.selfxdsd.selfweb.events.UserEvents;
+import com.selfxdsd.selfweb.limits.SingleFlight;
+import com.selfxdsd.selfweb.metrics.Outbound;
+import com.selfxdsd.selfweb.payments.BatchReport;
+import com.selfxdsd.selfweb.payments.PaymentJob;
+import com.selfxdsd.selfweb.payments.PaymentJobs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +45,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
@@ -43,7 +54,10 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * This controller offers HTTP endpoints regarding a Project's contracts.
@@ -71,13 +85,82 @@ public class ContractsApi extends BaseApiController {
      */
     private final User user;
 
+    /**
+     * PDFs of the Invoices.
+     */
+    private final InvoicePdfs pdfs;
+
+    /**
+     * Pre-renders the PDFs of the paid Invoices.
+     */
+    private final PdfPrerender prerender;
+
+    /**
+     * Projects, Contracts etc already looked up in the current request.
+     */
+    private final RequestLookups lookups;
+
+    /**
+     * Runs the Invoice payments in the background.
+     */
+    private final PaymentJobs payments;
+
+    /**
+     * Events of the Users.
+     */
+    private final UserEvents events;
+
+    /**
+     * Coalesces the identical concurrent reads.
+     */
+    private final SingleFlight flights;
+
+    /**
+     * Ctor. Since the lookups are not request-scoped here, the instance
+     * should only serve one request (e.g. in a test).
+     * @param user Authenticated user.
+     */
+    ContractsApi(final User user) {
+        this(
+            user,
+            new InvoicePdfs(),
+            new PdfPrerender(),
+            new RequestLookups(),
+            new PaymentJobs(),
+            new UserEvents(),
+            new SingleFlight()
+        );
+    }
+
     /**
      * Ctor.
      * @param user Authenticated user.
+     * @param pdfs PDFs of the Invoices.
+     * @param prerender Pre-renders the PDFs of the paid Invoices.
+     * @param lookups Projects, Contracts etc already looked up in the
+     *  current request.
+     * @param payments Runs the Invoice payments in the background.
+     * @param events Events of the Users.
+     * @param flights Coalesces the identical concurrent reads.
+     * @checkstyle ParameterNumber (15 lines)
      */
     @Autowired
-    ContractsApi(final User user) {
+    ContractsApi(
+        final User user,
+        final InvoicePdfs pdfs,
+        final PdfPrerender prerender,
+        final RequestLookups lookups,
+        final PaymentJobs payments,
+        final UserEvents events,
+        final SingleFlight flights
+    ) {
         this.user = user;
+        this.pdfs = pdfs;
+        this.prerender = prerender;
+        this.lookups = lookups;
+        this.payments = payments;
+        this.events = events;
+        this.flights = flights;
     }
 
     /**
@@ -90,19 +173,58 @@ public class ContractsApi extends BaseApiController {
         value = "/projects/{owner}/{name}/contracts",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> contracts(
+    public ResponseEntity<StreamingResponseBody> contracts(
         @PathVariable("owner") final String owner,
         @PathVariable("name") final String name) {
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        return this.contractsPage(owner, name, Map.of());
+    }
+
+    /**
+     * Get one page of the contracts of an owned project, for DataTables'
+     * server-side processing. The Contracts are read once for all the
+     * concurrent requests of the same Project.
+     * @param owner Owner of the project (username or org name).
+     * @param name Simple name of the project.
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return JsonObject with the page.
+     */
+    @GetMapping(
+        value = "/projects/{owner}/{name}/contracts",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> contractsPage(
+        @PathVariable("owner") final String owner,
+        @PathVariable("name") final String name,
+        @RequestParam final Map<String, String> params
+    ) {
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
-        final JsonContracts contracts;
+        final StreamedContracts contracts;
         if (project == null) {
-            contracts = new JsonContracts(new Contracts.Empty());
+            contracts = new StreamedContracts(new Contracts.Empty());
         } else {
-            contracts = new JsonContracts(project.contracts());
+            contracts = new StreamedContracts(
+                this.flights.run(
+                    String.join(
+                        "|",
+                        "GET /projects/{owner}/{name}/contracts",
+                        (project.provider() + "/" + project.repoFullName())
+                            .toLowerCase(Locale.ROOT),
+                        String.valueOf(this.user.role())
+                    ),
+                    () -> {
+                        final List<Contract> all = new ArrayList<>();
+                        for(final Contract contract : project.contracts()) {
+                            all.add(contract);
+                        }
+                        return all;
+                    }
+                )
+            );
         }
-        return ResponseEntity.ok(contracts.toString());
+        return ResponseEntity.ok(contracts.page(new TablePage(params)));
     }
 
     /**
@@ -118,20 +240,47 @@ public class ContractsApi extends BaseApiController {
         value = "/projects/{owner}/{name}/contracts/{username}/tasks",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> tasks(
+    public ResponseEntity<StreamingResponseBody> tasks(
         @PathVariable final String owner,
         @PathVariable final String name,
         @PathVariable final String username,
         @RequestParam("role") final String role
     ) {
-        final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        return this.tasksPage(owner, name, username, role, Map.of());
+    }
+
+    /**
+     * Get one page of the Tasks of a specific Contract, for DataTables'
+     * server-side processing.
+     * @param owner Owner of the project (username or org name).
+     * @param name Simple name of the project.
+     * @param username Contributor's username.
+     * @param role Contributor's role.
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return JsonObject with the page.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @GetMapping(
+        value = "/projects/{owner}/{name}/contracts/{username}/tasks",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> tasksPage(
+        @PathVariable final String owner,
+        @PathVariable final String name,
+        @PathVariable final String username,
+        @RequestParam("role") final String role,
+        @RequestParam final Map<String, String> params
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -144,7 +293,7 @@ public class ContractsApi extends BaseApiController {
             } else {
                 final Tasks tasks = contract.tasks();
                 resp = ResponseEntity.ok(
-                    new JsonTasks(tasks).toString()
+                    new StreamedTasks(tasks).page(new TablePage(params))
                 );
             }
         }
@@ -164,20 +313,47 @@ public class ContractsApi extends BaseApiController {
         value = "/projects/{owner}/{name}/contracts/{username}/invoices",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> invoices(
+    public ResponseEntity<StreamingResponseBody> invoices(
         @PathVariable final String owner,
         @PathVariable final String name,
         @PathVariable final String username,
         @RequestParam("role") final String role
     ) {
-        final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        return this.invoicesPage(owner, name, username, role, Map.of());
+    }
+
+    /**
+     * Get one page of the Invoices of a specific Contract, for DataTables'
+     * server-side processing.
+     * @param owner Owner of the project (username or org name).
+     * @param name Simple name of the project.
+     * @param username Contributor's username.
+     * @param role Contributor's role.
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return JsonObject with the page.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @GetMapping(
+        value = "/projects/{owner}/{name}/contracts/{username}/invoices",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> invoicesPage(
+        @PathVariable final String owner,
+        @PathVariable final String name,
+        @PathVariable final String username,
+        @RequestParam("role") final String role,
+        @RequestParam final Map<String, String> params
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -188,9 +364,9 @@ public class ContractsApi extends BaseApiController {
             if(contract == null) {
                 resp = ResponseEntity.noContent().build();
             } else {
-                final Invoices invoices = contract.invoices();
+                final Invoices invoices = this.lookups.invoices(contract);
                 resp = ResponseEntity.ok(
-                    new JsonInvoices(invoices).toString()
+                    new StreamedInvoices(invoices).page(new TablePage(params))
                 );
             }
         }
@@ -219,13 +395,14 @@ public class ContractsApi extends BaseApiController {
         @PathVariable final int invoiceId,
         @RequestParam("role") final String role) {
         final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -236,7 +413,8 @@ public class ContractsApi extends BaseApiController {
             if(contract == null) {
                 resp = ResponseEntity.noContent().build();
             } else {
-                final Invoice found = contract.invoices().getById(invoiceId);
+                final Invoice found = this.lookups.invoices(contract)
+                    .getById(invoiceId);
                 if(found == null){
                     resp = ResponseEntity.noContent().build();
                 } else {
@@ -271,13 +449,14 @@ public class ContractsApi extends BaseApiController {
         @PathVariable final int invoiceId,
         @RequestParam("role") final String role) throws IOException {
         final ResponseEntity<StreamingResponseBody> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -288,20 +467,14 @@ public class ContractsApi extends BaseApiController {
             if(contract == null) {
                 resp = ResponseEntity.noContent().build();
             } else {
-                final Invoice found = contract.invoices().getById(invoiceId);
+                final Invoice found = this.lookups.invoices(contract)
+                    .getById(invoiceId);
                 if(found == null){
                     resp = ResponseEntity.noContent().build();
                 } else {
-                    resp = ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header(
-                            "Content-Disposition",
-                             "inline; filename="
-                             + "invoice_slfx_" + found.invoiceId() + ".pdf"
-                        )
-                        .body(
-                            out -> found.toPdf(out)
-                        );
+                    resp = this.pdfs.invoice(
+                        found, "invoice_slfx_" + found.invoiceId() + ".pdf"
+                    );
                 }
             }
         }
@@ -342,9 +515,11 @@ public class ContractsApi extends BaseApiController {
                     .contracts()
                     .addContract(repoFullName, input.getUsername(),
                         provider, hourlyRate, input.getRole());
+                final JsonContract added = new JsonContract(contract);
+                this.events.publish(this.user, "contract.added", added);
                 response = ResponseEntity
                     .status(HttpStatus.CREATED)
-                    .body(new JsonContract(contract).toString());
+                    .body(added.toString());
             } else {
                 response = ResponseEntity
                     .status(HttpStatus.PRECONDITION_FAILED)
@@ -393,13 +568,14 @@ public class ContractsApi extends BaseApiController {
         final double newHourlyRate
     ) {
         final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -416,25 +592,24 @@ public class ContractsApi extends BaseApiController {
                         .setScale(2, RoundingMode.HALF_UP)
                         .multiply(BigDecimal.valueOf(100))
                 );
-                resp = ResponseEntity.ok(
-                    Json.createObjectBuilder()
-                        .add("id", Json.createObjectBuilder()
-                            .add("repoFullName", updated.contractId()
-                                .getRepoFullName())
-                            .add("contributorUsername", updated.contractId()
-                                .getContributorUsername())
-                            .add("provider", updated.contractId().getProvider())
-                            .add("role", updated.contractId().getRole())
-                            .build())
-                        .add("hourlyRate", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(
-                                updated.hourlyRate()
-                                    .divide(BigDecimal.valueOf(100))
-                            )
-                        ).build()
-                        .toString()
-                );
+                final JsonObject json = Json.createObjectBuilder()
+                    .add("id", Json.createObjectBuilder()
+                        .add("repoFullName", updated.contractId()
+                            .getRepoFullName())
+                        .add("contributorUsername", updated.contractId()
+                            .getContributorUsername())
+                        .add("provider", updated.contractId().getProvider())
+                        .add("role", updated.contractId().getRole())
+                        .build())
+                    .add("hourlyRate", NumberFormat
+                        .getCurrencyInstance(Locale.GERMANY)
+                        .format(
+                            updated.hourlyRate()
+                                .divide(BigDecimal.valueOf(100))
+                        )
+                    ).build();
+                this.events.publish(this.user, "contract.updated", json);
+                resp = ResponseEntity.ok(json.toString());
             }
         }
         return resp;
@@ -460,13 +635,14 @@ public class ContractsApi extends BaseApiController {
         @RequestParam("role") final String role
     ) {
         final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -477,10 +653,11 @@ public class ContractsApi extends BaseApiController {
             if(contract == null) {
                 resp = ResponseEntity.noContent().build();
             } else {
-                final Contract marked = contract.markForRemoval();
-                resp = ResponseEntity.ok(
-                    new JsonContract(marked).toString()
+                final JsonContract marked = new JsonContract(
+                    contract.markForRemoval()
                 );
+                this.events.publish(this.user, "contract.marked", marked);
+                resp = ResponseEntity.ok(marked.toString());
             }
         }
         return resp;
@@ -506,13 +683,14 @@ public class ContractsApi extends BaseApiController {
         @RequestParam("role") final String role
     ) {
         final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.noContent().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -523,23 +701,28 @@ public class ContractsApi extends BaseApiController {
             if(contract == null || contract.markedForRemoval() == null) {
                 resp = ResponseEntity.noContent().build();
             } else {
-                final Contract restored = contract.restore();
-                resp = ResponseEntity.ok(
-                    new JsonContract(restored).toString()
+                final JsonContract restored = new JsonContract(
+                    contract.restore()
                 );
+                this.events.publish(this.user, "contract.restored", restored);
+                resp = ResponseEntity.ok(restored.toString());
             }
         }
         return resp;
     }
 
     /**
-     * Pay an Invoice of a specific Contract.
+     * Pay an Invoice of a specific Contract. The payment runs in the
+     * background: if it is not done by the time we answer, the response
+     * is 202 ACCEPTED and its Location is the job to poll for the result
+     * (see {@link PaymentsApi}). Paying an Invoice which is already being
+     * paid gives back the running job, it does not pay again.
      * @param owner Owner of the project (username or org name).
      * @param name Simple name of the project.
      * @param username Contributor's username.
      * @param invoiceId Id of the Invoice.
      * @param role Contributor's role.
-     * @return JsonArray.
+     * @return JsonObject with the payment or with the job.
      * @checkstyle ParameterNumber (10 lines)
      */
     @PutMapping(
@@ -555,13 +738,14 @@ public class ContractsApi extends BaseApiController {
         @RequestParam("role") final String role
     ) {
         final ResponseEntity<String> resp;
-        final Project project = this.user.projects().getProjectById(
-            owner + "/" + name, this.user.provider().name()
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
         );
         if(project == null) {
             resp = ResponseEntity.badRequest().build();
         } else {
-            final Contract contract = project.contracts().findById(
+            final Contract contract = this.lookups.contract(
+                project,
                 new Contract.Id(
                     owner + "/" + name,
                     username,
@@ -572,53 +756,162 @@ public class ContractsApi extends BaseApiController {
             if(contract == null) {
                 resp = ResponseEntity.badRequest().build();
             } else {
-                final Invoice found = contract.invoices().getById(invoiceId);
+                final Invoice found = this.lookups.invoices(contract)
+                    .getById(invoiceId);
                 if(found == null){
                     resp = ResponseEntity.noContent().build();
+                } else if(found.isPaid()) {
+                    final Invoice active = this.lookups.invoices(contract)
+                        .active();
+                    resp = ResponseEntity.ok(
+                        Json.createObjectBuilder()
+                            .add("paid", found.invoiceId())
+                            .add("active", new JsonInvoice(active))
+                            .build()
+                            .toString()
+                    );
                 } else {
-                    Payment payment = null;
-                    if (!found.isPaid()) {
-                        final Wallet wallet = project.wallets().active();
-                        payment = wallet.pay(found);
-                    }
-                    final Invoice active = contract.invoices().active();
-                    if(payment == null) {
-                        resp = ResponseEntity.ok(
-                            Json.createObjectBuilder()
-                                .add("paid", found.invoiceId())
-                                .add("active", new JsonInvoice(active))
-                                .build()
-                                .toString()
-                        );
-                    } else {
-                        resp = ResponseEntity.ok(
-                            Json.createObjectBuilder()
-                                .add("paid", found.invoiceId())
-                                .add(
-                                    "payment",
-                                    Json.createObjectBuilder()
-                                        .add("status", payment.status())
-                                        .add(
-                                            "failReason",
-                                            payment.failReason()
-                                        ).add(
-                                            "transactionId",
-                                            payment.transactionId()
-                                        ).add(
-                                            "timestamp",
-                                            String.valueOf(
-                                                payment.paymentTime()
-                                            )
-                                        ).build()
-                                )
-                                .add("active", new JsonInvoice(active))
-                                .build()
-                                .toString()
-                        );
-                    }
+                    final Wallet wallet = this.lookups.wallets(project)
+                        .active();
+                    final PaymentJob job = this.payments.pay(
+                        this.user,
+                        found.invoiceId(),
+                        () -> this.pay(contract, wallet, found)
+                    );
+                    resp = job.response();
                 }
             }
         }
         return resp;
     }
+
+    /**
+     * Pay all the unpaid Invoices of a Project, across its Contracts.
+     * The active Wallet is read once and an Invoice is paid only if
+     * the Wallet's available cash still covers it, after the Invoices
+     * before it. The payments run in the background, like the ones
+     * of {@link #payInvoice(String, String, String, int, String)}, on
+     * the same bounded pool.
+     * @param owner Owner of the project (username or org name).
+     * @param name Simple name of the project.
+     * @return JsonObject report with the outcome of each Invoice: 200 OK
+     *  if all the payments are done, 202 ACCEPTED if some are still
+     *  running (poll their jobs).
+     */
+    @PutMapping(
+        value = "/projects/{owner}/{name}/invoices",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> payInvoices(
+        @PathVariable final String owner,
+        @PathVariable final String name
+    ) {
+        final ResponseEntity<String> resp;
+        final Project project = this.lookups.project(
+            this.user, owner + "/" + name
+        );
+        if(project == null) {
+            resp = ResponseEntity.badRequest().build();
+        } else {
+            final Wallet wallet = this.lookups.wallets(project).active();
+            final BatchReport report = new BatchReport(wallet.available());
+            for(final Contract contract : project.contracts()) {
+                this.payUnpaid(contract, wallet, report);
+            }
+            resp = report.response();
+        }
+        return resp;
+    }
+
+    /**
+     * Submit the payments of a Contract's unpaid Invoices, as long as
+     * there is enough cash in the Wallet.
+     * @param contract Contract.
+     * @param wallet Active Wallet of the Project.
+     * @param report Report of the batch payment.
+     */
+    private void payUnpaid(
+        final Contract contract,
+        final Wallet wallet,
+        final BatchReport report
+    ) {
+        for(final Invoice invoice : contract.invoices()) {
+            if(!invoice.isPaid()) {
+                if(invoice.totalAmount().signum() <= 0) {
+                    report.skipped(contract, invoice, "Nothing to pay.");
+                } else if(!report.reserve(invoice)) {
+                    report.skipped(
+                        contract, invoice, "Not enough cash in the Wallet."
+                    );
+                } else {
+                    report.submitted(
+                        contract,
+                        invoice,
+                        this.payments.pay(
+                            this.user,
+                            invoice.invoiceId(),
+                            () -> this.pay(contract, wallet, invoice)
+                        )
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Pay the Invoice. This runs in the payments pool, outside of the
+     * request, so it must not use the request-scoped lookups.<br><br>
+     *
+     * The Invoice is read again right before paying: it may have been
+     * paid since the request read it (e.g. by a payment which finished
+     * in the meantime), in which case the Wallet is not charged again.
+     * After a successful payment, the response also has the Wallet's
+     * new figures, which {@link PaymentJobs} pushes as wallet.updated.
+     * @param contract Contract of the Invoice.
+     * @param wallet Active Wallet of the Project.
+     * @param invoice Invoice to pay.
+     * @return Response with the payment and the new active Invoice.
+     */
+    private ResponseEntity<String> pay(
+        final Contract contract,
+        final Wallet wallet,
+        final Invoice invoice
+    ) {
+        final Invoices invoices = contract.invoices();
+        final Invoice current = invoices.getById(invoice.invoiceId());
+        final JsonObjectBuilder result = Json.createObjectBuilder()
+            .add("paid", invoice.invoiceId());
+        if(current == null || !current.isPaid()) {
+            final Payment payment = Outbound.stripe(
+                "pay", () -> wallet.pay(invoice)
+            );
+            if(Payment.Status.SUCCESSFUL.equals(payment.status())) {
+                this.prerender.paid(invoices, invoice.invoiceId());
+                final Project project = contract.project();
+                result
+                    .add("project", String.valueOf(project.repoFullName()))
+                    .add(
+                        "wallet",
+                        new JsonWallet(project.wallets().active(), false)
+                    );
+            }
+            result.add(
+                "payment",
+                Json.createObjectBuilder()
+                    .add("status", payment.status())
+                    .add("failReason", payment.failReason())
+                    .add("transactionId", payment.transactionId())
+                    .add(
+                        "timestamp",
+                        String.valueOf(payment.paymentTime())
+                    ).build()
+            );
+        }
+        return ResponseEntity.ok(
+            result
+                .add("active", new JsonInvoice(invoices.active()))
+                .build()
+                .toString()
+        );
+    }
 }
@@ -23,14 +23,25 @@
 package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.api.input.DateRange;
+import com.selfxdsd.selfweb.api.input.TablePage;
 import com.selfxdsd.selfweb.api.output.*;
+import com.selfxdsd.selfweb.dashboard.ContributorDashboard;
+import com.selfxdsd.selfweb.pdf.InvoicePdfs;
+import com.selfxdsd.selfweb.pdf.PdfRenderer;
+import com.selfxdsd.selfweb.pdf.PdfZips;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.StreamSupport;
 
 /**
  * Contributor endpoints.<br><br>
@@ -53,13 +64,53 @@ public class ContributorApi extends BaseApiController {
      */
     private final User user;
 
+    /**
+     * PDFs of the Invoices.
+     */
+    private final InvoicePdfs pdfs;
+
+    /**
+     * ZIP archives of PDFs.
+     */
+    private final PdfZips zips;
+
+    /**
+     * Contributor Dashboard.
+     */
+    private final ContributorDashboard dashboard;
+
     /**
      * Ctor.
      * @param user Authenticated user.
      */
-    @Autowired
     public ContributorApi(final User user) {
+        this(
+            user,
+            new InvoicePdfs(),
+            new PdfZips(),
+            new ContributorDashboard()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param pdfs PDFs of the Invoices.
+     * @param zips ZIP archives of PDFs.
+     * @param dashboard Contributor Dashboard.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public ContributorApi(
+        final User user,
+        final InvoicePdfs pdfs,
+        final PdfZips zips,
+        final ContributorDashboard dashboard
+    ) {
         this.user = user;
+        this.pdfs = pdfs;
+        this.zips = zips;
+        this.dashboard = dashboard;
     }
 
     /**
@@ -77,7 +128,7 @@ public class ContributorApi extends BaseApiController {
             resp = ResponseEntity.noContent().build();
         } else {
             resp = ResponseEntity.ok(
-                new JsonContributor(contributor).toString()
+                this.dashboard.json(contributor).toString()
             );
         }
         return resp;
@@ -94,12 +145,36 @@ public class ContributorApi extends BaseApiController {
         value = "/contributor/contracts/{owner}/{name}/tasks",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> tasks(
+    public ResponseEntity<StreamingResponseBody> tasks(
         @PathVariable final String owner,
         @PathVariable final String name,
         @RequestParam("role") final String role
     ) {
-        final ResponseEntity<String> resp;
+        return this.tasksPage(owner, name, role, Map.of());
+    }
+
+    /**
+     * Get one page of the authenticated Contributor's Tasks from a given
+     * Contract, for DataTables' server-side processing.
+     * @param owner Repo owner.
+     * @param name Repo name.
+     * @param role Contributor role (DEV, REV etc).
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return String JSON.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @GetMapping(
+        value = "/contributor/contracts/{owner}/{name}/tasks",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> tasksPage(
+        @PathVariable final String owner,
+        @PathVariable final String name,
+        @RequestParam("role") final String role,
+        @RequestParam final Map<String, String> params
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
         final Contributor contributor = this.user.asContributor();
         if(contributor == null) {
             resp = ResponseEntity.noContent().build();
@@ -113,7 +188,8 @@ public class ContributorApi extends BaseApiController {
                 resp = ResponseEntity.badRequest().build();
             } else {
                 resp = ResponseEntity.ok(
-                    new JsonTasks(contract.tasks()).toString()
+                    new StreamedTasks(contract.tasks())
+                        .page(new TablePage(params))
                 );
             }
         }
@@ -131,12 +207,36 @@ public class ContributorApi extends BaseApiController {
         value = "/contributor/contracts/{owner}/{name}/invoices",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> invoices(
+    public ResponseEntity<StreamingResponseBody> invoices(
         @PathVariable final String owner,
         @PathVariable final String name,
         @RequestParam("role") final String role
     ) {
-        final ResponseEntity<String> resp;
+        return this.invoicesPage(owner, name, role, Map.of());
+    }
+
+    /**
+     * Get one page of the authenticated Contributor's Invoices from a given
+     * Contract, for DataTables' server-side processing.
+     * @param owner Repo owner.
+     * @param name Repo name.
+     * @param role Contributor role (DEV, REV etc).
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return String JSON.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @GetMapping(
+        value = "/contributor/contracts/{owner}/{name}/invoices",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> invoicesPage(
+        @PathVariable final String owner,
+        @PathVariable final String name,
+        @RequestParam("role") final String role,
+        @RequestParam final Map<String, String> params
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
         final Contributor contributor = this.user.asContributor();
         if(contributor == null) {
             resp = ResponseEntity.noContent().build();
@@ -150,7 +250,8 @@ public class ContributorApi extends BaseApiController {
                 resp = ResponseEntity.badRequest().build();
             } else {
                 resp = ResponseEntity.ok(
-                    new JsonInvoices(contract.invoices()).toString()
+                    new StreamedInvoices(contract.invoices())
+                        .page(new TablePage(params))
                 );
             }
         }
@@ -239,16 +340,9 @@ public class ContributorApi extends BaseApiController {
                 if(found == null){
                     resp = ResponseEntity.badRequest().build();
                 } else {
-                    resp = ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header(
-                            "Content-Disposition",
-                            "inline; filename="
-                            + "invoice_slfx_" + found.invoiceId() + ".pdf"
-                        )
-                        .body(
-                            out -> found.toPdf(out)
-                        );
+                    resp = this.pdfs.invoice(
+                        found, "invoice_slfx_" + found.invoiceId() + ".pdf"
+                    );
                 }
             }
         }
@@ -295,18 +389,11 @@ public class ContributorApi extends BaseApiController {
                     if(invoice == null) {
                         resp = ResponseEntity.noContent().build();
                     } else {
-                        resp = ResponseEntity.ok()
-                            .contentType(MediaType.APPLICATION_PDF)
-                            .header(
-                                "Content-Disposition",
-                                "inline; filename="
-                                    + "platform_invoice_"
-                                    + invoice.serialNumber()
-                                    + ".pdf"
-                            )
-                            .body(
-                                outputStream -> invoice.toPdf(outputStream)
-                            );
+                        resp = this.pdfs.platformInvoice(
+                            invoice,
+                            "platform_invoice_" + invoice.serialNumber()
+                            + ".pdf"
+                        );
                     }
                 }
             }
@@ -314,6 +401,63 @@ public class ContributorApi extends BaseApiController {
         return resp;
     }
 
+    /**
+     * Get the PDFs of the authenticated Contributor's Invoices from a given
+     * Contract, as one ZIP archive.
+     * @param owner Repo owner.
+     * @param name Repo name.
+     * @param role Contributor role (DEV, REV etc).
+     * @param from Only Invoices created on or after this day (optional).
+     * @param to Only Invoices created on or before this day (optional).
+     * @return Streamed ZIP archive.
+     * @checkstyle ParameterNumber (25 lines)
+     */
+    @GetMapping("/contributor/contracts/{owner}/{name}/invoices/zip")
+    public ResponseEntity<StreamingResponseBody> invoicesZip(
+        @PathVariable final String owner,
+        @PathVariable final String name,
+        @RequestParam("role") final String role,
+        @RequestParam(value = "from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+        @RequestParam(value = "to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
+        final Contributor contributor = this.user.asContributor();
+        if(contributor == null) {
+            resp = ResponseEntity.noContent().build();
+        } else {
+            final Contract contract = contributor.contract(
+                owner + "/" + name,
+                this.user.provider().name(),
+                role
+            );
+            if(contract == null) {
+                resp = ResponseEntity.badRequest().build();
+            } else {
+                final DateRange range = new DateRange(from, to);
+                final Map<String, PdfRenderer> pdfs = new LinkedHashMap<>();
+                StreamSupport.stream(contract.invoices().spliterator(), false)
+                    .filter(invoice -> range.contains(invoice.createdAt()))
+                    .forEachOrdered(
+                        invoice -> pdfs.put(
+                            "invoice_slfx_" + invoice.invoiceId() + ".pdf",
+                            this.pdfs.renderer(invoice)
+                        )
+                    );
+                resp = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(
+                        "Content-Disposition",
+                        "attachment; filename=invoices_"
+                        + owner + "_" + name + ".zip"
+                    )
+                    .body(this.zips.zip(pdfs));
+            }
+        }
+        return resp;
+    }
+
     /**
      * Mark for removal one contract of the authenticated Contributor.
      * @param owner Repo owner.
@@ -23,19 +23,26 @@
 package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
-import com.selfxdsd.selfweb.api.output.JsonPlatformInvoice;
+import com.selfxdsd.selfweb.api.input.DateRange;
+import com.selfxdsd.selfweb.api.input.TablePage;
+import com.selfxdsd.selfweb.api.output.StreamedPlatformInvoices;
+import com.selfxdsd.selfweb.pdf.InvoicePdfs;
+import com.selfxdsd.selfweb.pdf.PdfRenderer;
+import com.selfxdsd.selfweb.pdf.PdfZips;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonArrayBuilder;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Invoices API. Only for admins.
@@ -51,13 +58,39 @@ public class InvoicesApi extends BaseApiController {
      */
     private final User user;
 
+    /**
+     * PDFs of the Invoices.
+     */
+    private final InvoicePdfs pdfs;
+
+    /**
+     * ZIP archives of PDFs.
+     */
+    private final PdfZips zips;
+
     /**
      * Ctor.
      * @param user Authenticated user.
      */
-    @Autowired
     public InvoicesApi(final User user) {
+        this(user, new InvoicePdfs(), new PdfZips());
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param pdfs PDFs of the Invoices.
+     * @param zips ZIP archives of PDFs.
+     */
+    @Autowired
+    public InvoicesApi(
+        final User user,
+        final InvoicePdfs pdfs,
+        final PdfZips zips
+    ) {
         this.user = user;
+        this.pdfs = pdfs;
+        this.zips = zips;
     }
 
     /**
@@ -68,19 +101,75 @@ public class InvoicesApi extends BaseApiController {
         value = "/invoices",
         produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public ResponseEntity<String> invoices() {
-        final ResponseEntity<String> response;
+    public ResponseEntity<StreamingResponseBody> invoices() {
+        return this.invoicesPage(Map.of());
+    }
+
+    /**
+     * Get one page of the PlatformInvoices in Self, for DataTables'
+     * server-side processing.
+     * @param params DataTables parameters (draw, start, length etc).
+     * @return JsonObject with the page.
+     */
+    @GetMapping(
+        value = "/invoices",
+        params = "draw",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> invoicesPage(
+        @RequestParam final Map<String, String> params
+    ) {
+        final ResponseEntity<StreamingResponseBody> response;
         if(!"admin".equals(this.user.role())) {
             response = ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         } else {
-            final JsonArrayBuilder builder = Json.createArrayBuilder();
             final PlatformInvoices invoices = this.user.asAdmin()
                 .platformInvoices();
-            for(final PlatformInvoice invoice : invoices) {
-                builder.add(new JsonPlatformInvoice(invoice));
+            response = ResponseEntity.ok(
+                new StreamedPlatformInvoices(invoices)
+                    .page(new TablePage(params))
+            );
+        }
+        return response;
+    }
+
+    /**
+     * Get the PDFs of all the PlatformInvoices in Self, as one ZIP archive.
+     * @param from Only PlatformInvoices created on or after this day
+     *  (optional).
+     * @param to Only PlatformInvoices created on or before this day
+     *  (optional).
+     * @return Streamed ZIP archive.
+     */
+    @GetMapping("/invoices/zip")
+    public ResponseEntity<StreamingResponseBody> invoicesZip(
+        @RequestParam(value = "from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+        @RequestParam(value = "to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to
+    ) {
+        final ResponseEntity<StreamingResponseBody> response;
+        if(!"admin".equals(this.user.role())) {
+            response = ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } else {
+            final DateRange range = new DateRange(from, to);
+            final Map<String, PdfRenderer> pdfs = new LinkedHashMap<>();
+            for(final PlatformInvoice invoice
+                : this.user.asAdmin().platformInvoices()) {
+                if(range.contains(invoice.createdAt())) {
+                    pdfs.put(
+                        "platform_invoice_" + invoice.serialNumber() + ".pdf",
+                        this.pdfs.renderer(invoice)
+                    );
+                }
             }
-            final JsonArray array = builder.build();
-            response = ResponseEntity.ok(array.toString());
+            response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(
+                    "Content-Disposition",
+                    "attachment; filename=platform_invoices.zip"
+                )
+                .body(this.zips.zip(pdfs));
         }
         return response;
     }
@@ -106,18 +195,10 @@ public class InvoicesApi extends BaseApiController {
             if(invoice == null) {
                 response = ResponseEntity.noContent().build();
             } else {
-                response = ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(
-                        "Content-Disposition",
-                        "inline; filename="
-                            + "platform_invoice_"
-                            + invoice.serialNumber()
-                            + ".pdf"
-                    )
-                    .body(
-                        outputStream -> invoice.toPdf(outputStream)
-                    );
+                response = this.pdfs.platformInvoice(
+                    invoice,
+                    "platform_invoice_" + invoice.serialNumber() + ".pdf"
+                );
             }
         }
         return response;
@@ -148,18 +229,9 @@ public class InvoicesApi extends BaseApiController {
                 if(invoice == null) {
                     response = ResponseEntity.noContent().build();
                 } else {
-                    response = ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header(
-                            "Content-Disposition",
-                            "inline; filename="
-                                + "invoice_SLFX_"
-                                + invoice.invoiceId()
-                                + ".pdf"
-                        )
-                        .body(
-                            outputStream -> invoice.toPdf(outputStream)
-                        );
+                    response = this.pdfs.invoice(
+                        invoice, "invoice_SLFX_" + invoice.invoiceId() + ".pdf"
+                    );
                 }
             }
         }
@@ -28,6 +28,7 @@ import com.selfxdsd.api.Project;
 import com.selfxdsd.api.User;
 import com.selfxdsd.api.Wallet;
 import com.selfxdsd.selfweb.api.output.JsonPaymentMethod;
+import com.selfxdsd.selfweb.metrics.Outbound;
 import com.stripe.model.SetupIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -130,7 +131,9 @@ public class PaymentMethodsApi extends BaseApiController {
                 response = ResponseEntity.badRequest()
                     .body("Stripe Wallet not found.");
             } else {
-                final SetupIntent intent = wallet.paymentMethodSetupIntent();
+                final SetupIntent intent = Outbound.stripe(
+                    "setup_intent", wallet::paymentMethodSetupIntent
+                );
                 LOG.debug("SetupIntent successfully created!");
                 response = ResponseEntity.ok(
                     Json.createObjectBuilder()
@@ -199,11 +202,11 @@ public class PaymentMethodsApi extends BaseApiController {
                     .getString("paymentMethodId");
                 final PaymentMethods paymentMethods = wallet.paymentMethods();
                 final boolean wasEmpty = !paymentMethods.iterator().hasNext();
-                PaymentMethod paymentMethod = paymentMethods
-                    .register(
-                        wallet,
-                        paymentMethodId
-                    );
+                final Wallet stripe = wallet;
+                PaymentMethod paymentMethod = Outbound.stripe(
+                    "register_payment_method",
+                    () -> paymentMethods.register(stripe, paymentMethodId)
+                );
                 LOG.debug("PaymentMethod successfully saved!");
                 if (wasEmpty) {
                     response = this.activateStripePaymentMethodInternal(
@@ -322,7 +325,9 @@ public class PaymentMethodsApi extends BaseApiController {
             final PaymentMethod paymentMethod = this
                 .getStripePaymentMethod(owner, name, paymentMethodId);
             if (!paymentMethod.active()) {
-                final boolean removed = paymentMethod.remove();
+                final boolean removed = Outbound.stripe(
+                    "remove_payment_method", paymentMethod::remove
+                );
                 if (removed) {
                     LOG.debug("PaymentMethod successfully removed!");
                     response = ResponseEntity.noContent().build();
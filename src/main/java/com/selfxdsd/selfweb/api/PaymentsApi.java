@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api;
+
+import com.selfxdsd.api.User;
+import com.selfxdsd.selfweb.payments.PaymentJob;
+import com.selfxdsd.selfweb.payments.PaymentJobs;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Status of the Invoice payments running in the background, polled
+ * by the UI after paying an Invoice.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@RestController
+public class PaymentsApi extends BaseApiController {
+
+    /**
+     * Authenticated user.
+     */
+    private final User user;
+
+    /**
+     * Payments running in the background.
+     */
+    private final PaymentJobs payments;
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param payments Payments running in the background.
+     */
+    @Autowired
+    public PaymentsApi(final User user, final PaymentJobs payments) {
+        this.user = user;
+        this.payments = payments;
+    }
+
+    /**
+     * Get a payment job. While it runs, the response is 202 ACCEPTED.
+     * Once it is done, the response is the result of the payment.
+     * @param id Id of the job.
+     * @return JsonObject.
+     */
+    @GetMapping(
+        value = "/payments/{id}",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> payment(@PathVariable final String id) {
+        final ResponseEntity<String> resp;
+        final PaymentJob job = this.payments.job(this.user, id);
+        if(job == null) {
+            resp = ResponseEntity.notFound().build();
+        } else {
+            resp = job.response();
+        }
+        return resp;
+    }
+}
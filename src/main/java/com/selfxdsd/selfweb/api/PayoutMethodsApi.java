@@ -28,6 +28,7 @@ import com.selfxdsd.api.User;
 import com.selfxdsd.selfweb.api.input.BillingInfoInput;
 import static com.selfxdsd.selfweb.api.input.BillingInfoInput.*;
 import com.selfxdsd.selfweb.api.output.JsonPayoutMethods;
+import com.selfxdsd.selfweb.metrics.Outbound;
 import com.stripe.exception.StripeException;
 import com.stripe.model.AccountLink;
 import com.stripe.model.LoginLink;
@@ -128,15 +129,23 @@ public final class PayoutMethodsApi extends BaseApiController {
             resp = ResponseEntity.badRequest().build();
         } else {
             try {
-                final PayoutMethod created = contributor.createStripeAccount(
-                    new StripeBillingInfo(billingInfo)
+                final PayoutMethod created = Outbound.stripe(
+                    "create_account",
+                    () -> contributor.createStripeAccount(
+                        new StripeBillingInfo(billingInfo)
+                    )
                 );
                 LOG.debug("Stripe Connect Account successfully created!");
                 resp = ResponseEntity.ok(
                     Json.createObjectBuilder()
                         .add(
                             "stripeOnboardingLink",
-                            this.createStripeOnboardingLink(created.json())
+                            Outbound.stripe(
+                                "account_link",
+                                () -> this.createStripeOnboardingLink(
+                                    created.json()
+                                )
+                            )
                         ).build().toString()
                 );
             } catch (final IllegalStateException ex) {
@@ -205,7 +214,12 @@ public final class PayoutMethodsApi extends BaseApiController {
                             Json.createObjectBuilder()
                                 .add(
                                     "stripeOnboardingLink",
-                                    this.createStripeOnboardingLink(account)
+                                    Outbound.stripe(
+                                        "account_link",
+                                        () -> this.createStripeOnboardingLink(
+                                            account
+                                        )
+                                    )
                                 ).build().toString()
                         );
                     LOG.debug("Onboarding Link successfully created!");
@@ -264,7 +278,12 @@ public final class PayoutMethodsApi extends BaseApiController {
                             Json.createObjectBuilder()
                                 .add(
                                     "stripeLoginLink",
-                                    this.createStripeLoginLink(account)
+                                    Outbound.stripe(
+                                        "login_link",
+                                        () -> this.createStripeLoginLink(
+                                            account
+                                        )
+                                    )
                                 ).build().toString()
                         );
                     LOG.debug("Stripe Login Link successfully created!");
@@ -336,7 +355,9 @@ public final class PayoutMethodsApi extends BaseApiController {
                                 ).build().toString()
                         );
                 } else {
-                    final boolean deleted = stripe.remove();
+                    final boolean deleted = Outbound.stripe(
+                        "remove_account", stripe::remove
+                    );
                     if(deleted) {
                         LOG.debug("Stripe Connect account deleted!");
                         resp = ResponseEntity.noContent().build();
@@ -25,6 +25,7 @@ package com.selfxdsd.selfweb.api;
 import com.selfxdsd.api.*;
 import com.selfxdsd.selfweb.api.input.PmInput;
 import com.selfxdsd.selfweb.api.output.JsonProjectManager;
+import com.selfxdsd.selfweb.cache.SharedLookups;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -35,6 +36,8 @@ import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Project Managers.
@@ -55,18 +58,38 @@ public class ProjectManagersApi extends BaseApiController {
      */
     private final Self core;
 
+    /**
+     * ProjectManagers cached for all the sessions.
+     */
+    private final SharedLookups shared;
+
     /**
      * Ctor.
      * @param user Authenticated user.
      * @param core Self's core.
      */
-    @Autowired
     public ProjectManagersApi(
         final User user,
         final Self core
+    ) {
+        this(user, core, new SharedLookups());
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param core Self's core.
+     * @param shared ProjectManagers cached for all the sessions.
+     */
+    @Autowired
+    public ProjectManagersApi(
+        final User user,
+        final Self core,
+        final SharedLookups shared
     ) {
         this.user = user;
         this.core = core;
+        this.shared = shared;
     }
 
     /**
@@ -83,7 +106,16 @@ public class ProjectManagersApi extends BaseApiController {
             response = ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         } else {
             final JsonArrayBuilder builder = Json.createArrayBuilder();
-            final ProjectManagers managers = this.core.projectManagers();
+            final List<ProjectManager> managers = this.shared.managers(
+                () -> {
+                    final List<ProjectManager> all = new ArrayList<>();
+                    for(final ProjectManager manager
+                        : this.core.projectManagers()) {
+                        all.add(manager);
+                    }
+                    return all;
+                }
+            );
             for(final ProjectManager manager : managers) {
                 builder.add(new JsonProjectManager(manager));
             }
@@ -117,6 +149,7 @@ public class ProjectManagersApi extends BaseApiController {
                     newPm.getCommission(),
                     newPm.getContributorCommission()
                 );
+            this.shared.managersChanged();
             response = ResponseEntity.ok(
                 new JsonProjectManager(registered).toString()
             );
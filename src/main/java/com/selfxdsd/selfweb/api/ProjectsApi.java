@@ -25,6 +25,12 @@ package com.selfxdsd.selfweb.api;
 import com.selfxdsd.api.*;
 import com.selfxdsd.selfweb.api.input.RepoInput;
 import com.selfxdsd.selfweb.api.output.JsonProject;
+import com.selfxdsd.selfweb.badges.BadgeCache;
+import com.selfxdsd.selfweb.cache.SharedLookups;
+import com.selfxdsd.selfweb.limits.SingleFlight;
+import com.selfxdsd.selfweb.repos.ManagedRepos;
+import com.selfxdsd.selfweb.repos.OrgReposIndex;
+import com.selfxdsd.selfweb.metrics.Outbound;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +42,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.json.Json;
 import javax.validation.Valid;
+import java.util.Locale;
 
 /**
  * Projects.
@@ -64,15 +71,76 @@ public class ProjectsApi extends BaseApiController {
      */
     private final Self self;
 
+    /**
+     * Index of the user's Organization repos.
+     */
+    private final OrgReposIndex orgRepos;
+
+    /**
+     * Cached repository badges.
+     */
+    private final BadgeCache badges;
+
+    /**
+     * Coalesces the identical concurrent reads.
+     */
+    private final SingleFlight flights;
+
+    /**
+     * Index of the managed repos.
+     */
+    private final ManagedRepos managed;
+
+    /**
+     * Projects cached for all the sessions.
+     */
+    private final SharedLookups shared;
+
     /**
      * Ctor.
      * @param user Authenticated user.
      * @param self Self's core.
      */
-    @Autowired
     public ProjectsApi(final User user, final Self self) {
+        this(
+            user,
+            self,
+            new OrgReposIndex(),
+            new BadgeCache(self),
+            new SingleFlight(),
+            new ManagedRepos(self),
+            new SharedLookups()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param self Self's core.
+     * @param orgRepos Index of the user's Organization repos.
+     * @param badges Cached repository badges.
+     * @param flights Coalesces the identical concurrent reads.
+     * @param managed Index of the managed repos.
+     * @param shared Projects cached for all the sessions.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @Autowired
+    public ProjectsApi(
+        final User user,
+        final Self self,
+        final OrgReposIndex orgRepos,
+        final BadgeCache badges,
+        final SingleFlight flights,
+        final ManagedRepos managed,
+        final SharedLookups shared
+    ) {
         this.user = user;
         this.self = self;
+        this.orgRepos = orgRepos;
+        this.badges = badges;
+        this.flights = flights;
+        this.managed = managed;
+        this.shared = shared;
     }
 
     /**
@@ -80,7 +148,13 @@ public class ProjectsApi extends BaseApiController {
      *
      * If the Project owner does not match the authenticated User, we have
      * to check the User's organizations to see if the project
-     * is part of an organization where the User has admin rights.
+     * is part of an organization where the User has admin rights.<br><br>
+     *
+     * Users of the same organization often open a Project at the same
+     * time, so the concurrent reads of the same Project are coalesced:
+     * only the first one reads it, the others wait for it. Repos which
+     * the index knows are not managed are answered without reading and
+     * the Project itself is cached for all the sessions.
      *
      * @param owner Owner of the repo (username or org name).
      * @param name Simple name of the repo.
@@ -94,32 +168,40 @@ public class ProjectsApi extends BaseApiController {
         @PathVariable("owner") final String owner,
         @PathVariable("name") final String name
     ) {
-        final Project found = this.self.projects().getProjectById(
-            owner + "/" + name, user.provider().name()
+        final String provider = this.user.provider().name();
+        final String key = String.join(
+            "|",
+            "GET /projects/{owner}/{name}",
+            (provider + "/" + owner + "/" + name).toLowerCase(Locale.ROOT),
+            String.valueOf(this.user.role())
         );
+        final Project found;
+        if(this.managed.absent(owner + "/" + name, provider)) {
+            found = null;
+        } else {
+            found = this.flights.run(
+                key,
+                () -> this.shared.project(
+                    owner + "/" + name,
+                    provider,
+                    () -> this.self.projects().getProjectById(
+                        owner + "/" + name, provider
+                    )
+                )
+            );
+        }
         ResponseEntity<String> response = ResponseEntity.noContent().build();
         if(found != null) {
             final String foundOwner = found.owner().username();
-            if(foundOwner.equalsIgnoreCase(this.user.username())) {
+            if(foundOwner.equalsIgnoreCase(this.user.username())
+                || this.orgRepos.repo(this.user, found.repoFullName()) != null
+            ) {
                 response = ResponseEntity.ok(
-                    new JsonProject(found).toString()
+                    this.flights.run(
+                        key + "|json",
+                        () -> new JsonProject(found).toString()
+                    )
                 );
-            } else {
-                final Organizations orgs = this.user.provider()
-                    .organizations();
-                for(final Organization org : orgs) {
-                    for(final Repo repo : org.repos()) {
-                        if(repo.fullName().equals(found.repoFullName())) {
-                            response = ResponseEntity.ok(
-                                new JsonProject(found).toString()
-                            );
-                            break;
-                        }
-                    }
-                    if(response.getStatusCode().equals(HttpStatus.OK)) {
-                        break;
-                    }
-                }
             }
         }
         return response;
@@ -147,7 +229,18 @@ public class ProjectsApi extends BaseApiController {
                 .status(HttpStatus.PRECONDITION_FAILED)
                 .build();
         } else {
-            final Project activated = found.activate();
+            final Project activated = Outbound.provider(
+                "activate", found::activate
+            );
+            this.managed.activated(
+                activated.repoFullName(), activated.provider()
+            );
+            this.shared.projectChanged(
+                activated.repoFullName(), activated.provider()
+            );
+            this.badges.invalidate(
+                activated.repoFullName(), activated.provider()
+            );
             LOG.debug("Repo " + repo.fullName() + " successfully activated.");
             resp = ResponseEntity
                 .status(HttpStatus.CREATED)
@@ -235,7 +328,16 @@ public class ProjectsApi extends BaseApiController {
                 );
             } else {
                 try {
-                    project.deactivate(repo);
+                    Outbound.provider(
+                        "deactivate", () -> project.deactivate(repo)
+                    );
+                    this.managed.deactivated();
+                    this.shared.projectChanged(
+                        project.repoFullName(), project.provider()
+                    );
+                    this.badges.invalidate(
+                        project.repoFullName(), project.provider()
+                    );
                     LOG.debug(
                         "Project " + owner + "/" + name
                         + " successfully deleted!"
@@ -257,29 +359,23 @@ public class ProjectsApi extends BaseApiController {
     /**
      * Get the Repo. It can be a personal repo or a repo
      * from an Organization where the authenticated user has admin rights.
+     * If the Organization repo is not in the user's index, the index
+     * may be rebuilt, since the repo might have been created recently
+     * (see {@link OrgReposIndex#find(User, String)}).
      * @param owner Repo owner.
      * @param name Repo name.
      * @return Repo.
      */
     private Repo getRepo(final String owner, final String name) {
         final String username = this.user.username();
-        Repo found = null;
+        Repo found;
         if(owner.equalsIgnoreCase(username)) {
-            found = this.user.provider().repo(owner, name);
+            found = Outbound.provider(
+                "repo", () -> this.user.provider().repo(owner, name)
+            );
         } else {
-            final Organizations orgs = this.user.provider().organizations();
-            for(final Organization org : orgs) {
-                for(final Repo orgRepo : org.repos()) {
-                    final String fullName = owner + "/" + name;
-                    if(orgRepo.fullName().equalsIgnoreCase(fullName)) {
-                        found = orgRepo;
-                        break;
-                    }
-                }
-                if(found != null) {
-                    break;
-                }
-            }
+            final String fullName = owner + "/" + name;
+            found = this.orgRepos.find(this.user, fullName);
         }
         return found;
     }
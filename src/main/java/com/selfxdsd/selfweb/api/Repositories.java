@@ -23,6 +23,8 @@
 package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.repos.OrgRepos;
+import com.selfxdsd.selfweb.repos.OrgReposIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +34,7 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
+import java.util.Map;
 
 /**
  * Repositories.
@@ -51,18 +54,40 @@ public class Repositories extends BaseApiController {
      */
     private User user;
 
+    /**
+     * Index of the user's Organization repos.
+     */
+    private final OrgReposIndex orgRepos;
+
     /**
      * Ctor.
      * @param user Authenticatd user.
      */
-    @Autowired
     public Repositories(final User user) {
+        this(user, new OrgReposIndex());
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticatd user.
+     * @param orgRepos Index of the user's Organization repos.
+     */
+    @Autowired
+    public Repositories(final User user, final OrgReposIndex orgRepos) {
         this.user = user;
+        this.orgRepos = orgRepos;
     }
 
     /**
      * Get the user's organization repos (repos in an organization
-     * to which the user has admin rights).
+     * to which the user has admin rights).<br><br>
+     *
+     * If the Repos of some Organizations could not be fetched, the
+     * response is partial: each failed Organization is flagged with an
+     * entry like
+     * {"failed": true, "organization": "self-xdsd", "reason": "timeout"}
+     * at the end of the array. The organization is the Organization's id
+     * or, if it has none, its position in the Provider's list (e.g. "#2").
      * @return ResponseEntity.
      */
     @GetMapping(
@@ -70,17 +95,20 @@ public class Repositories extends BaseApiController {
         produces = MediaType.APPLICATION_JSON_VALUE
     )
     public ResponseEntity<String> organizationRepos() {
+        final OrgRepos found = this.orgRepos.snapshot(this.user);
         JsonArrayBuilder reposBuilder = Json.createArrayBuilder();
-        final Organizations orgs = this.user
-            .provider()
-            .organizations();
-        for(final Organization org : orgs) {
-            for(final Repo repo : org.repos()) {
-                reposBuilder = reposBuilder.add(Json.createObjectBuilder()
-                    .add("repoFullName", repo.fullName())
-                    .add("provider", repo.provider())
-                    .build());
-            }
+        for(final Repo repo : found.all()) {
+            reposBuilder = reposBuilder.add(Json.createObjectBuilder()
+                .add("repoFullName", repo.fullName())
+                .add("provider", repo.provider())
+                .build());
+        }
+        for(final Map.Entry<String, String> org : found.failed().entrySet()) {
+            reposBuilder = reposBuilder.add(Json.createObjectBuilder()
+                .add("failed", true)
+                .add("organization", org.getKey())
+                .add("reason", org.getValue())
+                .build());
         }
         final JsonArray repos = reposBuilder.build();
         final ResponseEntity<String> response;
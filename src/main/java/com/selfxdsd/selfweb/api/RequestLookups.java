@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api;
+
+import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Identity map of the Projects, Contracts, Invoices and Wallets looked up
+ * during one HTTP request.<br><br>
+ *
+ * Navigating Self's domain (user.projects().getProjectById(...),
+ * project.contracts().findById(...), contract.invoices() etc) issues
+ * SQL queries on every call. Within one request, we keep the first result
+ * of each lookup and hand the same object out again. Missing Projects or
+ * Contracts are remembered too. The number of SQL statements executed
+ * during the request (as traced by SqlTimings) and of loaded and reused
+ * objects are sent back in the Self-Lookups response header, e.g.
+ * "queries=12, loaded=3, reused=6", read when the response is
+ * committed.<br><br>
+ *
+ * The loaded objects are never refreshed, so this should not outlive
+ * the request (or a test).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+@RequestScope
+public class RequestLookups {
+
+    /**
+     * Response header with the lookup counts.
+     */
+    static final String HEADER = "Self-Lookups";
+
+    /**
+     * Projects by provider and full name.
+     */
+    private final Map<String, Project> projects;
+
+    /**
+     * Contracts by their id.
+     */
+    private final Map<String, Contract> contracts;
+
+    /**
+     * Invoices of each Contract.
+     */
+    private final Map<Contract, Invoices> invoices;
+
+    /**
+     * Wallets of each Project.
+     */
+    private final Map<Project, Wallets> wallets;
+
+    /**
+     * Objects loaded from Self.
+     */
+    private int loaded;
+
+    /**
+     * Lookups served from memory.
+     */
+    private int reused;
+
+    /**
+     * Trace of the request, to which the header was added; null until
+     * the first lookup.
+     */
+    private RequestTrace trace;
+
+    /**
+     * Ctor.
+     */
+    public RequestLookups() {
+        this.projects = new HashMap<>();
+        this.contracts = new HashMap<>();
+        this.invoices = new IdentityHashMap<>();
+        this.wallets = new IdentityHashMap<>();
+    }
+
+    /**
+     * One of the User's Projects.
+     * @param user Authenticated User.
+     * @param repoFullName Full name of the Project's repo.
+     * @return Project or null if it is missing.
+     */
+    public Project project(final User user, final String repoFullName) {
+        final String provider = user.provider().name();
+        return this.lookup(
+            this.projects,
+            provider + "/" + repoFullName,
+            key -> user.projects().getProjectById(repoFullName, provider)
+        );
+    }
+
+    /**
+     * One of the Project's Contracts.
+     * @param project Project.
+     * @param id Contract id.
+     * @return Contract or null if it is missing.
+     */
+    public Contract contract(final Project project, final Contract.Id id) {
+        return this.lookup(
+            this.contracts,
+            String.join(
+                "/",
+                id.getProvider(),
+                id.getRepoFullName(),
+                id.getContributorUsername(),
+                id.getRole()
+            ),
+            key -> project.contracts().findById(id)
+        );
+    }
+
+    /**
+     * Invoices of a Contract.
+     * @param contract Contract.
+     * @return Invoices.
+     */
+    public Invoices invoices(final Contract contract) {
+        return this.lookup(this.invoices, contract, Contract::invoices);
+    }
+
+    /**
+     * Wallets of a Project.
+     * @param project Project.
+     * @return Wallets.
+     */
+    public Wallets wallets(final Project project) {
+        return this.lookup(this.wallets, project, Project::wallets);
+    }
+
+    /**
+     * Number of objects loaded from Self in this request.
+     * @return Integer.
+     */
+    public int loaded() {
+        return this.loaded;
+    }
+
+    /**
+     * Number of lookups served from memory in this request.
+     * @return Integer.
+     */
+    public int reused() {
+        return this.reused;
+    }
+
+    /**
+     * Look an object up in one of the maps, loading it if it is missing.
+     * @param map Map.
+     * @param key Key.
+     * @param load Loads the object.
+     * @param <K> Type of the key.
+     * @param <V> Type of the object.
+     * @return The object, null if it does not exist.
+     */
+    private <K, V> V lookup(
+        final Map<K, V> map,
+        final K key,
+        final Function<K, V> load
+    ) {
+        final V found;
+        if(map.containsKey(key)) {
+            found = map.get(key);
+            this.reused = this.reused + 1;
+        } else {
+            found = load.apply(key);
+            map.put(key, found);
+            this.loaded = this.loaded + 1;
+        }
+        this.report();
+        return found;
+    }
+
+    /**
+     * Add the counts header to the trace of the request, if it is traced.
+     */
+    private void report() {
+        if(this.trace == null) {
+            final RequestTrace current = RequestTrace.current();
+            if(current != null) {
+                current.header(HEADER, () -> this.counts(current));
+                this.trace = current;
+            }
+        }
+    }
+
+    /**
+     * Value of the counts header.
+     * @param current Trace of the request.
+     * @return String, e.g. "queries=12, loaded=3, reused=6".
+     */
+    private String counts(final RequestTrace current) {
+        return "queries=" + current.calls("db")
+            + ", loaded=" + this.loaded
+            + ", reused=" + this.reused;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api;
+
+import com.selfxdsd.api.User;
+import com.selfxdsd.selfweb.metrics.Traces;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Timing breakdowns of the most recent API requests: how long each one
+ * spent calling the Providers, Stripe and the database. Only for admins.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@RestController
+public class TracesApi extends BaseApiController {
+
+    /**
+     * Authenticated user.
+     */
+    private final User user;
+
+    /**
+     * Recent request traces.
+     */
+    private final Traces traces;
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param traces Recent request traces.
+     */
+    @Autowired
+    public TracesApi(final User user, final Traces traces) {
+        this.user = user;
+        this.traces = traces;
+    }
+
+    /**
+     * Get the traces of the most recent requests, newest first.
+     * @return JsonArray.
+     */
+    @GetMapping(
+        value = "/traces",
+        produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<String> traces() {
+        final ResponseEntity<String> response;
+        if(!"admin".equals(this.user.role())) {
+            response = ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } else {
+            response = ResponseEntity.ok(this.traces.json().toString());
+        }
+        return response;
+    }
+}
@@ -28,6 +28,9 @@ import com.selfxdsd.selfweb.api.input.BillingInfoInput;
 import static com.selfxdsd.selfweb.api.input.BillingInfoInput.*;
 import com.selfxdsd.selfweb.api.output.JsonWallet;
 import com.selfxdsd.selfweb.api.output.JsonWallets;
+import com.selfxdsd.selfweb.cache.SharedLookups;
+import com.selfxdsd.selfweb.events.UserEvents;
+import com.selfxdsd.selfweb.metrics.Outbound;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +39,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.json.Json;
+import javax.json.JsonObject;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import java.math.BigDecimal;
@@ -63,13 +68,48 @@ public class WalletsApi extends BaseApiController {
      */
     private final User user;
 
+    /**
+     * Events of the Users.
+     */
+    private final UserEvents events;
+
+    /**
+     * Wallet types cached for all the sessions.
+     */
+    private final SharedLookups shared;
+
     /**
      * Ctor.
      * @param user Authenticated user.
      */
-    @Autowired
     public WalletsApi(final User user) {
+        this(user, new UserEvents());
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param events Events of the Users.
+     */
+    public WalletsApi(final User user, final UserEvents events) {
+        this(user, events, new SharedLookups());
+    }
+
+    /**
+     * Ctor.
+     * @param user Authenticated user.
+     * @param events Events of the Users.
+     * @param shared Wallet types cached for all the sessions.
+     */
+    @Autowired
+    public WalletsApi(
+        final User user,
+        final UserEvents events,
+        final SharedLookups shared
+    ) {
         this.user = user;
+        this.events = events;
+        this.shared = shared;
     }
 
     /**
@@ -121,15 +161,18 @@ public class WalletsApi extends BaseApiController {
             response = ResponseEntity.badRequest().build();
         } else {
             try {
-                response = ResponseEntity.ok(
+                final JsonObject created = this.updated(
+                    found,
                     new JsonWallet(
-                        found.createStripeWallet(
-                            new StripeBillingInfo(
-                                billingInfo
+                        Outbound.stripe(
+                            "create_wallet",
+                            () -> found.createStripeWallet(
+                                new StripeBillingInfo(billingInfo)
                             )
                         )
-                    ).toString()
+                    )
                 );
+                response = ResponseEntity.ok(created.toString());
             } catch (final WalletAlreadyExistsException ex) {
                 LOG.error(
                     "WalletAlreadyExistsException when creating "
@@ -189,7 +232,9 @@ public class WalletsApi extends BaseApiController {
                         .setScale(2, RoundingMode.HALF_UP)
                         .multiply(BigDecimal.valueOf(100));
                     response = ResponseEntity.ok(
-                        new JsonWallet(wallet.updateCash(cash)).toString()
+                        this.updated(
+                            found, new JsonWallet(wallet.updateCash(cash))
+                        ).toString()
                     );
                 }
             }
@@ -240,10 +285,37 @@ public class WalletsApi extends BaseApiController {
                     activated = wallet.activate();
                 }
                 response = ResponseEntity.ok(
-                    new JsonWallet(activated, Boolean.FALSE).toString()
+                    this.updated(
+                        project, new JsonWallet(activated, Boolean.FALSE)
+                    ).toString()
                 );
             }
         }
         return response;
     }
+
+    /**
+     * Tell the User that one of the Project's Wallets changed.
+     * @param project Project.
+     * @param wallet The changed Wallet, as JSON.
+     * @return The Wallet.
+     */
+    private JsonObject updated(
+        final Project project,
+        final JsonObject wallet
+    ) {
+        this.shared.walletChanged(
+            String.valueOf(project.repoFullName()),
+            String.valueOf(project.provider())
+        );
+        this.events.publish(
+            this.user,
+            "wallet.updated",
+            Json.createObjectBuilder()
+                .add("project", String.valueOf(project.repoFullName()))
+                .add("wallet", wallet)
+                .build()
+        );
+        return wallet;
+    }
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.input;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Range of days, given by the optional "from" and "to" query parameters.
+ * Both ends are inclusive and a missing end means no limit.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class DateRange {
+
+    /**
+     * First day, null if there is no lower limit.
+     */
+    private final LocalDate from;
+
+    /**
+     * Last day, null if there is no upper limit.
+     */
+    private final LocalDate to;
+
+    /**
+     * Ctor.
+     * @param from First day, may be null.
+     * @param to Last day, may be null.
+     */
+    public DateRange(final LocalDate from, final LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Is the moment in this range?
+     * @param moment Moment, null is never in range.
+     * @return True or false.
+     */
+    public boolean contains(final LocalDateTime moment) {
+        boolean contains = moment != null;
+        if(contains && this.from != null) {
+            contains = !moment.toLocalDate().isBefore(this.from);
+        }
+        if(contains && this.to != null) {
+            contains = !moment.toLocalDate().isAfter(this.to);
+        }
+        return contains;
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.input;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Page of a table, as requested by DataTables in server-side
+ * processing mode (draw, start, length, search[value], order[0][column]
+ * and order[0][dir] query parameters).<br><br>
+ *
+ * Invalid or missing numbers fall back to their defaults: the first page,
+ * no ordering and no filtering.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class TablePage {
+
+    /**
+     * Draw counter sent by DataTables, -1 if this is not a paged request.
+     */
+    private final int draw;
+
+    /**
+     * Index of the first record in the page.
+     */
+    private final int start;
+
+    /**
+     * Number of records in the page.
+     */
+    private final int length;
+
+    /**
+     * Lowercase search term, empty if there is no filtering.
+     */
+    private final String search;
+
+    /**
+     * Index of the column to order by, -1 if there is no ordering.
+     */
+    private final int column;
+
+    /**
+     * Ascending order?
+     */
+    private final boolean ascending;
+
+    /**
+     * Ctor.
+     * @param params Query parameters of the request.
+     */
+    public TablePage(final Map<String, String> params) {
+        this.draw = TablePage.number(params, "draw", -1);
+        this.start = Math.max(0, TablePage.number(params, "start", 0));
+        final int len = TablePage.number(params, "length", 10);
+        if(len < 0) {
+            this.length = Integer.MAX_VALUE;
+        } else {
+            this.length = len;
+        }
+        this.search = params.getOrDefault("search[value]", "")
+            .trim().toLowerCase(Locale.ROOT);
+        this.column = TablePage.number(params, "order[0][column]", -1);
+        this.ascending = !"desc".equalsIgnoreCase(
+            params.get("order[0][dir]")
+        );
+    }
+
+    /**
+     * Is this a paged request? If not, the whole list should be returned.
+     * @return True or false.
+     */
+    public boolean requested() {
+        return this.draw >= 0;
+    }
+
+    /**
+     * Draw counter, to be sent back to DataTables.
+     * @return Integer.
+     */
+    public int draw() {
+        return this.draw;
+    }
+
+    /**
+     * Index of the first record in the page.
+     * @return Integer.
+     */
+    public int start() {
+        return this.start;
+    }
+
+    /**
+     * Index after the last record in the page.
+     * @return Integer.
+     */
+    public int end() {
+        return (int) Math.min(
+            Integer.MAX_VALUE, (long) this.start + this.length
+        );
+    }
+
+    /**
+     * Lowercase search term, empty if there is no filtering.
+     * @return String.
+     */
+    public String search() {
+        return this.search;
+    }
+
+    /**
+     * Index of the column to order by.
+     * @return Integer, -1 if there is no ordering.
+     */
+    public int column() {
+        return this.column;
+    }
+
+    /**
+     * Ascending order?
+     * @return True or false.
+     */
+    public boolean ascending() {
+        return this.ascending;
+    }
+
+    /**
+     * Read a number from the parameters.
+     * @param params Parameters.
+     * @param name Name of the parameter.
+     * @param def Default value, if the parameter is missing or invalid.
+     * @return Integer.
+     */
+    private static int number(
+        final Map<String, String> params,
+        final String name,
+        final int def
+    ) {
+        int value;
+        try {
+            value = Integer.parseInt(params.getOrDefault(name, "").trim());
+        } catch (final NumberFormatException ex) {
+            value = def;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.selfweb.api.input.TablePage;
+import com.selfxdsd.selfweb.db.DbRoute;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * A JSON array written straight to the response, element by element.<br>
+ * <br>
+ * Unlike {@link AbstractJsonArray}, no JSON tree and no String are built:
+ * the domain objects are read one by one while the JSON is generated, so
+ * the memory used does not grow with the size of the list. It can also
+ * be written as one page of a DataTables table, see {@link #page(TablePage)}.
+ * <br><br>
+ * The stream is written in an async thread, after the controller returned,
+ * so the writing runs with the {@link RequestTrace} and on the
+ * {@link DbRoute} of the request which built the stream: the SQL and
+ * provider calls made while writing are part of that request's trace and
+ * read from the same database (primary or replica) as the request did.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ * @param <T> Type of the elements.
+ */
+public abstract class AbstractJsonStream<T> implements StreamingResponseBody {
+
+    /**
+     * Generators factory, thread-safe.
+     */
+    private static final JsonGeneratorFactory GENERATORS = Json
+        .createGeneratorFactory(Collections.emptyMap());
+
+    /**
+     * Elements to write.
+     */
+    private final Supplier<Iterator<T>> elements;
+
+    /**
+     * Trace of the request which built this stream, may be null.
+     */
+    private final RequestTrace trace;
+
+    /**
+     * Database route of the request which built this stream.
+     */
+    private final DbRoute route;
+
+    /**
+     * Ctor.
+     * @param elements Elements to write, read only when writing.
+     */
+    public AbstractJsonStream(final Supplier<Iterator<T>> elements) {
+        this.elements = elements;
+        this.trace = RequestTrace.current();
+        this.route = DbRoute.current();
+    }
+
+    /**
+     * Write only the requested page, if any.
+     * @param page Requested page.
+     * @return The page or this whole array, if no page was requested.
+     */
+    public final StreamingResponseBody page(final TablePage page) {
+        final StreamingResponseBody body;
+        if(page.requested()) {
+            body = new PagedJsonStream<>(this, page);
+        } else {
+            body = this;
+        }
+        return body;
+    }
+
+    @Override
+    public final void writeTo(final OutputStream out) throws IOException {
+        this.within(
+            () -> {
+                final JsonGenerator generator = AbstractJsonStream
+                    .generator(out);
+                generator.writeStartArray();
+                final Iterator<T> iterator = this.elements();
+                while(iterator.hasNext()) {
+                    this.write(generator, iterator.next());
+                }
+                generator.writeEnd();
+                generator.flush();
+            }
+        );
+    }
+
+    /**
+     * Write one element of the array.
+     * @param generator JsonGenerator.
+     * @param element Element to write.
+     */
+    protected abstract void write(JsonGenerator generator, T element);
+
+    /**
+     * Orderings of the columns, in the same order as the columns of the
+     * table in the front-end. A null SortKey means the column cannot
+     * be used for ordering.
+     * @return List of SortKey.
+     */
+    protected abstract List<SortKey<T, ?>> columns();
+
+    /**
+     * Lowercase text of the element, in which the search term is looked up.
+     * @param element Element.
+     * @return String.
+     */
+    protected abstract String text(T element);
+
+    /**
+     * Do some writing in the context of the request which built
+     * this stream.
+     * @param writing Writing.
+     * @throws IOException If the writing fails.
+     */
+    final void within(final Writing writing) throws IOException {
+        try {
+            DbRoute.within(
+                this.route,
+                () -> RequestTrace.within(
+                    this.trace,
+                    () -> {
+                        try {
+                            writing.write();
+                        } catch (final IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        return null;
+                    }
+                )
+            );
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Read the elements.
+     * @return Iterator.
+     */
+    Iterator<T> elements() {
+        return this.elements.get();
+    }
+
+    /**
+     * Create a JsonGenerator writing UTF-8 to the given OutputStream.
+     * @param out OutputStream.
+     * @return JsonGenerator.
+     */
+    static JsonGenerator generator(final OutputStream out) {
+        return GENERATORS.createGenerator(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Format an amount in cents as Euro, like the rest of the API does.
+     * @param cents Amount in cents.
+     * @return Formatted amount.
+     */
+    protected static String euro(final BigDecimal cents) {
+        return NumberFormat.getCurrencyInstance(Locale.GERMANY).format(
+            cents.divide(BigDecimal.valueOf(100))
+        );
+    }
+
+    /**
+     * Writing to the response.
+     */
+    @FunctionalInterface
+    interface Writing {
+
+        /**
+         * Write.
+         * @throws IOException If something goes wrong.
+         */
+        void write() throws IOException;
+    }
+}
@@ -3,6 +3,8 @@ package com.selfxdsd.selfweb.api.output;
 import com.selfxdsd.api.Contract;
 
 import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Locale;
@@ -34,58 +36,77 @@ public final class JsonContract extends AbstractJsonObject{
     public JsonContract(final Contract contract, final boolean withWalletType) {
         super(
             () -> {
+                final BigDecimal value = contract.value();
+                final BigDecimal revenue = contract.revenue();
+                final String walletType;
                 if(withWalletType) {
-                    return Json.createObjectBuilder()
-                        .add("id", Json.createObjectBuilder()
-                            .add("repoFullName", contract.contractId()
-                                .getRepoFullName())
-                            .add("contributorUsername", contract.contractId()
-                                .getContributorUsername())
-                            .add("provider", contract.contractId().getProvider())
-                            .add("role", contract.contractId().getRole())
-                            .build())
-                        .add("hourlyRate", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.hourlyRate().divide(BigDecimal.valueOf(100))))
-                        .add("value", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.value().divide(BigDecimal.valueOf(100))))
-                        .add("revenue", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.revenue().divide(BigDecimal.valueOf(100))))
-                        .add(
-                            "markedForRemoval",
-                            String.valueOf(contract.markedForRemoval()))
-                        .add(
-                            "projectWalletType",
-                            contract.project().wallets().active().type()
-                        )
-                        .build();
+                    walletType = contract.project().wallets().active().type();
                 } else {
-                    return Json.createObjectBuilder()
-                        .add("id", Json.createObjectBuilder()
-                            .add("repoFullName", contract.contractId()
-                                .getRepoFullName())
-                            .add("contributorUsername", contract.contractId()
-                                .getContributorUsername())
-                            .add("provider", contract.contractId().getProvider())
-                            .add("role", contract.contractId().getRole())
-                            .build())
-                        .add("hourlyRate", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.hourlyRate().divide(BigDecimal.valueOf(100))))
-                        .add("value", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.value().divide(BigDecimal.valueOf(100))))
-                        .add("revenue", NumberFormat
-                            .getCurrencyInstance(Locale.GERMANY)
-                            .format(contract.revenue().divide(BigDecimal.valueOf(100))))
-                        .add(
-                            "markedForRemoval",
-                            String.valueOf(contract.markedForRemoval())
-                        ).build();
+                    walletType = null;
                 }
+                return JsonContract.json(contract, value, revenue, walletType);
             }
         );
     }
+
+    /**
+     * Ctor with the Contract's totals and Project wallet type already
+     * loaded (same JSON as with withWalletType = true).
+     * @param contract Contract.
+     * @param value Value of the Contract.
+     * @param revenue Revenue of the Contract.
+     * @param walletType Type of the Project's active wallet.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public JsonContract(
+        final Contract contract,
+        final BigDecimal value,
+        final BigDecimal revenue,
+        final String walletType
+    ) {
+        super(JsonContract.json(contract, value, revenue, walletType));
+    }
+
+    /**
+     * Build the Contract's JSON.
+     * @param contract Contract.
+     * @param value Value of the Contract.
+     * @param revenue Revenue of the Contract.
+     * @param walletType Type of the Project's active wallet, null if it
+     *  should not be added.
+     * @return JsonObject.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private static JsonObject json(
+        final Contract contract,
+        final BigDecimal value,
+        final BigDecimal revenue,
+        final String walletType
+    ) {
+        final JsonObjectBuilder json = Json.createObjectBuilder()
+            .add("id", Json.createObjectBuilder()
+                .add("repoFullName", contract.contractId()
+                    .getRepoFullName())
+                .add("contributorUsername", contract.contractId()
+                    .getContributorUsername())
+                .add("provider", contract.contractId().getProvider())
+                .add("role", contract.contractId().getRole())
+                .build())
+            .add("hourlyRate", NumberFormat
+                .getCurrencyInstance(Locale.GERMANY)
+                .format(contract.hourlyRate().divide(BigDecimal.valueOf(100))))
+            .add("value", NumberFormat
+                .getCurrencyInstance(Locale.GERMANY)
+                .format(value.divide(BigDecimal.valueOf(100))))
+            .add("revenue", NumberFormat
+                .getCurrencyInstance(Locale.GERMANY)
+                .format(revenue.divide(BigDecimal.valueOf(100))))
+            .add(
+                "markedForRemoval",
+                String.valueOf(contract.markedForRemoval()));
+        if(walletType != null) {
+            json.add("projectWalletType", walletType);
+        }
+        return json.build();
+    }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.selfweb.api.input.TablePage;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.json.stream.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One page of an {@link AbstractJsonStream}, in the format expected by
+ * DataTables' server-side processing:
+ * {"draw": 1, "data": [...], "recordsTotal": 57, "recordsFiltered": 3}.
+ * <br><br>
+ *
+ * If no ordering is requested, the elements are filtered and written
+ * on the fly, only those in the page. Otherwise, the matching elements
+ * are collected (not their JSON) and sorted by their {@link SortKey}
+ * before writing the page.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ * @param <T> Type of the elements.
+ */
+final class PagedJsonStream<T> implements StreamingResponseBody {
+
+    /**
+     * The whole JSON array.
+     */
+    private final AbstractJsonStream<T> all;
+
+    /**
+     * Requested page.
+     */
+    private final TablePage page;
+
+    /**
+     * Ctor.
+     * @param all The whole JSON array.
+     * @param page Requested page.
+     */
+    PagedJsonStream(final AbstractJsonStream<T> all, final TablePage page) {
+        this.all = all;
+        this.page = page;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        this.all.within(
+            () -> {
+                final JsonGenerator generator = AbstractJsonStream
+                    .generator(out);
+                generator.writeStartObject()
+                    .write("draw", this.page.draw())
+                    .writeStartArray("data");
+                final SortKey<T, ?> order = this.order();
+                final int[] counts = new int[2];
+                if(order == null) {
+                    this.unsorted(generator, counts);
+                } else {
+                    this.sorted(generator, order, counts);
+                }
+                generator.writeEnd()
+                    .write("recordsTotal", counts[0])
+                    .write("recordsFiltered", counts[1])
+                    .writeEnd();
+                generator.flush();
+            }
+        );
+    }
+
+    /**
+     * Filter the elements and write those in the page, as they come.
+     * @param generator JsonGenerator.
+     * @param counts Where to put the total and filtered counts.
+     */
+    private void unsorted(final JsonGenerator generator, final int[] counts) {
+        final Iterator<T> elements = this.all.elements();
+        int total = 0;
+        int matching = 0;
+        while(elements.hasNext()) {
+            final T element = elements.next();
+            ++total;
+            if(this.matches(element)) {
+                if(matching >= this.page.start()
+                    && matching < this.page.end()) {
+                    this.all.write(generator, element);
+                }
+                ++matching;
+            }
+        }
+        counts[0] = total;
+        counts[1] = matching;
+    }
+
+    /**
+     * Filter and sort the elements, then write those in the page.
+     * @param generator JsonGenerator.
+     * @param order Ordering.
+     * @param counts Where to put the total and filtered counts.
+     */
+    private void sorted(
+        final JsonGenerator generator,
+        final SortKey<T, ?> order,
+        final int[] counts
+    ) {
+        final Iterator<T> elements = this.all.elements();
+        final List<T> matching = new ArrayList<>();
+        int total = 0;
+        while(elements.hasNext()) {
+            final T element = elements.next();
+            ++total;
+            if(this.matches(element)) {
+                matching.add(element);
+            }
+        }
+        final List<T> sorted = order.sort(matching, this.page.ascending());
+        final int end = Math.min(sorted.size(), this.page.end());
+        for(int idx = this.page.start(); idx < end; ++idx) {
+            this.all.write(generator, sorted.get(idx));
+        }
+        counts[0] = total;
+        counts[1] = matching.size();
+    }
+
+    /**
+     * Does the element match the search term?
+     * @param element Element.
+     * @return True or false.
+     */
+    private boolean matches(final T element) {
+        return this.page.search().isEmpty()
+            || this.all.text(element).contains(this.page.search());
+    }
+
+    /**
+     * Requested ordering.
+     * @return SortKey or null if the elements should not be sorted.
+     */
+    private SortKey<T, ?> order() {
+        final List<SortKey<T, ?>> columns = this.all.columns();
+        final int column = this.page.column();
+        SortKey<T, ?> order = null;
+        if(column >= 0 && column < columns.size()) {
+            order = columns.get(column);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ordering of a table column: the sort key of each element and
+ * the order of the keys.<br><br>
+ *
+ * Reading a key (e.g. the value of a Contract) may go to the database,
+ * so when sorting, the key of each element is read only once, not every
+ * time two elements are compared.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ * @param <T> Type of the elements.
+ * @param <K> Type of the key.
+ */
+final class SortKey<T, K> {
+
+    /**
+     * Reads the key of an element.
+     */
+    private final Function<T, K> key;
+
+    /**
+     * Order of the keys.
+     */
+    private final Comparator<? super K> order;
+
+    /**
+     * Ctor.
+     * @param key Reads the key of an element.
+     * @param order Order of the keys.
+     */
+    SortKey(final Function<T, K> key, final Comparator<? super K> order) {
+        this.key = key;
+        this.order = order;
+    }
+
+    /**
+     * Keys in their natural order.
+     * @param key Reads the key of an element.
+     * @param <T> Type of the elements.
+     * @param <K> Type of the key.
+     * @return SortKey.
+     */
+    static <T, K extends Comparable<? super K>> SortKey<T, K> natural(
+        final Function<T, K> key
+    ) {
+        return new SortKey<>(key, Comparator.naturalOrder());
+    }
+
+    /**
+     * Keys in their natural order, missing (null) keys first.
+     * @param key Reads the key of an element.
+     * @param <T> Type of the elements.
+     * @param <K> Type of the key.
+     * @return SortKey.
+     */
+    static <T, K extends Comparable<? super K>> SortKey<T, K> nullsFirst(
+        final Function<T, K> key
+    ) {
+        return new SortKey<>(
+            key, Comparator.nullsFirst(Comparator.naturalOrder())
+        );
+    }
+
+    /**
+     * Sort the elements by their keys.
+     * @param elements Elements.
+     * @param ascending Ascending or descending?
+     * @return Sorted elements.
+     */
+    List<T> sort(final List<T> elements, final boolean ascending) {
+        final List<Keyed<T, K>> keyed = new ArrayList<>(elements.size());
+        for(final T element : elements) {
+            keyed.add(new Keyed<>(this.key.apply(element), element));
+        }
+        Comparator<Keyed<T, K>> comparator = Comparator.comparing(
+            (Keyed<T, K> element) -> element.key(), this.order
+        );
+        if(!ascending) {
+            comparator = comparator.reversed();
+        }
+        keyed.sort(comparator);
+        final List<T> sorted = new ArrayList<>(keyed.size());
+        for(final Keyed<T, K> element : keyed) {
+            sorted.add(element.element());
+        }
+        return sorted;
+    }
+
+    /**
+     * Element with its sort key.
+     * @param <E> Type of the element.
+     * @param <V> Type of the key.
+     */
+    private static final class Keyed<E, V> {
+
+        /**
+         * Sort key.
+         */
+        private final V key;
+
+        /**
+         * Element.
+         */
+        private final E element;
+
+        /**
+         * Ctor.
+         * @param key Sort key.
+         * @param element Element.
+         */
+        Keyed(final V key, final E element) {
+            this.key = key;
+            this.element = element;
+        }
+
+        /**
+         * Sort key.
+         * @return Key.
+         */
+        V key() {
+            return this.key;
+        }
+
+        /**
+         * Element.
+         * @return Element.
+         */
+        E element() {
+            return this.element;
+        }
+    }
+}
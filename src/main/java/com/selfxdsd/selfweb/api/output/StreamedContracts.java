@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.Contract;
+
+import javax.json.stream.JsonGenerator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Contracts streamed as JSON, same format as {@link JsonContracts}
+ * (without the Project's wallet type).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class StreamedContracts extends AbstractJsonStream<Contract> {
+
+    /**
+     * Orderings of the contracts table columns: contributor, role,
+     * hourly rate, value and the (not sortable) options.
+     */
+    private static final List<SortKey<Contract, ?>> COLUMNS = Arrays.asList(
+        SortKey.natural(
+            (Contract contract) -> contract.contractId()
+                .getContributorUsername()
+        ),
+        SortKey.natural(
+            (Contract contract) -> contract.contractId().getRole()
+        ),
+        SortKey.natural(Contract::hourlyRate),
+        SortKey.natural(Contract::value),
+        null
+    );
+
+    /**
+     * Ctor.
+     * @param contracts Contracts to be streamed as JSON.
+     */
+    public StreamedContracts(final Iterable<Contract> contracts) {
+        super(contracts::iterator);
+    }
+
+    @Override
+    protected void write(
+        final JsonGenerator generator,
+        final Contract contract
+    ) {
+        final Contract.Id id = contract.contractId();
+        generator.writeStartObject()
+            .writeStartObject("id")
+            .write("repoFullName", id.getRepoFullName())
+            .write("contributorUsername", id.getContributorUsername())
+            .write("provider", id.getProvider())
+            .write("role", id.getRole())
+            .writeEnd()
+            .write("hourlyRate", euro(contract.hourlyRate()))
+            .write("value", euro(contract.value()))
+            .write("revenue", euro(contract.revenue()))
+            .write(
+                "markedForRemoval",
+                String.valueOf(contract.markedForRemoval())
+            )
+            .writeEnd();
+    }
+
+    @Override
+    protected List<SortKey<Contract, ?>> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected String text(final Contract contract) {
+        final Contract.Id id = contract.contractId();
+        return (id.getContributorUsername() + " " + id.getRole())
+            .toLowerCase(Locale.ROOT);
+    }
+}
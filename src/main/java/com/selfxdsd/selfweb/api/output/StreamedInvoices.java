@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Payment;
+
+import javax.json.stream.JsonGenerator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterators;
+
+/**
+ * Invoices streamed as JSON, same format as {@link JsonInvoices}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class StreamedInvoices extends AbstractJsonStream<Invoice> {
+
+    /**
+     * Orderings of the invoices table columns: id, creation date,
+     * amount, status and the (not sortable) links.
+     */
+    private static final List<SortKey<Invoice, ?>> COLUMNS = Arrays.asList(
+        SortKey.natural(Invoice::invoiceId),
+        SortKey.nullsFirst(Invoice::createdAt),
+        SortKey.natural(Invoice::amount),
+        SortKey.natural(Invoice::isPaid),
+        null
+    );
+
+    /**
+     * Ctor.
+     * @param invoices Invoices to be streamed as JSON.
+     */
+    public StreamedInvoices(final Invoices invoices) {
+        super(() -> Spliterators.iterator(invoices.spliterator()));
+    }
+
+    @Override
+    protected void write(
+        final JsonGenerator generator,
+        final Invoice invoice
+    ) {
+        generator.writeStartObject()
+            .write("id", invoice.invoiceId())
+            .write("createdAt", String.valueOf(invoice.createdAt()))
+            .write("isPaid", invoice.isPaid())
+            .write("amount", euro(invoice.amount()))
+            .write("totalAmount", euro(invoice.totalAmount()));
+        final Payment latest = invoice.latest();
+        if(latest != null) {
+            generator.writeStartObject("latestPayment")
+                .write("status", latest.status())
+                .write("failReason", latest.failReason())
+                .write("transactionId", latest.transactionId())
+                .write("timestamp", String.valueOf(latest.paymentTime()))
+                .writeEnd();
+        }
+        generator.writeEnd();
+    }
+
+    @Override
+    protected List<SortKey<Invoice, ?>> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected String text(final Invoice invoice) {
+        final String status;
+        if(invoice.isPaid()) {
+            status = "paid";
+        } else {
+            status = "active";
+        }
+        return invoice.invoiceId() + " " + invoice.createdAt() + " " + status;
+    }
+}
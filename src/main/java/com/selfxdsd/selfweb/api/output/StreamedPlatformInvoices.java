@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.PlatformInvoice;
+import com.selfxdsd.api.PlatformInvoices;
+
+import javax.json.stream.JsonGenerator;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PlatformInvoices streamed as JSON, each one in the same format as
+ * {@link JsonPlatformInvoice}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class StreamedPlatformInvoices
+    extends AbstractJsonStream<PlatformInvoice> {
+
+    /**
+     * Orderings of the admin invoices table columns: number, creation date,
+     * commission, VAT, total, payment date and the (not sortable) links.
+     */
+    private static final List<SortKey<PlatformInvoice, ?>> COLUMNS = Arrays
+        .asList(
+            SortKey.natural(PlatformInvoice::serialNumber),
+            SortKey.natural(PlatformInvoice::createdAt),
+            SortKey.natural(PlatformInvoice::commission),
+            SortKey.natural(PlatformInvoice::vat),
+            SortKey.natural(PlatformInvoice::totalAmount),
+            SortKey.natural(PlatformInvoice::paymentTime),
+            null
+        );
+
+    /**
+     * Ctor.
+     * @param invoices PlatformInvoices to be streamed as JSON.
+     */
+    public StreamedPlatformInvoices(final PlatformInvoices invoices) {
+        super(invoices::iterator);
+    }
+
+    @Override
+    protected void write(
+        final JsonGenerator generator,
+        final PlatformInvoice invoice
+    ) {
+        final BigDecimal hundred = BigDecimal.valueOf(100);
+        generator.writeStartObject()
+            .write("id", invoice.id())
+            .write("number", invoice.serialNumber())
+            .write("createdAt", invoice.createdAt().toString())
+            .write("commission", invoice.commission().divide(hundred))
+            .write("vat", invoice.vat().divide(hundred))
+            .write("total", invoice.totalAmount().divide(hundred))
+            .write("paidAt", invoice.paymentTime().toString())
+            .writeEnd();
+    }
+
+    @Override
+    protected List<SortKey<PlatformInvoice, ?>> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected String text(final PlatformInvoice invoice) {
+        return (invoice.serialNumber() + " " + invoice.createdAt())
+            .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Tasks;
+
+import javax.json.stream.JsonGenerator;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Spliterators;
+
+/**
+ * Tasks streamed as JSON, same format as {@link JsonTasks}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class StreamedTasks extends AbstractJsonStream<Task> {
+
+    /**
+     * Orderings of the tasks table columns: issue, assignment date,
+     * deadline, estimation and value.
+     */
+    private static final List<SortKey<Task, ?>> COLUMNS = Arrays.asList(
+        SortKey.nullsFirst(Task::issueId),
+        SortKey.nullsFirst(Task::assignmentDate),
+        SortKey.nullsFirst(Task::deadline),
+        SortKey.natural(Task::estimation),
+        SortKey.natural(Task::value)
+    );
+
+    /**
+     * Ctor.
+     * @param tasks Tasks to be streamed as JSON.
+     */
+    public StreamedTasks(final Tasks tasks) {
+        super(() -> Spliterators.iterator(tasks.spliterator()));
+    }
+
+    @Override
+    protected void write(final JsonGenerator generator, final Task task) {
+        generator.writeStartObject()
+            .write("issueId", task.issueId())
+            .write("assignmentDate", String.valueOf(task.assignmentDate()))
+            .write("deadline", String.valueOf(task.deadline()))
+            .write("estimation", task.estimation())
+            .write("value", task.value().divide(BigDecimal.valueOf(100)))
+            .writeEnd();
+    }
+
+    @Override
+    protected List<SortKey<Task, ?>> columns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected String text(final Task task) {
+        return (task.issueId() + " " + task.assignmentDate()
+            + " " + task.deadline()).toLowerCase(Locale.ROOT);
+    }
+}
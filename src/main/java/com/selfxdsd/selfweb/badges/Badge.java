@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.badges;
+
+import java.util.Locale;
+
+/**
+ * SVG badge of a repository, saying whether it is managed by Self and,
+ * if it is, how many contributors and open tasks the Project has.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class Badge {
+
+    /**
+     * Width of one character, in pixels, for the 11px Verdana font.
+     */
+    private static final int CHAR_WIDTH = 7;
+
+    /**
+     * Padding around each text, in pixels.
+     */
+    private static final int PADDING = 10;
+
+    /**
+     * Label, on the left.
+     */
+    private static final String LABEL = "Self XDSD";
+
+    /**
+     * Is the repository managed by Self?
+     */
+    private final boolean managed;
+
+    /**
+     * Number of contributors.
+     */
+    private final int contributors;
+
+    /**
+     * Number of open tasks.
+     */
+    private final int tasks;
+
+    /**
+     * Rendered SVG.
+     */
+    private final String svg;
+
+    /**
+     * Ctor for a repository which is not managed by Self.
+     */
+    public Badge() {
+        this(false, 0, 0);
+    }
+
+    /**
+     * Ctor.
+     * @param managed Is the repository managed by Self?
+     * @param contributors Number of contributors.
+     * @param tasks Number of open tasks.
+     */
+    public Badge(
+        final boolean managed,
+        final int contributors,
+        final int tasks
+    ) {
+        this.managed = managed;
+        this.contributors = contributors;
+        this.tasks = tasks;
+        this.svg = this.render();
+    }
+
+    /**
+     * Is the repository managed by Self?
+     * @return True or false.
+     */
+    public boolean managed() {
+        return this.managed;
+    }
+
+    /**
+     * The badge as SVG.
+     * @return String SVG.
+     */
+    public String svg() {
+        return this.svg;
+    }
+
+    /**
+     * Strong ETag of the SVG.
+     * @return Unquoted ETag.
+     */
+    public String etag() {
+        return Integer.toHexString(this.svg.hashCode())
+            + "-" + Integer.toHexString(this.svg.length());
+    }
+
+    /**
+     * Render the SVG.
+     * @return String SVG.
+     */
+    private String render() {
+        final String message;
+        final String color;
+        if(this.managed) {
+            message = String.format(
+                Locale.ROOT,
+                "managed | %d contributors | %d open tasks",
+                this.contributors, this.tasks
+            );
+            color = "#4c1";
+        } else {
+            message = "not managed";
+            color = "#9f9f9f";
+        }
+        final int left = LABEL.length() * CHAR_WIDTH + PADDING;
+        final int right = message.length() * CHAR_WIDTH + PADDING;
+        final int width = left + right;
+        return String.format(
+            Locale.ROOT,
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\""
+            + " height=\"20\" role=\"img\" aria-label=\"%s: %s\">"
+            + "<title>%s: %s</title>"
+            + "<rect width=\"%d\" height=\"20\" fill=\"#701516\"/>"
+            + "<rect x=\"%d\" width=\"%d\" height=\"20\" fill=\"%s\"/>"
+            + "<g fill=\"#fff\" text-anchor=\"middle\""
+            + " font-family=\"Verdana,Geneva,DejaVu Sans,sans-serif\""
+            + " font-size=\"11\">"
+            + "<text x=\"%d\" y=\"14\">%s</text>"
+            + "<text x=\"%d\" y=\"14\">%s</text>"
+            + "</g></svg>",
+            width, LABEL, message, LABEL, message,
+            left, left, right, color,
+            left / 2, LABEL,
+            left + right / 2, message
+        );
+    }
+}
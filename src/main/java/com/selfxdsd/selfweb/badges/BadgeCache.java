@@ -0,0 +1,399 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.badges;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Self;
+import com.selfxdsd.api.Tasks;
+import com.selfxdsd.selfweb.repos.ManagedRepos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory cache of the repository badges.<br><br>
+ *
+ * The badges are embedded in READMEs and fetched all the time (e.g. by
+ * Github's image proxy), so only the first request for a repository goes
+ * to the database. After that, the badge is served from memory and, once
+ * it is older than its TTL, it is refreshed in the background while the
+ * old one is still served. Repositories which are not managed by Self are
+ * cached too (negative caching), with their own TTL. Those which the
+ * {@link ManagedRepos} index knows are not managed are not even cached:
+ * their badge is answered right away.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class BadgeCache implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        BadgeCache.class
+    );
+
+    /**
+     * Above this number of cached badges, the expired ones are dropped.
+     */
+    private static final int MAX_BADGES = 50000;
+
+    /**
+     * Self's core.
+     */
+    private final Self self;
+
+    /**
+     * Index of the managed repos.
+     */
+    private final ManagedRepos managed;
+
+    /**
+     * Time to live of the badge of a managed repository.
+     */
+    private final Duration ttl;
+
+    /**
+     * Time to live of the badge of a repository which is not managed.
+     */
+    private final Duration negativeTtl;
+
+    /**
+     * Executor of the background refreshes.
+     */
+    private final Executor refresher;
+
+    /**
+     * Cached badges, by provider and repo full name.
+     */
+    private final Map<String, Entry> badges;
+
+    /**
+     * Ctor which refreshes in the calling thread, with TTLs of 5 minutes
+     * (managed) and 1 hour (not managed).
+     * @param self Self's core.
+     */
+    public BadgeCache(final Self self) {
+        this(
+            self, Duration.ofMinutes(5), Duration.ofHours(1), Runnable::run
+        );
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param self Self's core.
+     * @param managed Index of the managed repos.
+     * @param ttlSeconds TTL of a managed repo's badge, in seconds.
+     * @param negativeTtlSeconds TTL of the badge of a repo which
+     *  is not managed, in seconds.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public BadgeCache(
+        final Self self,
+        final ManagedRepos managed,
+        @Value("${self.badges.ttl-seconds}") final long ttlSeconds,
+        @Value("${self.badges.negative-ttl-seconds}")
+        final long negativeTtlSeconds
+    ) {
+        this(
+            self,
+            managed,
+            Duration.ofSeconds(ttlSeconds),
+            Duration.ofSeconds(negativeTtlSeconds),
+            new ThreadPoolExecutor(
+                2,
+                2,
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(MAX_BADGES),
+                new CustomizableThreadFactory("badge-refresh-")
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param self Self's core.
+     * @param ttl TTL of a managed repo's badge.
+     * @param negativeTtl TTL of the badge of a repo which is not managed.
+     * @param refresher Executor of the background refreshes.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public BadgeCache(
+        final Self self,
+        final Duration ttl,
+        final Duration negativeTtl,
+        final Executor refresher
+    ) {
+        this(self, new ManagedRepos(self), ttl, negativeTtl, refresher);
+    }
+
+    /**
+     * Ctor.
+     * @param self Self's core.
+     * @param managed Index of the managed repos.
+     * @param ttl TTL of a managed repo's badge.
+     * @param negativeTtl TTL of the badge of a repo which is not managed.
+     * @param refresher Executor of the background refreshes.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public BadgeCache(
+        final Self self,
+        final ManagedRepos managed,
+        final Duration ttl,
+        final Duration negativeTtl,
+        final Executor refresher
+    ) {
+        this.self = self;
+        this.managed = managed;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.refresher = refresher;
+        this.badges = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the badge of a repository.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @return Badge, never null.
+     */
+    public Badge badge(final String repoFullName, final String provider) {
+        final Badge badge;
+        if(this.managed.absent(repoFullName, provider)) {
+            badge = new Badge();
+        } else {
+            if(this.badges.size() > MAX_BADGES) {
+                this.badges.values().removeIf(Entry::expired);
+            }
+            final Entry entry = this.badges.computeIfAbsent(
+                provider + "/" + repoFullName, key -> new Entry(this)
+            );
+            badge = entry.badge(repoFullName, provider);
+        }
+        return badge;
+    }
+
+    /**
+     * Drop the badge of a repository, it will be loaded again on the next
+     * request (e.g. after the Project was activated or deactivated).
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     */
+    public void invalidate(final String repoFullName, final String provider) {
+        this.badges.remove(provider + "/" + repoFullName);
+    }
+
+    @Override
+    public void close() {
+        if(this.refresher instanceof ExecutorService) {
+            ((ExecutorService) this.refresher).shutdownNow();
+        }
+    }
+
+    /**
+     * Load a badge from Self.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @return Badge.
+     */
+    private Badge load(final String repoFullName, final String provider) {
+        final Project project = this.self.projects().getProjectById(
+            repoFullName, provider
+        );
+        final Badge badge;
+        if(project == null) {
+            this.managed.missed();
+            badge = new Badge();
+        } else {
+            final Set<String> contributors = new HashSet<>();
+            for(final Contract contract : project.contracts()) {
+                contributors.add(
+                    contract.contractId().getContributorUsername()
+                );
+            }
+            badge = new Badge(
+                true, contributors.size(), BadgeCache.count(project.tasks())
+            );
+        }
+        return badge;
+    }
+
+    /**
+     * Count the open Tasks of a Project, assigned or not.
+     * @param open Open Tasks of the Project.
+     * @return Number of Tasks.
+     */
+    private static int count(final Tasks open) {
+        int count = 0;
+        final Iterator<?> tasks = Spliterators.iterator(open.spliterator());
+        while(tasks.hasNext()) {
+            tasks.next();
+            count = count + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Cached badge of one repository.
+     */
+    private static final class Entry {
+
+        /**
+         * Cache which holds this entry.
+         */
+        private final BadgeCache cache;
+
+        /**
+         * Lock used while loading the badge for the first time.
+         */
+        private final Object lock;
+
+        /**
+         * Are we refreshing in the background?
+         */
+        private final AtomicBoolean refreshing;
+
+        /**
+         * Cached badge, null until first loaded.
+         */
+        private volatile Badge cached;
+
+        /**
+         * When was the badge loaded, in millis.
+         */
+        private volatile long loadedAt;
+
+        /**
+         * Ctor.
+         * @param cache Cache which holds this entry.
+         */
+        Entry(final BadgeCache cache) {
+            this.cache = cache;
+            this.lock = new Object();
+            this.refreshing = new AtomicBoolean(false);
+        }
+
+        /**
+         * Get the badge, loading it if it is missing or refreshing it in
+         * the background if it expired.
+         * @param repoFullName Repo full name (owner/name).
+         * @param provider Provider (github, gitlab etc).
+         * @return Badge.
+         */
+        Badge badge(final String repoFullName, final String provider) {
+            Badge current = this.cached;
+            if(current == null) {
+                synchronized (this.lock) {
+                    if(this.cached == null) {
+                        this.update(
+                            this.cache.load(repoFullName, provider)
+                        );
+                    }
+                    current = this.cached;
+                }
+            } else if(this.expired()
+                && this.refreshing.compareAndSet(false, true)) {
+                this.refresh(repoFullName, provider);
+            }
+            return current;
+        }
+
+        /**
+         * Is the badge older than its TTL?
+         * @return True or false.
+         */
+        boolean expired() {
+            final Badge current = this.cached;
+            final long max;
+            if(current != null && current.managed()) {
+                max = this.cache.ttl.toMillis();
+            } else {
+                max = this.cache.negativeTtl.toMillis();
+            }
+            return System.currentTimeMillis() - this.loadedAt > max;
+        }
+
+        /**
+         * Reload the badge in the background.
+         * @param repoFullName Repo full name (owner/name).
+         * @param provider Provider (github, gitlab etc).
+         */
+        private void refresh(final String repoFullName, final String provider) {
+            try {
+                CompletableFuture
+                    .supplyAsync(
+                        () -> this.cache.load(repoFullName, provider),
+                        this.cache.refresher
+                    ).whenComplete(
+                        (badge, error) -> {
+                            if(error == null) {
+                                this.update(badge);
+                            } else {
+                                LOG.error(
+                                    "Could not refresh the badge of "
+                                    + repoFullName,
+                                    error
+                                );
+                            }
+                            this.refreshing.set(false);
+                        }
+                    );
+            } catch (final RejectedExecutionException ex) {
+                LOG.warn("Badge refresh rejected, serving old badge.");
+                this.refreshing.set(false);
+            }
+        }
+
+        /**
+         * Replace the cached badge.
+         * @param badge New badge.
+         */
+        private void update(final Badge badge) {
+            this.cached = badge;
+            this.loadedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.cache;
+
+import com.selfxdsd.selfweb.db.DbRoute;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache, shared by all the sessions. The least recently used
+ * entry is evicted when the cache is full and an entry expires after its
+ * TTL. Missing values (null) are cached too.<br><br>
+ *
+ * Values are loaded outside of the lock, so two concurrent misses of the
+ * same key may both load it. A value loaded while the cache was being
+ * invalidated is not stored, so an invalidation is never undone by a load
+ * which read the old state.<br><br>
+ *
+ * The values are always loaded from the primary database, whatever the
+ * route of the request which missed (see {@link DbRoute}): a read replica
+ * lagging behind could put back a value which was just invalidated, and
+ * it would then be served to every session until it expires.<br><br>
+ *
+ * Hits, misses and evictions are counted by the "self.cache.hits",
+ * "self.cache.misses" and "self.cache.evictions" counters, tagged with the
+ * name of the cache; its size is the "self.cache.size" gauge.
+ * @param <V> Type of the cached values.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class SharedCache<V> {
+
+    /**
+     * Name of the cache.
+     */
+    private final String name;
+
+    /**
+     * Time to live of an entry.
+     */
+    private final Duration ttl;
+
+    /**
+     * Entries, in access order.
+     */
+    private final Map<String, Entry<V>> entries;
+
+    /**
+     * Incremented by every invalidation.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Ctor.
+     * @param name Name of the cache, e.g. "projects".
+     * @param size Max number of entries.
+     * @param ttl Time to live of an entry.
+     */
+    public SharedCache(final String name, final int size, final Duration ttl) {
+        this.name = name;
+        this.ttl = ttl;
+        this.generation = new AtomicLong();
+        this.entries = new Lru(size);
+        Metrics.gauge(
+            "self.cache.size", Tags.of("cache", name), this, SharedCache::size
+        );
+    }
+
+    /**
+     * Get the value of the key, loading it on a miss.
+     * @param key Key.
+     * @param load Loads the value, may return null.
+     * @return Value, possibly null.
+     */
+    public V get(final String key, final Supplier<V> load) {
+        final long now = System.currentTimeMillis();
+        Entry<V> entry;
+        final long before;
+        synchronized (this.entries) {
+            entry = this.entries.get(key);
+            if(entry != null && now - entry.loadedAt > this.ttl.toMillis()) {
+                this.entries.remove(key);
+                entry = null;
+            }
+            before = this.generation.get();
+        }
+        final V value;
+        if(entry == null) {
+            this.count("misses");
+            value = DbRoute.within(DbRoute.PRIMARY, load);
+            synchronized (this.entries) {
+                if(this.generation.get() == before) {
+                    this.entries.put(key, new Entry<>(value, now));
+                }
+            }
+        } else {
+            this.count("hits");
+            value = entry.value;
+        }
+        return value;
+    }
+
+    /**
+     * Drop the value of the key.
+     * @param key Key.
+     */
+    public void invalidate(final String key) {
+        synchronized (this.entries) {
+            this.generation.incrementAndGet();
+            this.entries.remove(key);
+        }
+    }
+
+    /**
+     * Number of cached entries.
+     * @return Int.
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Count an event of this cache.
+     * @param event Event (hits, misses, evictions).
+     */
+    private void count(final String event) {
+        Metrics.counter("self.cache." + event, "cache", this.name)
+            .increment();
+    }
+
+    /**
+     * Entries in access order, evicting the least recently used one
+     * when there are too many.
+     */
+    private final class Lru extends LinkedHashMap<String, Entry<V>> {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Max number of entries.
+         */
+        private final int max;
+
+        /**
+         * Ctor.
+         * @param max Max number of entries.
+         */
+        Lru(final int max) {
+            super(16, 0.75f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+            final Map.Entry<String, Entry<V>> eldest
+        ) {
+            final boolean full = this.size() > this.max;
+            if(full) {
+                SharedCache.this.count("evictions");
+            }
+            return full;
+        }
+    }
+
+    /**
+     * Cached value.
+     * @param <T> Type of the value.
+     */
+    private static final class Entry<T> {
+
+        /**
+         * The value, null if it does not exist.
+         */
+        private final T value;
+
+        /**
+         * When was it loaded, in millis.
+         */
+        private final long loadedAt;
+
+        /**
+         * Ctor.
+         * @param value The value.
+         * @param loadedAt When was it loaded, in millis.
+         */
+        Entry(final T value, final long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
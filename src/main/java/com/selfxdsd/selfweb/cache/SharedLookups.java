@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.cache;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Read-mostly objects, cached for all the sessions: the Projects by
+ * provider and repo full name, the type of each Project's active Wallet
+ * and the list of ProjectManagers.<br><br>
+ *
+ * The contributors of a Project all read the same Project and Wallet,
+ * so only the first read goes to the database. The handlers which change
+ * them invalidate exactly what they changed; what is changed outside of
+ * this app is seen after the TTL.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class SharedLookups {
+
+    /**
+     * Key of the whole list of ProjectManagers.
+     */
+    private static final String ALL = "all";
+
+    /**
+     * Projects by provider and full name.
+     */
+    private final SharedCache<Project> projects;
+
+    /**
+     * Types of the active Wallets, by provider and Project full name.
+     */
+    private final SharedCache<String> wallets;
+
+    /**
+     * The ProjectManagers.
+     */
+    private final SharedCache<List<ProjectManager>> managers;
+
+    /**
+     * Ctor with 10 000 entries per cache and a TTL of 5 minutes.
+     */
+    public SharedLookups() {
+        this(10_000, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param size Max number of entries per cache.
+     * @param ttlSeconds Time to live of an entry, in seconds.
+     */
+    @Autowired
+    public SharedLookups(
+        @Value("${self.cache.max-size}") final int size,
+        @Value("${self.cache.ttl-seconds}") final long ttlSeconds
+    ) {
+        this(size, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * Ctor.
+     * @param size Max number of entries per cache.
+     * @param ttl Time to live of an entry.
+     */
+    public SharedLookups(final int size, final Duration ttl) {
+        this.projects = new SharedCache<>("projects", size, ttl);
+        this.wallets = new SharedCache<>("wallet_types", size, ttl);
+        this.managers = new SharedCache<>("project_managers", 1, ttl);
+    }
+
+    /**
+     * A Project.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @param load Loads the Project.
+     * @return Project or null if it is not managed.
+     */
+    public Project project(
+        final String repoFullName,
+        final String provider,
+        final Supplier<Project> load
+    ) {
+        return this.projects.get(
+            SharedLookups.key(repoFullName, provider), load
+        );
+    }
+
+    /**
+     * Type of the Project's active Wallet.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @param load Loads the type.
+     * @return Wallet type.
+     */
+    public String walletType(
+        final String repoFullName,
+        final String provider,
+        final Supplier<String> load
+    ) {
+        return this.wallets.get(
+            SharedLookups.key(repoFullName, provider), load
+        );
+    }
+
+    /**
+     * All the ProjectManagers.
+     * @param load Loads them.
+     * @return ProjectManagers.
+     */
+    public List<ProjectManager> managers(
+        final Supplier<List<ProjectManager>> load
+    ) {
+        return this.managers.get(ALL, load);
+    }
+
+    /**
+     * A Project was activated or deleted.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     */
+    public void projectChanged(
+        final String repoFullName,
+        final String provider
+    ) {
+        final String key = SharedLookups.key(repoFullName, provider);
+        this.projects.invalidate(key);
+        this.wallets.invalidate(key);
+    }
+
+    /**
+     * One of the Project's Wallets was created, activated or updated.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     */
+    public void walletChanged(
+        final String repoFullName,
+        final String provider
+    ) {
+        this.wallets.invalidate(SharedLookups.key(repoFullName, provider));
+    }
+
+    /**
+     * A ProjectManager was registered.
+     */
+    public void managersChanged() {
+        this.managers.invalidate(ALL);
+    }
+
+    /**
+     * Key of a Project.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @return Key.
+     */
+    private static String key(
+        final String repoFullName,
+        final String provider
+    ) {
+        return (provider + "/" + repoFullName).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.dashboard;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Contributor;
+import com.selfxdsd.selfweb.api.output.JsonContract;
+import com.selfxdsd.selfweb.cache.SharedLookups;
+import com.selfxdsd.selfweb.db.DbRoute;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The Contributor, with all their Contracts, as shown on the Contributor
+ * Dashboard.<br><br>
+ *
+ * It has the same JSON format as {@link
+ * com.selfxdsd.selfweb.api.output.JsonContributor}, but it is built
+ * differently: the value and revenue of the Contracts are loaded
+ * concurrently, and the active Wallet type is looked up once per Project,
+ * not once per Contract. This way, the number of sequential storage
+ * round-trips no longer grows with the number of Contracts. The Wallet
+ * types are also shared with the other sessions, through
+ * {@link SharedLookups}.<br><br>
+ *
+ * The lookups waiting for a thread are bounded: when the queue is full,
+ * the request's thread runs the lookup itself, which slows the busiest
+ * requests down instead of piling up work. If a dashboard times out,
+ * its lookups which did not start yet are skipped.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class ContributorDashboard implements AutoCloseable {
+
+    /**
+     * Executor of the lookups.
+     */
+    private final Executor loader;
+
+    /**
+     * Max time to wait for the whole dashboard.
+     */
+    private final Duration timeout;
+
+    /**
+     * Wallet types cached for all the sessions.
+     */
+    private final SharedLookups shared;
+
+    /**
+     * Ctor which loads everything in the calling thread.
+     */
+    public ContributorDashboard() {
+        this(Runnable::run, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param threads Number of threads shared by all the dashboards.
+     * @param queue Max number of lookups waiting for a thread.
+     * @param timeoutSeconds Max time to wait for one dashboard, in seconds.
+     * @param shared Wallet types cached for all the sessions.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public ContributorDashboard(
+        @Value("${self.dashboard.threads}") final int threads,
+        @Value("${self.dashboard.queue}") final int queue,
+        @Value("${self.dashboard.timeout-seconds}") final long timeoutSeconds,
+        final SharedLookups shared
+    ) {
+        this(
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queue),
+                new CustomizableThreadFactory("contributor-dashboard-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+            ),
+            Duration.ofSeconds(timeoutSeconds),
+            shared
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param loader Executor of the lookups.
+     * @param timeout Max time to wait for the whole dashboard.
+     */
+    public ContributorDashboard(
+        final Executor loader,
+        final Duration timeout
+    ) {
+        this(loader, timeout, new SharedLookups());
+    }
+
+    /**
+     * Ctor.
+     * @param loader Executor of the lookups.
+     * @param timeout Max time to wait for the whole dashboard.
+     * @param shared Wallet types cached for all the sessions.
+     */
+    public ContributorDashboard(
+        final Executor loader,
+        final Duration timeout,
+        final SharedLookups shared
+    ) {
+        this.loader = loader;
+        this.timeout = timeout;
+        this.shared = shared;
+    }
+
+    /**
+     * The Contributor as JSON.
+     * @param contributor Contributor.
+     * @return JsonObject.
+     */
+    public JsonObject json(final Contributor contributor) {
+        final Request request = new Request();
+        final Map<String, CompletableFuture<String>> walletTypes =
+            new HashMap<>();
+        final List<CompletableFuture<JsonObject>> rows = new ArrayList<>();
+        for(final Contract contract : contributor.contracts()) {
+            final CompletableFuture<String> walletType = walletTypes
+                .computeIfAbsent(
+                    ContributorDashboard.projectKey(contract),
+                    key -> CompletableFuture.supplyAsync(
+                        request.lookup(
+                            () -> this.shared.walletType(
+                                contract.contractId().getRepoFullName(),
+                                contract.contractId().getProvider(),
+                                () -> contract.project().wallets()
+                                    .active().type()
+                            )
+                        ),
+                        this.loader
+                    )
+                );
+            rows.add(
+                CompletableFuture.supplyAsync(
+                    request.lookup(
+                        () -> new BigDecimal[] {
+                            contract.value(), contract.revenue(),
+                        }
+                    ),
+                    this.loader
+                ).thenCombine(
+                    walletType,
+                    (totals, type) -> new JsonContract(
+                        contract, totals[0], totals[1], type
+                    )
+                )
+            );
+        }
+        JsonArrayBuilder contracts = Json.createArrayBuilder();
+        for(final JsonObject row : this.join(rows, request)) {
+            contracts = contracts.add(row);
+        }
+        return Json.createObjectBuilder()
+            .add("username", contributor.username())
+            .add("provider", contributor.provider())
+            .add("contracts", contracts)
+            .build();
+    }
+
+    @Override
+    public void close() {
+        if(this.loader instanceof ExecutorService) {
+            ((ExecutorService) this.loader).shutdownNow();
+        }
+    }
+
+    /**
+     * Wait for all the rows. If they take too long, the request is
+     * cancelled, so its lookups which did not start yet are skipped.
+     * @param rows Rows being loaded.
+     * @param request Request for which the rows are loaded.
+     * @return Loaded rows, in the original order.
+     */
+    private List<JsonObject> join(
+        final List<CompletableFuture<JsonObject>> rows,
+        final Request request
+    ) {
+        try {
+            CompletableFuture.allOf(rows.toArray(new CompletableFuture[0]))
+                .get(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+            final List<JsonObject> loaded = new ArrayList<>(rows.size());
+            for(final CompletableFuture<JsonObject> row : rows) {
+                loaded.add(row.get());
+            }
+            return loaded;
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dashboard interrupted.", ex);
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException(
+                "Could not load the Contributor's Contracts.", ex.getCause()
+            );
+        } catch (final TimeoutException ex) {
+            request.cancel();
+            rows.forEach(row -> row.cancel(true));
+            throw new IllegalStateException(
+                "Loading the Contributor's Contracts took longer than "
+                + this.timeout,
+                ex
+            );
+        }
+    }
+
+    /**
+     * Key of a Contract's Project.
+     * @param contract Contract.
+     * @return String.
+     */
+    private static String projectKey(final Contract contract) {
+        return contract.contractId().getProvider() + "/"
+            + contract.contractId().getRepoFullName();
+    }
+
+    /**
+     * The request for which the lookups run: they are traced by its
+     * trace, run on its database route and are skipped once the request
+     * stopped waiting for them.
+     */
+    private static final class Request {
+
+        /**
+         * Trace of the request, may be null.
+         */
+        private final RequestTrace trace;
+
+        /**
+         * Database route of the request.
+         */
+        private final DbRoute route;
+
+        /**
+         * Did the request stop waiting?
+         */
+        private final AtomicBoolean cancelled;
+
+        /**
+         * Ctor, for the request of the current thread.
+         */
+        Request() {
+            this.trace = RequestTrace.current();
+            this.route = DbRoute.current();
+            this.cancelled = new AtomicBoolean(false);
+        }
+
+        /**
+         * A lookup of this request, to run in a loader thread.
+         * @param work Lookup.
+         * @param <T> Type of the result.
+         * @return Lookup which fails if the request was cancelled.
+         */
+        <T> Supplier<T> lookup(final Supplier<T> work) {
+            return () -> {
+                if(this.cancelled.get()) {
+                    throw new CancellationException(
+                        "The Contributor Dashboard timed out."
+                    );
+                }
+                return DbRoute.within(
+                    this.route, () -> RequestTrace.within(this.trace, work)
+                );
+            };
+        }
+
+        /**
+         * The request stopped waiting.
+         */
+        void cancel() {
+            this.cancelled.set(true);
+        }
+    }
+}
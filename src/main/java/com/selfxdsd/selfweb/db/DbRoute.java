@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import java.util.function.Supplier;
+
+/**
+ * Where the database statements of the current thread go: to the primary
+ * or to one of the read replicas (see {@link ReadReplicas}). When no route
+ * is set, the statements go to the primary, so the background jobs
+ * always see the latest data.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public enum DbRoute {
+
+    /**
+     * The primary database, which sees all the writes.
+     */
+    PRIMARY,
+
+    /**
+     * One of the read replicas, which may lag behind the primary.
+     */
+    REPLICA;
+
+    /**
+     * Route of the current thread.
+     */
+    private static final ThreadLocal<DbRoute> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Route of the current thread.
+     * @return DbRoute, PRIMARY if none was set.
+     */
+    public static DbRoute current() {
+        final DbRoute route = CURRENT.get();
+        final DbRoute current;
+        if(route == null) {
+            current = PRIMARY;
+        } else {
+            current = route;
+        }
+        return current;
+    }
+
+    /**
+     * Run some work on the given route, e.g. in a pooled thread working
+     * for a request.
+     * @param route Route.
+     * @param work Work to run.
+     * @param <T> Type of the result.
+     * @return Result of the work.
+     */
+    public static <T> T within(final DbRoute route, final Supplier<T> work) {
+        final DbRoute previous = CURRENT.get();
+        CURRENT.set(route);
+        try {
+            return work.get();
+        } finally {
+            if(previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Use this route in the current thread, until {@link #clear()}.
+     */
+    public void use() {
+        CURRENT.set(this);
+    }
+
+    /**
+     * Forget the route of the current thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Chooses the database of each request (see {@link ReadReplicas}).<br><br>
+ *
+ * GET, HEAD and OPTIONS requests only read, so they go to a replica;
+ * all the other requests go to the primary. A handler can override this
+ * with {@link OnDb}. After a User changes something, their reads go to
+ * the primary for a while (the "sticky" period, which should be longer
+ * than the max lag of the replicas), so they always see their own
+ * changes.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class DbRouting implements AsyncHandlerInterceptor {
+
+    /**
+     * Session attribute: until when (millis) do the User's reads
+     * go to the primary.
+     */
+    static final String STICKY = "self.db.primary-until";
+
+    /**
+     * HTTP methods which only read.
+     */
+    private static final Set<String> READS = Set.of("GET", "HEAD", "OPTIONS");
+
+    /**
+     * For how long do the reads go to the primary, after a change.
+     */
+    private final Duration sticky;
+
+    /**
+     * Ctor with a sticky period of 10 seconds.
+     */
+    public DbRouting() {
+        this(Duration.ofSeconds(10));
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param seconds For how long do the reads go to the primary,
+     *  after a change, in seconds.
+     */
+    @Autowired
+    public DbRouting(
+        @Value("${self.db.replicas.sticky-seconds}") final long seconds
+    ) {
+        this(Duration.ofSeconds(seconds));
+    }
+
+    /**
+     * Ctor.
+     * @param sticky For how long do the reads go to the primary,
+     *  after a change.
+     */
+    public DbRouting(final Duration sticky) {
+        this.sticky = sticky;
+    }
+
+    @Override
+    public boolean preHandle(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler
+    ) {
+        this.route(request, handler).use();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler
+    ) {
+        DbRoute.clear();
+    }
+
+    @Override
+    public void afterCompletion(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Object handler,
+        final Exception error
+    ) {
+        if(!READS.contains(request.getMethod())
+            && DbRoute.current() == DbRoute.PRIMARY) {
+            final HttpSession session = request.getSession(false);
+            if(session != null) {
+                session.setAttribute(
+                    STICKY, System.currentTimeMillis() + this.sticky.toMillis()
+                );
+            }
+        }
+        DbRoute.clear();
+    }
+
+    /**
+     * Route of the request.
+     * @param request Request.
+     * @param handler Handler of the request.
+     * @return DbRoute.
+     */
+    DbRoute route(final HttpServletRequest request, final Object handler) {
+        OnDb annotation = null;
+        if(handler instanceof HandlerMethod) {
+            final HandlerMethod method = (HandlerMethod) handler;
+            annotation = method.getMethodAnnotation(OnDb.class);
+            if(annotation == null) {
+                annotation = method.getBeanType().getAnnotation(OnDb.class);
+            }
+        }
+        final boolean reads;
+        if(annotation == null) {
+            reads = READS.contains(request.getMethod());
+        } else {
+            reads = annotation.value() == DbRoute.REPLICA;
+        }
+        final DbRoute route;
+        if(reads && !DbRouting.sticky(request)) {
+            route = DbRoute.REPLICA;
+        } else {
+            route = DbRoute.PRIMARY;
+        }
+        return route;
+    }
+
+    /**
+     * Did the User change something recently?
+     * @param request Request.
+     * @return True or false.
+     */
+    private static boolean sticky(final HttpServletRequest request) {
+        final HttpSession session = request.getSession(false);
+        boolean sticky = false;
+        if(session != null) {
+            final Object until = session.getAttribute(STICKY);
+            sticky = until instanceof Long
+                && (Long) until > System.currentTimeMillis();
+        }
+        return sticky;
+    }
+}
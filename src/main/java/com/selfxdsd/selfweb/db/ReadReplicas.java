@@ -0,0 +1,387 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * DataSource which sends the statements of the threads on the
+ * {@link DbRoute#REPLICA} route to the read replicas and everything
+ * else to the primary.<br><br>
+ *
+ * The lag of the replicas is checked periodically: a replica which is
+ * more than max-lag behind the primary, whose lag is unknown or which
+ * refuses a connection is not used until a later check finds it healthy
+ * again. The healthy replicas take turns; when none is healthy, the reads
+ * go to the primary too.<br><br>
+ *
+ * The number of healthy replicas is the "self.db.replicas.healthy" gauge
+ * and the connections given by each database are counted by
+ * "self.db.connections", tagged with the route (primary, replica or
+ * fallback, for the reads which could not go to a replica).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ReadReplicas implements DataSource, AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ReadReplicas.class
+    );
+
+    /**
+     * The primary database.
+     */
+    private final DataSource primary;
+
+    /**
+     * All the replicas.
+     */
+    private final List<DataSource> replicas;
+
+    /**
+     * Reads the lag of a replica, null if unknown.
+     */
+    private final Function<DataSource, Duration> lag;
+
+    /**
+     * Max lag of a healthy replica.
+     */
+    private final Duration maxLag;
+
+    /**
+     * Scheduler of the checks, null if they are not scheduled.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Whose turn is it to give a connection?
+     */
+    private final AtomicInteger turn;
+
+    /**
+     * Replicas found healthy by the last check.
+     */
+    private volatile List<DataSource> healthy;
+
+    /**
+     * Ctor for a primary without replicas.
+     * @param primary The primary database.
+     */
+    public ReadReplicas(final DataSource primary) {
+        this(
+            primary, Collections.emptyList(),
+            replica -> Duration.ZERO, Duration.ZERO
+        );
+    }
+
+    /**
+     * Ctor for Spring. Each replica gets its own connection pool,
+     * configured as the primary's, but with read-only connections.
+     * @param pool Configuration of the primary's connection pool.
+     * @param urls Comma-separated JDBC URLs of the replicas, may be empty.
+     * @param maxLag Max lag of a healthy replica.
+     * @param every How often is the lag of the replicas checked.
+     */
+    public ReadReplicas(
+        final HikariConfig pool,
+        final String urls,
+        final Duration maxLag,
+        final Duration every
+    ) {
+        this(
+            new HikariDataSource(pool),
+            ReadReplicas.pools(pool, urls),
+            new ReplicationLag(),
+            maxLag,
+            Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("db-replicas-")
+            ),
+            every
+        );
+        Metrics.gauge("self.db.replicas.healthy", this, ReadReplicas::count);
+    }
+
+    /**
+     * Ctor for replicas which are only checked by calling {@link #check()}.
+     * @param primary The primary database.
+     * @param replicas The replicas.
+     * @param lag Reads the lag of a replica, null if unknown.
+     * @param maxLag Max lag of a healthy replica.
+     */
+    public ReadReplicas(
+        final DataSource primary,
+        final List<DataSource> replicas,
+        final Function<DataSource, Duration> lag,
+        final Duration maxLag
+    ) {
+        this(primary, replicas, lag, maxLag, null, Duration.ZERO);
+    }
+
+    /**
+     * Ctor.
+     * @param primary The primary database.
+     * @param replicas The replicas.
+     * @param lag Reads the lag of a replica, null if unknown.
+     * @param maxLag Max lag of a healthy replica.
+     * @param scheduler Scheduler of the checks, null to not schedule.
+     * @param every How often is the lag of the replicas checked.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public ReadReplicas(
+        final DataSource primary,
+        final List<DataSource> replicas,
+        final Function<DataSource, Duration> lag,
+        final Duration maxLag,
+        final ScheduledExecutorService scheduler,
+        final Duration every
+    ) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.lag = lag;
+        this.maxLag = maxLag;
+        this.scheduler = scheduler;
+        this.turn = new AtomicInteger();
+        this.healthy = Collections.emptyList();
+        if(scheduler != null && !this.replicas.isEmpty()) {
+            scheduler.scheduleWithFixedDelay(
+                this::check,
+                0,
+                Math.max(1, every.toMillis()),
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Check the lag of the replicas and keep only the healthy ones.
+     */
+    public void check() {
+        final List<DataSource> found = new ArrayList<>();
+        for(final DataSource replica : this.replicas) {
+            final Duration behind = this.lag.apply(replica);
+            if(behind != null && behind.compareTo(this.maxLag) <= 0) {
+                found.add(replica);
+            } else {
+                LOG.warn(
+                    "Replica " + this.replicas.indexOf(replica)
+                    + " is not used, lag is " + behind + "."
+                );
+            }
+        }
+        this.healthy = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Number of healthy replicas.
+     * @return Int.
+     */
+    public int count() {
+        return this.healthy.size();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection connection;
+        if(DbRoute.current() == DbRoute.REPLICA) {
+            connection = this.read();
+        } else {
+            ReadReplicas.count("primary");
+            connection = this.primary.getConnection();
+        }
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(
+        final String username,
+        final String password
+    ) throws SQLException {
+        return this.primary.getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        this.primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        this.primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger()
+        throws SQLFeatureNotSupportedException {
+        return this.primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> type) throws SQLException {
+        final T unwrapped;
+        if(type.isInstance(this)) {
+            unwrapped = type.cast(this);
+        } else {
+            unwrapped = this.primary.unwrap(type);
+        }
+        return unwrapped;
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> type) throws SQLException {
+        return type.isInstance(this) || this.primary.isWrapperFor(type);
+    }
+
+    @Override
+    public void close() {
+        if(this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+        for(final DataSource replica : this.replicas) {
+            ReadReplicas.close(replica);
+        }
+        ReadReplicas.close(this.primary);
+    }
+
+    /**
+     * Connection to the next healthy replica or, if there is none or
+     * it refuses the connection, to the primary.
+     * @return Connection.
+     * @throws SQLException If the primary cannot be reached either.
+     */
+    private Connection read() throws SQLException {
+        final List<DataSource> current = this.healthy;
+        Connection connection = null;
+        if(!current.isEmpty()) {
+            final DataSource replica = current.get(
+                Math.floorMod(this.turn.getAndIncrement(), current.size())
+            );
+            try {
+                connection = replica.getConnection();
+                ReadReplicas.count("replica");
+            } catch (final SQLException ex) {
+                LOG.warn("Replica refused the connection, using primary.", ex);
+                this.unhealthy(replica);
+                connection = null;
+            }
+        }
+        if(connection == null) {
+            ReadReplicas.count("fallback");
+            connection = this.primary.getConnection();
+        }
+        return connection;
+    }
+
+    /**
+     * Stop using a replica until the next check.
+     * @param replica Replica.
+     */
+    private void unhealthy(final DataSource replica) {
+        final List<DataSource> remaining = new ArrayList<>(this.healthy);
+        remaining.remove(replica);
+        this.healthy = Collections.unmodifiableList(remaining);
+    }
+
+    /**
+     * Count a connection given on a route.
+     * @param route Route (primary, replica or fallback).
+     */
+    private static void count(final String route) {
+        Metrics.counter("self.db.connections", "route", route).increment();
+    }
+
+    /**
+     * Connection pools of the replicas.
+     * @param pool Configuration of the primary's connection pool.
+     * @param urls Comma-separated JDBC URLs of the replicas, may be empty.
+     * @return DataSources.
+     */
+    private static List<DataSource> pools(
+        final HikariConfig pool,
+        final String urls
+    ) {
+        final List<DataSource> pools = new ArrayList<>();
+        for(final String url : urls.split(",")) {
+            if(!url.isBlank()) {
+                final HikariConfig replica = new HikariConfig();
+                pool.copyStateTo(replica);
+                replica.setJdbcUrl(url.trim());
+                replica.setReadOnly(true);
+                replica.setPoolName(
+                    "self-db-replica-" + (pools.size() + 1)
+                );
+                pools.add(new HikariDataSource(replica));
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Close a DataSource, if it is a pool.
+     * @param source DataSource.
+     */
+    private static void close(final DataSource source) {
+        if(source instanceof Closeable) {
+            try {
+                ((Closeable) source).close();
+            } catch (final IOException ex) {
+                LOG.warn("Could not close a database pool.", ex);
+            }
+        }
+    }
+}
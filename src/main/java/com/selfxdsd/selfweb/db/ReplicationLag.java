@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * How far behind the primary a MySql replica is, read from its
+ * replication status. A database which is not replicating (the status
+ * is empty) has no lag; a replica whose replication is stopped, or which
+ * cannot be queried, has an unknown lag (null) and should not be used.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ReplicationLag implements Function<DataSource, Duration> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ReplicationLag.class
+    );
+
+    /**
+     * Query of the replication status.
+     */
+    private final String query;
+
+    /**
+     * Column with the lag, in seconds.
+     */
+    private final String column;
+
+    /**
+     * Ctor for MySql 5.7 and 8.0.
+     */
+    public ReplicationLag() {
+        this("SHOW SLAVE STATUS", "Seconds_Behind_Master");
+    }
+
+    /**
+     * Ctor.
+     * @param query Query of the replication status,
+     *  e.g. "SHOW REPLICA STATUS" for MySql 8.4.
+     * @param column Column with the lag, in seconds,
+     *  e.g. "Seconds_Behind_Source" for MySql 8.4.
+     */
+    public ReplicationLag(final String query, final String column) {
+        this.query = query;
+        this.column = column;
+    }
+
+    @Override
+    public Duration apply(final DataSource replica) {
+        Duration lag;
+        try (
+            Connection connection = replica.getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet status = statement.executeQuery(this.query)
+        ) {
+            if(status.next()) {
+                final long seconds = status.getLong(this.column);
+                if(status.wasNull()) {
+                    lag = null;
+                } else {
+                    lag = Duration.ofSeconds(seconds);
+                }
+            } else {
+                lag = Duration.ZERO;
+            }
+        } catch (final SQLException ex) {
+            LOG.warn("Could not read the replication lag.", ex);
+            lag = null;
+        }
+        return lag;
+    }
+}
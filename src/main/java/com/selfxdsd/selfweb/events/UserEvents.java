@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.events;
+
+import com.selfxdsd.api.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server-Sent Events of each logged-in User: the API endpoints publish
+ * here the changes they make (Invoice paid, payment failed, Contract
+ * marked for removal, Wallet updated etc) and they are pushed to every
+ * open event stream of the User, so the UI can update itself instead
+ * of fetching the lists again.<br><br>
+ *
+ * A User can have a limited number of open streams (e.g. browser tabs),
+ * opening one more closes the oldest.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class UserEvents {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        UserEvents.class
+    );
+
+    /**
+     * Open streams of each User.
+     */
+    private final Map<String, List<SseEmitter>> streams;
+
+    /**
+     * After how long a stream is closed (the browser reconnects).
+     */
+    private final Duration timeout;
+
+    /**
+     * Max number of open streams per User.
+     */
+    private final int max;
+
+    /**
+     * Ctor with streams of 30 minutes, at most 5 per User.
+     */
+    public UserEvents() {
+        this(Duration.ofMinutes(30), 5);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param timeoutSeconds After how many seconds a stream is closed.
+     * @param max Max number of open streams per User.
+     */
+    @Autowired
+    public UserEvents(
+        @Value("${self.events.timeout-seconds}") final long timeoutSeconds,
+        @Value("${self.events.max-per-user}") final int max
+    ) {
+        this(Duration.ofSeconds(timeoutSeconds), max);
+    }
+
+    /**
+     * Ctor.
+     * @param timeout After how long a stream is closed.
+     * @param max Max number of open streams per User.
+     */
+    public UserEvents(final Duration timeout, final int max) {
+        this.timeout = timeout;
+        this.max = max;
+        this.streams = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Open an event stream for the User.
+     * @param user Authenticated User.
+     * @return SseEmitter.
+     */
+    public SseEmitter subscribe(final User user) {
+        final String owner = UserEvents.key(user);
+        final SseEmitter stream = new SseEmitter(this.timeout.toMillis());
+        final List<SseEmitter> oldest = new ArrayList<>();
+        this.streams.compute(
+            owner,
+            (key, open) -> {
+                final List<SseEmitter> all;
+                if(open == null) {
+                    all = new CopyOnWriteArrayList<>();
+                } else {
+                    all = open;
+                }
+                all.add(stream);
+                while(all.size() > this.max) {
+                    oldest.add(all.remove(0));
+                }
+                return all;
+            }
+        );
+        oldest.forEach(SseEmitter::complete);
+        stream.onCompletion(() -> this.remove(owner, stream));
+        stream.onTimeout(() -> this.remove(owner, stream));
+        stream.onError(error -> this.remove(owner, stream));
+        return stream;
+    }
+
+    /**
+     * Push an event to the User's open streams.
+     * @param user User.
+     * @param name Name of the event (e.g. invoice.paid).
+     * @param data Data of the event.
+     */
+    public void publish(
+        final User user,
+        final String name,
+        final JsonObject data
+    ) {
+        if(!this.streams.isEmpty()) {
+            this.publish(UserEvents.key(user), name, data);
+        }
+    }
+
+    /**
+     * Push an event to the User's open streams.
+     * @param owner Key of the User (see {@link #key(User)}).
+     * @param name Name of the event (e.g. invoice.paid).
+     * @param data Data of the event.
+     */
+    public void publish(
+        final String owner,
+        final String name,
+        final JsonObject data
+    ) {
+        final List<SseEmitter> open = this.streams.get(owner);
+        if(open != null) {
+            for(final SseEmitter stream : open) {
+                try {
+                    stream.send(
+                        SseEmitter.event()
+                            .name(name)
+                            .data(data.toString(), MediaType.APPLICATION_JSON)
+                    );
+                } catch (final IOException | IllegalStateException ex) {
+                    LOG.debug("Event stream of " + owner + " is closed.");
+                    this.remove(owner, stream);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of open streams of the User.
+     * @param user User.
+     * @return Integer.
+     */
+    public int subscribers(final User user) {
+        final List<SseEmitter> open = this.streams.get(UserEvents.key(user));
+        final int count;
+        if(open == null) {
+            count = 0;
+        } else {
+            count = open.size();
+        }
+        return count;
+    }
+
+    /**
+     * Key of a User: provider/username, lowercase.
+     * @param user User.
+     * @return String key.
+     */
+    public static String key(final User user) {
+        return String.valueOf(user.provider().name())
+            .concat("/")
+            .concat(String.valueOf(user.username()))
+            .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Forget a closed stream.
+     * @param owner Key of the User.
+     * @param stream Stream.
+     */
+    private void remove(final String owner, final SseEmitter stream) {
+        this.streams.computeIfPresent(
+            owner,
+            (key, open) -> {
+                open.remove(stream);
+                final List<SseEmitter> left;
+                if(open.isEmpty()) {
+                    left = null;
+                } else {
+                    left = open;
+                }
+                return left;
+            }
+        );
+    }
+}
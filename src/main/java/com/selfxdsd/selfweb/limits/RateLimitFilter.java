@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.json.Json;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of the API requests (/api/**) per Project and per
+ * User, to protect the database and the Providers' quotas. A request
+ * over the limit gets 429 TOO MANY REQUESTS, with a Retry-After header.
+ * The User's token is taken first: a User over their own limit does not
+ * use up the tokens of the Project, which is shared with the other Users.
+ * The event stream (/api/events) is not limited, it is one long request.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Prefix of the Project routes.
+     */
+    private static final String PROJECTS = "/api/projects/";
+
+    /**
+     * Buckets of the Projects.
+     */
+    private final TokenBuckets projects;
+
+    /**
+     * Buckets of the Users.
+     */
+    private final TokenBuckets users;
+
+    /**
+     * Ctor.
+     * @param projects Buckets of the Projects.
+     * @param users Buckets of the Users.
+     */
+    public RateLimitFilter(
+        final TokenBuckets projects,
+        final TokenBuckets users
+    ) {
+        this.projects = projects;
+        this.users = users;
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param projectRate Requests per second per Project.
+     * @param projectBurst Max burst of requests per Project.
+     * @param userRate Requests per second per User.
+     * @param userBurst Max burst of requests per User.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public RateLimitFilter(
+        @Value("${self.limits.project.per-second}") final double projectRate,
+        @Value("${self.limits.project.burst}") final int projectBurst,
+        @Value("${self.limits.user.per-second}") final double userRate,
+        @Value("${self.limits.user.burst}") final int userBurst
+    ) {
+        this(
+            new TokenBuckets(projectRate, projectBurst),
+            new TokenBuckets(userRate, userBurst)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getServletPath();
+        return !path.startsWith("/api/") || "/api/events".equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain chain
+    ) throws ServletException, IOException {
+        long wait = 0;
+        final String user = RateLimitFilter.user(request.getUserPrincipal());
+        if(user != null) {
+            wait = this.users.take(user);
+            if(wait > 0) {
+                Metrics.counter("self.rate.limited", "scope", "user")
+                    .increment();
+            }
+        }
+        final String project = RateLimitFilter.project(
+            request.getServletPath()
+        );
+        if(wait == 0 && project != null) {
+            wait = this.projects.take(project);
+            if(wait > 0) {
+                Metrics.counter("self.rate.limited", "scope", "project")
+                    .increment();
+            }
+        }
+        if(wait > 0) {
+            final long seconds = Math.max(
+                1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L)
+            );
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(seconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(
+                Json.createObjectBuilder()
+                    .add(
+                        "message",
+                        "Too many requests, please try again in "
+                        + seconds + " seconds."
+                    ).build()
+                    .toString()
+            );
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Key of the logged-in User.
+     * @param principal Principal, null if nobody is logged in.
+     * @return Provider/name of the User or null.
+     */
+    static String user(final Principal principal) {
+        final String user;
+        if(principal instanceof OAuth2AuthenticationToken) {
+            user = ((OAuth2AuthenticationToken) principal)
+                .getAuthorizedClientRegistrationId()
+                + "/" + principal.getName();
+        } else if(principal != null) {
+            user = principal.getName();
+        } else {
+            user = null;
+        }
+        return user;
+    }
+
+    /**
+     * The Project (owner/name, lowercase) of an API path.
+     * @param path Path, e.g. /api/projects/amihaiemil/docker-java-api/...
+     * @return Project or null if the path is not about a Project.
+     */
+    static String project(final String path) {
+        String project = null;
+        if(path.startsWith(PROJECTS)) {
+            final String[] parts = path.substring(PROJECTS.length())
+                .split("/");
+            if(parts.length >= 2) {
+                project = (parts[0] + "/" + parts[1]).toLowerCase(Locale.ROOT);
+            }
+        }
+        return project;
+    }
+}
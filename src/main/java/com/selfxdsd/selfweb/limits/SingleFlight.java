@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical reads which run at the same time: the first
+ * caller of a key computes the value, the ones coming while it is
+ * computing wait for it and get the same value (or exception). Nothing
+ * is cached, once the value is computed, the next caller computes it
+ * again.<br><br>
+ *
+ * Keys should contain everything the value depends on, e.g. the route,
+ * the Project and the role of the User.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class SingleFlight {
+
+    /**
+     * Computations in flight, by key.
+     */
+    private final Map<String, FutureTask<Object>> flights;
+
+    /**
+     * Ctor.
+     */
+    public SingleFlight() {
+        this.flights = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Compute the value of the key or wait for the computation which is
+     * already running.
+     * @param key Key.
+     * @param work Computes the value.
+     * @param <T> Type of the value.
+     * @return The value.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(final String key, final Supplier<T> work) {
+        final FutureTask<Object> mine = new FutureTask<>(work::get);
+        final FutureTask<Object> running = this.flights.putIfAbsent(
+            key, mine
+        );
+        final FutureTask<Object> flight;
+        if(running == null) {
+            try {
+                mine.run();
+            } finally {
+                this.flights.remove(key, mine);
+            }
+            flight = mine;
+        } else {
+            Metrics.counter("self.coalesced").increment();
+            flight = running;
+        }
+        return (T) SingleFlight.result(flight);
+    }
+
+    /**
+     * Wait for the result of a computation.
+     * @param flight Computation.
+     * @return Its value.
+     */
+    private static Object result(final FutureTask<Object> flight) {
+        try {
+            return flight.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
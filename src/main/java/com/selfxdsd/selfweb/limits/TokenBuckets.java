@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets, one per key (e.g. per Project or per User), without
+ * locks.<br><br>
+ *
+ * Each bucket is a single AtomicLong, the time at which it will be
+ * full again (the "theoretical arrival time" of the generic cell rate
+ * algorithm): taking a token moves it one interval into the future,
+ * with a CAS. A request is refused if that time is further away than
+ * the burst allows. The buckets are kept in a ConcurrentHashMap, so
+ * different keys do not contend with each other.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class TokenBuckets {
+
+    /**
+     * Above this number of buckets, the full ones are dropped (a full
+     * bucket is the same as a new one).
+     */
+    private static final int MAX_BUCKETS = 50_000;
+
+    /**
+     * Buckets by key.
+     */
+    private final Map<String, AtomicLong> buckets;
+
+    /**
+     * Time it takes to get one token back, in nanos.
+     */
+    private final long interval;
+
+    /**
+     * How far ahead a bucket may go: (burst - 1) intervals, in nanos.
+     */
+    private final long tolerance;
+
+    /**
+     * Ctor.
+     * @param perSecond How many tokens per second we get back.
+     * @param burst Max number of tokens in a bucket.
+     */
+    public TokenBuckets(final double perSecond, final int burst) {
+        this.interval = (long) (Duration.ofSeconds(1).toNanos() / perSecond);
+        this.tolerance = (burst - 1) * this.interval;
+        this.buckets = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Take a token from the key's bucket.
+     * @param key Key (e.g. project:owner/name).
+     * @return Zero if a token was taken, otherwise how long to wait
+     *  for one, in nanos.
+     */
+    public long take(final String key) {
+        final long now = System.nanoTime();
+        if(this.buckets.size() > MAX_BUCKETS) {
+            this.buckets.values().removeIf(full -> full.get() - now < 0);
+        }
+        final AtomicLong bucket = this.buckets.computeIfAbsent(
+            key, full -> new AtomicLong(now)
+        );
+        long wait = -1;
+        while(wait < 0) {
+            final long current = bucket.get();
+            final long start = Math.max(current, now);
+            if(start - now > this.tolerance) {
+                wait = start - now - this.tolerance;
+            } else if(bucket.compareAndSet(current, start + this.interval)) {
+                wait = 0;
+            }
+        }
+        return wait;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.function.Supplier;
+
+/**
+ * Times the outbound calls which we make through Self's domain: to the
+ * Providers (Github, Gitlab) and to Stripe. Each call is recorded by the
+ * "self.outbound" timer, tagged with the target, the operation and the
+ * outcome (success or error), and added as a span to the trace of the
+ * current request, if any (see {@link RequestTrace}). The database calls
+ * are timed by the connection pool itself (hikaricp.connections.*) and
+ * traced by {@link SqlTimings}.<br><br>
+ *
+ * The timers are registered in Micrometer's global registry, to which
+ * Spring Boot adds the Prometheus registry, so the controllers do not
+ * have to carry a MeterRegistry. Without a registry (e.g. in unit tests)
+ * the calls are simply not recorded.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class Outbound {
+
+    /**
+     * Name of the timer.
+     */
+    public static final String TIMER = "self.outbound";
+
+    /**
+     * Hidden ctor.
+     */
+    private Outbound() { }
+
+    /**
+     * Time a call to the Provider (Github, Gitlab).
+     * @param operation Name of the operation, e.g. "activate".
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return The call's result.
+     */
+    public static <T> T provider(
+        final String operation,
+        final Supplier<T> call
+    ) {
+        return Outbound.timed(
+            Metrics.globalRegistry, "provider", operation, call
+        );
+    }
+
+    /**
+     * Time a call to the Provider (Github, Gitlab), without a result.
+     * @param operation Name of the operation, e.g. "deactivate".
+     * @param call The call.
+     */
+    public static void provider(final String operation, final Runnable call) {
+        Outbound.provider(
+            operation,
+            () -> {
+                call.run();
+                return Boolean.TRUE;
+            }
+        );
+    }
+
+    /**
+     * Time a call to Stripe.
+     * @param operation Name of the operation, e.g. "pay".
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return The call's result.
+     */
+    public static <T> T stripe(
+        final String operation,
+        final Supplier<T> call
+    ) {
+        return Outbound.timed(
+            Metrics.globalRegistry, "stripe", operation, call
+        );
+    }
+
+    /**
+     * Time a call.
+     * @param registry Registry of the timer.
+     * @param target Called system (provider, stripe).
+     * @param operation Name of the operation.
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return The call's result.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    static <T> T timed(
+        final MeterRegistry registry,
+        final String target,
+        final String operation,
+        final Supplier<T> call
+    ) {
+        final Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            final T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            final long nanos = sample.stop(
+                Timer.builder(TIMER)
+                    .description("Calls to the Providers and Stripe")
+                    .tag("target", target)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry)
+            );
+            RequestTrace.record(target, operation, nanos);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Timing breakdown of one API request: how much of it went to the
+ * Providers, to Stripe and to the database. The outbound calls add
+ * their spans to the trace of the current thread (see {@link Outbound}
+ * and {@link SqlTimings}); work handed to other threads has to
+ * {@link #within(RequestTrace, Supplier)} the trace explicitly.<br><br>
+ *
+ * The breakdown is sent back in the Server-Timing header and kept, as
+ * JSON, in {@link Traces}. Other components may add their own headers
+ * (see {@link #header(String, Supplier)}), written with Server-Timing,
+ * when the response is committed.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class RequestTrace {
+
+    /**
+     * Name of the header with the breakdown.
+     */
+    public static final String HEADER = "Server-Timing";
+
+    /**
+     * Trace of the request handled by the current thread.
+     */
+    private static final ThreadLocal<RequestTrace> CURRENT =
+        new ThreadLocal<>();
+
+    /**
+     * Max number of spans kept with their details. The segments still
+     * count all of them.
+     */
+    private static final int MAX_SPANS = 100;
+
+    /**
+     * Request, e.g. "GET /api/contributor".
+     */
+    private final String request;
+
+    /**
+     * When the request started.
+     */
+    private final Instant startedAt;
+
+    /**
+     * When the request started, in System.nanoTime().
+     */
+    private final long start;
+
+    /**
+     * Lock of the spans and segments, which may come from more threads.
+     */
+    private final Object lock;
+
+    /**
+     * Details of the first spans.
+     */
+    private final List<Span> spans;
+
+    /**
+     * Total nanos and number of calls, by target.
+     */
+    private final Map<String, long[]> segments;
+
+    /**
+     * Headers written when the response is committed, by name.
+     */
+    private final Map<String, Supplier<String>> headers;
+
+    /**
+     * Duration of the request in nanos, -1 while it is running.
+     */
+    private volatile long duration;
+
+    /**
+     * Ctor.
+     * @param request Request, e.g. "GET /api/contributor".
+     */
+    public RequestTrace(final String request) {
+        this.request = request;
+        this.startedAt = Instant.now();
+        this.start = System.nanoTime();
+        this.lock = new Object();
+        this.spans = new ArrayList<>();
+        this.segments = new LinkedHashMap<>();
+        this.headers = new LinkedHashMap<>();
+        this.duration = -1;
+    }
+
+    /**
+     * Trace of the current thread.
+     * @return RequestTrace or null if the thread is not tracing.
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Add a span to the trace of the current thread, if any.
+     * @param target Called system (provider, stripe, db).
+     * @param operation Operation.
+     * @param nanos Duration of the call.
+     */
+    public static void record(
+        final String target,
+        final String operation,
+        final long nanos
+    ) {
+        final RequestTrace trace = CURRENT.get();
+        if(trace != null) {
+            trace.span(target, operation, nanos);
+        }
+    }
+
+    /**
+     * Run some work with the given trace as the current one, e.g. in a
+     * pool thread working for the request.
+     * @param trace Trace, may be null.
+     * @param work Work.
+     * @param <T> Type of the result.
+     * @return The work's result.
+     */
+    public static <T> T within(
+        final RequestTrace trace,
+        final Supplier<T> work
+    ) {
+        final RequestTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return work.get();
+        } finally {
+            if(previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Detach the current thread from its trace, e.g. when the request
+     * continues asynchronously in another thread.
+     */
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Make this the trace of the current thread.
+     * @return This.
+     */
+    public RequestTrace start() {
+        CURRENT.set(this);
+        return this;
+    }
+
+    /**
+     * The request is done: stop the clock and detach from the thread.
+     */
+    public void finish() {
+        if(this.duration < 0) {
+            this.duration = System.nanoTime() - this.start;
+        }
+        if(CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Add a span.
+     * @param target Called system (provider, stripe, db).
+     * @param operation Operation.
+     * @param nanos Duration of the call.
+     */
+    public void span(
+        final String target,
+        final String operation,
+        final long nanos
+    ) {
+        synchronized (this.lock) {
+            final long[] segment = this.segments.computeIfAbsent(
+                target, key -> new long[2]
+            );
+            segment[0] = segment[0] + nanos;
+            segment[1] = segment[1] + 1;
+            if(this.spans.size() < MAX_SPANS) {
+                this.spans.add(new Span(target, operation, nanos));
+            }
+        }
+    }
+
+    /**
+     * Number of calls made so far to a target.
+     * @param target Called system (provider, stripe, db).
+     * @return Number of calls.
+     */
+    public long calls(final String target) {
+        synchronized (this.lock) {
+            final long[] segment = this.segments.get(target);
+            final long calls;
+            if(segment == null) {
+                calls = 0;
+            } else {
+                calls = segment[1];
+            }
+            return calls;
+        }
+    }
+
+    /**
+     * Add a response header, whose value is read only when the response
+     * is committed.
+     * @param name Name of the header.
+     * @param value Value of the header.
+     */
+    public void header(final String name, final Supplier<String> value) {
+        synchronized (this.lock) {
+            this.headers.put(name, value);
+        }
+    }
+
+    /**
+     * The response headers: Server-Timing and the added ones.
+     * @return Values by header name.
+     */
+    public Map<String, String> headers() {
+        final Map<String, Supplier<String>> added;
+        synchronized (this.lock) {
+            added = new LinkedHashMap<>(this.headers);
+        }
+        final Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(RequestTrace.HEADER, this.serverTiming());
+        for(final Map.Entry<String, Supplier<String>> header
+            : added.entrySet()) {
+            headers.put(header.getKey(), header.getValue().get());
+        }
+        return headers;
+    }
+
+    /**
+     * Duration of the request so far, or in total if it is finished.
+     * @return Nanos.
+     */
+    public long elapsed() {
+        long elapsed = this.duration;
+        if(elapsed < 0) {
+            elapsed = System.nanoTime() - this.start;
+        }
+        return elapsed;
+    }
+
+    /**
+     * Value of the Server-Timing header, e.g.
+     * provider;dur=120.5;desc="2 calls", db;dur=8.1;desc="14 calls",
+     * total;dur=140.2.
+     * @return String.
+     */
+    public String serverTiming() {
+        final StringBuilder timing = new StringBuilder();
+        synchronized (this.lock) {
+            for(final Map.Entry<String, long[]> segment
+                : this.segments.entrySet()) {
+                timing.append(segment.getKey())
+                    .append(";dur=")
+                    .append(formatted(segment.getValue()[0]))
+                    .append(";desc=\"")
+                    .append(segment.getValue()[1])
+                    .append(" calls\", ");
+            }
+        }
+        return timing.append("total;dur=")
+            .append(formatted(this.elapsed()))
+            .toString();
+    }
+
+    /**
+     * Duration of the request, in millis.
+     * @return Double.
+     */
+    public double millis() {
+        return ms(this.elapsed());
+    }
+
+    /**
+     * The trace as JSON.
+     * @return JsonObject.
+     */
+    public JsonObject json() {
+        final JsonObjectBuilder segments = Json.createObjectBuilder();
+        final JsonArrayBuilder spans = Json.createArrayBuilder();
+        synchronized (this.lock) {
+            for(final Map.Entry<String, long[]> segment
+                : this.segments.entrySet()) {
+                segments.add(
+                    segment.getKey(),
+                    Json.createObjectBuilder()
+                        .add("ms", ms(segment.getValue()[0]))
+                        .add("calls", segment.getValue()[1])
+                );
+            }
+            for(final Span span : this.spans) {
+                spans.add(
+                    Json.createObjectBuilder()
+                        .add("target", span.target)
+                        .add("operation", span.operation)
+                        .add("ms", ms(span.nanos))
+                );
+            }
+        }
+        return Json.createObjectBuilder()
+            .add("request", this.request)
+            .add("startedAt", this.startedAt.toString())
+            .add("ms", ms(this.elapsed()))
+            .add("segments", segments)
+            .add("spans", spans)
+            .build();
+    }
+
+    /**
+     * Format nanos as millis, with one decimal.
+     * @param nanos Nanos.
+     * @return String.
+     */
+    private static String formatted(final long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Nanos as millis, rounded to one decimal.
+     * @param nanos Nanos.
+     * @return Double.
+     */
+    private static double ms(final long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    /**
+     * One outbound call.
+     */
+    private static final class Span {
+
+        /**
+         * Called system.
+         */
+        private final String target;
+
+        /**
+         * Operation.
+         */
+        private final String operation;
+
+        /**
+         * Duration.
+         */
+        private final long nanos;
+
+        /**
+         * Ctor.
+         * @param target Called system.
+         * @param operation Operation.
+         * @param nanos Duration.
+         */
+        Span(final String target, final String operation, final long nanos) {
+            this.target = target;
+            this.operation = operation;
+            this.nanos = nanos;
+        }
+    }
+}
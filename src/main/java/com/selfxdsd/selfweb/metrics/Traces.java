@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * The most recent finished RequestTraces, newest first. Each finished
+ * trace is also logged: at INFO level if the request was slow, at DEBUG
+ * level otherwise.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class Traces {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(Traces.class);
+
+    /**
+     * Max number of kept traces.
+     */
+    private final int keep;
+
+    /**
+     * Requests slower than this many millis are logged at INFO level.
+     */
+    private final long slowMillis;
+
+    /**
+     * Kept traces, newest first.
+     */
+    private final Deque<RequestTrace> recent;
+
+    /**
+     * Ctor keeping the last 100 traces and logging requests slower than
+     * one second.
+     */
+    public Traces() {
+        this(100, 1000);
+    }
+
+    /**
+     * Ctor.
+     * @param keep Max number of kept traces.
+     * @param slowMillis Requests slower than this are logged at INFO.
+     */
+    @Autowired
+    public Traces(
+        @Value("${self.tracing.keep}") final int keep,
+        @Value("${self.tracing.slow-ms}") final long slowMillis
+    ) {
+        this.keep = keep;
+        this.slowMillis = slowMillis;
+        this.recent = new ArrayDeque<>(keep);
+    }
+
+    /**
+     * Keep and log a finished trace.
+     * @param trace Finished trace.
+     */
+    public void add(final RequestTrace trace) {
+        if(trace.millis() >= this.slowMillis) {
+            LOG.info("Slow request: {}", trace.json());
+        } else if(LOG.isDebugEnabled()) {
+            LOG.debug("Request timings: {}", trace.json());
+        }
+        synchronized (this.recent) {
+            this.recent.addFirst(trace);
+            while(this.recent.size() > this.keep) {
+                this.recent.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Kept traces as JSON, newest first.
+     * @return JsonArray.
+     */
+    public JsonArray json() {
+        JsonArrayBuilder json = Json.createArrayBuilder();
+        synchronized (this.recent) {
+            final Iterator<RequestTrace> traces = this.recent.iterator();
+            while(traces.hasNext()) {
+                json = json.add(traces.next().json());
+            }
+        }
+        return json.build();
+    }
+}
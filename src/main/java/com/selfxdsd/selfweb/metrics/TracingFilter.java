@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Traces the API requests (/api/**). Each request gets a
+ * {@link RequestTrace}, to which the outbound calls add their spans.
+ * The breakdown is sent in the Server-Timing header, right before the
+ * response is committed, and the finished trace goes to {@link Traces}.
+ * For streamed responses, the trace is finished when the async request
+ * completes.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TracingFilter extends OncePerRequestFilter {
+
+    /**
+     * Finished traces.
+     */
+    private final Traces traces;
+
+    /**
+     * Ctor.
+     * @param traces Finished traces.
+     */
+    @Autowired
+    public TracingFilter(final Traces traces) {
+        this.traces = traces;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !request.getServletPath().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain chain
+    ) throws ServletException, IOException {
+        final RequestTrace trace = new RequestTrace(
+            request.getMethod() + " " + request.getRequestURI()
+        ).start();
+        try {
+            chain.doFilter(request, new Timed(response, trace));
+        } finally {
+            if(!response.isCommitted()) {
+                TracingFilter.write(response, trace);
+            }
+            if(request.isAsyncStarted()) {
+                RequestTrace.detach();
+                request.getAsyncContext().addListener(
+                    new Finish(trace, this.traces)
+                );
+            } else {
+                trace.finish();
+                this.traces.add(trace);
+            }
+        }
+    }
+
+    /**
+     * Write the headers of the trace (Server-Timing and the added ones).
+     * @param response Response.
+     * @param trace Trace of the request.
+     */
+    private static void write(
+        final HttpServletResponse response,
+        final RequestTrace trace
+    ) {
+        for(final Map.Entry<String, String> header
+            : trace.headers().entrySet()) {
+            response.setHeader(header.getKey(), header.getValue());
+        }
+    }
+
+    /**
+     * Response which sets the trace's headers when it is committed.
+     */
+    private static final class Timed extends OnCommittedResponseWrapper {
+
+        /**
+         * Trace of the request.
+         */
+        private final RequestTrace trace;
+
+        /**
+         * Ctor.
+         * @param response Original response.
+         * @param trace Trace of the request.
+         */
+        Timed(final HttpServletResponse response, final RequestTrace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            TracingFilter.write(
+                (HttpServletResponse) this.getResponse(), this.trace
+            );
+        }
+    }
+
+    /**
+     * Keeps the trace once the async request is over.
+     */
+    private static final class Finish implements AsyncListener {
+
+        /**
+         * Trace of the request.
+         */
+        private final RequestTrace trace;
+
+        /**
+         * Finished traces.
+         */
+        private final Traces traces;
+
+        /**
+         * Was the trace kept already? Both onError and onComplete
+         * may be called.
+         */
+        private final AtomicBoolean kept;
+
+        /**
+         * Ctor.
+         * @param trace Trace of the request.
+         * @param traces Finished traces.
+         */
+        Finish(final RequestTrace trace, final Traces traces) {
+            this.trace = trace;
+            this.traces = traces;
+            this.kept = new AtomicBoolean(false);
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            this.done();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            this.done();
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            this.done();
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        /**
+         * Stop the clock and keep the trace.
+         */
+        private void done() {
+            if(this.kept.compareAndSet(false, true)) {
+                this.trace.finish();
+                this.traces.add(this.trace);
+            }
+        }
+    }
+}
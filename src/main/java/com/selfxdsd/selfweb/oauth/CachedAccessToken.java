@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.oauth;
+
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The OAuth2 access token of a login, loaded once from the
+ * OAuth2AuthorizedClientService and then kept until it is about to
+ * expire.<br><br>
+ *
+ * Tokens with a refresh token (GitLab) are refreshed ahead of their expiry
+ * by the {@link TokenRefresher}; if that did not happen, the expired token
+ * is refreshed when it is read. Tokens without a refresh token (GitHub)
+ * do not expire while their OAuth App is authorized, even though Spring
+ * gives them an expiry of one second, so they are kept as they are.
+ * Reads of the token are counted by the "self.oauth.tokens" counter,
+ * tagged with cached or loaded.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class CachedAccessToken {
+
+    /**
+     * A token expiring sooner than this is not used anymore, so it does
+     * not expire in the middle of a request.
+     */
+    private static final Duration SKEW = Duration.ofSeconds(30);
+
+    /**
+     * OAuth2 authorized clients.
+     */
+    private final OAuth2AuthorizedClientService clients;
+
+    /**
+     * Refreshes the token.
+     */
+    private final TokenRefresher refresher;
+
+    /**
+     * Client registration id (github, gitlab).
+     */
+    private final String registration;
+
+    /**
+     * Name of the User's principal.
+     */
+    private final String principal;
+
+    /**
+     * Lock used while loading the token.
+     */
+    private final Object lock;
+
+    /**
+     * The client, null until first loaded.
+     */
+    private volatile OAuth2AuthorizedClient client;
+
+    /**
+     * When was the token last read, in millis.
+     */
+    private volatile long readAt;
+
+    /**
+     * Ctor.
+     * @param clients OAuth2 authorized clients.
+     * @param refresher Refreshes the token.
+     * @param registration Client registration id (github, gitlab).
+     * @param principal Name of the User's principal.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public CachedAccessToken(
+        final OAuth2AuthorizedClientService clients,
+        final TokenRefresher refresher,
+        final String registration,
+        final String principal
+    ) {
+        this.clients = clients;
+        this.refresher = refresher;
+        this.registration = registration;
+        this.principal = principal;
+        this.lock = new Object();
+        this.readAt = System.currentTimeMillis();
+    }
+
+    /**
+     * The value of the access token.
+     * @return String token.
+     */
+    public String value() {
+        this.readAt = System.currentTimeMillis();
+        OAuth2AuthorizedClient current = this.client;
+        if(current == null || CachedAccessToken.expiring(current)) {
+            synchronized (this.lock) {
+                current = this.client;
+                if(current == null || CachedAccessToken.expiring(current)) {
+                    current = this.load();
+                }
+            }
+        } else {
+            CachedAccessToken.count("cached");
+        }
+        return current.getAccessToken().getTokenValue();
+    }
+
+    /**
+     * Use a new client, e.g. after it was refreshed.
+     * @param refreshed New client.
+     */
+    public void update(final OAuth2AuthorizedClient refreshed) {
+        this.client = refreshed;
+        this.refresher.ahead(this, refreshed);
+    }
+
+    /**
+     * Was the token not read for a while?
+     * @param max Max time without a read.
+     * @return True or false.
+     */
+    public boolean idle(final Duration max) {
+        return System.currentTimeMillis() - this.readAt > max.toMillis();
+    }
+
+    /**
+     * Load the client, refreshing it if it expired.
+     * @return Loaded client.
+     */
+    private OAuth2AuthorizedClient load() {
+        CachedAccessToken.count("loaded");
+        OAuth2AuthorizedClient loaded = this.clients.loadAuthorizedClient(
+            this.registration, this.principal
+        );
+        if(loaded == null) {
+            throw new IllegalStateException(
+                "No " + this.registration + " authorized client for "
+                + this.principal + "."
+            );
+        }
+        if(CachedAccessToken.expiring(loaded)) {
+            final OAuth2AuthorizedClient refreshed = this.refresher.refresh(
+                this.registration, this.principal
+            );
+            if(refreshed != null) {
+                loaded = refreshed;
+            }
+        }
+        this.update(loaded);
+        return loaded;
+    }
+
+    /**
+     * Is the client's token about to expire? Only the tokens with
+     * a refresh token expire.
+     * @param client Client.
+     * @return True or false.
+     */
+    private static boolean expiring(final OAuth2AuthorizedClient client) {
+        final Instant expiresAt = client.getAccessToken().getExpiresAt();
+        return client.getRefreshToken() != null
+            && expiresAt != null
+            && expiresAt.isBefore(Instant.now().plus(SKEW));
+    }
+
+    /**
+     * Count a read of the token.
+     * @param source Where it was read from (cached or loaded).
+     */
+    private static void count(final String source) {
+        Metrics.counter("self.oauth.tokens", "source", source).increment();
+    }
+}
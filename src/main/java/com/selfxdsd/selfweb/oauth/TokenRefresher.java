@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.oauth;
+
+import com.selfxdsd.selfweb.limits.SingleFlight;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the OAuth2 access tokens which have a refresh token (e.g.
+ * GitLab's, which expire after 2 hours), shortly before they expire,
+ * so the calls to the Provider never wait for a token refresh.<br><br>
+ *
+ * The refreshed client is saved in the OAuth2AuthorizedClientService,
+ * so all the sessions of the User see it. Refreshes of the same client
+ * are coalesced: the refresh token may be rotated by the Provider, so
+ * two refreshes of the same client must not race; the ones coming while
+ * a client is being refreshed wait for it and get its result. Refreshes
+ * of different clients run in parallel, so a slow token endpoint only
+ * holds the requests of its own User. A token which was not used for
+ * a while (its session is probably gone) is not refreshed anymore.
+ * Refreshes are counted by the "self.oauth.refreshes" counter, tagged
+ * with their outcome (refreshed, failed or idle).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class TokenRefresher implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        TokenRefresher.class
+    );
+
+    /**
+     * Refreshes the clients, null if they are not refreshed.
+     */
+    private final OAuth2AuthorizedClientManager manager;
+
+    /**
+     * Refreshes in flight, by client (registration/principal).
+     */
+    private final SingleFlight flights;
+
+    /**
+     * Scheduler of the refreshes ahead of expiry, null if there is none.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * How long before the expiry is a token refreshed.
+     */
+    private final Duration ahead;
+
+    /**
+     * After how long without use is a token not refreshed anymore.
+     */
+    private final Duration idle;
+
+    /**
+     * Ctor for a refresher which never refreshes.
+     */
+    public TokenRefresher() {
+        this(null, null, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param registrations OAuth2 client registrations.
+     * @param clients OAuth2 authorized clients.
+     * @param aheadSeconds How long before the expiry is a token refreshed,
+     *  in seconds.
+     * @param idleSeconds After how long without use is a token not
+     *  refreshed anymore, in seconds.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public TokenRefresher(
+        final ClientRegistrationRepository registrations,
+        final OAuth2AuthorizedClientService clients,
+        @Value("${self.oauth.refresh-ahead-seconds}") final long aheadSeconds,
+        @Value("${self.oauth.idle-seconds}") final long idleSeconds
+    ) {
+        this(
+            TokenRefresher.manager(
+                registrations, clients, Duration.ofSeconds(aheadSeconds)
+            ),
+            Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("oauth-token-refresher-")
+            ),
+            Duration.ofSeconds(aheadSeconds),
+            Duration.ofSeconds(idleSeconds)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param manager Refreshes the clients, null to not refresh them.
+     * @param scheduler Scheduler of the refreshes ahead of expiry,
+     *  null to refresh only the expired tokens.
+     * @param ahead How long before the expiry is a token refreshed.
+     * @param idle After how long without use is a token not
+     *  refreshed anymore.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public TokenRefresher(
+        final OAuth2AuthorizedClientManager manager,
+        final ScheduledExecutorService scheduler,
+        final Duration ahead,
+        final Duration idle
+    ) {
+        this.manager = manager;
+        this.scheduler = scheduler;
+        this.ahead = ahead;
+        this.idle = idle;
+        this.flights = new SingleFlight();
+    }
+
+    /**
+     * Refresh the client of the User, if it is about to expire.
+     * @param registration Client registration id (github, gitlab).
+     * @param principal Name of the User's principal.
+     * @return Refreshed client or null if it could not be refreshed.
+     */
+    public OAuth2AuthorizedClient refresh(
+        final String registration,
+        final String principal
+    ) {
+        return this.flights.run(
+            registration + "/" + principal,
+            () -> this.authorize(registration, principal)
+        );
+    }
+
+    /**
+     * Schedule the refresh of the token, shortly before it expires.
+     * Tokens without a refresh token are not scheduled.
+     * @param token Token of a login.
+     * @param client Its current client.
+     */
+    public void ahead(
+        final CachedAccessToken token,
+        final OAuth2AuthorizedClient client
+    ) {
+        final Instant expiresAt = client.getAccessToken().getExpiresAt();
+        if(client.getRefreshToken() != null && expiresAt != null
+            && this.scheduler != null && !this.scheduler.isShutdown()) {
+            final long delay = Math.max(
+                0,
+                expiresAt.minus(this.ahead).toEpochMilli()
+                - System.currentTimeMillis()
+            );
+            this.scheduler.schedule(
+                () -> this.refreshAhead(token, client),
+                delay,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    @Override
+    public void close() {
+        if(this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Refresh the token ahead of its expiry, unless it is idle.
+     * @param token Token of a login.
+     * @param client Client which is about to expire.
+     */
+    private void refreshAhead(
+        final CachedAccessToken token,
+        final OAuth2AuthorizedClient client
+    ) {
+        if(token.idle(this.idle)) {
+            TokenRefresher.count("idle");
+        } else {
+            final OAuth2AuthorizedClient refreshed = this.refresh(
+                client.getClientRegistration().getRegistrationId(),
+                client.getPrincipalName()
+            );
+            if(refreshed != null && !refreshed.getAccessToken()
+                .getTokenValue()
+                .equals(client.getAccessToken().getTokenValue())) {
+                token.update(refreshed);
+            }
+        }
+    }
+
+    /**
+     * Refresh the client of the User now, if it is about to expire.
+     * @param registration Client registration id (github, gitlab).
+     * @param principal Name of the User's principal.
+     * @return Refreshed client or null if it could not be refreshed.
+     */
+    private OAuth2AuthorizedClient authorize(
+        final String registration,
+        final String principal
+    ) {
+        OAuth2AuthorizedClient refreshed = null;
+        if(this.manager != null) {
+            try {
+                refreshed = this.manager.authorize(
+                    OAuth2AuthorizeRequest
+                        .withClientRegistrationId(registration)
+                        .principal(principal)
+                        .build()
+                );
+                TokenRefresher.count("refreshed");
+            } catch (final OAuth2AuthorizationException ex) {
+                LOG.warn(
+                    "Could not refresh the " + registration
+                    + " token of " + principal + ".",
+                    ex
+                );
+                TokenRefresher.count("failed");
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Manager which refreshes the clients, within the given time
+     * before their expiry.
+     * @param registrations OAuth2 client registrations.
+     * @param clients OAuth2 authorized clients.
+     * @param ahead How long before the expiry is a token refreshed.
+     * @return OAuth2AuthorizedClientManager.
+     */
+    private static OAuth2AuthorizedClientManager manager(
+        final ClientRegistrationRepository registrations,
+        final OAuth2AuthorizedClientService clients,
+        final Duration ahead
+    ) {
+        final AuthorizedClientServiceOAuth2AuthorizedClientManager manager =
+            new AuthorizedClientServiceOAuth2AuthorizedClientManager(
+                registrations, clients
+            );
+        manager.setAuthorizedClientProvider(
+            OAuth2AuthorizedClientProviderBuilder.builder()
+                .refreshToken(refresh -> refresh.clockSkew(ahead))
+                .build()
+        );
+        return manager;
+    }
+
+    /**
+     * Count a refresh.
+     * @param outcome Outcome (refreshed, failed or idle).
+     */
+    private static void count(final String outcome) {
+        Metrics.counter("self.oauth.refreshes", "outcome", outcome)
+            .increment();
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.payments;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import java.math.BigDecimal;
+
+/**
+ * Outcome of paying all the unpaid Invoices of a Project, one entry per
+ * Invoice: PENDING (its job is still running, poll it), SUCCESSFUL,
+ * FAILED or ERROR (its payment is done) or SKIPPED (it was not paid,
+ * with the reason).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class BatchReport {
+
+    /**
+     * One hundred, amounts are kept in cents.
+     */
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    /**
+     * Report entries.
+     */
+    private final JsonArrayBuilder entries;
+
+    /**
+     * Cash available in the Wallet before paying, in cents.
+     */
+    private final BigDecimal available;
+
+    /**
+     * Cash reserved for the submitted payments, in cents.
+     */
+    private BigDecimal reserved;
+
+    /**
+     * Number of payments which are still running.
+     */
+    private int pending;
+
+    /**
+     * Ctor.
+     * @param available Cash available in the Wallet, in cents.
+     */
+    public BatchReport(final BigDecimal available) {
+        this.available = available;
+        this.reserved = BigDecimal.ZERO;
+        this.entries = Json.createArrayBuilder();
+    }
+
+    /**
+     * Is there enough cash left in the Wallet for this Invoice? If so,
+     * its amount is reserved.
+     * @param invoice Invoice to pay.
+     * @return True if the Invoice can be paid.
+     */
+    public boolean reserve(final Invoice invoice) {
+        final BigDecimal after = this.reserved.add(invoice.totalAmount());
+        final boolean enough = after.compareTo(this.available) <= 0;
+        if(enough) {
+            this.reserved = after;
+        }
+        return enough;
+    }
+
+    /**
+     * The Invoice was not paid.
+     * @param contract Contract of the Invoice.
+     * @param invoice Invoice.
+     * @param reason Why it was not paid.
+     */
+    public void skipped(
+        final Contract contract,
+        final Invoice invoice,
+        final String reason
+    ) {
+        this.entries.add(
+            this.entry(contract, invoice)
+                .add("status", "SKIPPED")
+                .add("reason", reason)
+        );
+    }
+
+    /**
+     * The Invoice's payment was submitted.
+     * @param contract Contract of the Invoice.
+     * @param invoice Invoice.
+     * @param job Job paying the Invoice.
+     */
+    public void submitted(
+        final Contract contract,
+        final Invoice invoice,
+        final PaymentJob job
+    ) {
+        final JsonObjectBuilder entry = this.entry(contract, invoice)
+            .add("job", job.id());
+        if(!job.finished()) {
+            this.pending = this.pending + 1;
+        }
+        entry.add("status", job.outcome()).add("reason", job.reason());
+        this.entries.add(entry);
+    }
+
+    /**
+     * The report: 200 OK if every payment is done, 202 ACCEPTED if some
+     * are still running.
+     * @return ResponseEntity.
+     */
+    public ResponseEntity<String> response() {
+        final HttpStatus status;
+        if(this.pending > 0) {
+            status = HttpStatus.ACCEPTED;
+        } else {
+            status = HttpStatus.OK;
+        }
+        return ResponseEntity.status(status).body(
+            Json.createObjectBuilder()
+                .add("available", this.available.divide(HUNDRED))
+                .add("reserved", this.reserved.divide(HUNDRED))
+                .add("pending", this.pending)
+                .add("invoices", this.entries)
+                .build()
+                .toString()
+        );
+    }
+
+    /**
+     * Start an entry of the report.
+     * @param contract Contract of the Invoice.
+     * @param invoice Invoice.
+     * @return JsonObjectBuilder.
+     */
+    private JsonObjectBuilder entry(
+        final Contract contract,
+        final Invoice invoice
+    ) {
+        return Json.createObjectBuilder()
+            .add("invoice", invoice.invoiceId())
+            .add("contributor", contract.contractId().getContributorUsername())
+            .add("role", contract.contractId().getRole())
+            .add("totalAmount", invoice.totalAmount().divide(HUNDRED));
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.payments;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The payment of an Invoice, running in the background. Until it is
+ * done, its response is 202 ACCEPTED, with the URL which should be
+ * polled for the result. Once it is done, its response is the one the
+ * payment endpoint would have given if it had paid synchronously.
+ * Every User who asked for the payment (e.g. two PMs of the same
+ * Project) may poll the job.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PaymentJob {
+
+    /**
+     * Id of the job.
+     */
+    private final String id;
+
+    /**
+     * Id of the Invoice being paid.
+     */
+    private final int invoiceId;
+
+    /**
+     * Users who asked for the payment (provider/username).
+     */
+    private final Set<String> owners;
+
+    /**
+     * Has the job been started?
+     */
+    private final AtomicBoolean started;
+
+    /**
+     * Result of the payment, null while it is running.
+     */
+    private volatile ResponseEntity<String> result;
+
+    /**
+     * Outcome of the payment: PENDING while it runs, then SUCCESSFUL,
+     * FAILED or ERROR.
+     */
+    private volatile String outcome;
+
+    /**
+     * Why the payment did not succeed, empty if it did.
+     */
+    private volatile String reason;
+
+    /**
+     * Body of the result, as JSON, empty while it runs.
+     */
+    private volatile JsonObject json;
+
+    /**
+     * When did the job finish, in millis.
+     */
+    private volatile long finishedAt;
+
+    /**
+     * Ctor.
+     * @param invoiceId Id of the Invoice being paid.
+     * @param owner User who started the payment (provider/username).
+     */
+    PaymentJob(final int invoiceId, final String owner) {
+        this.id = UUID.randomUUID().toString();
+        this.invoiceId = invoiceId;
+        this.owners = ConcurrentHashMap.newKeySet();
+        this.owners.add(owner);
+        this.started = new AtomicBoolean(false);
+        this.outcome = "PENDING";
+        this.reason = "";
+        this.json = Json.createObjectBuilder().build();
+    }
+
+    /**
+     * Id of the job.
+     * @return String.
+     */
+    public String id() {
+        return this.id;
+    }
+
+    /**
+     * Id of the Invoice being paid.
+     * @return Integer.
+     */
+    public int invoiceId() {
+        return this.invoiceId;
+    }
+
+    /**
+     * Did the given User ask for this payment?
+     * @param user User (provider/username).
+     * @return True or false.
+     */
+    public boolean ownedBy(final String user) {
+        return this.owners.contains(user);
+    }
+
+    /**
+     * Outcome of the payment: PENDING while it runs, then SUCCESSFUL,
+     * FAILED or ERROR (the statuses of a Payment, ERROR also if the
+     * payment could not be made at all).
+     * @return String.
+     */
+    public String outcome() {
+        return this.outcome;
+    }
+
+    /**
+     * Why the payment did not succeed.
+     * @return String, empty if it is pending or it succeeded.
+     */
+    public String reason() {
+        return this.reason;
+    }
+
+    /**
+     * Is the payment done (successful or not)?
+     * @return True or false.
+     */
+    public boolean finished() {
+        return this.result != null;
+    }
+
+    /**
+     * The response: the result of the payment if it is done or
+     * 202 ACCEPTED, pointing to the job, otherwise.
+     * @return ResponseEntity.
+     */
+    public ResponseEntity<String> response() {
+        ResponseEntity<String> response = this.result;
+        if(response == null) {
+            response = ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/payments/" + this.id)
+                .body(
+                    Json.createObjectBuilder()
+                        .add("job", this.id)
+                        .add("invoice", this.invoiceId)
+                        .add("status", "PENDING")
+                        .build()
+                        .toString()
+                );
+        }
+        return response;
+    }
+
+    /**
+     * Claim this job for running it. Only the first call returns true.
+     * @return True if the caller should run the job.
+     */
+    boolean claim() {
+        return this.started.compareAndSet(false, true);
+    }
+
+    /**
+     * Another User asked for this payment: they may poll it too
+     * and they get its events.
+     * @param user User (provider/username).
+     */
+    void join(final String user) {
+        this.owners.add(user);
+    }
+
+    /**
+     * Users who asked for the payment (provider/username).
+     * @return Set of Users.
+     */
+    Set<String> owners() {
+        return Collections.unmodifiableSet(this.owners);
+    }
+
+    /**
+     * The payment is done.
+     * @param response Its result.
+     */
+    void finish(final ResponseEntity<String> response) {
+        if(HttpStatus.OK.equals(response.getStatusCode())) {
+            this.json = PaymentJob.parse(response.getBody());
+            final JsonObject payment = this.json.getJsonObject("payment");
+            if(payment == null) {
+                this.outcome = "SUCCESSFUL";
+            } else {
+                this.outcome = payment.getString("status");
+                this.reason = payment.getString("failReason", "");
+            }
+        } else {
+            this.outcome = "ERROR";
+            this.reason = String.valueOf(response.getBody());
+        }
+        this.finishedAt = System.currentTimeMillis();
+        this.result = response;
+    }
+
+    /**
+     * Body of the result, as JSON.
+     * @return JsonObject, empty while it runs or if the result
+     *  is not JSON.
+     */
+    JsonObject json() {
+        return this.json;
+    }
+
+    /**
+     * Has the job been finished for longer than the given time?
+     * @param millis Time, in millis.
+     * @return True or false.
+     */
+    boolean finishedFor(final long millis) {
+        return this.finished()
+            && System.currentTimeMillis() - this.finishedAt > millis;
+    }
+
+    /**
+     * Read the body of a result.
+     * @param body Body.
+     * @return JsonObject, empty if the body is not a JSON object.
+     */
+    private static JsonObject parse(final String body) {
+        JsonObject json;
+        try {
+            json = Json.createReader(
+                new StringReader(String.valueOf(body))
+            ).readObject();
+        } catch (final JsonException ex) {
+            json = Json.createObjectBuilder().build();
+        }
+        return json;
+    }
+}
@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.payments;
+
+import com.selfxdsd.api.User;
+import com.selfxdsd.api.exceptions.InvoiceException;
+import com.selfxdsd.api.exceptions.WalletPaymentException;
+import com.selfxdsd.selfweb.events.UserEvents;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the Invoice payments on a bounded pool, so a slow Stripe does
+ * not hold the request threads.<br><br>
+ *
+ * There is at most one running payment per Invoice: paying an Invoice
+ * which is already being paid (e.g. a double click) gives back the
+ * running job instead of starting another payment. A successful job
+ * is also given back for as long as it is kept, so a late retry does
+ * not pay the Invoice again; only a failed payment can be retried.
+ * A User given back someone else's job joins it: they can poll it too.
+ * The finished jobs are kept for a while, so their result can be polled.
+ * When a job is done, its Users also get an invoice.paid or
+ * payment.failed event and, if the payment changed the Wallet,
+ * a wallet.updated event.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class PaymentJobs implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        PaymentJobs.class
+    );
+
+    /**
+     * Name of the API errors counter.
+     */
+    private static final String ERRORS = "self.api.errors";
+
+    /**
+     * Jobs by their id.
+     */
+    private final Map<String, PaymentJob> jobs;
+
+    /**
+     * Latest job of each Invoice.
+     */
+    private final Map<Integer, PaymentJob> byInvoice;
+
+    /**
+     * How long the finished jobs are kept.
+     */
+    private final Duration keep;
+
+    /**
+     * Executor of the payments.
+     */
+    private final Executor payer;
+
+    /**
+     * Events of the Users.
+     */
+    private final UserEvents events;
+
+    /**
+     * Ctor which pays in the calling thread.
+     */
+    public PaymentJobs() {
+        this(Duration.ofMinutes(10), Runnable::run);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param threads Number of paying threads.
+     * @param queue Max number of payments waiting for a thread.
+     * @param keepSeconds How long the finished jobs are kept, in seconds.
+     * @param events Events of the Users.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public PaymentJobs(
+        @Value("${self.payments.threads}") final int threads,
+        @Value("${self.payments.queue}") final int queue,
+        @Value("${self.payments.keep-seconds}") final long keepSeconds,
+        final UserEvents events
+    ) {
+        this(
+            Duration.ofSeconds(keepSeconds),
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queue),
+                new CustomizableThreadFactory("payments-")
+            ),
+            events
+        );
+    }
+
+    /**
+     * Ctor without events.
+     * @param keep How long the finished jobs are kept.
+     * @param payer Executor of the payments.
+     */
+    public PaymentJobs(final Duration keep, final Executor payer) {
+        this(keep, payer, new UserEvents());
+    }
+
+    /**
+     * Ctor.
+     * @param keep How long the finished jobs are kept.
+     * @param payer Executor of the payments.
+     * @param events Events of the Users.
+     */
+    public PaymentJobs(
+        final Duration keep,
+        final Executor payer,
+        final UserEvents events
+    ) {
+        this.keep = keep;
+        this.payer = payer;
+        this.events = events;
+        this.jobs = new ConcurrentHashMap<>();
+        this.byInvoice = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Pay an Invoice in the background, unless it is already being
+     * (or was just successfully) paid.
+     * @param user User who pays.
+     * @param invoiceId Id of the Invoice.
+     * @param payment Pays the Invoice and gives back the response
+     *  of the payment endpoint.
+     * @return The new job or the one which is paying (or paid)
+     *  the Invoice, which the User joined.
+     */
+    public PaymentJob pay(
+        final User user,
+        final int invoiceId,
+        final Supplier<ResponseEntity<String>> payment
+    ) {
+        this.evict();
+        final String key = UserEvents.key(user);
+        final PaymentJob job = this.byInvoice.compute(
+            invoiceId,
+            (id, running) -> {
+                final PaymentJob latest;
+                if(running == null || running.finished()
+                    && !"SUCCESSFUL".equals(running.outcome())) {
+                    latest = new PaymentJob(id, key);
+                } else {
+                    running.join(key);
+                    latest = running;
+                }
+                return latest;
+            }
+        );
+        if(job.claim()) {
+            this.jobs.put(job.id(), job);
+            this.start(job, payment);
+        }
+        return job;
+    }
+
+    /**
+     * Find a job of the User.
+     * @param user User who asked for the payment.
+     * @param id Id of the job.
+     * @return PaymentJob or null if it is not found.
+     */
+    public PaymentJob job(final User user, final String id) {
+        PaymentJob job = this.jobs.get(id);
+        if(job != null && !job.ownedBy(UserEvents.key(user))) {
+            job = null;
+        }
+        return job;
+    }
+
+    @Override
+    public void close() {
+        if(this.payer instanceof ExecutorService) {
+            ((ExecutorService) this.payer).shutdownNow();
+        }
+    }
+
+    /**
+     * Run the payment of a job.
+     * @param job Job.
+     * @param payment Payment.
+     */
+    private void start(
+        final PaymentJob job,
+        final Supplier<ResponseEntity<String>> payment
+    ) {
+        try {
+            CompletableFuture.supplyAsync(payment, this.payer)
+                .whenComplete(
+                    (response, error) -> {
+                        if(error == null) {
+                            this.done(job, response);
+                        } else {
+                            this.done(job, PaymentJobs.failed(job, error));
+                        }
+                    }
+                );
+        } catch (final RejectedExecutionException ex) {
+            LOG.warn(
+                "Payment of Invoice " + job.invoiceId() + " rejected, "
+                + "too many payments in progress."
+            );
+            this.done(
+                job,
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "10")
+                    .body("Too many payments in progress, please try again.")
+            );
+        }
+    }
+
+    /**
+     * Finish a job and tell its User how the payment went.
+     * @param job Job.
+     * @param response Result of the payment.
+     */
+    private void done(
+        final PaymentJob job,
+        final ResponseEntity<String> response
+    ) {
+        job.finish(response);
+        final JsonObjectBuilder data = Json.createObjectBuilder()
+            .add("job", job.id())
+            .add("invoice", job.invoiceId())
+            .add("code", response.getStatusCodeValue())
+            .add("status", job.outcome())
+            .add("reason", job.reason());
+        if(HttpStatus.OK.equals(response.getStatusCode())) {
+            data.add("result", job.json());
+        }
+        final String name;
+        if("SUCCESSFUL".equals(job.outcome())) {
+            name = "invoice.paid";
+        } else {
+            name = "payment.failed";
+        }
+        final JsonObject event = data.build();
+        final JsonObject result = job.json();
+        for(final String owner : job.owners()) {
+            this.events.publish(owner, name, event);
+            if(result.containsKey("wallet")) {
+                this.events.publish(
+                    owner,
+                    "wallet.updated",
+                    Json.createObjectBuilder()
+                        .add("project", result.getString("project", ""))
+                        .add("wallet", result.getJsonObject("wallet"))
+                        .build()
+                );
+            }
+        }
+    }
+
+    /**
+     * Drop the jobs which finished longer than the keeping time ago.
+     */
+    private void evict() {
+        final long millis = this.keep.toMillis();
+        this.jobs.values().removeIf(job -> job.finishedFor(millis));
+        this.byInvoice.values().removeIf(job -> job.finishedFor(millis));
+    }
+
+    /**
+     * Response of a failed payment, the same as the API's exception
+     * handlers would give.
+     * @param job Failed job.
+     * @param error Error.
+     * @return ResponseEntity.
+     */
+    private static ResponseEntity<String> failed(
+        final PaymentJob job,
+        final Throwable error
+    ) {
+        Throwable cause = error;
+        if(cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        final ResponseEntity<String> response;
+        if(cause instanceof WalletPaymentException) {
+            Metrics.counter(ERRORS, "category", "payment").increment();
+            response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(cause.toString());
+        } else if(cause instanceof InvoiceException.AlreadyPaid) {
+            Metrics.counter(ERRORS, "category", "invoice_paid").increment();
+            response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(cause.toString());
+        } else {
+            Metrics.counter(ERRORS, "category", "internal").increment();
+            LOG.error(
+                "Payment of Invoice " + job.invoiceId() + " failed", cause
+            );
+            response = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("Something went wrong while executing this request.");
+        }
+        return response;
+    }
+}
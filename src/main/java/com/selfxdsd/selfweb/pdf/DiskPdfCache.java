@@ -0,0 +1,363 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * PDF cache in a local directory, bounded by the total size of the files.
+ * When it gets too big, the least recently used PDFs are deleted.<br><br>
+ *
+ * The PDFs are rendered into a temporary file which is then moved into
+ * place, so a PDF is never served half-written. Written to an
+ * OutputStream, a PDF is still copied through a buffer; it is sent
+ * zero-copy only when the servlet container sends the file itself
+ * (see {@link InvoicePdfs}).<br><br>
+ *
+ * An evicted PDF is dropped from the cache right away, but its file is
+ * deleted only once no {@link #write(String, PdfRenderer, OutputStream)}
+ * is sending it and it has been evicted for longer than the grace
+ * period, which covers the files handed over to the servlet container.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class DiskPdfCache implements PdfCache {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        DiskPdfCache.class
+    );
+
+    /**
+     * Extension of the cached files.
+     */
+    private static final String EXT = ".pdf";
+
+    /**
+     * Directory of the cache.
+     */
+    private final Path dir;
+
+    /**
+     * Max total size of the cached PDFs, in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Size of each cached PDF, in access order (the eldest is the LRU).
+     */
+    private final Map<String, Long> sizes;
+
+    /**
+     * How long is an evicted PDF kept on disk.
+     */
+    private final Duration grace;
+
+    /**
+     * Number of writes sending each PDF.
+     */
+    private final Map<String, Integer> pins;
+
+    /**
+     * When was each PDF evicted, while its file is still on disk.
+     */
+    private final Map<String, Long> retired;
+
+    /**
+     * Total size of the cached PDFs.
+     */
+    private long total;
+
+    /**
+     * Ctor. The files of the evicted PDFs are deleted as soon as they
+     * are not being written.
+     * @param dir Directory of the cache, created if missing.
+     * @param maxBytes Max total size of the cached PDFs, in bytes.
+     */
+    public DiskPdfCache(final Path dir, final long maxBytes) {
+        this(dir, maxBytes, Duration.ZERO);
+    }
+
+    /**
+     * Ctor. The PDFs already in the directory (from a previous run) are
+     * kept, in the order of their last modification.
+     * @param dir Directory of the cache, created if missing.
+     * @param maxBytes Max total size of the cached PDFs, in bytes.
+     * @param grace How long is an evicted PDF kept on disk, for the
+     *  downloads which are still sending it.
+     */
+    public DiskPdfCache(
+        final Path dir,
+        final long maxBytes,
+        final Duration grace
+    ) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.grace = grace;
+        this.sizes = new LinkedHashMap<>(16, 0.75f, true);
+        this.pins = new HashMap<>();
+        this.retired = new HashMap<>();
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                for(final Path file : files
+                    .filter(path -> path.toString().endsWith(EXT))
+                    .sorted(Comparator.comparing(DiskPdfCache::modified))
+                    .collect(Collectors.toList())) {
+                    final String name = file.getFileName().toString();
+                    this.add(
+                        name.substring(0, name.length() - EXT.length()),
+                        Files.size(file)
+                    );
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(
+                "Could not open the PDF cache " + dir, ex
+            );
+        }
+        this.evict();
+    }
+
+    @Override
+    public Path get(final String name) {
+        final Path file;
+        synchronized (this.sizes) {
+            if(this.sizes.get(name) == null) {
+                file = null;
+            } else {
+                file = this.file(name);
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public void write(
+        final String name,
+        final PdfRenderer renderer,
+        final OutputStream out
+    ) throws IOException {
+        this.pin(name);
+        try {
+            Path file = this.get(name);
+            if(file == null) {
+                file = this.render(name, renderer);
+            }
+            try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.READ
+            )) {
+                final WritableByteChannel target = Channels.newChannel(out);
+                final long size = channel.size();
+                long position = 0;
+                while(position < size) {
+                    position += channel.transferTo(
+                        position, size - position, target
+                    );
+                }
+            } catch (final NoSuchFileException ex) {
+                LOG.debug("PDF " + name + " was evicted, rendering it again.");
+                renderer.render(out);
+            }
+        } finally {
+            this.release(name);
+        }
+    }
+
+    @Override
+    public void prepare(final String name, final PdfRenderer renderer)
+        throws IOException {
+        if(this.get(name) == null) {
+            this.render(name, renderer);
+        }
+    }
+
+    /**
+     * Render a PDF into the cache.
+     * @param name Name of the PDF.
+     * @param renderer Renders the PDF.
+     * @return Path to the rendered file.
+     * @throws IOException If something goes wrong.
+     */
+    private Path render(final String name, final PdfRenderer renderer)
+        throws IOException {
+        final Path temp = Files.createTempFile(this.dir, "render-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(temp)
+            )) {
+                renderer.render(out);
+            }
+            final Path file = this.file(name);
+            synchronized (this.sizes) {
+                this.retired.remove(name);
+            }
+            Files.move(
+                temp, file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            this.add(name, Files.size(file));
+            this.evict();
+            return file;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Record a cached PDF.
+     * @param name Name of the PDF.
+     * @param size Size of the file.
+     */
+    private void add(final String name, final long size) {
+        synchronized (this.sizes) {
+            final Long old = this.sizes.put(name, size);
+            if(old != null) {
+                this.total -= old;
+            }
+            this.total += size;
+        }
+    }
+
+    /**
+     * Evict the least recently used PDFs, until the cache fits
+     * in its max size, and delete the files which may be deleted.
+     */
+    private void evict() {
+        final long now = System.currentTimeMillis();
+        synchronized (this.sizes) {
+            final Iterator<Map.Entry<String, Long>> eldest = this.sizes
+                .entrySet().iterator();
+            while(this.total > this.maxBytes && eldest.hasNext()) {
+                final Map.Entry<String, Long> entry = eldest.next();
+                this.retired.put(entry.getKey(), now);
+                this.total -= entry.getValue();
+                eldest.remove();
+            }
+            this.sweep(now);
+        }
+    }
+
+    /**
+     * Delete the files of the evicted PDFs which are not being written
+     * and were evicted longer than the grace period ago. Call it while
+     * holding the lock on the sizes.
+     * @param now Current time, in millis.
+     */
+    private void sweep(final long now) {
+        final Iterator<Map.Entry<String, Long>> evicted = this.retired
+            .entrySet().iterator();
+        while(evicted.hasNext()) {
+            final Map.Entry<String, Long> entry = evicted.next();
+            if(!this.pins.containsKey(entry.getKey())
+                && now - entry.getValue() >= this.grace.toMillis()) {
+                try {
+                    Files.deleteIfExists(this.file(entry.getKey()));
+                } catch (final IOException ex) {
+                    LOG.warn("Could not delete cached PDF " + entry, ex);
+                }
+                evicted.remove();
+            }
+        }
+    }
+
+    /**
+     * A write starts sending the PDF: its file is not deleted until
+     * the write is done.
+     * @param name Name of the PDF.
+     */
+    private void pin(final String name) {
+        synchronized (this.sizes) {
+            this.pins.merge(name, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * A write is done sending the PDF.
+     * @param name Name of the PDF.
+     */
+    private void release(final String name) {
+        synchronized (this.sizes) {
+            this.pins.computeIfPresent(
+                name, (key, count) -> {
+                    final Integer left;
+                    if(count > 1) {
+                        left = count - 1;
+                    } else {
+                        left = null;
+                    }
+                    return left;
+                }
+            );
+            this.sweep(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * File of a cached PDF.
+     * @param name Name of the PDF.
+     * @return Path.
+     */
+    private Path file(final String name) {
+        return this.dir.resolve(name + EXT);
+    }
+
+    /**
+     * Last modification time of a file.
+     * @param file File.
+     * @return Millis.
+     */
+    private static long modified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
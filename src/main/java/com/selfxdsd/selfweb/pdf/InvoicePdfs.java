@@ -0,0 +1,364 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Payment;
+import com.selfxdsd.api.PlatformInvoice;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+/**
+ * PDFs of the Invoices and PlatformInvoices, as HTTP responses.<br><br>
+ *
+ * A paid Invoice (and any PlatformInvoice) never changes, so its PDF is
+ * rendered once and kept in the {@link PdfCache}, under a name derived
+ * from the invoice's id and payment. The same name is used as strong
+ * ETag, so a conditional GET is answered with 304 without rendering or
+ * reading anything. If the PDF is already cached and the servlet
+ * container supports it (Tomcat's sendfile), the file is sent by the
+ * container, zero-copy. Unpaid Invoices are rendered on each download,
+ * as before.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class InvoicePdfs {
+
+    /**
+     * Request attribute set by Tomcat if it supports sendfile.
+     */
+    private static final String SENDFILE_SUPPORT =
+        "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Request attribute with the file to be sent by Tomcat.
+     */
+    private static final String SENDFILE_NAME =
+        "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * Request attribute with the first byte to be sent by Tomcat.
+     */
+    private static final String SENDFILE_START =
+        "org.apache.tomcat.sendfile.start";
+
+    /**
+     * Request attribute with the byte after the last to be sent by Tomcat.
+     */
+    private static final String SENDFILE_END =
+        "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Cached PDFs.
+     */
+    private final PdfCache cache;
+
+    /**
+     * Ctor without cache, the PDFs are always rendered.
+     */
+    public InvoicePdfs() {
+        this(new PdfCache.None());
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param dir Directory of the PDF cache.
+     * @param maxMegabytes Max size of the PDF cache, in megabytes.
+     * @param graceSeconds How long is an evicted PDF kept on disk, for
+     *  the downloads which are sending it, in seconds.
+     */
+    @Autowired
+    public InvoicePdfs(
+        @Value("${self.pdf.cache.dir}") final String dir,
+        @Value("${self.pdf.cache.max-mb}") final long maxMegabytes,
+        @Value("${self.pdf.cache.grace-seconds}") final long graceSeconds
+    ) {
+        this(
+            new DiskPdfCache(
+                Paths.get(dir),
+                maxMegabytes * 1024 * 1024,
+                Duration.ofSeconds(graceSeconds)
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param cache Cached PDFs.
+     */
+    public InvoicePdfs(final PdfCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * PDF of an Invoice.
+     * @param invoice Invoice.
+     * @param fileName Name of the downloaded file.
+     * @return PDF response.
+     */
+    public ResponseEntity<StreamingResponseBody> invoice(
+        final Invoice invoice,
+        final String fileName
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
+        if(invoice.isPaid()) {
+            resp = this.cached(
+                InvoicePdfs.fingerprint(invoice), invoice::toPdf, fileName
+            );
+        } else {
+            resp = InvoicePdfs.pdf(fileName).body(
+                out -> invoice.toPdf(out)
+            );
+        }
+        return resp;
+    }
+
+    /**
+     * PDF of a PlatformInvoice.
+     * @param invoice PlatformInvoice.
+     * @param fileName Name of the downloaded file.
+     * @return PDF response.
+     */
+    public ResponseEntity<StreamingResponseBody> platformInvoice(
+        final PlatformInvoice invoice,
+        final String fileName
+    ) {
+        return this.cached(
+            InvoicePdfs.fingerprint(invoice), invoice::toPdf, fileName
+        );
+    }
+
+    /**
+     * Renderer of an Invoice's PDF, which goes through the cache if
+     * the Invoice is paid.
+     * @param invoice Invoice.
+     * @return PdfRenderer.
+     */
+    public PdfRenderer renderer(final Invoice invoice) {
+        final PdfRenderer renderer;
+        if(invoice.isPaid()) {
+            final String name = InvoicePdfs.fingerprint(invoice);
+            renderer = out -> this.cache.write(name, invoice::toPdf, out);
+        } else {
+            renderer = invoice::toPdf;
+        }
+        return renderer;
+    }
+
+    /**
+     * Renderer of a PlatformInvoice's PDF, which goes through the cache.
+     * @param invoice PlatformInvoice.
+     * @return PdfRenderer.
+     */
+    public PdfRenderer renderer(final PlatformInvoice invoice) {
+        final String name = InvoicePdfs.fingerprint(invoice);
+        return out -> this.cache.write(name, invoice::toPdf, out);
+    }
+
+    /**
+     * Render and cache the PDFs of a paid Invoice and of its
+     * PlatformInvoice, so they are ready when downloaded.
+     * @param invoice Invoice, ignored if not paid.
+     * @throws IOException If something goes wrong.
+     */
+    public void prerender(final Invoice invoice) throws IOException {
+        if(invoice.isPaid()) {
+            this.cache.prepare(
+                InvoicePdfs.fingerprint(invoice), invoice::toPdf
+            );
+            final PlatformInvoice platform = invoice.platformInvoice();
+            if(platform != null) {
+                this.cache.prepare(
+                    InvoicePdfs.fingerprint(platform), platform::toPdf
+                );
+            }
+        }
+    }
+
+    /**
+     * Response with a cached PDF.
+     * @param name Name of the PDF in the cache, also used as ETag.
+     * @param renderer Renders the PDF, if it is not cached.
+     * @param fileName Name of the downloaded file.
+     * @return PDF response.
+     */
+    private ResponseEntity<StreamingResponseBody> cached(
+        final String name,
+        final PdfRenderer renderer,
+        final String fileName
+    ) {
+        final ResponseEntity<StreamingResponseBody> resp;
+        final HttpServletRequest request = InvoicePdfs.request();
+        final Path file = this.cache.get(name);
+        if(request != null && new ServletWebRequest(request)
+            .checkNotModified(name)) {
+            resp = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(name)
+                .build();
+        } else if(file != null && InvoicePdfs.sendfile(request, file)) {
+            resp = InvoicePdfs.pdf(fileName)
+                .eTag(name)
+                .contentLength(InvoicePdfs.size(file))
+                .build();
+        } else {
+            resp = InvoicePdfs.pdf(fileName)
+                .eTag(name)
+                .body(out -> this.cache.write(name, renderer, out));
+        }
+        return resp;
+    }
+
+    /**
+     * Let the servlet container send the file, if it supports it.
+     * @param request Current request, may be null.
+     * @param file File to send.
+     * @return True if the container will send the file.
+     */
+    private static boolean sendfile(
+        final HttpServletRequest request,
+        final Path file
+    ) {
+        final boolean supported = request != null
+            && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+            && Files.isReadable(file);
+        if(supported) {
+            request.setAttribute(
+                SENDFILE_NAME, file.toAbsolutePath().toString()
+            );
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, InvoicePdfs.size(file));
+        }
+        return supported;
+    }
+
+    /**
+     * Size of a cached file.
+     * @param file File.
+     * @return Size in bytes, 0 if it cannot be read.
+     */
+    private static long size(final Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (final IOException ex) {
+            size = 0;
+        }
+        return size;
+    }
+
+    /**
+     * Current servlet request.
+     * @return HttpServletRequest or null if we are not in a request.
+     */
+    private static HttpServletRequest request() {
+        final RequestAttributes attributes = RequestContextHolder
+            .getRequestAttributes();
+        HttpServletRequest request = null;
+        if(attributes instanceof ServletRequestAttributes) {
+            request = ((ServletRequestAttributes) attributes).getRequest();
+        }
+        return request;
+    }
+
+    /**
+     * Start a PDF response.
+     * @param fileName Name of the downloaded file.
+     * @return Response builder.
+     */
+    private static ResponseEntity.BodyBuilder pdf(final String fileName) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_PDF)
+            .header("Content-Disposition", "inline; filename=" + fileName)
+            .cacheControl(CacheControl.noCache().cachePrivate());
+    }
+
+    /**
+     * Fingerprint of a paid Invoice.
+     * @param invoice Invoice.
+     * @return Content address of its PDF.
+     */
+    private static String fingerprint(final Invoice invoice) {
+        final Payment latest = invoice.latest();
+        final StringBuilder key = new StringBuilder("invoice/")
+            .append(invoice.invoiceId()).append('/')
+            .append(invoice.totalAmount());
+        if(latest != null) {
+            key.append('/').append(latest.transactionId())
+                .append('/').append(latest.paymentTime());
+        }
+        return InvoicePdfs.sha(key.toString());
+    }
+
+    /**
+     * Fingerprint of a PlatformInvoice.
+     * @param invoice PlatformInvoice.
+     * @return Content address of its PDF.
+     */
+    private static String fingerprint(final PlatformInvoice invoice) {
+        return InvoicePdfs.sha(
+            "platform/" + invoice.id() + '/' + invoice.serialNumber()
+            + '/' + invoice.totalAmount() + '/' + invoice.paymentTime()
+        );
+    }
+
+    /**
+     * SHA-256 of a String, in hex.
+     * @param text Text.
+     * @return Hex digest.
+     */
+    private static String sha(final String text) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder();
+            for(final byte octet : digest) {
+                hex.append(String.format("%02x", octet));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is missing.", ex);
+        }
+    }
+}
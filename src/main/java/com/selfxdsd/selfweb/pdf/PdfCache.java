@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Cache of rendered PDFs. The names are content addresses: the same name
+ * always stands for the same bytes, so an entry never has to be updated.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public interface PdfCache {
+
+    /**
+     * Get a cached PDF.
+     * @param name Name of the PDF.
+     * @return Path to the PDF file or null if it is not cached.
+     */
+    Path get(String name);
+
+    /**
+     * Write a PDF, rendering and caching it first, if it is missing.
+     * @param name Name of the PDF.
+     * @param renderer Renders the PDF, if it is not cached.
+     * @param out Where to write the PDF.
+     * @throws IOException If something goes wrong.
+     */
+    void write(String name, PdfRenderer renderer, OutputStream out)
+        throws IOException;
+
+    /**
+     * Render and cache a PDF, if it is missing.
+     * @param name Name of the PDF.
+     * @param renderer Renders the PDF.
+     * @throws IOException If something goes wrong.
+     */
+    void prepare(String name, PdfRenderer renderer) throws IOException;
+
+    /**
+     * No cache, the PDFs are always rendered.
+     */
+    final class None implements PdfCache {
+
+        @Override
+        public Path get(final String name) {
+            return null;
+        }
+
+        @Override
+        public void write(
+            final String name,
+            final PdfRenderer renderer,
+            final OutputStream out
+        ) throws IOException {
+            renderer.render(out);
+        }
+
+        @Override
+        public void prepare(final String name, final PdfRenderer renderer) {
+            //nothing to prepare, there is no cache.
+        }
+    }
+}
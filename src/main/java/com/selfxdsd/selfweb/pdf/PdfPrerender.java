@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the PDFs of the newly paid Invoices in the background, on a
+ * bounded pool, so the download endpoints only have to stream the
+ * cached files.<br><br>
+ *
+ * If the pool is busy, the Invoice is skipped: its PDF will simply be
+ * rendered on the first download, as it would be without this.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class PdfPrerender implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        PdfPrerender.class
+    );
+
+    /**
+     * PDFs of the Invoices.
+     */
+    private final InvoicePdfs pdfs;
+
+    /**
+     * Executor of the renders.
+     */
+    private final Executor renderer;
+
+    /**
+     * Ids of the Invoices which are waiting to be rendered.
+     */
+    private final Set<Integer> pending;
+
+    /**
+     * Ctor which renders in the calling thread, without cache.
+     */
+    public PdfPrerender() {
+        this(new InvoicePdfs(), Runnable::run);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param pdfs PDFs of the Invoices.
+     * @param threads Number of rendering threads.
+     * @param queue Max number of Invoices waiting to be rendered.
+     */
+    @Autowired
+    public PdfPrerender(
+        final InvoicePdfs pdfs,
+        @Value("${self.pdf.prerender.threads}") final int threads,
+        @Value("${self.pdf.prerender.queue}") final int queue
+    ) {
+        this(
+            pdfs,
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(queue),
+                new CustomizableThreadFactory("pdf-prerender-")
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param pdfs PDFs of the Invoices.
+     * @param renderer Executor of the renders.
+     */
+    public PdfPrerender(final InvoicePdfs pdfs, final Executor renderer) {
+        this.pdfs = pdfs;
+        this.renderer = renderer;
+        this.pending = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * An Invoice has just been paid, render its PDFs. The Invoice is
+     * read again, in the background, so we render its paid state.
+     * @param invoices Invoices of the Contract.
+     * @param invoiceId Id of the paid Invoice.
+     */
+    public void paid(final Invoices invoices, final int invoiceId) {
+        if(this.pending.add(invoiceId)) {
+            try {
+                CompletableFuture.runAsync(
+                    () -> this.render(invoices.getById(invoiceId)),
+                    this.renderer
+                ).whenComplete(
+                    (result, error) -> {
+                        this.pending.remove(invoiceId);
+                        if(error != null) {
+                            LOG.error(
+                                "Could not pre-render Invoice " + invoiceId,
+                                error
+                            );
+                        }
+                    }
+                );
+            } catch (final RejectedExecutionException ex) {
+                LOG.warn(
+                    "PDF pre-render of Invoice " + invoiceId + " rejected, "
+                    + "it will be rendered on download."
+                );
+                this.pending.remove(invoiceId);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if(this.renderer instanceof ExecutorService) {
+            ((ExecutorService) this.renderer).shutdownNow();
+        }
+    }
+
+    /**
+     * Render the PDFs of an Invoice.
+     * @param invoice Invoice, may be null if it was not found.
+     */
+    private void render(final Invoice invoice) {
+        if(invoice != null) {
+            try {
+                this.pdfs.prerender(invoice);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
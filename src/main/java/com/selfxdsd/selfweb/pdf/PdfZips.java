@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams many PDFs as one ZIP archive.<br><br>
+ *
+ * The PDFs are rendered in parallel and each one is written to the
+ * archive as soon as it is ready, so only the PDFs being rendered are
+ * kept in memory, never the whole archive. When all the rendering
+ * threads are busy (many exports at once), the request thread renders
+ * too, instead of queueing without limit.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class PdfZips implements AutoCloseable {
+
+    /**
+     * Executor of the renders.
+     */
+    private final Executor renderer;
+
+    /**
+     * Max number of PDFs rendered at once, for one archive.
+     */
+    private final int window;
+
+    /**
+     * Ctor which renders in the calling thread.
+     */
+    public PdfZips() {
+        this(Runnable::run, 1);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param threads Number of rendering threads, 0 means one per core.
+     */
+    @Autowired
+    public PdfZips(@Value("${self.pdf.export.threads}") final int threads) {
+        this(PdfZips.pool(threads), PdfZips.cores(threads));
+    }
+
+    /**
+     * Ctor.
+     * @param renderer Executor of the renders.
+     * @param window Max number of PDFs rendered at once, for one archive.
+     */
+    public PdfZips(final Executor renderer, final int window) {
+        this.renderer = renderer;
+        this.window = window;
+    }
+
+    /**
+     * ZIP archive of some PDFs.
+     * @param pdfs Renderers of the PDFs, by file name, in archive order.
+     * @return Streamed ZIP archive.
+     */
+    public StreamingResponseBody zip(final Map<String, PdfRenderer> pdfs) {
+        return out -> this.write(pdfs, out);
+    }
+
+    @Override
+    public void close() {
+        if(this.renderer instanceof ExecutorService) {
+            ((ExecutorService) this.renderer).shutdownNow();
+        }
+    }
+
+    /**
+     * Render the PDFs and write them as a ZIP archive.
+     * @param pdfs Renderers of the PDFs, by file name.
+     * @param out Where to write the archive.
+     * @throws IOException If something goes wrong.
+     */
+    private void write(
+        final Map<String, PdfRenderer> pdfs,
+        final OutputStream out
+    ) throws IOException {
+        final CompletionService<Rendered> done =
+            new ExecutorCompletionService<>(this.renderer);
+        final Iterator<Map.Entry<String, PdfRenderer>> todo = pdfs
+            .entrySet().iterator();
+        final List<Future<Rendered>> running = new ArrayList<>();
+        try {
+            final ZipOutputStream zip = new ZipOutputStream(out);
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            while(running.size() < this.window && todo.hasNext()) {
+                running.add(done.submit(new Rendered(todo.next())));
+            }
+            while(!running.isEmpty()) {
+                final Future<Rendered> next = done.take();
+                running.remove(next);
+                if(todo.hasNext()) {
+                    running.add(done.submit(new Rendered(todo.next())));
+                }
+                next.get().writeTo(zip);
+            }
+            zip.finish();
+            zip.flush();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("ZIP export interrupted.");
+        } catch (final ExecutionException ex) {
+            throw new IOException("Could not render PDF.", ex.getCause());
+        } finally {
+            for(final Future<Rendered> left : running) {
+                left.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Thread pool for the renders.
+     * @param threads Number of threads, 0 means one per core.
+     * @return ExecutorService.
+     */
+    private static ExecutorService pool(final int threads) {
+        final int size = PdfZips.cores(threads);
+        return new ThreadPoolExecutor(
+            size,
+            size,
+            1, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(size),
+            new CustomizableThreadFactory("pdf-zip-"),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Number of threads.
+     * @param threads Configured number of threads, 0 means one per core.
+     * @return Positive number.
+     */
+    private static int cores(final int threads) {
+        int cores = threads;
+        if(cores <= 0) {
+            cores = Runtime.getRuntime().availableProcessors();
+        }
+        return cores;
+    }
+
+    /**
+     * One rendered PDF.
+     */
+    private static final class Rendered implements Callable<Rendered> {
+
+        /**
+         * File name in the archive.
+         */
+        private final String name;
+
+        /**
+         * Renders the PDF.
+         */
+        private final PdfRenderer renderer;
+
+        /**
+         * Bytes of the PDF.
+         */
+        private final ByteArrayOutputStream bytes;
+
+        /**
+         * Ctor.
+         * @param pdf File name and renderer.
+         */
+        Rendered(final Map.Entry<String, PdfRenderer> pdf) {
+            this.name = pdf.getKey();
+            this.renderer = pdf.getValue();
+            this.bytes = new ByteArrayOutputStream();
+        }
+
+        @Override
+        public Rendered call() throws IOException {
+            this.renderer.render(this.bytes);
+            return this;
+        }
+
+        /**
+         * Write this PDF as an entry of the archive.
+         * @param zip Archive.
+         * @throws IOException If something goes wrong.
+         */
+        void writeTo(final ZipOutputStream zip) throws IOException {
+            zip.putNextEntry(new ZipEntry(this.name));
+            this.bytes.writeTo(zip);
+            zip.closeEntry();
+            zip.flush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool for the calls to the Provider, where the interactive calls are
+ * queued ahead of the background ones. Calls of the same kind run in
+ * the order they were submitted.<br><br>
+ *
+ * {@link #execute(Runnable)} submits an interactive call,
+ * {@link #background()} gives the Executor of the background calls.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PriorityCalls extends ThreadPoolExecutor {
+
+    /**
+     * Priority of the interactive calls.
+     */
+    private static final int INTERACTIVE = 0;
+
+    /**
+     * Priority of the background calls.
+     */
+    private static final int BACKGROUND = 1;
+
+    /**
+     * Order of submission.
+     */
+    private final AtomicLong sequence;
+
+    /**
+     * Max number of queued calls.
+     */
+    private final int queue;
+
+    /**
+     * Ctor.
+     * @param threads Number of threads.
+     * @param queue Max number of queued calls.
+     * @param prefix Prefix of the threads' names.
+     */
+    public PriorityCalls(
+        final int threads,
+        final int queue,
+        final String prefix
+    ) {
+        super(
+            threads,
+            threads,
+            1, TimeUnit.MINUTES,
+            new PriorityBlockingQueue<>(),
+            new CustomizableThreadFactory(prefix)
+        );
+        this.sequence = new AtomicLong();
+        this.queue = queue;
+    }
+
+    @Override
+    public void execute(final Runnable call) {
+        this.enqueue(call, INTERACTIVE);
+    }
+
+    /**
+     * Executor of the background calls.
+     * @return Executor.
+     */
+    public Executor background() {
+        return call -> this.enqueue(call, BACKGROUND);
+    }
+
+    /**
+     * Queue a call.
+     * @param call Call.
+     * @param priority Its priority, lower runs first.
+     */
+    private void enqueue(final Runnable call, final int priority) {
+        if(this.getQueue().size() >= this.queue) {
+            throw new RejectedExecutionException("Too many queued calls.");
+        }
+        super.execute(
+            new Call(call, priority, this.sequence.getAndIncrement())
+        );
+    }
+
+    /**
+     * A queued call.
+     */
+    private static final class Call implements Runnable, Comparable<Call> {
+
+        /**
+         * Wrapped call.
+         */
+        private final Runnable call;
+
+        /**
+         * Priority.
+         */
+        private final int priority;
+
+        /**
+         * Order of submission.
+         */
+        private final long order;
+
+        /**
+         * Ctor.
+         * @param call Wrapped call.
+         * @param priority Priority.
+         * @param order Order of submission.
+         */
+        Call(final Runnable call, final int priority, final long order) {
+            this.call = call;
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public void run() {
+            this.call.run();
+        }
+
+        @Override
+        public int compareTo(final Call other) {
+            int result = Integer.compare(this.priority, other.priority);
+            if(result == 0) {
+                result = Long.compare(this.order, other.order);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import com.selfxdsd.api.User;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Quota of the Users' Provider tokens (Github, Gitlab).<br><br>
+ *
+ * Interactive calls (made while a User waits for the page) always go
+ * through and are counted. Background calls (e.g. refreshing the index
+ * of the Organization Repos) first ask {@link #allows(User)}: they are
+ * deferred while the User has interactive calls in flight or while the
+ * token's remaining calls are under the reserve. Since the calls to the
+ * Provider are made by Self's core, we do not see their headers; the
+ * remaining calls are read from the Provider's rate-limit endpoint
+ * (see {@link QuotaProbe}) before the background work starts, at most
+ * once per probe interval.<br><br>
+ *
+ * The authenticated User is a session-scoped bean, which can only be
+ * read on the request's thread. Work done on other threads must take
+ * the User's {@link #key(User)} on the request thread and pass it to
+ * the methods which accept a key.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class ProviderQuota {
+
+    /**
+     * Above this number of tracked tokens, the old ones are dropped.
+     */
+    private static final int MAX_TOKENS = 10000;
+
+    /**
+     * Quota of each User's token.
+     */
+    private final Map<String, Quota> quotas;
+
+    /**
+     * Fraction of the limit kept for the interactive calls.
+     */
+    private final double reserve;
+
+    /**
+     * How often do we read the rate-limit headers of a token.
+     */
+    private final Duration interval;
+
+    /**
+     * Reads the rate-limit headers of an authenticated User's token.
+     */
+    private final Function<Authentication, HttpHeaders> probe;
+
+    /**
+     * Ctor which keeps 20% of the quota for interactive calls and never
+     * probes the Provider.
+     */
+    public ProviderQuota() {
+        this(0.2, Duration.ofMinutes(1), auth -> new HttpHeaders());
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param reserve Fraction of the limit kept for interactive calls.
+     * @param seconds How often do we probe a token, in seconds.
+     * @param probe Reads the rate-limit headers of a User's token.
+     */
+    @Autowired
+    public ProviderQuota(
+        @Value("${self.quota.reserve}") final double reserve,
+        @Value("${self.quota.probe-seconds}") final long seconds,
+        final QuotaProbe probe
+    ) {
+        this(reserve, Duration.ofSeconds(seconds), probe::headers);
+    }
+
+    /**
+     * Ctor.
+     * @param reserve Fraction of the limit kept for interactive calls.
+     * @param interval How often do we probe a token.
+     * @param probe Reads the rate-limit headers of a User's token.
+     */
+    public ProviderQuota(
+        final double reserve,
+        final Duration interval,
+        final Function<Authentication, HttpHeaders> probe
+    ) {
+        this.reserve = reserve;
+        this.interval = interval;
+        this.probe = probe;
+        this.quotas = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Make an interactive call with the User's token. It is never
+     * held back, but while it runs the User's background calls wait.
+     * @param user User.
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return The call's result.
+     */
+    public <T> T interactive(final User user, final Supplier<T> call) {
+        return this.interactive(ProviderQuota.key(user), call);
+    }
+
+    /**
+     * Make an interactive call with the token of the given key.
+     * @param key Key of the User's token, see {@link #key(User)}.
+     * @param call The call.
+     * @param <T> Type of the result.
+     * @return The call's result.
+     */
+    public <T> T interactive(final String key, final Supplier<T> call) {
+        final Quota quota = this.quota(key);
+        quota.started();
+        try {
+            quota.spend();
+            return call.get();
+        } finally {
+            quota.ended();
+        }
+    }
+
+    /**
+     * Read the rate-limit headers of the User's token, if they were not
+     * read recently. Call it from the background work, not from the
+     * request.
+     * @param user User.
+     * @param auth Authentication of the User, null if unknown.
+     */
+    public void check(final User user, final Authentication auth) {
+        this.check(ProviderQuota.key(user), auth);
+    }
+
+    /**
+     * Read the rate-limit headers of the token of the given key, if they
+     * were not read recently.
+     * @param key Key of the User's token, see {@link #key(User)}.
+     * @param auth Authentication of the User, null if unknown.
+     */
+    public void check(final String key, final Authentication auth) {
+        final Quota quota = this.quota(key);
+        if(auth != null && quota.stale(this.interval)) {
+            quota.update(this.probe.apply(auth));
+        }
+    }
+
+    /**
+     * May a background call be made with the User's token now?
+     * If it may, it is counted as spent.
+     * @param user User.
+     * @return True if it may, false if it should be deferred.
+     */
+    public boolean allows(final User user) {
+        return this.allows(ProviderQuota.key(user));
+    }
+
+    /**
+     * May a background call be made with the token of the given key now?
+     * If it may, it is counted as spent.
+     * @param key Key of the User's token, see {@link #key(User)}.
+     * @return True if it may, false if it should be deferred.
+     */
+    public boolean allows(final String key) {
+        final Quota quota = this.quota(key);
+        final boolean allows = !quota.busy(this.reserve);
+        if(allows) {
+            quota.spend();
+        } else {
+            Metrics.counter("self.provider.deferred").increment();
+        }
+        return allows;
+    }
+
+    /**
+     * Quota of the User's token.
+     * @param user User.
+     * @return Quota.
+     */
+    public Quota quota(final User user) {
+        return this.quota(ProviderQuota.key(user));
+    }
+
+    /**
+     * Quota of the token of the given key.
+     * @param key Key of the User's token, see {@link #key(User)}.
+     * @return Quota.
+     */
+    public Quota quota(final String key) {
+        if(this.quotas.size() > MAX_TOKENS) {
+            this.quotas.values().removeIf(quota -> quota.stale(this.interval));
+        }
+        return this.quotas.computeIfAbsent(key, name -> new Quota());
+    }
+
+    /**
+     * Key of the User's token: the User's provider and username. Read
+     * it on the request's thread.
+     * @param user User.
+     * @return String key.
+     */
+    public static String key(final User user) {
+        return String.valueOf(user.provider().name())
+            .concat("/")
+            .concat(String.valueOf(user.username()))
+            .toLowerCase(Locale.ROOT);
+    }
+}
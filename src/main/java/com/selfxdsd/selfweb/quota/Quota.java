@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What we know about the quota of one Provider token: how many calls
+ * are left until the window resets and how many interactive calls are
+ * in flight right now.<br><br>
+ *
+ * It is updated from the rate-limit headers of the Provider (Github's
+ * X-RateLimit-*, Gitlab's RateLimit-* and Retry-After for the secondary
+ * limits) and, between two updates, each call we make is subtracted
+ * from the remaining calls. Until the first update the quota is
+ * unknown and nothing is held back.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class Quota {
+
+    /**
+     * Remaining calls, -1 if unknown.
+     */
+    private final AtomicInteger remaining;
+
+    /**
+     * Interactive calls in flight.
+     */
+    private final AtomicInteger interactive;
+
+    /**
+     * Calls allowed in a window, -1 if unknown.
+     */
+    private volatile int limit;
+
+    /**
+     * When does the window reset, in millis.
+     */
+    private volatile long resetAt;
+
+    /**
+     * When were the headers last read, in millis.
+     */
+    private volatile long checkedAt;
+
+    /**
+     * Ctor.
+     */
+    public Quota() {
+        this.remaining = new AtomicInteger(-1);
+        this.interactive = new AtomicInteger();
+        this.limit = -1;
+    }
+
+    /**
+     * Update from the rate-limit headers of a Provider's response.
+     * Headers which are missing or malformed are ignored.
+     * @param headers Response headers.
+     */
+    public void update(final HttpHeaders headers) {
+        final long now = System.currentTimeMillis();
+        final long retry = Quota.number(headers, HttpHeaders.RETRY_AFTER);
+        if(retry >= 0) {
+            this.remaining.set(0);
+            this.resetAt = now + Duration.ofSeconds(retry).toMillis();
+        } else {
+            final long left = Quota.header(headers, "Remaining");
+            final long reset = Quota.header(headers, "Reset");
+            if(left >= 0 && reset >= 0) {
+                this.limit = (int) Quota.header(headers, "Limit");
+                this.remaining.set((int) left);
+                this.resetAt = Duration.ofSeconds(reset).toMillis();
+            }
+        }
+        this.checkedAt = now;
+    }
+
+    /**
+     * One call was made with this token.
+     */
+    public void spend() {
+        this.remaining.updateAndGet(left -> Math.max(left - 1, -1));
+    }
+
+    /**
+     * An interactive call started.
+     */
+    public void started() {
+        this.interactive.incrementAndGet();
+    }
+
+    /**
+     * An interactive call ended.
+     */
+    public void ended() {
+        this.interactive.decrementAndGet();
+    }
+
+    /**
+     * Should the background calls wait? They should if an interactive
+     * call is in flight or if the remaining calls are under the reserve
+     * and the window has not reset yet.
+     * @param reserve Fraction of the limit kept for interactive calls.
+     * @return True or false.
+     */
+    public boolean busy(final double reserve) {
+        return this.interactive.get() > 0 || this.low(reserve);
+    }
+
+    /**
+     * Are the remaining calls under the reserve, before the window
+     * resets?
+     * @param reserve Fraction of the limit kept for interactive calls.
+     * @return True or false.
+     */
+    public boolean low(final double reserve) {
+        final int left = this.remaining.get();
+        final boolean low;
+        if(left < 0 || System.currentTimeMillis() >= this.resetAt) {
+            low = false;
+        } else if(this.limit > 0) {
+            low = left <= this.limit * reserve;
+        } else {
+            low = left == 0;
+        }
+        return low;
+    }
+
+    /**
+     * Were the headers read more than the given time ago?
+     * @param age Max age.
+     * @return True or false.
+     */
+    public boolean stale(final Duration age) {
+        return System.currentTimeMillis() - this.checkedAt > age.toMillis();
+    }
+
+    /**
+     * Remaining calls.
+     * @return Remaining calls, -1 if unknown.
+     */
+    public int remaining() {
+        return this.remaining.get();
+    }
+
+    /**
+     * Read a rate-limit header, either Github's or Gitlab's.
+     * @param headers Headers.
+     * @param name Name, without prefix (Limit, Remaining, Reset).
+     * @return Value or -1 if missing.
+     */
+    private static long header(final HttpHeaders headers, final String name) {
+        long value = Quota.number(headers, "X-RateLimit-" + name);
+        if(value < 0) {
+            value = Quota.number(headers, "RateLimit-" + name);
+        }
+        return value;
+    }
+
+    /**
+     * Read a numeric header.
+     * @param headers Headers.
+     * @param name Name.
+     * @return Value or -1 if missing or not a number.
+     */
+    private static long number(final HttpHeaders headers, final String name) {
+        final String value = headers.getFirst(name);
+        long number = -1;
+        if(value != null) {
+            try {
+                number = Long.parseLong(value.trim());
+            } catch (final NumberFormatException ex) {
+                number = -1;
+            }
+        }
+        return number;
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import com.selfxdsd.api.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Reads the rate-limit headers of a User's token from Github's
+ * rate-limit endpoint, which does not count against the quota.
+ * Gitlab has no such endpoint, so its quota is only estimated from
+ * the calls we make (see {@link Quota#spend()}).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class QuotaProbe {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        QuotaProbe.class
+    );
+
+    /**
+     * Github's rate-limit endpoint.
+     */
+    private static final String GITHUB = "https://api.github.com/rate_limit";
+
+    /**
+     * Authorized clients, holding the Users' tokens.
+     */
+    private final OAuth2AuthorizedClientService clients;
+
+    /**
+     * HTTP client.
+     */
+    private final RestTemplate http;
+
+    /**
+     * Ctor for Spring.
+     * @param clients Authorized clients, holding the Users' tokens.
+     * @param timeout Max millis to connect and to read the quota.
+     */
+    @Autowired
+    public QuotaProbe(
+        final OAuth2AuthorizedClientService clients,
+        @Value("${self.quota.probe-timeout-millis}") final int timeout
+    ) {
+        this(clients, QuotaProbe.http(timeout));
+    }
+
+    /**
+     * Ctor.
+     * @param clients Authorized clients, holding the Users' tokens.
+     * @param http HTTP client.
+     */
+    public QuotaProbe(
+        final OAuth2AuthorizedClientService clients,
+        final RestTemplate http
+    ) {
+        this.clients = clients;
+        this.http = http;
+    }
+
+    /**
+     * HTTP client which gives up after the timeout, so a slow Github
+     * never holds the request which probes the quota.
+     * @param timeout Max millis to connect and to read.
+     * @return RestTemplate.
+     */
+    private static RestTemplate http(final int timeout) {
+        final SimpleClientHttpRequestFactory factory =
+            new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeout);
+        factory.setReadTimeout(timeout);
+        return new RestTemplate(factory);
+    }
+
+    /**
+     * Read the rate-limit headers of the User's token.
+     * @param auth Authentication of the User.
+     * @return Headers, empty if they could not be read.
+     */
+    public HttpHeaders headers(final Authentication auth) {
+        HttpHeaders headers = new HttpHeaders();
+        if(auth instanceof OAuth2AuthenticationToken) {
+            final String provider = ((OAuth2AuthenticationToken) auth)
+                .getAuthorizedClientRegistrationId();
+            final OAuth2AuthorizedClient client = this.clients
+                .loadAuthorizedClient(provider, auth.getName());
+            if(client != null
+                && Provider.Names.GITHUB.equalsIgnoreCase(provider)) {
+                final HttpHeaders request = new HttpHeaders();
+                request.setBearerAuth(
+                    client.getAccessToken().getTokenValue()
+                );
+                try {
+                    headers = this.http.exchange(
+                        GITHUB, HttpMethod.GET,
+                        new HttpEntity<>(request), String.class
+                    ).getHeaders();
+                } catch (final RestClientException ex) {
+                    LOG.warn(
+                        "Could not read the Github quota of "
+                        + auth.getName() + ": " + ex.getMessage()
+                    );
+                }
+            }
+        }
+        return headers;
+    }
+}
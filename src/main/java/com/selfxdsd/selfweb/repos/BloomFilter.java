@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of Strings. It answers "definitely not added" or
+ * "maybe added"; keys cannot be removed. It is safe to use from many
+ * threads: the bits are set atomically, without locks.<br><br>
+ *
+ * It is sized for an expected number of keys and a false positive rate;
+ * beyond the expected number of keys the false positive rate grows.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+final class BloomFilter {
+
+    /**
+     * FNV-1a offset basis.
+     */
+    private static final long OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a prime.
+     */
+    private static final long PRIME = 0x100000001b3L;
+
+    /**
+     * The bits, 64 per long.
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Number of bits.
+     */
+    private final int size;
+
+    /**
+     * Number of hash functions.
+     */
+    private final int hashes;
+
+    /**
+     * Number of added keys.
+     */
+    private final AtomicInteger count;
+
+    /**
+     * Ctor.
+     * @param expected Expected number of keys.
+     * @param fpp Wanted false positive rate, e.g. 0.01.
+     */
+    BloomFilter(final int expected, final double fpp) {
+        final int keys = Math.max(expected, 1);
+        final double ln2 = Math.log(2);
+        this.size = (int) Math.max(
+            Long.SIZE,
+            Math.min(
+                Integer.MAX_VALUE - Long.SIZE,
+                Math.ceil(-keys * Math.log(fpp) / (ln2 * ln2))
+            )
+        );
+        this.hashes = Math.max(
+            1, (int) Math.round((double) this.size / keys * ln2)
+        );
+        this.bits = new AtomicLongArray(
+            (this.size + Long.SIZE - 1) / Long.SIZE
+        );
+        this.count = new AtomicInteger();
+    }
+
+    /**
+     * Add a key.
+     * @param key Key.
+     */
+    void put(final String key) {
+        final long hash = BloomFilter.hash(key);
+        for(int idx = 1; idx <= this.hashes; ++idx) {
+            final int bit = this.bit(hash, idx);
+            final long mask = 1L << bit;
+            this.bits.getAndAccumulate(
+                bit / Long.SIZE, mask, (word, set) -> word | set
+            );
+        }
+        this.count.incrementAndGet();
+    }
+
+    /**
+     * Was the key maybe added?
+     * @param key Key.
+     * @return False if it was definitely not added, true otherwise.
+     */
+    boolean mightContain(final String key) {
+        final long hash = BloomFilter.hash(key);
+        boolean contains = true;
+        for(int idx = 1; contains && idx <= this.hashes; ++idx) {
+            final int bit = this.bit(hash, idx);
+            contains = (this.bits.get(bit / Long.SIZE) & 1L << bit) != 0;
+        }
+        return contains;
+    }
+
+    /**
+     * Number of added keys.
+     * @return Int.
+     */
+    int count() {
+        return this.count.get();
+    }
+
+    /**
+     * Memory taken by the bits.
+     * @return Bytes.
+     */
+    long bytes() {
+        return (long) this.bits.length() * Long.BYTES;
+    }
+
+    /**
+     * Current false positive rate, estimated from the bits which are set.
+     * @return Rate between 0 and 1.
+     */
+    double falsePositiveRate() {
+        long set = 0;
+        for(int idx = 0; idx < this.bits.length(); ++idx) {
+            set = set + Long.bitCount(this.bits.get(idx));
+        }
+        return Math.pow((double) set / this.size, this.hashes);
+    }
+
+    /**
+     * The bit of the idx-th hash function (double hashing).
+     * @param hash 64 bits hash of the key.
+     * @param idx Index of the hash function, starting with 1.
+     * @return Bit.
+     */
+    private int bit(final long hash, final int idx) {
+        int combined = (int) hash + idx * (int) (hash >>> Integer.SIZE);
+        if(combined < 0) {
+            combined = ~combined;
+        }
+        return combined % this.size;
+    }
+
+    /**
+     * 64 bits hash of a key: FNV-1a of its UTF-8 bytes, with the
+     * final mix of MurmurHash3, so that both halves are well spread.
+     * @param key Key.
+     * @return Hash.
+     */
+    private static long hash(final String key) {
+        long hash = OFFSET;
+        for(final byte octet : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (octet & 0xff)) * PRIME;
+        }
+        hash = (hash ^ hash >>> 33) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ hash >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,367 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Self;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory index of the repositories managed by Self (the Projects),
+ * by provider and full name.<br><br>
+ *
+ * Most public lookups (badges, project pages) are for repositories which
+ * are not managed, so the index is a Bloom filter: when it says a repo
+ * is not managed, we do not ask the database at all; when it says "maybe",
+ * the database still has the last word. It is loaded when the app starts,
+ * rebuilt periodically and activated Projects are added right away.
+ * A deactivated Project cannot be removed from the filter: until the next
+ * rebuild its lookups simply go to the database, as they did before.
+ * Until the first load is done, every repo is "maybe" managed.<br><br>
+ *
+ * The memory taken by the filter, its estimated false positive rate and
+ * the lookups are reported as "self.managed.index.*" metrics.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class ManagedRepos implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        ManagedRepos.class
+    );
+
+    /**
+     * Self's core.
+     */
+    private final Self self;
+
+    /**
+     * Expected number of managed repos.
+     */
+    private final int expected;
+
+    /**
+     * Wanted false positive rate.
+     */
+    private final double fpp;
+
+    /**
+     * Scheduler of the rebuilds, null if they are not scheduled.
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Deactivated Projects, still in the filter until the next rebuild.
+     */
+    private final AtomicInteger stale;
+
+    /**
+     * Guards the swap of the filters and the activations, so a repo
+     * activated during a rebuild is never lost.
+     */
+    private final Object lock;
+
+    /**
+     * Loaded filter, null until the first load.
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * Filter being rebuilt, null if no rebuild is running.
+     */
+    private volatile BloomFilter building;
+
+    /**
+     * Ctor for an index which is only loaded by calling {@link #load()},
+     * sized for 10 000 repos with 1% false positives.
+     * @param self Self's core.
+     */
+    public ManagedRepos(final Self self) {
+        this(self, 10_000, 0.01);
+    }
+
+    /**
+     * Ctor for an index which is only loaded by calling {@link #load()}.
+     * @param self Self's core.
+     * @param expected Expected number of managed repos.
+     * @param fpp Wanted false positive rate.
+     */
+    public ManagedRepos(
+        final Self self,
+        final int expected,
+        final double fpp
+    ) {
+        this(self, expected, fpp, null, Duration.ZERO);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param self Self's core.
+     * @param expected Expected number of managed repos.
+     * @param fpp Wanted false positive rate.
+     * @param seconds How often is the index rebuilt, in seconds.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public ManagedRepos(
+        final Self self,
+        @Value("${self.managed.index.expected}") final int expected,
+        @Value("${self.managed.index.fpp}") final double fpp,
+        @Value("${self.managed.index.rebuild-seconds}") final long seconds
+    ) {
+        this(
+            self,
+            expected,
+            fpp,
+            Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("managed-repos-")
+            ),
+            Duration.ofSeconds(seconds)
+        );
+        Metrics.gauge("self.managed.index.bytes", this, ManagedRepos::bytes);
+        Metrics.gauge(
+            "self.managed.index.fpp", this, ManagedRepos::falsePositiveRate
+        );
+        Metrics.gauge("self.managed.index.repos", this, ManagedRepos::count);
+        Metrics.gauge("self.managed.index.stale", this.stale);
+    }
+
+    /**
+     * Ctor.
+     * @param self Self's core.
+     * @param expected Expected number of managed repos.
+     * @param fpp Wanted false positive rate.
+     * @param scheduler Scheduler of the rebuilds, null to not schedule.
+     * @param rebuild How often is the index rebuilt.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public ManagedRepos(
+        final Self self,
+        final int expected,
+        final double fpp,
+        final ScheduledExecutorService scheduler,
+        final Duration rebuild
+    ) {
+        this.self = self;
+        this.expected = expected;
+        this.fpp = fpp;
+        this.scheduler = scheduler;
+        this.stale = new AtomicInteger();
+        this.lock = new Object();
+        if(scheduler != null) {
+            scheduler.scheduleWithFixedDelay(
+                this::reload,
+                0,
+                Math.max(1, rebuild.toSeconds()),
+                TimeUnit.SECONDS
+            );
+        }
+    }
+
+    /**
+     * Is the repo definitely not managed by Self?
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @return True if it is not managed, false if it may be.
+     */
+    public boolean absent(final String repoFullName, final String provider) {
+        final BloomFilter current = this.filter;
+        final String key = ManagedRepos.key(repoFullName, provider);
+        final String result;
+        if(current == null) {
+            result = "unloaded";
+        } else if(current.mightContain(key)) {
+            result = "maybe";
+        } else {
+            result = "absent";
+        }
+        Metrics.counter("self.managed.index.lookups", "result", result)
+            .increment();
+        return "absent".equals(result);
+    }
+
+    /**
+     * A repo was activated, it is managed from now on.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     */
+    public void activated(final String repoFullName, final String provider) {
+        final String key = ManagedRepos.key(repoFullName, provider);
+        synchronized (this.lock) {
+            if(this.filter != null) {
+                this.filter.put(key);
+            }
+            if(this.building != null) {
+                this.building.put(key);
+            }
+        }
+    }
+
+    /**
+     * A Project was deactivated. It stays in the filter until the next
+     * rebuild, so its lookups go to the database.
+     */
+    public void deactivated() {
+        this.stale.incrementAndGet();
+    }
+
+    /**
+     * A repo which was not ruled out by the index is not managed
+     * after all: a false positive, a deactivated Project or a lookup
+     * made before the index was loaded.
+     */
+    public void missed() {
+        if(this.filter != null) {
+            Metrics.counter("self.managed.index.misses").increment();
+        }
+    }
+
+    /**
+     * Load the index of all the Projects from Self and swap it in.
+     */
+    public void load() {
+        final BloomFilter current = this.filter;
+        int size = this.expected;
+        if(current != null) {
+            size = Math.max(size, current.count() * 2);
+        }
+        final BloomFilter fresh = new BloomFilter(size, this.fpp);
+        synchronized (this.lock) {
+            this.building = fresh;
+        }
+        try {
+            for(final Project project : this.self.projects()) {
+                fresh.put(
+                    ManagedRepos.key(
+                        project.repoFullName(), project.provider()
+                    )
+                );
+            }
+            synchronized (this.lock) {
+                this.filter = fresh;
+                this.building = null;
+            }
+            this.stale.set(0);
+            LOG.info(
+                "Indexed " + fresh.count() + " managed repos in "
+                + fresh.bytes() + " bytes."
+            );
+        } finally {
+            synchronized (this.lock) {
+                this.building = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if(this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Number of indexed repos.
+     * @return Count, 0 if not loaded.
+     */
+    int count() {
+        final BloomFilter current = this.filter;
+        int count = 0;
+        if(current != null) {
+            count = current.count();
+        }
+        return count;
+    }
+
+    /**
+     * Memory taken by the index.
+     * @return Bytes, 0 if not loaded.
+     */
+    long bytes() {
+        final BloomFilter current = this.filter;
+        long bytes = 0;
+        if(current != null) {
+            bytes = current.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimated false positive rate of the index.
+     * @return Rate between 0 and 1; 1 if not loaded (everything
+     *  goes to the database).
+     */
+    double falsePositiveRate() {
+        final BloomFilter current = this.filter;
+        double rate = 1;
+        if(current != null) {
+            rate = current.falsePositiveRate();
+        }
+        return rate;
+    }
+
+    /**
+     * Reload the index, from the scheduler. A failed load is logged and
+     * the old index is kept, the next rebuild will try again (an
+     * exception escaping the task would cancel the schedule).
+     * @checkstyle IllegalCatch (10 lines)
+     */
+    private void reload() {
+        try {
+            this.load();
+        } catch (final RuntimeException ex) {
+            LOG.error("Could not load the managed repos.", ex);
+        }
+    }
+
+    /**
+     * Key of a repo in the filter.
+     * @param repoFullName Repo full name (owner/name).
+     * @param provider Provider (github, gitlab etc).
+     * @return Key.
+     */
+    private static String key(
+        final String repoFullName,
+        final String provider
+    ) {
+        return (provider + "/" + repoFullName).toLowerCase(Locale.ROOT);
+    }
+}
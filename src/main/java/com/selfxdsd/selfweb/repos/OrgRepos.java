@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.Repo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Snapshot of a User's Organization Repos, as fetched from the
+ * Provider.<br><br>
+ *
+ * The fetching of some Organizations may fail (e.g. timeout). In that
+ * case the snapshot is partial: it holds the Repos of the Organizations
+ * which answered and the reason of failure for the others, keyed by the
+ * Organization's id (its login).
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class OrgRepos {
+
+    /**
+     * Repos by lowercase full name.
+     */
+    private final Map<String, Repo> repos;
+
+    /**
+     * Failed Organizations: id -> reason.
+     */
+    private final Map<String, String> failed;
+
+    /**
+     * Ctor.
+     * @param repos Repos by lowercase full name.
+     * @param failed Failed Organizations, id -> reason.
+     */
+    public OrgRepos(
+        final Map<String, Repo> repos,
+        final Map<String, String> failed
+    ) {
+        this.repos = Collections.unmodifiableMap(repos);
+        this.failed = Collections.unmodifiableMap(failed);
+    }
+
+    /**
+     * Find a Repo by its full name.
+     * @param fullName Full name (owner/name), case insensitive.
+     * @return Repo or null if it is not found.
+     */
+    public Repo repo(final String fullName) {
+        return this.repos.get(fullName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * All the fetched Repos.
+     * @return Repos, in the order given by the Provider.
+     */
+    public Collection<Repo> all() {
+        return this.repos.values();
+    }
+
+    /**
+     * Organizations which could not be fetched.
+     * @return Map of Organization id -> reason of failure.
+     */
+    public Map<String, String> failed() {
+        return this.failed;
+    }
+
+    /**
+     * Were all the Organizations fetched?
+     * @return True or false.
+     */
+    public boolean complete() {
+        return this.failed.isEmpty();
+    }
+}
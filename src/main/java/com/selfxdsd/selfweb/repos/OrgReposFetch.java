@@ -0,0 +1,576 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.Organization;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import com.selfxdsd.api.User;
+import com.selfxdsd.selfweb.metrics.Outbound;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import com.selfxdsd.selfweb.quota.PriorityCalls;
+import com.selfxdsd.selfweb.quota.ProviderQuota;
+import com.selfxdsd.selfweb.quota.QuotaDeferredException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Fetches the Repos of all the User's Organizations in parallel.<br><br>
+ *
+ * The Organizations' Repos are requested concurrently on a pool shared
+ * by all the Users, but no User may have more than a few interactive
+ * calls in flight at the same time, across all their requests (e.g. two
+ * tabs), so one User with many Organizations does not starve the
+ * others. Each call has its own timeout: when it is reached, the
+ * thread making the call is interrupted and the User's slot is freed
+ * right away, so a hanging Provider cannot hold the slots of the
+ * remaining Organizations. An Organization which fails or times out is
+ * reported in the resulting {@link OrgRepos}, by its id; it does not
+ * fail the whole fetch.<br><br>
+ *
+ * A fetch the User waits for is interactive: its calls are queued ahead
+ * of the background ones. A background refresh makes one call at a time
+ * and each call first asks the {@link ProviderQuota}; if the User's quota
+ * is low or the User is waiting for other calls, the remaining
+ * Organizations are reported as "deferred" and the partial index is
+ * refreshed again later.<br><br>
+ *
+ * The authenticated User is a session-scoped bean, so it is only read
+ * on the request's thread: the calls made on other threads get the key
+ * of the User's quota and the User's Provider, already resolved.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class OrgReposFetch implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        OrgReposFetch.class
+    );
+
+    /**
+     * Max number of calls waiting for a free thread.
+     */
+    private static final int MAX_QUEUED = 1000;
+
+    /**
+     * Above this number of Users with slots, the idle ones are dropped.
+     */
+    private static final int MAX_USERS = 10000;
+
+    /**
+     * Executor of the interactive calls to the Provider.
+     */
+    private final Executor calls;
+
+    /**
+     * Executor of the background calls to the Provider.
+     */
+    private final Executor background;
+
+    /**
+     * Max number of concurrent calls for one User.
+     */
+    private final int perUser;
+
+    /**
+     * Slots of each User, by the key of their quota.
+     */
+    private final Map<String, Semaphore> slots;
+
+    /**
+     * Timeout of one call.
+     */
+    private final Duration timeout;
+
+    /**
+     * Quota of the Users' tokens.
+     */
+    private final ProviderQuota quota;
+
+    /**
+     * Ctor which fetches sequentially, in the calling thread, with
+     * a timeout of 30 seconds per Organization.
+     */
+    public OrgReposFetch() {
+        this(Runnable::run, 1, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param threads Number of threads shared by all the Users.
+     * @param perUser Max number of concurrent calls for one User.
+     * @param timeoutSeconds Timeout of one call, in seconds.
+     * @param quota Quota of the Users' tokens.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    @Autowired
+    public OrgReposFetch(
+        @Value("${self.repos.fetch.threads}") final int threads,
+        @Value("${self.repos.fetch.per-user}") final int perUser,
+        @Value("${self.repos.fetch.timeout-seconds}") final long timeoutSeconds,
+        final ProviderQuota quota
+    ) {
+        this(
+            new PriorityCalls(threads, MAX_QUEUED, "org-repos-fetch-"),
+            perUser,
+            Duration.ofSeconds(timeoutSeconds),
+            quota
+        );
+    }
+
+    /**
+     * Ctor with no background priority: both kinds of calls are
+     * executed by the same Executor.
+     * @param calls Executor of the calls to the Provider.
+     * @param perUser Max number of concurrent calls for one User.
+     * @param timeout Timeout of one call.
+     */
+    public OrgReposFetch(
+        final Executor calls,
+        final int perUser,
+        final Duration timeout
+    ) {
+        this(calls, perUser, timeout, new ProviderQuota());
+    }
+
+    /**
+     * Ctor.
+     * @param calls Executor of the calls to the Provider.
+     * @param perUser Max number of concurrent calls for one User.
+     * @param timeout Timeout of one call.
+     * @param quota Quota of the Users' tokens.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public OrgReposFetch(
+        final Executor calls,
+        final int perUser,
+        final Duration timeout,
+        final ProviderQuota quota
+    ) {
+        this.calls = calls;
+        if(calls instanceof PriorityCalls) {
+            this.background = ((PriorityCalls) calls).background();
+        } else {
+            this.background = calls;
+        }
+        this.perUser = perUser;
+        this.timeout = timeout;
+        this.quota = quota;
+        this.slots = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Fetch the Repos of all the User's Organizations.
+     * @param user Authenticated User.
+     * @return OrgRepos, possibly partial.
+     */
+    public OrgRepos fetch(final User user) {
+        final String key = ProviderQuota.key(user);
+        final Provider provider = user.provider();
+        return this.fetch(
+            key,
+            this.quota.interactive(key, () -> OrgReposFetch.orgs(provider)),
+            this.slots(key),
+            false
+        );
+    }
+
+    /**
+     * Fetch the Repos of all the User's Organizations in the background,
+     * one call at a time, as long as the User's quota allows it. Call it
+     * on the request's thread, it reads the User.
+     * @param user User.
+     * @param auth Authentication of the User, to read the quota of
+     *  their token; null if unknown.
+     * @return OrgRepos, possibly partial, or null if the refresh was
+     *  deferred altogether.
+     */
+    public OrgRepos refresh(final User user, final Authentication auth) {
+        return this.refresh(ProviderQuota.key(user), user.provider(), auth);
+    }
+
+    /**
+     * Fetch the Repos of all the User's Organizations in the background,
+     * one call at a time, as long as the User's quota allows it. It can
+     * be called on any thread.
+     * @param key Key of the User's quota, see {@link ProviderQuota#key}.
+     * @param provider The User's Provider.
+     * @param auth Authentication of the User, to read the quota of
+     *  their token; null if unknown.
+     * @return OrgRepos, possibly partial, or null if the refresh was
+     *  deferred altogether.
+     */
+    public OrgRepos refresh(
+        final String key,
+        final Provider provider,
+        final Authentication auth
+    ) {
+        this.quota.check(key, auth);
+        OrgRepos refreshed = null;
+        if(this.quota.allows(key)) {
+            refreshed = this.fetch(
+                key, OrgReposFetch.orgs(provider), new Semaphore(1), true
+            );
+        }
+        return refreshed;
+    }
+
+    /**
+     * Fetch the Repos of the given Organizations.
+     * @param key Key of the User's quota.
+     * @param orgs User's Organizations.
+     * @param slots User's slots.
+     * @param background Is it a background fetch?
+     * @return OrgRepos, possibly partial.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private OrgRepos fetch(
+        final String key,
+        final List<Organization> orgs,
+        final Semaphore slots,
+        final boolean background
+    ) {
+        final List<CompletableFuture<List<Repo>>> pending = new ArrayList<>();
+        for(final Organization org : orgs) {
+            pending.add(this.repos(key, org, slots, background));
+        }
+        final Map<String, Repo> repos = new LinkedHashMap<>();
+        final Map<String, String> failed = new LinkedHashMap<>();
+        for(int idx = 0; idx < pending.size(); ++idx) {
+            try {
+                for(final Repo repo : pending.get(idx).join()) {
+                    repos.put(repo.fullName().toLowerCase(Locale.ROOT), repo);
+                }
+            } catch (final CompletionException ex) {
+                final String org = OrgReposFetch.id(orgs.get(idx), idx);
+                LOG.warn(
+                    "Could not fetch the Repos of Organization " + org
+                    + " of " + key,
+                    ex.getCause()
+                );
+                failed.put(org, OrgReposFetch.reason(ex.getCause()));
+            }
+        }
+        return new OrgRepos(repos, failed);
+    }
+
+    @Override
+    public void close() {
+        if(this.calls instanceof ExecutorService) {
+            ((ExecutorService) this.calls).shutdownNow();
+        }
+    }
+
+    /**
+     * Start fetching the Repos of an Organization, as soon as
+     * one of the User's slots is free. The slot is given back when the
+     * call ends or when it times out, whichever comes first, so a slot
+     * is never held longer than the timeout; we wait for one twice as
+     * long, to allow for scheduling delays.
+     * @param key Key of the User's quota.
+     * @param org Organization.
+     * @param slots User's slots.
+     * @param background Is it a background fetch?
+     * @return Future Repos.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private CompletableFuture<List<Repo>> repos(
+        final String key,
+        final Organization org,
+        final Semaphore slots,
+        final boolean background
+    ) {
+        CompletableFuture<List<Repo>> repos;
+        try {
+            if(slots.tryAcquire(
+                2 * this.timeout.toMillis(), TimeUnit.MILLISECONDS
+            )) {
+                final RequestTrace trace = RequestTrace.current();
+                final Call call = new Call(slots);
+                repos = CompletableFuture.supplyAsync(
+                    () -> call.run(
+                        () -> RequestTrace.within(
+                            trace, () -> this.list(key, org, background)
+                        )
+                    ),
+                    this.executor(background)
+                ).orTimeout(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+                repos.whenComplete(
+                    (result, error) -> {
+                        if(error instanceof TimeoutException) {
+                            call.abort();
+                        }
+                    }
+                );
+            } else {
+                repos = CompletableFuture.failedFuture(
+                    new TimeoutException("No free slot for the call.")
+                );
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            repos = CompletableFuture.failedFuture(ex);
+        } catch (final RejectedExecutionException ex) {
+            slots.release();
+            repos = CompletableFuture.failedFuture(ex);
+        }
+        return repos;
+    }
+
+    /**
+     * Slots of the User's interactive calls, shared by all their requests.
+     * @param key Key of the User's quota.
+     * @return Semaphore.
+     */
+    private Semaphore slots(final String key) {
+        if(this.slots.size() > MAX_USERS) {
+            this.slots.values().removeIf(
+                slots -> slots.availablePermits() == this.perUser
+            );
+        }
+        return this.slots.computeIfAbsent(
+            key, user -> new Semaphore(this.perUser)
+        );
+    }
+
+    /**
+     * Executor of the calls.
+     * @param background Is it a background call?
+     * @return Executor.
+     */
+    private Executor executor(final boolean background) {
+        final Executor executor;
+        if(background) {
+            executor = this.background;
+        } else {
+            executor = this.calls;
+        }
+        return executor;
+    }
+
+    /**
+     * List the Repos of an Organization, counting the call against the
+     * User's quota. A background call is deferred if the quota does not
+     * allow it.
+     * @param key Key of the User's quota.
+     * @param org Organization.
+     * @param background Is it a background call?
+     * @return Repos.
+     */
+    private List<Repo> list(
+        final String key,
+        final Organization org,
+        final boolean background
+    ) {
+        final List<Repo> repos;
+        if(!background) {
+            repos = this.quota.interactive(key, () -> OrgReposFetch.list(org));
+        } else if(this.quota.allows(key)) {
+            repos = OrgReposFetch.list(org);
+        } else {
+            throw new QuotaDeferredException(
+                "Quota of " + key + " is low, call deferred."
+            );
+        }
+        return repos;
+    }
+
+    /**
+     * The User's Organizations, timing the call to the Provider.
+     * @param provider The User's Provider.
+     * @return Organizations.
+     */
+    private static List<Organization> orgs(final Provider provider) {
+        return Outbound.provider(
+            "organizations",
+            () -> {
+                final List<Organization> list = new ArrayList<>();
+                for(final Organization org : provider.organizations()) {
+                    list.add(org);
+                }
+                return list;
+            }
+        );
+    }
+
+    /**
+     * List the Repos of an Organization, timing the calls to the Provider.
+     * @param org Organization.
+     * @return Repos.
+     */
+    private static List<Repo> list(final Organization org) {
+        return Outbound.provider(
+            "organization_repos",
+            () -> {
+                final List<Repo> list = new ArrayList<>();
+                for(final Repo repo : org.repos()) {
+                    list.add(repo);
+                }
+                return list;
+            }
+        );
+    }
+
+    /**
+     * Id of an Organization, as shown to the User.
+     * @param org Organization.
+     * @param position Position of the Organization in the Provider's
+     *  list, used if it has no id.
+     * @return String id.
+     */
+    private static String id(final Organization org, final int position) {
+        final String id = org.organizationId();
+        final String shown;
+        if(id == null) {
+            shown = "#" + position;
+        } else {
+            shown = id;
+        }
+        return shown;
+    }
+
+    /**
+     * Short reason of failure, to be shown to the User.
+     * @param error Error.
+     * @return String reason.
+     */
+    private static String reason(final Throwable error) {
+        final String reason;
+        if(error instanceof TimeoutException) {
+            reason = "timeout";
+        } else if(error instanceof RejectedExecutionException) {
+            reason = "busy";
+        } else if(error instanceof QuotaDeferredException) {
+            reason = "deferred";
+        } else {
+            reason = "error";
+        }
+        return reason;
+    }
+
+    /**
+     * One call to the Provider, holding one of the User's slots.
+     * The slot is released only once, either by the call or by its
+     * timeout; on timeout, the thread making the call is interrupted.
+     */
+    private static final class Call {
+
+        /**
+         * User's slots.
+         */
+        private final Semaphore slots;
+
+        /**
+         * Was the slot released?
+         */
+        private final AtomicBoolean released;
+
+        /**
+         * Guards the worker.
+         */
+        private final Object lock;
+
+        /**
+         * Thread making the call, null if it is not running.
+         */
+        private Thread worker;
+
+        /**
+         * Ctor.
+         * @param slots User's slots, one of them already acquired.
+         */
+        Call(final Semaphore slots) {
+            this.slots = slots;
+            this.released = new AtomicBoolean(false);
+            this.lock = new Object();
+        }
+
+        /**
+         * Make the call in the current thread.
+         * @param work The call.
+         * @return Result of the call.
+         */
+        List<Repo> run(final Supplier<List<Repo>> work) {
+            synchronized (this.lock) {
+                this.worker = Thread.currentThread();
+            }
+            try {
+                return work.get();
+            } finally {
+                synchronized (this.lock) {
+                    this.worker = null;
+                    Thread.interrupted();
+                }
+                this.release();
+            }
+        }
+
+        /**
+         * The call timed out: free the slot and interrupt the call.
+         */
+        void abort() {
+            this.release();
+            synchronized (this.lock) {
+                if(this.worker != null) {
+                    this.worker.interrupt();
+                }
+            }
+        }
+
+        /**
+         * Give the slot back, if not already given.
+         */
+        private void release() {
+            if(this.released.compareAndSet(false, true)) {
+                this.slots.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Repo;
+import com.selfxdsd.api.User;
+import com.selfxdsd.selfweb.quota.ProviderQuota;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Index of the Organization Repos to which a User has admin rights,
+ * kept separately for each User.<br><br>
+ *
+ * Walking the User's Organizations and their Repos is a chain of
+ * calls to the Provider, so we do it once and then look the Repos up
+ * by their full name. When the index of a User gets older than the TTL,
+ * it is still served while it is rebuilt in the background. A partial
+ * index (some Organizations could not be fetched) is refreshed sooner,
+ * after a tenth of the TTL. The background refresh only spends what is
+ * left of the User's quota above the reserve (see
+ * {@link OrgReposFetch#refresh(String, Provider, Authentication)}); if it
+ * is deferred, the old index is served until a later lookup tries again.
+ * The User is a session-scoped bean, so the refresh only gets the key of
+ * the User's quota and the User's Provider, read on the request's
+ * thread.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+public class OrgReposIndex implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        OrgReposIndex.class
+    );
+
+    /**
+     * Above this number of indexed Users, the expired entries are
+     * dropped.
+     */
+    private static final int MAX_USERS = 10000;
+
+    /**
+     * Indexed Repos of each User.
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * Time to live of a User's index.
+     */
+    private final Duration ttl;
+
+    /**
+     * Executor for the background refreshes.
+     */
+    private final Executor refresher;
+
+    /**
+     * Fetches the Repos of the User's Organizations.
+     */
+    private final OrgReposFetch fetch;
+
+    /**
+     * Ctor with a TTL of 10 minutes, which refreshes the index
+     * in the calling thread.
+     */
+    public OrgReposIndex() {
+        this(Duration.ofMinutes(10), Runnable::run);
+    }
+
+    /**
+     * Ctor for Spring.
+     * @param ttlSeconds Time to live of a User's index, in seconds.
+     * @param refreshers Max number of concurrent background refreshes.
+     * @param fetch Fetches the Repos of the User's Organizations.
+     */
+    @Autowired
+    public OrgReposIndex(
+        @Value("${self.repos.index.ttl-seconds}") final long ttlSeconds,
+        @Value("${self.repos.index.refreshers}") final int refreshers,
+        final OrgReposFetch fetch
+    ) {
+        this(
+            Duration.ofSeconds(ttlSeconds),
+            new ThreadPoolExecutor(
+                refreshers,
+                refreshers,
+                1, TimeUnit.MINUTES,
+                new ArrayBlockingQueue<>(MAX_USERS),
+                new CustomizableThreadFactory("org-repos-index-")
+            ),
+            fetch
+        );
+    }
+
+    /**
+     * Ctor which fetches the Organizations sequentially.
+     * @param ttl Time to live of a User's index.
+     * @param refresher Executor for the background refreshes.
+     */
+    public OrgReposIndex(final Duration ttl, final Executor refresher) {
+        this(ttl, refresher, new OrgReposFetch());
+    }
+
+    /**
+     * Ctor.
+     * @param ttl Time to live of a User's index.
+     * @param refresher Executor for the background refreshes.
+     * @param fetch Fetches the Repos of the User's Organizations.
+     */
+    public OrgReposIndex(
+        final Duration ttl,
+        final Executor refresher,
+        final OrgReposFetch fetch
+    ) {
+        this.ttl = ttl;
+        this.refresher = refresher;
+        this.fetch = fetch;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Find one of the User's Organization Repos.
+     * @param user Authenticated User.
+     * @param fullName Full name of the Repo (owner/name), case insensitive.
+     * @return Repo or null if the User has no admin rights over it.
+     */
+    public Repo repo(final User user, final String fullName) {
+        return this.index(user).repo(fullName);
+    }
+
+    /**
+     * Find one of the User's Organization Repos. If it is not in the
+     * index, which may be because it was created recently, the index is
+     * rebuilt, but at most once every tenth of the TTL: lookups of
+     * unknown Repos (e.g. typos) are answered from the current index.
+     * @param user Authenticated User.
+     * @param fullName Full name of the Repo (owner/name), case insensitive.
+     * @return Repo or null if the User has no admin rights over it.
+     */
+    public Repo find(final User user, final String fullName) {
+        Repo found = this.repo(user, fullName);
+        if(found == null) {
+            final Entry entry = this.entries.get(OrgReposIndex.key(user));
+            if(entry != null && entry.olderThan(this.ttl.toMillis() / 10)
+                && this.entries.remove(OrgReposIndex.key(user), entry)) {
+                found = this.repo(user, fullName);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * All the Organization Repos of the User.
+     * @param user Authenticated User.
+     * @return Repos, in the order given by the Provider.
+     */
+    public Collection<Repo> repos(final User user) {
+        return this.index(user).all();
+    }
+
+    /**
+     * The User's indexed Organization Repos, together with the
+     * Organizations which could not be fetched.
+     * @param user Authenticated User.
+     * @return OrgRepos.
+     */
+    public OrgRepos snapshot(final User user) {
+        return this.index(user);
+    }
+
+    /**
+     * Drop the User's index, it will be rebuilt on the next lookup.
+     * @param user Authenticated User.
+     */
+    public void invalidate(final User user) {
+        this.entries.remove(OrgReposIndex.key(user));
+    }
+
+    @Override
+    public void close() {
+        if(this.refresher instanceof ExecutorService) {
+            ((ExecutorService) this.refresher).shutdownNow();
+        }
+    }
+
+    /**
+     * Get the User's index, building it if it is missing or refreshing
+     * it in the background if it expired.
+     * @param user Authenticated User.
+     * @return Indexed OrgRepos.
+     */
+    private OrgRepos index(final User user) {
+        if(this.entries.size() > MAX_USERS) {
+            this.entries.values().removeIf(Entry::expired);
+        }
+        final Entry entry = this.entries.computeIfAbsent(
+            OrgReposIndex.key(user), key -> new Entry(this.ttl)
+        );
+        return entry.repos(
+            user,
+            SecurityContextHolder.getContext().getAuthentication(),
+            this.fetch,
+            this.refresher
+        );
+    }
+
+    /**
+     * Key of the User's index.
+     * @param user User.
+     * @return String key.
+     */
+    private static String key(final User user) {
+        return String.valueOf(user.provider().name())
+            .concat("/")
+            .concat(String.valueOf(user.username()))
+            .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexed Repos of one User.
+     */
+    private static final class Entry {
+
+        /**
+         * Time to live.
+         */
+        private final Duration ttl;
+
+        /**
+         * Lock used while building the index for the first time.
+         */
+        private final Object lock;
+
+        /**
+         * Are we refreshing in the background?
+         */
+        private final AtomicBoolean refreshing;
+
+        /**
+         * Indexed repos, null until first built.
+         */
+        private volatile OrgRepos indexed;
+
+        /**
+         * When was the index built, in millis.
+         */
+        private volatile long builtAt;
+
+        /**
+         * Ctor.
+         * @param ttl Time to live.
+         */
+        Entry(final Duration ttl) {
+            this.ttl = ttl;
+            this.lock = new Object();
+            this.refreshing = new AtomicBoolean(false);
+        }
+
+        /**
+         * Was this index built more than the given time ago?
+         * @param millis Time, in milliseconds.
+         * @return True or false.
+         */
+        boolean olderThan(final long millis) {
+            return this.indexed != null
+                && System.currentTimeMillis() - this.builtAt > millis;
+        }
+
+        /**
+         * Get the indexed Repos.
+         * @param user User whose Repos are indexed.
+         * @param auth Authentication of the User, null if unknown.
+         * @param fetch Fetches the Repos of the User's Organizations.
+         * @param refresher Executor for the background refresh.
+         * @return Indexed OrgRepos.
+         * @checkstyle ParameterNumber (10 lines)
+         */
+        OrgRepos repos(
+            final User user,
+            final Authentication auth,
+            final OrgReposFetch fetch,
+            final Executor refresher
+        ) {
+            OrgRepos current = this.indexed;
+            if(current == null) {
+                synchronized (this.lock) {
+                    if(this.indexed == null) {
+                        this.update(fetch.fetch(user));
+                    }
+                    current = this.indexed;
+                }
+            } else if(this.expired()
+                && this.refreshing.compareAndSet(false, true)) {
+                this.refresh(
+                    ProviderQuota.key(user), user.provider(),
+                    auth, fetch, refresher
+                );
+            }
+            return current;
+        }
+
+        /**
+         * Is this index older than its TTL?
+         * @return True or false.
+         */
+        boolean expired() {
+            long max = this.ttl.toMillis();
+            final OrgRepos current = this.indexed;
+            if(current != null && !current.complete()) {
+                max = max / 10;
+            }
+            return System.currentTimeMillis() - this.builtAt > max;
+        }
+
+        /**
+         * Rebuild the index in the background. Until it is done,
+         * the old index is served. If the refresh is deferred because
+         * of the User's quota, the old index is kept.
+         * @param key Key of the User's quota.
+         * @param provider Provider of the User whose Repos are indexed.
+         * @param auth Authentication of the User, null if unknown.
+         * @param fetch Fetches the Repos of the User's Organizations.
+         * @param refresher Executor for the background refresh.
+         * @checkstyle ParameterNumber (10 lines)
+         */
+        private void refresh(
+            final String key,
+            final Provider provider,
+            final Authentication auth,
+            final OrgReposFetch fetch,
+            final Executor refresher
+        ) {
+            try {
+                CompletableFuture
+                    .supplyAsync(
+                        () -> fetch.refresh(key, provider, auth), refresher
+                    )
+                    .whenComplete(
+                        (repos, error) -> {
+                            if(error == null && repos != null) {
+                                this.update(repos);
+                            } else if(error == null) {
+                                LOG.debug(
+                                    "Org Repos refresh of " + key
+                                    + " deferred, quota is low."
+                                );
+                            } else {
+                                LOG.error(
+                                    "Could not refresh the Org Repos of "
+                                    + key,
+                                    error
+                                );
+                            }
+                            this.refreshing.set(false);
+                        }
+                    );
+            } catch (final RejectedExecutionException ex) {
+                LOG.warn("Org Repos refresh rejected, serving old index.");
+                this.refreshing.set(false);
+            }
+        }
+
+        /**
+         * Replace the indexed Repos.
+         * @param repos New Repos.
+         */
+        private void update(final OrgRepos repos) {
+            this.indexed = repos;
+            this.builtAt = System.currentTimeMillis();
+        }
+    }
+}
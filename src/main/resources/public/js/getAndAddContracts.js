@@ -13,7 +13,7 @@
 * alias anymore. It could named "foo" fo ex, thus making a call like foo("#contracts") valid.
 */
 var projectContractsCount = -1;
-(function getAndAddContracts($, contractsService, usersService, confirmDialog){
+(function getAndAddContracts($, contractsService, usersService, confirmDialog, userEvents){
 
     function getTasksOfContract(contract) {
         $("#tasksTable").dataTable().fnDestroy();
@@ -26,11 +26,11 @@ var projectContractsCount = -1;
             language: {
                 loadingRecords: '<img src="/images/loading.svg" height="100">'
             },
+            serverSide: true,
             ajax: {
                 url: "/api/projects/"
                     + contract.id.repoFullName
-                    + "/contracts/" + contract.id.contributorUsername + "/tasks?role=" + contract.id.role,
-                dataSrc: ""
+                    + "/contracts/" + contract.id.contributorUsername + "/tasks?role=" + contract.id.role
             },
             columns: [
                 {
@@ -84,6 +84,7 @@ var projectContractsCount = -1;
             language: {
                 loadingRecords: '<img src="/images/loading.svg" height="100">'
             },
+            serverSide: true,
             ajax: function(data, callback){
                 $.ajax(
                     "/api/projects/"
@@ -92,9 +93,11 @@ var projectContractsCount = -1;
                     + "/invoices?role=" + contract.id.role,
                     {
                         type: "GET",
+                        data: data,
                         statusCode: {
-                            200: function (invoices) {
-                                callback({ data: invoices.map(invoiceAsTableRow(contract))});
+                            200: function (page) {
+                                page.data = page.data.map(invoiceAsTableRow(contract));
+                                callback(page);
                             }
                         }
                     }
@@ -364,7 +367,10 @@ var projectContractsCount = -1;
                 if ($("#projectContractsButton").hasClass("active")) {
                     return;
                 }
-                loadContracts();
+                //loaded only once, the contract.* events keep it up to date
+                if (!$.fn.dataTable.isDataTable("#contracts")) {
+                    loadContracts();
+                }
                 $("#projectContractsButton").addClass("active");
                 $("#projectContracts").addClass("show");
 
@@ -407,9 +413,7 @@ var projectContractsCount = -1;
                                 $("#updateContractForm input").val('');
                                 $("#updateContractCard").hide();
                                 $("#newContractCard").show();
-                                var table = $("#contracts").DataTable();
-                                var row = table.row("#" + updatedContract.id.contributorUsername + updatedContract.id.role);
-                                table.cell({ row: row.index(), column: 2}).data(updatedContract.hourlyRate).draw("page")
+                                contractChanged(updatedContract);
                             }
                         ).catch(handleError)
                         .finally(
@@ -444,6 +448,52 @@ var projectContractsCount = -1;
             }
         )
 
+        /**
+         * A Contract was marked for removal or restored, maybe in
+         * another tab: update its row.
+         * @param contract Contract.
+         */
+        function contractMarkChanged(contract) {
+            var repo = $("#owner").text() + "/" + $("#name").text();
+            var table = $("#contracts").DataTable();
+            var row = table.row(
+                "#" + contract.id.contributorUsername + contract.id.role
+            );
+            if (contract.id.repoFullName == repo && row.length > 0) {
+                table.cell({ row: row.index(), column: 4 })
+                    .data({ markedForRemoval: contract.markedForRemoval })
+                    .draw("page");
+            }
+        }
+        userEvents.on("contract.marked", contractMarkChanged);
+        userEvents.on("contract.restored", contractMarkChanged);
+
+        /**
+         * A Contract was added or its hourly rate was updated, in this tab
+         * or in another one: add its row or update its hourly rate.
+         * @param contract Contract.
+         */
+        function contractChanged(contract) {
+            var repo = $("#owner").text() + "/" + $("#name").text();
+            if (contract.id.repoFullName != repo
+                || !$.fn.dataTable.isDataTable("#contracts")) {
+                return;
+            }
+            var table = $("#contracts").DataTable();
+            var row = table.row(
+                "#" + contract.id.contributorUsername + contract.id.role
+            );
+            if (row.length > 0) {
+                table.cell({ row: row.index(), column: 2 })
+                    .data(contract.hourlyRate)
+                    .draw("page");
+            } else {
+                table.row.add(contractAsTableRowArray(contract)).draw();
+            }
+        }
+        userEvents.on("contract.added", contractChanged);
+        userEvents.on("contract.updated", contractChanged);
+
         /**
          * Mark a Contract for deletion.
          * @param button Remove Button.
@@ -538,10 +588,7 @@ var projectContractsCount = -1;
                         function (contract) {
                             $("#addContractForm input").val('');
                             $('#addContractForm option:first').prop('selected', true);
-                            $("#contracts").DataTable()
-                                .rows
-                                .add([contractAsTableRowArray(contract)])
-                                .draw()
+                            contractChanged(contract);
                         }
                     ).catch(handleError)
                         .finally(
@@ -587,4 +634,4 @@ var projectContractsCount = -1;
 
     });
 
-})(jQuery, contractsService, usersService, confirmDialog)
\ No newline at end of file
+})(jQuery, contractsService, usersService, confirmDialog, userEvents)
\ No newline at end of file
@@ -141,16 +141,19 @@ function getTasksOfContract(contract) {
             loadingRecords: '<img src="/images/loading.svg" height="100">',
             emptyTable: "You don't have any tasks assigned."
         },
-        ajax: function (_data, callback) {
-            $.ajax( //API call to get the Tasks.
+        serverSide: true,
+        ajax: function (data, callback) {
+            $.ajax( //API call to get one page of Tasks.
                 "/api/contributor/contracts/"
                 + contract.id.repoFullName
                 + "/tasks?role=" + contract.id.role,
                 {
                     type: "GET",
+                    data: data,
                     statusCode: {
-                        200: function (tasks) {
-                            callback({ data: tasks.map(taskAsTableRow(contract)) });
+                        200: function (page) {
+                            page.data = page.data.map(taskAsTableRow(contract));
+                            callback(page);
                         }
                     }
                 }
@@ -203,16 +206,19 @@ function getInvoicesOfContract(contract) {
         language: {
             loadingRecords: '<img src="/images/loading.svg" height="100">'
         },
-        ajax: function (_data, callback) {
-            $.ajax( //API call to get the Invoices.
+        serverSide: true,
+        ajax: function (data, callback) {
+            $.ajax( //API call to get one page of Invoices.
                 "/api/contributor/contracts/"
                 + contract.id.repoFullName
                 + "/invoices?role=" + contract.id.role,
                 {
                     type: "GET",
+                    data: data,
                     statusCode: {
-                        200: function (invoices) {
-                            callback({ data: invoices.map(invoiceAsTableRow(contract)) });
+                        200: function (page) {
+                            page.data = page.data.map(invoiceAsTableRow(contract));
+                            callback(page);
                         }
                     }
                 }
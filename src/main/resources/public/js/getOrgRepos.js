@@ -20,12 +20,23 @@ function getOrgRepos() {
     $.get(
         "/api/repositories/orgs",
         function(repos) {
+            var failed = [];
             (repos || []).forEach(
                 function(repo){
-                    $("#orgReposTable").find("tbody").append(repoAsTableRow(repo));
+                    if(repo.failed) {
+                        failed.push(repo.organization);
+                    } else {
+                        $("#orgReposTable").find("tbody").append(repoAsTableRow(repo));
+                    }
                 }
             )
             $("#loadingOrgRepos").hide();
+            if(failed.length > 0) {
+                $("#org-repos-partial-orgs").text(failed.join(", "));
+                $("#org-repos-partial-info").show();
+            } else {
+                $("#org-repos-partial-info").hide();
+            }
             $("#org-access-info").show();
             $('#orgReposTable').dataTable();
         }
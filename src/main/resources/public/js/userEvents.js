@@ -0,0 +1,39 @@
+/**
+ * Events pushed by the server (/api/events) when the logged-in User
+ * changes something, in this tab or in any other: invoice.paid,
+ * payment.failed, contract.added, contract.updated, contract.marked,
+ * contract.restored and wallet.updated.
+ *
+ * Usage: userEvents.on("wallet.updated", function(data) {...});
+ */
+var userEvents = (function () {
+
+    /**
+     * The event stream, opened with the first listener.
+     */
+    var source = null;
+
+    /**
+     * Listen for an event.
+     * @param name Name of the event.
+     * @param handler Function receiving the event's data (JSON).
+     */
+    function on(name, handler) {
+        if (typeof EventSource === "undefined") {
+            return;
+        }
+        if (source == null) {
+            source = new EventSource("/api/events");
+        }
+        source.addEventListener(
+            name,
+            function (event) {
+                handler(JSON.parse(event.data));
+            }
+        );
+    }
+
+    return {
+        on: on
+    }
+})();
@@ -1,15 +1,60 @@
 var usersService = (function ($){
 
+    /**
+     * Github's rate limits, per resource ("search", "core"), as read from
+     * the X-RateLimit-* headers of its last response.
+     */
+    var quota = {};
+
+    /**
+     * Remember the rate limit of a Github resource.
+     * @param resource Resource (search or core).
+     * @param jqXHR Github's response.
+     */
+    function track(resource, jqXHR) {
+        var remaining = jqXHR.getResponseHeader("X-RateLimit-Remaining");
+        var reset = jqXHR.getResponseHeader("X-RateLimit-Reset");
+        if(remaining !== null && reset !== null) {
+            quota[resource] = {
+                remaining: parseInt(remaining),
+                reset: parseInt(reset) * 1000
+            };
+        }
+    }
+
+    /**
+     * Seconds until the rate limit of a Github resource resets, if at
+     * most the given number of calls is left; 0 otherwise.
+     * @param resource Resource (search or core).
+     * @param reserve Calls kept for more important work.
+     */
+    function exhausted(resource, reserve) {
+        var state = quota[resource];
+        var wait = 0;
+        if(state !== undefined && state.remaining <= reserve) {
+            wait = Math.max(0, Math.ceil((state.reset - Date.now()) / 1000));
+        }
+        return wait;
+    }
+
     var providers = {
         "github": {
             findUsers: function(term){
                 return new Promise(function(resolve, reject){
+                    //the suggestions are not worth the last calls, keep
+                    //them for checking the user on submit.
+                    if(exhausted("search", 2) > 0) {
+                        resolve([]);
+                        return;
+                    }
                     $.get({
                         url: "https://api.github.com/search/users?per_page=100&q="+term,
-                        success: function(users){
+                        success: function(users, textStatus, jqXHR){
+                            track("search", jqXHR);
                             resolve(users.items.map(function(user){return user.login}));
                         },
                         error: function(jqXHR){
+                            track("search", jqXHR);
                             reject(jqXHR.responseText);
                         }
                     });
@@ -17,12 +62,22 @@ var usersService = (function ($){
             },
             exists: function(username) {
                 return new Promise(function(resolve, reject){
+                    var wait = exhausted("core", 0);
+                    if(wait > 0) {
+                        reject(
+                            "Github's rate limit was reached, please try again in "
+                            + wait + " seconds."
+                        );
+                        return;
+                    }
                     $.get({
                         url: "https://api.github.com/users/"+username,
-                        success: function(){
+                        success: function(user, textStatus, jqXHR){
+                            track("core", jqXHR);
                             resolve();
                         },
                         error: function(jqXHR){
+                            track("core", jqXHR);
                             if(jqXHR.status === 404){
                                 reject({
                                     validation: {
@@ -5,6 +5,12 @@
 var walletPieChart;
 var activeWallet;
 
+/**
+ * The Wallets tab is loaded only once, then kept up to date by the
+ * wallet.updated events.
+ */
+var walletsLoaded = false;
+
 /**
  * Functions handling a Project's Wallets.
  */
@@ -304,105 +310,197 @@ function payInvoice(invoice, contract, payButton) {
             url: "/api/projects/" + contract.id.repoFullName +
                 "/contracts/" + contract.id.contributorUsername + "/invoices/"
                 + invoice.id + "?role=" + contract.id.role,
-            success: function (json) {
-                $("#invoicesBody").hide();
-                $("#loadingInvoices").show();
-                if(json.payment.status == 'SUCCESSFUL') {
-                    payButton.hide();
-                    $('#invoicesTable > tbody  > tr').each(
-                        function (index, row) {
-                            if ($(row).find("td:eq(0)").text() == json.paid) {
-                                $(row).find("td:eq(3)").text("Paid");
-                            }
-                        }
-                    );
-                    $("#invoicesTable").DataTable().row.add(
-                        $(newInvoiceAsTableRow(json.active))[0]
-                    ).draw();
-                } else {
-                    $('#invoicesTable > tbody  > tr').each(
-                        function (index, row) {
-                            if ($(row).find("td:eq(0)").text() == json.paid) {
-                                var timestamp = json.payment.timestamp;
-                                var status = json.payment.status;
-                                var failMessage = (status === "FAILED")
-                                    ? json.payment.failReason.replaceAll('"', '\'')
-                                    : "Something went wrong, please try again.";
-                                if(timestamp.length > 0) {
-                                    timestamp = timestamp.split('T')[0];
-                                    failMessage = timestamp + ": " + failMessage;
-                                }
-                                var status = "Payment failed " + "<i class='fa fa-exclamation-triangle fa-lg' style='color:red;' aria-hidden='true' "
-                                    + "data-toggle='tooltip' data-placement='top' "
-                                    + "data-original-title=\"" + failMessage + "\">"
-                                    +"</i>";
+            success: paid,
+            error: failed
+        }
+    );
 
-                                $(row).find("td:eq(3)").html(status);
-                                $('[data-toggle="tooltip"]').tooltip();
-                            }
-                        }
-                    );
-                    payButton.html('<i class="fa fa-credit-card fa-lg"></i>');
-                    payButton.on(
-                        "click",
-                        function(event) {
-                            event.preventDefault();
-                            var message = "Are you sure you want to make this payment?"
-                            if(activeWallet.type == 'FAKE') {
-                                message += ' You are using a fake wallet, the payment will be fictive.'
-                            }
-                            confirmDialog
-                                .create(message, "Warning", "Yes")
-                                .then(
-                                    () => payInvoice(invoice, contract, $(this))
-                                );
-                        }
-                    );
+    /**
+     * The payment is done or, if the status is 202, still running in the
+     * background, in which case we wait for its invoice.paid or
+     * payment.failed event.
+     * @param json Payment result or running job.
+     * @param textStatus Status text.
+     * @param jqXHR Request.
+     */
+    function paid(json, textStatus, jqXHR) {
+        if(jqXHR.status == 202) {
+            paymentJobs.whenDone(
+                json.job,
+                function (event) {
+                    if (event.code == 200) {
+                        paid(event.result, "success", {status: 200});
+                    } else {
+                        failed(
+                            {status: event.code, responseText: event.reason}
+                        );
+                    }
                 }
-                $("#loadingInvoices").hide();
-                $("#invoicesBody").show();
-            },
-            error: function(jqXHR, error, errorThrown) {
-                console.log("Server error status: " + jqXHR.status);
-                console.log("Server error: " + jqXHR.responseText);
-                payButton.html('<i class="fa fa-credit-card fa-lg"></i>');
-                payButton.on(
-                    "click",
-                    function(event) {
-                        event.preventDefault();
-                        var message = "Are you sure you want to make this payment?"
-                        if(activeWallet.type == 'FAKE') {
-                            message += ' You are using a fake wallet, the payment will be fictive.'
+            );
+            return;
+        }
+        $("#invoicesBody").hide();
+        $("#loadingInvoices").show();
+        if(json.payment === undefined || json.payment.status == 'SUCCESSFUL') {
+            payButton.hide();
+            $('#invoicesTable > tbody  > tr').each(
+                function (index, row) {
+                    if ($(row).find("td:eq(0)").text() == json.paid) {
+                        $(row).find("td:eq(3)").text("Paid");
+                    }
+                }
+            );
+            $("#invoicesTable").DataTable().row.add(
+                $(newInvoiceAsTableRow(json.active))[0]
+            ).draw();
+        } else {
+            $('#invoicesTable > tbody  > tr').each(
+                function (index, row) {
+                    if ($(row).find("td:eq(0)").text() == json.paid) {
+                        var timestamp = json.payment.timestamp;
+                        var status = json.payment.status;
+                        var failMessage = (status === "FAILED")
+                            ? json.payment.failReason.replaceAll('"', '\'')
+                            : "Something went wrong, please try again.";
+                        if(timestamp.length > 0) {
+                            timestamp = timestamp.split('T')[0];
+                            failMessage = timestamp + ": " + failMessage;
                         }
-                        confirmDialog
-                            .create(message, "Warning", "Yes")
-                            .then(
-                                () => payInvoice(invoice, contract, $(this))
-                            );
+                        var status = "Payment failed " + "<i class='fa fa-exclamation-triangle fa-lg' style='color:red;' aria-hidden='true' "
+                            + "data-toggle='tooltip' data-placement='top' "
+                            + "data-original-title=\"" + failMessage + "\">"
+                            +"</i>";
+
+                        $(row).find("td:eq(3)").html(status);
+                        $('[data-toggle="tooltip"]').tooltip();
                     }
-                );
-                var message;
-                switch(jqXHR.status){
-                    case 412:
-                        message = JSON.parse(jqXHR.responseText).message;
-                        break;
-                    case 500:
-                        message = "We're sorry, but something went wrong. "
-                            + "All the failed payments are cancelled so feel free to try again.";
-                        break;
-                    default:
-                        message = "Something went wrong (" + jqXHR.status + "). Please try again.";
+                }
+            );
+            payButton.html('<i class="fa fa-credit-card fa-lg"></i>');
+            payButton.on(
+                "click",
+                function(event) {
+                    event.preventDefault();
+                    var message = "Are you sure you want to make this payment?"
+                    if(activeWallet.type == 'FAKE') {
+                        message += ' You are using a fake wallet, the payment will be fictive.'
+                    }
+                    confirmDialog
+                        .create(message, "Warning", "Yes")
+                        .then(
+                            () => payInvoice(invoice, contract, $(this))
+                        );
+                }
+            );
+        }
+        $("#loadingInvoices").hide();
+        $("#invoicesBody").show();
+    }
+
+    /**
+     * The payment (or polling its job) failed.
+     * @param jqXHR Request.
+     */
+    function failed(jqXHR) {
+        console.log("Server error status: " + jqXHR.status);
+        console.log("Server error: " + jqXHR.responseText);
+        payButton.html('<i class="fa fa-credit-card fa-lg"></i>');
+        payButton.on(
+            "click",
+            function(event) {
+                event.preventDefault();
+                var message = "Are you sure you want to make this payment?"
+                if(activeWallet.type == 'FAKE') {
+                    message += ' You are using a fake wallet, the payment will be fictive.'
                 }
                 confirmDialog
-                    .create(message, "Error", "Yes")
-                    .then(()=> {
-                        payInvoice(invoice, contract, payButton);
-                    });
+                    .create(message, "Warning", "Yes")
+                    .then(
+                        () => payInvoice(invoice, contract, $(this))
+                    );
             }
+        );
+        var message;
+        switch(jqXHR.status){
+            case 412:
+                try {
+                    message = JSON.parse(jqXHR.responseText).message;
+                } catch (notJson) {
+                    message = jqXHR.responseText;
+                }
+                break;
+            case 500:
+                message = "We're sorry, but something went wrong. "
+                    + "All the failed payments are cancelled so feel free to try again.";
+                break;
+            default:
+                message = "Something went wrong (" + jqXHR.status + "). Please try again.";
         }
-    );
+        confirmDialog
+            .create(message, "Error", "Yes")
+            .then(()=> {
+                payInvoice(invoice, contract, payButton);
+            });
+    }
 }
 
+/**
+ * Payments running in the background, which end with an invoice.paid
+ * or payment.failed event.
+ */
+var paymentJobs = (function () {
+
+    /**
+     * What to do when a job of this tab is done, by job id.
+     */
+    var waiting = {};
+
+    /**
+     * Events of jobs which ended before we started waiting for them.
+     */
+    var ended = {};
+
+    /**
+     * A payment job is done. If it was started in another tab, reload
+     * the shown Invoices.
+     * @param event The invoice.paid or payment.failed event.
+     */
+    function done(event) {
+        var handler = waiting[event.job];
+        if (handler !== undefined) {
+            delete waiting[event.job];
+            handler(event);
+        } else {
+            ended[event.job] = event;
+            if ($.fn.dataTable.isDataTable("#invoicesTable")) {
+                $("#invoicesTable").DataTable().ajax.reload(null, false);
+            }
+        }
+    }
+
+    /**
+     * Do something when the job is done.
+     * @param job Id of the job.
+     * @param handler Function receiving the job's event.
+     */
+    function whenDone(job, handler) {
+        var event = ended[job];
+        if (event !== undefined) {
+            delete ended[job];
+            handler(event);
+        } else {
+            waiting[job] = handler;
+        }
+    }
+
+    userEvents.on("invoice.paid", done);
+    userEvents.on("payment.failed", done);
+
+    return {
+        whenDone: whenDone
+    }
+})();
+
 /**
  * Sets wallet's cash limit color by using Bootstrap color classes):
  * - red if it's 0 or less than the Debt;
@@ -486,6 +584,33 @@ function walletAsPieChart(wallet) {
     }
 }
 
+/**
+ * A Wallet of this Project was changed (e.g. its cash limit was updated
+ * in another tab or an Invoice was paid), show its new figures.
+ */
+userEvents.on(
+    "wallet.updated",
+    function (data) {
+        if (data.project != $("#owner").text() + "/" + $("#name").text()) {
+            return;
+        }
+        var wallet = data.wallet;
+        if (wallet.type == "FAKE") {
+            $("#fakeCash").html(formatEuro(wallet.cash));
+            $("#fakeDebt").html(formatEuro(wallet.debt));
+            $("#fakeAvailable").html(formatEuro(wallet.available));
+        } else if (wallet.type == "STRIPE") {
+            $("#stripeCash").html(formatEuro(wallet.cash));
+            $("#stripeDebt").html(formatEuro(wallet.debt));
+            $("#stripeAvailable").html(formatEuro(wallet.available));
+            cashLimitColor($("#stripeCash"), wallet);
+        }
+        if (wallet.active) {
+            walletAsPieChart(wallet);
+        }
+    }
+);
+
 $(document).ready(
     function() {
         $('input:radio[name="businessType"]').change(
@@ -29,11 +29,16 @@ import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+
+import java.time.Instant;
 
 /**
  * Unit tests for {@link LoginProducerTestCase}.
@@ -82,6 +87,56 @@ public final class LoginProducerTestCase {
         );
     }
 
+    /**
+     * The Login loads its access token once, then keeps it.
+     */
+    @Test
+    public void loginCachesAccessToken() {
+        final SecurityContext securityContext = Mockito.mock(
+            SecurityContext.class
+        );
+        final OAuth2AuthenticationToken authentication = Mockito.mock(
+            OAuth2AuthenticationToken.class
+        );
+        SecurityContextHolder.setContext(securityContext);
+        Mockito.when(securityContext.getAuthentication())
+            .thenReturn(authentication);
+        Mockito.when(authentication.getAuthorizedClientRegistrationId())
+            .thenReturn("github");
+        Mockito.when(authentication.getName()).thenReturn("mihai");
+        final Self core = Mockito.mock(Self.class);
+        final OAuth2AuthorizedClientService clientService =
+            Mockito.mock(OAuth2AuthorizedClientService.class);
+        final OAuth2AuthorizedClient client = Mockito.mock(
+            OAuth2AuthorizedClient.class
+        );
+        Mockito.when(client.getAccessToken()).thenReturn(
+            new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER,
+                "gh123",
+                Instant.now().minusSeconds(10),
+                Instant.now().minusSeconds(5)
+            )
+        );
+        Mockito.when(clientService.loadAuthorizedClient("github", "mihai"))
+            .thenReturn(client);
+
+        new LoginProducer(core).login(clientService);
+
+        final ArgumentCaptor<Login> login = ArgumentCaptor.forClass(
+            Login.class
+        );
+        Mockito.verify(core).login(login.capture());
+        MatcherAssert.assertThat(
+            login.getValue().accessToken(), Matchers.equalTo("gh123")
+        );
+        MatcherAssert.assertThat(
+            login.getValue().accessToken(), Matchers.equalTo("gh123")
+        );
+        Mockito.verify(clientService, Mockito.times(1))
+            .loadAuthorizedClient("github", "mihai");
+    }
+
     /**
      * Logins with Github provider.
      */
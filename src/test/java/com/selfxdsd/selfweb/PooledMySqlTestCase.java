@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.jooq.SQLDialect;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link PooledMySql}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PooledMySqlTestCase {
+
+    /**
+     * Connecting does not open anything, the pool is already there.
+     */
+    @Test
+    public void connectReturnsSameDatabase() {
+        final PooledMySql database = new PooledMySql(
+            Mockito.mock(HikariDataSource.class)
+        );
+        MatcherAssert.assertThat(
+            database.connect(),
+            Matchers.sameInstance(database)
+        );
+    }
+
+    /**
+     * It always returns the same MySql JOOQ context.
+     */
+    @Test
+    public void returnsSameMySqlContext() {
+        final PooledMySql database = new PooledMySql(
+            Mockito.mock(HikariDataSource.class)
+        );
+        MatcherAssert.assertThat(
+            database.jooq(),
+            Matchers.sameInstance(database.jooq())
+        );
+        MatcherAssert.assertThat(
+            database.jooq().dialect(),
+            Matchers.is(SQLDialect.MYSQL)
+        );
+    }
+
+    /**
+     * Closing the Database closes the pool.
+     */
+    @Test
+    public void closesThePool() {
+        final HikariDataSource pool = Mockito.mock(HikariDataSource.class);
+        new PooledMySql(pool).close();
+        Mockito.verify(pool, Mockito.times(1)).close();
+    }
+}
@@ -22,6 +22,7 @@
  */
 package com.selfxdsd.selfweb;
 
+import com.selfxdsd.api.Contracts;
 import com.selfxdsd.api.Project;
 import com.selfxdsd.api.Projects;
 import com.selfxdsd.api.Self;
@@ -29,6 +30,8 @@ import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
 
@@ -106,7 +109,7 @@ public final class ProjectsControllerTestCase {
         final Projects all = Mockito.mock(Projects.class);
         Mockito.when(
             all.getProjectById("mihai/test", "gitlab")
-        ).thenReturn(Mockito.mock(Project.class));
+        ).thenReturn(this.mockProject());
         final Self self = Mockito.mock(Self.class);
         Mockito.when(self.projects()).thenReturn(all);
 
@@ -137,7 +140,7 @@ public final class ProjectsControllerTestCase {
         final Projects all = Mockito.mock(Projects.class);
         Mockito.when(
             all.getProjectById("mihai/test", "github")
-        ).thenReturn(Mockito.mock(Project.class));
+        ).thenReturn(this.mockProject());
         final Self self = Mockito.mock(Self.class);
         Mockito.when(self.projects()).thenReturn(all);
 
@@ -156,4 +159,46 @@ public final class ProjectsControllerTestCase {
             Matchers.is(Boolean.TRUE)
         );
     }
+
+    /**
+     * It serves the SVG badge with an ETag and public cache headers.
+     */
+    @Test
+    public void servesSvgBadge() {
+        final Projects all = Mockito.mock(Projects.class);
+        Mockito.when(
+            all.getProjectById("mihai/test", "github")
+        ).thenReturn(this.mockProject());
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(all);
+
+        final ResponseEntity<String> resp = new ProjectsController(self)
+            .badge("mihai", "test", null);
+        MatcherAssert.assertThat(
+            resp.getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            resp.getBody(),
+            Matchers.containsString("managed | 0 contributors")
+        );
+        MatcherAssert.assertThat(
+            resp.getHeaders().getETag(),
+            Matchers.notNullValue()
+        );
+        MatcherAssert.assertThat(
+            resp.getHeaders().getCacheControl(),
+            Matchers.containsString("public")
+        );
+    }
+
+    /**
+     * Mock a Project without Contracts.
+     * @return Project.
+     */
+    private Project mockProject() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.contracts()).thenReturn(new Contracts.Empty());
+        return project;
+    }
 }
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Integration tests for {@link PublicRoutesSecurity}. The app runs on
+ * the in-memory Self of the load tests.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("loadtest")
+public final class PublicRoutesITCase {
+
+    /**
+     * Public routes hit by the test.
+     */
+    private static final String[] ROUTES = {
+        "/p/loaduser2/repo0",
+        "/p/loaduser2/missing?provider=gitlab",
+        "/b/loaduser2/repo0.svg",
+        "/ping"
+    };
+
+    /**
+     * Spring MVC test client.
+     */
+    @Autowired
+    private MockMvc mvc;
+
+    /**
+     * Many concurrent hits on the public routes create no session
+     * and no security cookie.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void createsNoSessionUnderLoad() throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<MvcResult>> hits = new ArrayList<>();
+            for(int idx = 0; idx < 400; ++idx) {
+                final String route = ROUTES[idx % ROUTES.length];
+                hits.add(
+                    pool.submit(
+                        () -> this.mvc.perform(
+                            MockMvcRequestBuilders.get(route)
+                        ).andReturn()
+                    )
+                );
+            }
+            int sessions = 0;
+            for(final Future<MvcResult> hit : hits) {
+                final MvcResult result = hit.get(30, TimeUnit.SECONDS);
+                MatcherAssert.assertThat(
+                    result.getResponse().getStatus(), Matchers.is(200)
+                );
+                MatcherAssert.assertThat(
+                    result.getResponse().getCookies(), Matchers.emptyArray()
+                );
+                if(result.getRequest().getSession(false) != null) {
+                    sessions = sessions + 1;
+                }
+            }
+            MatcherAssert.assertThat(sessions, Matchers.is(0));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The other pages still ask for a login.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void otherRoutesStillNeedLogin() throws Exception {
+        MatcherAssert.assertThat(
+            this.mvc.perform(
+                MockMvcRequestBuilders.get("/api/repositories/managed")
+            ).andReturn().getResponse().getStatus(),
+            Matchers.is(401)
+        );
+        MatcherAssert.assertThat(
+            this.mvc.perform(
+                MockMvcRequestBuilders.get("/actuator/prometheus")
+            ).andReturn().getResponse().getStatus(),
+            Matchers.not(Matchers.is(200))
+        );
+    }
+}
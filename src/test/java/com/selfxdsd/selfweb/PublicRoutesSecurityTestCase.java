@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Unit tests for {@link PublicRoutesSecurity}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PublicRoutesSecurityTestCase {
+
+    /**
+     * The metrics are public only on the management port.
+     */
+    @Test
+    public void metricsArePublicOnlyOnManagementPort() {
+        final PublicRoutesSecurity security = new PublicRoutesSecurity(9090);
+        MatcherAssert.assertThat(
+            security.metrics().matches(
+                PublicRoutesSecurityTestCase.metrics(9090)
+            ),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            security.metrics().matches(
+                PublicRoutesSecurityTestCase.metrics(8080)
+            ),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Without a management port, the metrics are never public.
+     */
+    @Test
+    public void metricsNeedLoginWithoutManagementPort() {
+        MatcherAssert.assertThat(
+            new PublicRoutesSecurity().metrics().matches(
+                PublicRoutesSecurityTestCase.metrics(8080)
+            ),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * A request for the metrics.
+     * @param port Port on which it comes.
+     * @return MockHttpServletRequest.
+     */
+    private static MockHttpServletRequest metrics(final int port) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(
+            "GET", PublicRoutesSecurity.METRICS
+        );
+        request.setServletPath(PublicRoutesSecurity.METRICS);
+        request.setLocalPort(port);
+        return request;
+    }
+}
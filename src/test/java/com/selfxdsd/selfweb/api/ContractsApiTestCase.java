@@ -24,21 +24,33 @@ package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
 import com.selfxdsd.selfweb.api.input.ContractInput;
+import com.selfxdsd.selfweb.events.UserEvents;
+import com.selfxdsd.selfweb.limits.SingleFlight;
+import com.selfxdsd.selfweb.payments.PaymentJobs;
+import com.selfxdsd.selfweb.pdf.InvoicePdfs;
+import com.selfxdsd.selfweb.pdf.PdfPrerender;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
@@ -56,7 +68,7 @@ public final class ContractsApiTestCase {
      * if Project is owned directly by the authenticated user (personal repo).
      */
     @Test
-    public void fetchesOwnedProjectContracts(){
+    public void fetchesOwnedProjectContracts() throws IOException {
         final Project project = this.mockActiveProject(
             "mihai", "mihai", "test"
         );
@@ -86,13 +98,15 @@ public final class ContractsApiTestCase {
 
         final ContractsApi api = new ContractsApi(user);
 
-        ResponseEntity<String> resp = api.contracts("mihai", "test");
+        final ResponseEntity<StreamingResponseBody> resp = api.contracts(
+            "mihai", "test"
+        );
         MatcherAssert.assertThat(
             resp.getStatusCode(),
             Matchers.is(HttpStatus.OK)
         );
         final JsonArray json = Json.createReader(
-            new StringReader(Objects.requireNonNull(resp.getBody()))
+            new StringReader(this.body(resp))
         ).readArray();
         MatcherAssert.assertThat(
             json,
@@ -131,7 +145,8 @@ public final class ContractsApiTestCase {
      * Returns an empty json array if project not found.
      */
     @Test
-    public void fetchesEmptyContractsIfProjectNotFound(){
+    public void fetchesEmptyContractsIfProjectNotFound()
+        throws IOException {
         final User user = Mockito.mock(User.class);
         Mockito.when(user.username()).thenReturn("mihai");
         final Provider provider = Mockito.mock(Provider.class);
@@ -141,13 +156,15 @@ public final class ContractsApiTestCase {
 
         final ContractsApi api = new ContractsApi(user);
 
-        ResponseEntity<String> resp = api.contracts("mihai", "test");
+        final ResponseEntity<StreamingResponseBody> resp = api.contracts(
+            "mihai", "test"
+        );
         MatcherAssert.assertThat(
             resp.getStatusCode(),
             Matchers.is(HttpStatus.OK)
         );
         final JsonArray json = Json.createReader(
-            new StringReader(Objects.requireNonNull(resp.getBody()))
+            new StringReader(this.body(resp))
         ).readArray();
         MatcherAssert.assertThat(
             json,
@@ -409,7 +426,7 @@ public final class ContractsApiTestCase {
         final Invoice active = this.mockInvoice(2, false,
             this.mockPayment(Payment.Status.SUCCESSFUL, ""));
         final Invoices invoices = Mockito.mock(Invoices.class);
-        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Wallet wallet = this.mockWallet();
         final Wallets wallets = Mockito.mock(Wallets.class);
         final Payment payment = this.mockPayment(Payment.Status.SUCCESSFUL, "");
 
@@ -457,6 +474,10 @@ public final class ContractsApiTestCase {
                 .getInt("id"),
             Matchers.equalTo(2)
         );
+        MatcherAssert.assertThat(
+            json.getJsonObject("wallet").getString("type"),
+            Matchers.equalTo("FAKE")
+        );
     }
 
     /**
@@ -487,7 +508,7 @@ public final class ContractsApiTestCase {
         final Invoice active = this.mockInvoice(2, false,
             this.mockPayment(Payment.Status.SUCCESSFUL, ""));
         final Invoices invoices = Mockito.mock(Invoices.class);
-        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Wallet wallet = this.mockWallet();
         final Wallets wallets = Mockito.mock(Wallets.class);
         final Payment payment = this.mockPayment(Payment.Status.FAILED,
             "failed");
@@ -606,6 +627,233 @@ public final class ContractsApiTestCase {
         );
     }
 
+    /**
+     * ContractsApi.payInvoice(...) answers 202 ACCEPTED while the payment
+     * is running in the background and a second payment of the same
+     * Invoice gives back the same job.
+     */
+    @Test
+    public void invoicePaymentRunsInBackground(){
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        final Project project = this.mockActiveProject("mihai",
+            "mihai", "test");
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        final Contract.Id contractId = new Contract.Id(
+            "mihai/test",
+            "john",
+            "github",
+            "DEV"
+        );
+        final Contract contract = this.mockContract(
+            contractId,
+            project,
+            BigDecimal.TEN,
+            BigDecimal.TEN
+        );
+        final Invoice invoice = this.mockInvoice(1, false,
+            null);
+        final Invoice active = this.mockInvoice(2, false,
+            this.mockPayment(Payment.Status.SUCCESSFUL, ""));
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        final Wallet wallet = this.mockWallet();
+        final Wallets wallets = Mockito.mock(Wallets.class);
+        final Payment payment = this.mockPayment(Payment.Status.SUCCESSFUL, "");
+
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.projects()).thenReturn(projects);
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        Mockito.when(contracts.findById(contractId)).thenReturn(contract);
+
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        Mockito.when(invoices.getById(1)).thenReturn(invoice);
+        Mockito.when(invoices.active()).thenReturn(active);
+        Mockito.when(project.wallets()).thenReturn(wallets);
+        Mockito.when(wallets.active()).thenReturn(wallet);
+        Mockito.when(wallet.pay(invoice)).thenReturn(payment);
+
+        final List<Runnable> queued = new ArrayList<>();
+        final ContractsApi api = new ContractsApi(
+            user,
+            new InvoicePdfs(),
+            new PdfPrerender(),
+            new RequestLookups(),
+            new PaymentJobs(Duration.ofMinutes(10), queued::add),
+            new UserEvents(),
+            new SingleFlight()
+        );
+
+        final ResponseEntity<String> resp =
+            api.payInvoice("mihai", "test", "john", 1, "DEV");
+        MatcherAssert.assertThat(resp.getStatusCode(),
+            Matchers.equalTo(HttpStatus.ACCEPTED));
+        final String job = Json.createReader(
+            new StringReader(Objects.requireNonNull(resp.getBody()))
+        ).readObject().getString("job");
+        MatcherAssert.assertThat(
+            resp.getHeaders().getFirst("Location"),
+            Matchers.equalTo("/api/payments/" + job)
+        );
+        final ResponseEntity<String> again =
+            api.payInvoice("mihai", "test", "john", 1, "DEV");
+        MatcherAssert.assertThat(
+            again.getHeaders().getFirst("Location"),
+            Matchers.equalTo("/api/payments/" + job)
+        );
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+        Mockito.verify(wallet, Mockito.never()).pay(invoice);
+        queued.get(0).run();
+        Mockito.verify(wallet, Mockito.times(1)).pay(invoice);
+    }
+
+    /**
+     * ContractsApi.payInvoice(...) does not charge the Wallet if the
+     * Invoice was paid before its background payment started.
+     */
+    @Test
+    public void doesNotPayInvoicePaidInTheMeantime(){
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        final Project project = this.mockActiveProject("mihai",
+            "mihai", "test");
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        final Contract.Id contractId = new Contract.Id(
+            "mihai/test",
+            "john",
+            "github",
+            "DEV"
+        );
+        final Contract contract = this.mockContract(
+            contractId,
+            project,
+            BigDecimal.TEN,
+            BigDecimal.TEN
+        );
+        final Invoice invoice = this.mockInvoice(1, false,
+            null);
+        final Invoice active = this.mockInvoice(2, false,
+            this.mockPayment(Payment.Status.SUCCESSFUL, ""));
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        final Wallet wallet = this.mockWallet();
+        final Wallets wallets = Mockito.mock(Wallets.class);
+        final Payment payment = this.mockPayment(Payment.Status.SUCCESSFUL, "");
+
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.projects()).thenReturn(projects);
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        Mockito.when(contracts.findById(contractId)).thenReturn(contract);
+
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        Mockito.when(invoices.getById(1)).thenReturn(invoice);
+        Mockito.when(invoices.active()).thenReturn(active);
+        Mockito.when(project.wallets()).thenReturn(wallets);
+        Mockito.when(wallets.active()).thenReturn(wallet);
+        Mockito.when(wallet.pay(invoice)).thenReturn(payment);
+
+        final List<Runnable> queued = new ArrayList<>();
+        final ContractsApi api = new ContractsApi(
+            user,
+            new InvoicePdfs(),
+            new PdfPrerender(),
+            new RequestLookups(),
+            new PaymentJobs(Duration.ofMinutes(10), queued::add),
+            new UserEvents(),
+            new SingleFlight()
+        );
+
+        final ResponseEntity<String> resp =
+            api.payInvoice("mihai", "test", "john", 1, "DEV");
+        MatcherAssert.assertThat(resp.getStatusCode(),
+            Matchers.equalTo(HttpStatus.ACCEPTED));
+        Mockito.when(invoice.isPaid()).thenReturn(true);
+        queued.get(0).run();
+        Mockito.verify(wallet, Mockito.never()).pay(invoice);
+        final ResponseEntity<String> done =
+            api.payInvoice("mihai", "test", "john", 1, "DEV");
+        MatcherAssert.assertThat(done.getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK));
+    }
+
+    /**
+     * ContractsApi.payInvoices(...) pays the unpaid Invoices as long as
+     * there is enough cash in the Wallet.
+     */
+    @Test
+    public void paysUnpaidInvoicesWithinAvailableCash(){
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        final Projects projects = Mockito.mock(Projects.class);
+        final Project project = this.mockActiveProject("mihai",
+            "mihai", "test");
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        final Contract contract = this.mockContract(
+            new Contract.Id("mihai/test", "john", "github", "DEV"),
+            project,
+            BigDecimal.TEN,
+            BigDecimal.TEN
+        );
+        final Invoice paid = this.mockInvoice(1, true, null);
+        final Invoice first = this.mockInvoice(2, false, null);
+        final Invoice second = this.mockInvoice(3, false, null);
+        final Invoice active = this.mockInvoice(4, false, null);
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        final Wallet wallet = this.mockWallet();
+        final Wallets wallets = Mockito.mock(Wallets.class);
+        final Payment payment = this.mockPayment(Payment.Status.SUCCESSFUL, "");
+
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.projects()).thenReturn(projects);
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        Mockito.when(contracts.iterator())
+            .thenReturn(List.of(contract).iterator());
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        Mockito.when(invoices.iterator())
+            .thenReturn(List.of(paid, first, second).iterator());
+        Mockito.when(invoices.active()).thenReturn(active);
+        Mockito.when(project.wallets()).thenReturn(wallets);
+        Mockito.when(wallets.active()).thenReturn(wallet);
+        Mockito.when(wallet.available()).thenReturn(BigDecimal.valueOf(1500));
+        Mockito.when(wallet.pay(first)).thenReturn(payment);
+
+        final ResponseEntity<String> resp = new ContractsApi(user)
+            .payInvoices("mihai", "test");
+        MatcherAssert.assertThat(resp.getStatusCode(),
+            Matchers.equalTo(HttpStatus.OK));
+        final JsonArray report = Json.createReader(
+            new StringReader(Objects.requireNonNull(resp.getBody()))
+        ).readObject().getJsonArray("invoices");
+        MatcherAssert.assertThat(report, Matchers.iterableWithSize(2));
+        MatcherAssert.assertThat(
+            report.getJsonObject(0).getInt("invoice"), Matchers.equalTo(2)
+        );
+        MatcherAssert.assertThat(
+            report.getJsonObject(0).getString("status"),
+            Matchers.equalTo(Payment.Status.SUCCESSFUL)
+        );
+        MatcherAssert.assertThat(
+            report.getJsonObject(1).getInt("invoice"), Matchers.equalTo(3)
+        );
+        MatcherAssert.assertThat(
+            report.getJsonObject(1).getString("status"),
+            Matchers.equalTo("SKIPPED")
+        );
+        Mockito.verify(wallet, Mockito.never()).pay(second);
+    }
+
     /**
      * Mock an activated project.
      * @param selfOwner Owner username in Self.
@@ -639,7 +887,7 @@ public final class ContractsApiTestCase {
         Mockito.when(user.username()).thenReturn(selfOwner);
         Mockito.when(project.owner()).thenReturn(user);
 
-        final Wallet wallet = Mockito.mock(Wallet.class);
+        final Wallet wallet = this.mockWallet();
         Mockito.when(wallet.available()).thenReturn(BigDecimal.valueOf(1000));
         Mockito.when(wallet.cash()).thenReturn(BigDecimal.valueOf(1200));
         Mockito.when(wallet.debt()).thenReturn(BigDecimal.valueOf(200));
@@ -706,6 +954,20 @@ public final class ContractsApiTestCase {
         return invoice;
     }
 
+    /**
+     * Mocks the active (fake) Wallet of a Project.
+     * @return Wallet.
+     */
+    private Wallet mockWallet() {
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        Mockito.when(wallet.type()).thenReturn("FAKE");
+        Mockito.when(wallet.active()).thenReturn(true);
+        Mockito.when(wallet.cash()).thenReturn(BigDecimal.valueOf(10000));
+        Mockito.when(wallet.debt()).thenReturn(BigDecimal.valueOf(1000));
+        Mockito.when(wallet.available()).thenReturn(BigDecimal.valueOf(9000));
+        return wallet;
+    }
+
     /**
      * Mocks Payment.
      * @param status One of: {@link Payment.Status}.
@@ -720,4 +982,17 @@ public final class ContractsApiTestCase {
         Mockito.when(payment.paymentTime()).thenReturn(LocalDateTime.now());
         return payment;
     }
+
+    /**
+     * Write the streamed body of a response.
+     * @param resp Response.
+     * @return Body as String.
+     * @throws IOException If something goes wrong.
+     */
+    private String body(final ResponseEntity<StreamingResponseBody> resp)
+        throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(resp.getBody()).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -29,13 +29,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.json.Json;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Unit tests for {@link ContributorApi}.
@@ -154,7 +159,7 @@ public final class ContributorApiTestCase {
      * assigned.
      */
     @Test
-    public void tasksReturnsEmptyArray() {
+    public void tasksReturnsEmptyArray() throws IOException {
         final Tasks tasks = Mockito.mock(Tasks.class);
         Mockito.when(
             tasks.spliterator()
@@ -177,7 +182,7 @@ public final class ContributorApiTestCase {
         Mockito.when(authenticated.provider()).thenReturn(provider);
 
         final ContributorApi api = new ContributorApi(authenticated);
-        final ResponseEntity<String> resp = api.tasks(
+        final ResponseEntity<StreamingResponseBody> resp = api.tasks(
             "amihaiemil",
             "docker-java-api",
             Contract.Roles.DEV
@@ -187,7 +192,7 @@ public final class ContributorApiTestCase {
             Matchers.equalTo(HttpStatus.OK)
         );
         MatcherAssert.assertThat(
-            resp.getBody(),
+            this.body(resp),
             Matchers.equalTo("[]")
         );
     }
@@ -197,7 +202,7 @@ public final class ContributorApiTestCase {
      * as JsonArray.
      */
     @Test
-    public void tasksReturnsArray() {
+    public void tasksReturnsArray() throws IOException {
         final List<Task> list = new ArrayList<>();
         list.add(
             this.mockTask("1", LocalDateTime.now(), 30)
@@ -230,7 +235,7 @@ public final class ContributorApiTestCase {
         Mockito.when(authenticated.provider()).thenReturn(provider);
 
         final ContributorApi api = new ContributorApi(authenticated);
-        final ResponseEntity<String> resp = api.tasks(
+        final ResponseEntity<StreamingResponseBody> resp = api.tasks(
             "amihaiemil",
             "docker-java-api",
             Contract.Roles.DEV
@@ -241,7 +246,7 @@ public final class ContributorApiTestCase {
         );
         MatcherAssert.assertThat(
             Json.createReader(
-                new StringReader(resp.getBody())
+                new StringReader(this.body(resp))
             ).readArray(),
             Matchers.iterableWithSize(3)
         );
@@ -267,4 +272,17 @@ public final class ContributorApiTestCase {
         Mockito.when(task.value()).thenReturn(BigDecimal.TEN);
         return task;
     }
+
+    /**
+     * Write the streamed body of a response.
+     * @param resp Response.
+     * @return Body as String.
+     * @throws IOException If something goes wrong.
+     */
+    private String body(final ResponseEntity<StreamingResponseBody> resp)
+        throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(resp.getBody()).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -35,9 +35,14 @@ import javax.json.Json;
 import javax.json.JsonArray;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Unit tests for {@link InvoicesApi}.
@@ -99,7 +104,7 @@ public final class InvoicesApiTestCase {
      * It can return the platform invoices as json array.
      */
     @Test
-    public void getPlatformInvoicesAsJsonArray() {
+    public void getPlatformInvoicesAsJsonArray() throws IOException {
         final User user = Mockito.mock(User.class);
         Mockito.when(user.role()).thenReturn("admin");
 
@@ -116,13 +121,77 @@ public final class InvoicesApiTestCase {
 
         final JsonArray array = Json.createReader(
             new StringReader(
-                new InvoicesApi(user).invoices().getBody()
+                this.body(new InvoicesApi(user).invoices())
             )
         ).readArray();
 
         MatcherAssert.assertThat(array, Matchers.iterableWithSize(3));
     }
 
+    /**
+     * GET the PlatformInvoices as ZIP is forbidden for non-admin users.
+     */
+    @Test
+    public void getInvoicesZipForbiddenToNonAdmin() {
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.role()).thenReturn("user");
+        Mockito.when(user.asAdmin()).thenThrow(
+            new IllegalStateException("Should not be called.")
+        );
+        MatcherAssert.assertThat(
+            new InvoicesApi(user).invoicesZip(null, null).getStatusCode(),
+            Matchers.equalTo(HttpStatus.FORBIDDEN)
+        );
+    }
+
+    /**
+     * It zips the PDFs of the PlatformInvoices in the given date range.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void zipsPlatformInvoicesInRange() throws IOException {
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.role()).thenReturn("admin");
+        final PlatformInvoice old = this.mockPlatformInvoice(1);
+        Mockito.when(old.createdAt()).thenReturn(
+            LocalDateTime.of(2021, 1, 15, 10, 0)
+        );
+        final PlatformInvoice recent = this.mockPlatformInvoice(2);
+        Mockito.when(recent.createdAt()).thenReturn(
+            LocalDateTime.of(2021, 3, 15, 10, 0)
+        );
+        final PlatformInvoices all = Mockito.mock(PlatformInvoices.class);
+        Mockito.when(all.iterator()).thenReturn(
+            List.of(old, recent).iterator()
+        );
+        final Admin admin = Mockito.mock(Admin.class);
+        Mockito.when(admin.platformInvoices()).thenReturn(all);
+        Mockito.when(user.asAdmin()).thenReturn(admin);
+
+        final ResponseEntity<StreamingResponseBody> resp = new InvoicesApi(
+            user
+        ).invoicesZip(LocalDate.of(2021, 3, 1), null);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(resp.getBody()).writeTo(out);
+        try (ZipInputStream zip = new ZipInputStream(
+            new ByteArrayInputStream(out.toByteArray())
+        )) {
+            final ZipEntry entry = zip.getNextEntry();
+            MatcherAssert.assertThat(
+                entry.getName(),
+                Matchers.equalTo("platform_invoice_SLF2.pdf")
+            );
+            MatcherAssert.assertThat(
+                zip.getNextEntry(),
+                Matchers.nullValue()
+            );
+        }
+        Mockito.verify(old, Mockito.never())
+            .toPdf(Mockito.any(OutputStream.class));
+        Mockito.verify(recent, Mockito.times(1))
+            .toPdf(Mockito.any(OutputStream.class));
+    }
+
     /**
      * Returns NO CONTENT if the platform invoice is missing.
      */
@@ -267,4 +336,17 @@ public final class InvoicesApiTestCase {
         Mockito.when(invoice.paymentTime()).thenReturn(LocalDateTime.now());
         return invoice;
     }
+
+    /**
+     * Write the streamed body of a response.
+     * @param resp Response.
+     * @return Body as String.
+     * @throws IOException If something goes wrong.
+     */
+    private String body(final ResponseEntity<StreamingResponseBody> resp)
+        throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Objects.requireNonNull(resp.getBody()).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -24,6 +24,7 @@ package com.selfxdsd.selfweb.api;
 
 import com.selfxdsd.api.*;
 import com.selfxdsd.selfweb.api.input.PmInput;
+import com.selfxdsd.selfweb.cache.SharedLookups;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,7 @@ import org.springframework.http.ResponseEntity;
 
 import javax.json.Json;
 import java.io.StringReader;
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.List;
 
@@ -76,6 +78,45 @@ public final class ProjectManagersApiTestCase {
         );
     }
 
+    /**
+     * GET /managers reads the ProjectManagers once for all the sessions,
+     * until a new one is registered.
+     */
+    @Test
+    public void sharesManagersUntilRegister() {
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.role()).thenReturn("admin");
+        final Self core = Mockito.mock(Self.class);
+        final ProjectManagers all = Mockito.mock(ProjectManagers.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            invocation -> List.of(this.mockManager(1)).iterator()
+        );
+        Mockito.when(core.projectManagers()).thenReturn(all);
+        final SharedLookups shared = new SharedLookups(
+            10, Duration.ofMinutes(1)
+        );
+        new ProjectManagersApi(user, core, shared).managers();
+        new ProjectManagersApi(user, core, shared).managers();
+        Mockito.verify(all, Mockito.times(1)).iterator();
+        final PmInput input = new PmInput();
+        input.setUserId("1");
+        input.setUsername("zoeself");
+        input.setProvider("github");
+        input.setToken("123token");
+        input.setCommission(50);
+        input.setContributorCommission(50);
+        Mockito.when(
+            all.register(
+                Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyString(), Mockito.anyString(),
+                Mockito.anyDouble(), Mockito.anyDouble()
+            )
+        ).thenReturn(this.mockManager(2));
+        new ProjectManagersApi(user, core, shared).register(input);
+        new ProjectManagersApi(user, core, shared).managers();
+        Mockito.verify(all, Mockito.times(2)).iterator();
+    }
+
     /**
      * GET /managers is forbidden for non-admin users.
      */
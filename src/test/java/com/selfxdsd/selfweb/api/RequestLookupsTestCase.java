@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api;
+
+import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for {@link RequestLookups}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class RequestLookupsTestCase {
+
+    /**
+     * The Project, Contract and Invoices are loaded only once.
+     */
+    @Test
+    public void loadsOnlyOnce() {
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.invoices()).thenReturn(invoices);
+        final Contract.Id id = new Contract.Id(
+            "mihai/test", "john", "github", "DEV"
+        );
+        final Contracts contracts = Mockito.mock(Contracts.class);
+        Mockito.when(contracts.findById(id)).thenReturn(contract);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.contracts()).thenReturn(contracts);
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        final User user = this.mockUser(projects);
+
+        final RequestLookups lookups = new RequestLookups();
+        for(int idx = 0; idx < 3; ++idx) {
+            final Project found = lookups.project(user, "mihai/test");
+            MatcherAssert.assertThat(found, Matchers.is(project));
+            final Contract same = lookups.contract(
+                found, new Contract.Id("mihai/test", "john", "github", "DEV")
+            );
+            MatcherAssert.assertThat(same, Matchers.is(contract));
+            MatcherAssert.assertThat(
+                lookups.invoices(same), Matchers.is(invoices)
+            );
+        }
+        Mockito.verify(projects, Mockito.times(1))
+            .getProjectById("mihai/test", "github");
+        Mockito.verify(contracts, Mockito.times(1)).findById(id);
+        Mockito.verify(contract, Mockito.times(1)).invoices();
+        MatcherAssert.assertThat(lookups.loaded(), Matchers.is(3));
+        MatcherAssert.assertThat(lookups.reused(), Matchers.is(6));
+    }
+
+    /**
+     * The header counts the SQL statements executed during the whole
+     * request, not only those of the lookups.
+     */
+    @Test
+    public void countsExecutedQueries() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final User user = this.mockUser(projects);
+        final RequestLookups lookups = new RequestLookups();
+        final RequestTrace trace = new RequestTrace("GET /api/test").start();
+        try {
+            RequestTrace.record("db", "READ", 1000);
+            lookups.project(user, "mihai/test");
+            lookups.project(user, "mihai/test");
+            RequestTrace.record("db", "READ", 1000);
+            RequestTrace.record("db", "WRITE", 1000);
+            MatcherAssert.assertThat(
+                trace.headers().get("Self-Lookups"),
+                Matchers.is("queries=3, loaded=1, reused=1")
+            );
+        } finally {
+            trace.finish();
+        }
+    }
+
+    /**
+     * A missing Project is remembered as well.
+     */
+    @Test
+    public void remembersMissingProject() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final User user = this.mockUser(projects);
+        final RequestLookups lookups = new RequestLookups();
+        MatcherAssert.assertThat(
+            lookups.project(user, "mihai/missing"), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            lookups.project(user, "mihai/missing"), Matchers.nullValue()
+        );
+        Mockito.verify(projects, Mockito.times(1))
+            .getProjectById("mihai/missing", "github");
+    }
+
+    /**
+     * Mock a Github User.
+     * @param projects User's Projects.
+     * @return User.
+     */
+    private User mockUser(final Projects projects) {
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn("github");
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.projects()).thenReturn(projects);
+        return user;
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Tasks;
+import com.selfxdsd.selfweb.api.input.TablePage;
+import com.selfxdsd.selfweb.db.DbRoute;
+import com.selfxdsd.selfweb.metrics.RequestTrace;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link PagedJsonStream}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PagedJsonStreamTestCase {
+
+    /**
+     * It writes only the requested page, with the counts.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void writesRequestedPage() throws IOException {
+        final JsonObject page = this.page(
+            Map.of("draw", "3", "start", "1", "length", "2")
+        );
+        MatcherAssert.assertThat(page.getInt("draw"), Matchers.is(3));
+        MatcherAssert.assertThat(page.getInt("recordsTotal"), Matchers.is(4));
+        MatcherAssert.assertThat(
+            page.getInt("recordsFiltered"), Matchers.is(4)
+        );
+        MatcherAssert.assertThat(
+            this.issues(page), Matchers.contains("2", "13")
+        );
+    }
+
+    /**
+     * It sorts by the requested column before paging.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void sortsBeforePaging() throws IOException {
+        final JsonObject page = this.page(
+            Map.of(
+                "draw", "1", "start", "0", "length", "3",
+                "order[0][column]", "3", "order[0][dir]", "desc"
+            )
+        );
+        MatcherAssert.assertThat(
+            this.issues(page), Matchers.contains("4", "13", "2")
+        );
+    }
+
+    /**
+     * The sort key of each element is read only once, not on every
+     * comparison.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void readsSortKeyOncePerElement() throws IOException {
+        final List<Task> list = List.of(
+            this.mockTask("1", 30),
+            this.mockTask("2", 60),
+            this.mockTask("13", 90),
+            this.mockTask("4", 120)
+        );
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.spliterator()).thenAnswer(
+            inv -> list.spliterator()
+        );
+        new StreamedTasks(tasks).page(
+            new TablePage(
+                Map.of(
+                    "draw", "1", "start", "0", "length", "1",
+                    "order[0][column]", "3", "order[0][dir]", "desc"
+                )
+            )
+        ).writeTo(new ByteArrayOutputStream());
+        for(final Task task : list.subList(0, 3)) {
+            Mockito.verify(task, Mockito.times(1)).estimation();
+        }
+    }
+
+    /**
+     * It filters by the search term.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void filtersBySearchTerm() throws IOException {
+        final JsonObject page = this.page(
+            Map.of("draw", "1", "search[value]", "13")
+        );
+        MatcherAssert.assertThat(page.getInt("recordsTotal"), Matchers.is(4));
+        MatcherAssert.assertThat(
+            page.getInt("recordsFiltered"), Matchers.is(1)
+        );
+        MatcherAssert.assertThat(
+            this.issues(page), Matchers.contains("13")
+        );
+    }
+
+    /**
+     * The page is written with the RequestTrace of the request which
+     * built the stream, even if written in another thread.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void writesWithTheBuildersTrace() throws IOException {
+        final List<Task> list = List.of(this.mockTask("1", 30));
+        final AtomicReference<RequestTrace> seen = new AtomicReference<>();
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.spliterator()).thenAnswer(
+            inv -> {
+                seen.set(RequestTrace.current());
+                return list.spliterator();
+            }
+        );
+        final RequestTrace trace = new RequestTrace("GET /api/tasks");
+        final StreamingResponseBody body = RequestTrace.within(
+            trace,
+            () -> new StreamedTasks(tasks).page(
+                new TablePage(Map.of("draw", "1"))
+            )
+        );
+        body.writeTo(new ByteArrayOutputStream());
+        MatcherAssert.assertThat(seen.get(), Matchers.sameInstance(trace));
+        MatcherAssert.assertThat(
+            RequestTrace.current(), Matchers.nullValue()
+        );
+    }
+
+    /**
+     * The array is read on the DbRoute of the request which built the
+     * stream, even if written in another thread.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void writesOnTheBuildersRoute() throws IOException {
+        final List<Task> list = List.of(this.mockTask("1", 30));
+        final AtomicReference<DbRoute> seen = new AtomicReference<>();
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.spliterator()).thenAnswer(
+            inv -> {
+                seen.set(DbRoute.current());
+                return list.spliterator();
+            }
+        );
+        final StreamingResponseBody body = DbRoute.within(
+            DbRoute.REPLICA, () -> new StreamedTasks(tasks)
+        );
+        body.writeTo(new ByteArrayOutputStream());
+        MatcherAssert.assertThat(seen.get(), Matchers.is(DbRoute.REPLICA));
+        MatcherAssert.assertThat(
+            DbRoute.current(), Matchers.is(DbRoute.PRIMARY)
+        );
+    }
+
+    /**
+     * Without the draw parameter, the whole array is written.
+     */
+    @Test
+    public void wholeArrayIfNoPageRequested() {
+        final StreamedTasks all = new StreamedTasks(this.tasks());
+        MatcherAssert.assertThat(
+            all.page(new TablePage(Map.of("start", "2"))),
+            Matchers.sameInstance(all)
+        );
+    }
+
+    /**
+     * Write a page of the Tasks.
+     * @param params DataTables parameters.
+     * @return Written page.
+     * @throws IOException If something goes wrong.
+     */
+    private JsonObject page(final Map<String, String> params)
+        throws IOException {
+        final StreamingResponseBody body = new StreamedTasks(this.tasks())
+            .page(new TablePage(params));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return Json.createReader(
+            new StringReader(out.toString(StandardCharsets.UTF_8))
+        ).readObject();
+    }
+
+    /**
+     * Issue ids of the Tasks in a page.
+     * @param page Page.
+     * @return List of issue ids.
+     */
+    private List<String> issues(final JsonObject page) {
+        return page.getJsonArray("data").stream()
+            .map(task -> task.asJsonObject().getString("issueId"))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Four Tasks, with estimations 30, 60, 90, 120.
+     * @return Tasks.
+     */
+    private Tasks tasks() {
+        final List<Task> list = List.of(
+            this.mockTask("1", 30),
+            this.mockTask("2", 60),
+            this.mockTask("13", 90),
+            this.mockTask("4", 120)
+        );
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        Mockito.when(tasks.spliterator()).thenAnswer(
+            inv -> list.spliterator()
+        );
+        return tasks;
+    }
+
+    /**
+     * Mock a Task.
+     * @param issueId Issue id.
+     * @param estimation Estimation in minutes.
+     * @return Task.
+     */
+    private Task mockTask(final String issueId, final int estimation) {
+        final Task task = Mockito.mock(Task.class);
+        Mockito.when(task.issueId()).thenReturn(issueId);
+        Mockito.when(task.assignmentDate()).thenReturn(
+            LocalDateTime.of(2020, 2, 2, 10, 0)
+        );
+        Mockito.when(task.deadline()).thenReturn(
+            LocalDateTime.of(2020, 2, 5, 10, 0)
+        );
+        Mockito.when(task.estimation()).thenReturn(estimation);
+        Mockito.when(task.value()).thenReturn(
+            BigDecimal.valueOf(estimation * 100)
+        );
+        return task;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.api.output;
+
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Payment;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.json.Json;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Unit tests for {@link StreamedInvoices}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class StreamedInvoicesTestCase {
+
+    /**
+     * It streams the same JSON as JsonInvoices builds.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void streamsSameJsonAsJsonInvoices() throws IOException {
+        final Payment payment = Mockito.mock(Payment.class);
+        Mockito.when(payment.status()).thenReturn("SUCCESSFUL");
+        Mockito.when(payment.failReason()).thenReturn("");
+        Mockito.when(payment.transactionId()).thenReturn("tx_123");
+        Mockito.when(payment.paymentTime()).thenReturn(LocalDateTime.now());
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(invoices.spliterator()).thenAnswer(
+            inv -> List.of(
+                this.mockInvoice(1, null),
+                this.mockInvoice(2, payment)
+            ).spliterator()
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamedInvoices(invoices).writeTo(out);
+        MatcherAssert.assertThat(
+            Json.createReader(
+                new StringReader(out.toString(StandardCharsets.UTF_8))
+            ).readArray(),
+            Matchers.equalTo(new JsonInvoices(invoices))
+        );
+    }
+
+    /**
+     * It streams an empty array if there are no Invoices.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void streamsEmptyArray() throws IOException {
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(invoices.spliterator()).thenAnswer(
+            inv -> List.<Invoice>of().spliterator()
+        );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StreamedInvoices(invoices).writeTo(out);
+        MatcherAssert.assertThat(
+            out.toString(StandardCharsets.UTF_8),
+            Matchers.equalTo("[]")
+        );
+    }
+
+    /**
+     * Mock an Invoice.
+     * @param id Id.
+     * @param latest Latest Payment, may be null.
+     * @return Invoice.
+     */
+    private Invoice mockInvoice(final int id, final Payment latest) {
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.invoiceId()).thenReturn(id);
+        Mockito.when(invoice.createdAt()).thenReturn(LocalDateTime.now());
+        Mockito.when(invoice.isPaid()).thenReturn(latest != null);
+        Mockito.when(invoice.amount()).thenReturn(BigDecimal.valueOf(1050));
+        Mockito.when(invoice.totalAmount())
+            .thenReturn(BigDecimal.valueOf(1200));
+        Mockito.when(invoice.latest()).thenReturn(latest);
+        return invoice;
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.badges;
+
+import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.repos.ManagedRepos;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Unit tests for {@link BadgeCache}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class BadgeCacheTestCase {
+
+    /**
+     * The badge of a managed Project is loaded once, with the number of
+     * contributors and open tasks (assigned or not).
+     */
+    @Test
+    public void loadsManagedBadgeOnce() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final Project project = this.mockProject(
+            3,
+            this.mockContract("john"),
+            this.mockContract("john"),
+            this.mockContract("maria")
+        );
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        final BadgeCache cache = new BadgeCache(self);
+        final Badge badge = cache.badge("mihai/test", "github");
+        MatcherAssert.assertThat(badge.managed(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            badge.svg(),
+            Matchers.containsString("managed | 2 contributors | 3 open tasks")
+        );
+        MatcherAssert.assertThat(
+            cache.badge("mihai/test", "github"),
+            Matchers.sameInstance(badge)
+        );
+        Mockito.verify(projects, Mockito.times(1))
+            .getProjectById("mihai/test", "github");
+    }
+
+    /**
+     * A repo which is not managed is cached too.
+     */
+    @Test
+    public void cachesNotManaged() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        final BadgeCache cache = new BadgeCache(self);
+        MatcherAssert.assertThat(
+            cache.badge("mihai/missing", "github").managed(),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            cache.badge("mihai/missing", "github").svg(),
+            Matchers.containsString("not managed")
+        );
+        Mockito.verify(projects, Mockito.times(1))
+            .getProjectById("mihai/missing", "github");
+    }
+
+    /**
+     * An expired badge is served while it is refreshed, and an
+     * invalidated one is loaded again.
+     */
+    @Test
+    public void refreshesExpiredAndInvalidated() {
+        final Projects projects = Mockito.mock(Projects.class);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        final BadgeCache cache = new BadgeCache(
+            self, Duration.ofMillis(-1), Duration.ofMillis(-1), Runnable::run
+        );
+        cache.badge("mihai/test", "github");
+        cache.badge("mihai/test", "github");
+        Mockito.verify(projects, Mockito.times(2))
+            .getProjectById("mihai/test", "github");
+        cache.invalidate("mihai/test", "github");
+        cache.badge("mihai/test", "github");
+        Mockito.verify(projects, Mockito.times(3))
+            .getProjectById("mihai/test", "github");
+    }
+
+    /**
+     * A repo which the index rules out is answered without going to
+     * the database and without being cached.
+     */
+    @Test
+    public void skipsReposRuledOutByIndex() {
+        final Project project = this.mockProject(0);
+        Mockito.when(project.repoFullName()).thenReturn("mihai/test");
+        Mockito.when(project.provider()).thenReturn("github");
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            inv -> List.of(project).iterator()
+        );
+        Mockito.when(projects.getProjectById("mihai/test", "github"))
+            .thenReturn(project);
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        final ManagedRepos managed = new ManagedRepos(self);
+        managed.load();
+        final BadgeCache cache = new BadgeCache(
+            self, managed, Duration.ofMinutes(5), Duration.ofHours(1),
+            Runnable::run
+        );
+        MatcherAssert.assertThat(
+            cache.badge("mihai/missing", "github").managed(),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            cache.badge("mihai/test", "github").managed(),
+            Matchers.is(true)
+        );
+        Mockito.verify(projects, Mockito.never())
+            .getProjectById("mihai/missing", "github");
+    }
+
+    /**
+     * Mock a Project.
+     * @param open Number of open Tasks.
+     * @param contracts Project's Contracts.
+     * @return Project.
+     */
+    private Project mockProject(final int open, final Contract... contracts) {
+        final Contracts all = Mockito.mock(Contracts.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            inv -> List.of(contracts).iterator()
+        );
+        final Tasks tasks = Mockito.mock(Tasks.class);
+        final Task[] array = new Task[open];
+        for(int idx = 0; idx < open; ++idx) {
+            array[idx] = Mockito.mock(Task.class);
+        }
+        Mockito.when(tasks.spliterator()).thenAnswer(
+            inv -> List.of(array).spliterator()
+        );
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.contracts()).thenReturn(all);
+        Mockito.when(project.tasks()).thenReturn(tasks);
+        return project;
+    }
+
+    /**
+     * Mock a Contract.
+     * @param username Contributor's username.
+     * @return Contract.
+     */
+    private Contract mockContract(final String username) {
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id("mihai/test", username, "github", "DEV")
+        );
+        return contract;
+    }
+}
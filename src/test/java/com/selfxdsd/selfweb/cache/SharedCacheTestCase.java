@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.cache;
+
+import com.selfxdsd.selfweb.db.DbRoute;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link SharedCache}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class SharedCacheTestCase {
+
+    /**
+     * A value is loaded only once, then it is served from the cache.
+     */
+    @Test
+    public void loadsValueOnce() {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 10, Duration.ofMinutes(1)
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        for(int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                cache.get(
+                    "key", () -> "value" + loads.incrementAndGet()
+                ),
+                Matchers.equalTo("value1")
+            );
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.is(1));
+        MatcherAssert.assertThat(cache.size(), Matchers.is(1));
+    }
+
+    /**
+     * Missing values are cached too.
+     */
+    @Test
+    public void cachesMissingValues() {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 10, Duration.ofMinutes(1)
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        cache.get("key", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        MatcherAssert.assertThat(
+            cache.get("key", () -> "found"), Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(loads.get(), Matchers.is(1));
+    }
+
+    /**
+     * An expired value is loaded again.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void reloadsExpiredValue() throws Exception {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 10, Duration.ofMillis(10)
+        );
+        cache.get("key", () -> "old");
+        Thread.sleep(50);
+        MatcherAssert.assertThat(
+            cache.get("key", () -> "new"), Matchers.equalTo("new")
+        );
+    }
+
+    /**
+     * The least recently used entry is evicted when the cache is full.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 2, Duration.ofMinutes(1)
+        );
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("a", () -> "not loaded");
+        cache.get("c", () -> "c");
+        MatcherAssert.assertThat(cache.size(), Matchers.is(2));
+        MatcherAssert.assertThat(
+            cache.get("a", () -> "reloaded"), Matchers.equalTo("a")
+        );
+        MatcherAssert.assertThat(
+            cache.get("b", () -> "reloaded"), Matchers.equalTo("reloaded")
+        );
+    }
+
+    /**
+     * An invalidated value is loaded again.
+     */
+    @Test
+    public void reloadsInvalidatedValue() {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 10, Duration.ofMinutes(1)
+        );
+        cache.get("key", () -> "old");
+        cache.invalidate("key");
+        MatcherAssert.assertThat(cache.size(), Matchers.is(0));
+        MatcherAssert.assertThat(
+            cache.get("key", () -> "new"), Matchers.equalTo("new")
+        );
+    }
+
+    /**
+     * A value loaded while the key was invalidated is returned,
+     * but not stored.
+     */
+    @Test
+    public void doesNotStoreValueLoadedDuringInvalidation() {
+        final SharedCache<String> cache = new SharedCache<>(
+            "test", 10, Duration.ofMinutes(1)
+        );
+        MatcherAssert.assertThat(
+            cache.get(
+                "key",
+                () -> {
+                    cache.invalidate("key");
+                    return "stale";
+                }
+            ),
+            Matchers.equalTo("stale")
+        );
+        MatcherAssert.assertThat(
+            cache.get("key", () -> "fresh"), Matchers.equalTo("fresh")
+        );
+    }
+
+    /**
+     * A miss is loaded from the primary even when the request reads from
+     * a replica, so a lagging replica does not put an invalidated value
+     * back in the cache.
+     */
+    @Test
+    public void loadsFromPrimary() {
+        final SharedCache<DbRoute> cache = new SharedCache<>(
+            "test", 10, Duration.ofMinutes(1)
+        );
+        cache.get("key", DbRoute::current);
+        cache.invalidate("key");
+        MatcherAssert.assertThat(
+            DbRoute.within(
+                DbRoute.REPLICA, () -> cache.get("key", DbRoute::current)
+            ),
+            Matchers.is(DbRoute.PRIMARY)
+        );
+        MatcherAssert.assertThat(
+            DbRoute.within(
+                DbRoute.REPLICA, () -> cache.get("key", DbRoute::current)
+            ),
+            Matchers.is(DbRoute.PRIMARY)
+        );
+    }
+}
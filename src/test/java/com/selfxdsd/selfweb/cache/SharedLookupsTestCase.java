@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.cache;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManager;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Unit tests for {@link SharedLookups}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class SharedLookupsTestCase {
+
+    /**
+     * Projects are looked up ignoring the case of their name.
+     */
+    @Test
+    public void cachesProjectsIgnoringCase() {
+        final SharedLookups lookups = new SharedLookups(
+            10, Duration.ofMinutes(1)
+        );
+        final Project project = Mockito.mock(Project.class);
+        lookups.project("mihai/test", "github", () -> project);
+        MatcherAssert.assertThat(
+            lookups.project("Mihai/Test", "GitHub", () -> null),
+            Matchers.is(project)
+        );
+        MatcherAssert.assertThat(
+            lookups.project("mihai/test", "gitlab", () -> null),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A changed Project drops both the Project and its Wallet type.
+     */
+    @Test
+    public void projectChangedDropsProjectAndWallet() {
+        final SharedLookups lookups = new SharedLookups(
+            10, Duration.ofMinutes(1)
+        );
+        lookups.project(
+            "mihai/test", "github", () -> Mockito.mock(Project.class)
+        );
+        lookups.walletType("mihai/test", "github", () -> "FAKE");
+        lookups.projectChanged("mihai/test", "github");
+        MatcherAssert.assertThat(
+            lookups.project("mihai/test", "github", () -> null),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            lookups.walletType("mihai/test", "github", () -> "STRIPE"),
+            Matchers.equalTo("STRIPE")
+        );
+    }
+
+    /**
+     * A changed Wallet drops only the Wallet type.
+     */
+    @Test
+    public void walletChangedKeepsProject() {
+        final SharedLookups lookups = new SharedLookups(
+            10, Duration.ofMinutes(1)
+        );
+        final Project project = Mockito.mock(Project.class);
+        lookups.project("mihai/test", "github", () -> project);
+        lookups.walletType("mihai/test", "github", () -> "FAKE");
+        lookups.walletChanged("mihai/test", "github");
+        MatcherAssert.assertThat(
+            lookups.project("mihai/test", "github", () -> null),
+            Matchers.is(project)
+        );
+        MatcherAssert.assertThat(
+            lookups.walletType("mihai/test", "github", () -> "STRIPE"),
+            Matchers.equalTo("STRIPE")
+        );
+    }
+
+    /**
+     * The ProjectManagers are cached until one of them changes.
+     */
+    @Test
+    public void cachesManagersUntilChanged() {
+        final SharedLookups lookups = new SharedLookups(
+            10, Duration.ofMinutes(1)
+        );
+        final ProjectManager manager = Mockito.mock(ProjectManager.class);
+        lookups.managers(() -> List.of(manager));
+        MatcherAssert.assertThat(
+            lookups.managers(List::of), Matchers.contains(manager)
+        );
+        lookups.managersChanged();
+        MatcherAssert.assertThat(
+            lookups.managers(List::of), Matchers.emptyIterable()
+        );
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.dashboard;
+
+import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.api.output.JsonContributor;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.json.JsonObject;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit tests for {@link ContributorDashboard}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ContributorDashboardTestCase {
+
+    /**
+     * It builds the same JSON as JsonContributor, looking the wallet type
+     * up only once per Project.
+     */
+    @Test
+    public void buildsContributorJson() {
+        final Project project = this.mockProject("stripe");
+        final Project other = this.mockProject("fake");
+        final Contributor contributor = this.mockContributor(
+            this.mockContract("mihai/test", "DEV", project),
+            this.mockContract("mihai/test", "REV", project),
+            this.mockContract("mihai/other", "DEV", other)
+        );
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final JsonObject json;
+        try (ContributorDashboard dashboard = new ContributorDashboard(
+            pool, Duration.ofSeconds(5)
+        )) {
+            json = dashboard.json(contributor);
+        }
+        Mockito.verify(project, Mockito.times(1)).wallets();
+        Mockito.verify(other, Mockito.times(1)).wallets();
+        MatcherAssert.assertThat(
+            json.toString(),
+            Matchers.equalTo(new JsonContributor(contributor).toString())
+        );
+    }
+
+    /**
+     * After a timeout, the lookups which did not start yet are skipped.
+     */
+    @Test
+    public void skipsLookupsAfterTimeout() {
+        final Project project = this.mockProject("stripe");
+        final Contract contract = this.mockContract(
+            "mihai/test", "DEV", project
+        );
+        final Contributor contributor = this.mockContributor(contract);
+        final List<Runnable> queued = new ArrayList<>();
+        final ContributorDashboard dashboard = new ContributorDashboard(
+            queued::add, Duration.ofMillis(10)
+        );
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> dashboard.json(contributor)
+        );
+        queued.forEach(Runnable::run);
+        Mockito.verify(contract, Mockito.never()).value();
+        Mockito.verify(project, Mockito.never()).wallets();
+    }
+
+    /**
+     * A Contributor without Contracts has an empty array of Contracts.
+     */
+    @Test
+    public void buildsContributorWithoutContracts() {
+        final Contributor contributor = this.mockContributor();
+        MatcherAssert.assertThat(
+            new ContributorDashboard().json(contributor)
+                .getJsonArray("contracts"),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * Mock a Contributor.
+     * @param contracts Contributor's Contracts.
+     * @return Contributor.
+     */
+    private Contributor mockContributor(final Contract... contracts) {
+        final Contracts all = Mockito.mock(Contracts.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            inv -> List.of(contracts).iterator()
+        );
+        final Contributor contributor = Mockito.mock(Contributor.class);
+        Mockito.when(contributor.username()).thenReturn("john");
+        Mockito.when(contributor.provider()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(contributor.contracts()).thenReturn(all);
+        return contributor;
+    }
+
+    /**
+     * Mock a Contract.
+     * @param repo Repo full name.
+     * @param role Role.
+     * @param project Project.
+     * @return Contract.
+     */
+    private Contract mockContract(
+        final String repo,
+        final String role,
+        final Project project
+    ) {
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id(repo, "john", Provider.Names.GITHUB, role)
+        );
+        Mockito.when(contract.hourlyRate())
+            .thenReturn(BigDecimal.valueOf(1000));
+        Mockito.when(contract.value()).thenReturn(BigDecimal.valueOf(25000));
+        Mockito.when(contract.revenue())
+            .thenReturn(BigDecimal.valueOf(20000));
+        Mockito.when(contract.project()).thenReturn(project);
+        return contract;
+    }
+
+    /**
+     * Mock a Project with an active Wallet.
+     * @param type Wallet type.
+     * @return Project.
+     */
+    private Project mockProject(final String type) {
+        final Wallet wallet = Mockito.mock(Wallet.class);
+        Mockito.when(wallet.type()).thenReturn(type);
+        final Wallets wallets = Mockito.mock(Wallets.class);
+        Mockito.when(wallets.active()).thenReturn(wallet);
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.wallets()).thenReturn(wallets);
+        return project;
+    }
+}
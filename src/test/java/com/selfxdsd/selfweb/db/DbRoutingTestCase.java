@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link DbRouting}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class DbRoutingTestCase {
+
+    /**
+     * GET requests go to a replica, POST requests to the primary.
+     */
+    @Test
+    public void routesByHttpMethod() {
+        final DbRouting routing = new DbRouting();
+        MatcherAssert.assertThat(
+            routing.route(new MockHttpServletRequest("GET", "/api"), null),
+            Matchers.is(DbRoute.REPLICA)
+        );
+        MatcherAssert.assertThat(
+            routing.route(new MockHttpServletRequest("POST", "/api"), null),
+            Matchers.is(DbRoute.PRIMARY)
+        );
+    }
+
+    /**
+     * The annotated handlers choose their database.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void routesByAnnotation() throws Exception {
+        final DbRouting routing = new DbRouting();
+        final Handlers handlers = new Handlers();
+        MatcherAssert.assertThat(
+            routing.route(
+                new MockHttpServletRequest("GET", "/api"),
+                new HandlerMethod(handlers, "latest")
+            ),
+            Matchers.is(DbRoute.PRIMARY)
+        );
+        MatcherAssert.assertThat(
+            routing.route(
+                new MockHttpServletRequest("POST", "/api"),
+                new HandlerMethod(handlers, "search")
+            ),
+            Matchers.is(DbRoute.REPLICA)
+        );
+        MatcherAssert.assertThat(
+            routing.route(
+                new MockHttpServletRequest("GET", "/api"),
+                new HandlerMethod(handlers, "any")
+            ),
+            Matchers.is(DbRoute.REPLICA)
+        );
+    }
+
+    /**
+     * After a change, the User's reads go to the primary, until the
+     * sticky period ends.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void readsYourWrites() throws Exception {
+        final DbRouting routing = new DbRouting(Duration.ofMillis(100));
+        final MockHttpSession session = new MockHttpSession();
+        final MockHttpServletRequest write = new MockHttpServletRequest(
+            "POST", "/api/wallets"
+        );
+        write.setSession(session);
+        routing.preHandle(write, new MockHttpServletResponse(), null);
+        MatcherAssert.assertThat(
+            DbRoute.current(), Matchers.is(DbRoute.PRIMARY)
+        );
+        routing.afterCompletion(
+            write, new MockHttpServletResponse(), null, null
+        );
+        final MockHttpServletRequest read = new MockHttpServletRequest(
+            "GET", "/api/wallets"
+        );
+        read.setSession(session);
+        MatcherAssert.assertThat(
+            routing.route(read, null), Matchers.is(DbRoute.PRIMARY)
+        );
+        final MockHttpServletRequest other = new MockHttpServletRequest(
+            "GET", "/api/wallets"
+        );
+        other.setSession(new MockHttpSession());
+        MatcherAssert.assertThat(
+            routing.route(other, null), Matchers.is(DbRoute.REPLICA)
+        );
+        Thread.sleep(200);
+        MatcherAssert.assertThat(
+            routing.route(read, null), Matchers.is(DbRoute.REPLICA)
+        );
+    }
+
+    /**
+     * The route is set for the handling of the request and cleared
+     * after it.
+     */
+    @Test
+    public void clearsRouteAfterRequest() {
+        final DbRouting routing = new DbRouting();
+        final MockHttpServletRequest read = new MockHttpServletRequest(
+            "GET", "/api/contributor"
+        );
+        routing.preHandle(read, new MockHttpServletResponse(), null);
+        MatcherAssert.assertThat(
+            DbRoute.current(), Matchers.is(DbRoute.REPLICA)
+        );
+        routing.afterCompletion(
+            read, new MockHttpServletResponse(), null, null
+        );
+        MatcherAssert.assertThat(
+            DbRoute.current(), Matchers.is(DbRoute.PRIMARY)
+        );
+        MatcherAssert.assertThat(read.getSession(false), Matchers.nullValue());
+    }
+
+    /**
+     * Handlers with routes.
+     */
+    @OnDb(DbRoute.REPLICA)
+    public static final class Handlers {
+
+        /**
+         * A read which must see the latest data.
+         */
+        @OnDb(DbRoute.PRIMARY)
+        public void latest() {
+            //nothing to do
+        }
+
+        /**
+         * A POST which only reads.
+         */
+        public void search() {
+            //nothing to do
+        }
+
+        /**
+         * Any other handler.
+         */
+        public void any() {
+            //nothing to do
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Unit tests for {@link ReadReplicas}, on two embedded databases:
+ * a primary and a replica, each knowing its own name.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ReadReplicasTestCase {
+
+    /**
+     * The primary database.
+     */
+    private DataSource primary;
+
+    /**
+     * The replica.
+     */
+    private DataSource replica;
+
+    /**
+     * Create the two databases.
+     * @throws SQLException If something goes wrong.
+     */
+    @BeforeEach
+    public void createDatabases() throws SQLException {
+        this.primary = ReadReplicasTestCase.database("primary");
+        this.replica = ReadReplicasTestCase.database("replica");
+    }
+
+    /**
+     * Drop the two databases.
+     * @throws SQLException If something goes wrong.
+     */
+    @AfterEach
+    public void dropDatabases() throws SQLException {
+        for(final DataSource database : List.of(this.primary, this.replica)) {
+            try (
+                Connection connection = database.getConnection();
+                Statement statement = connection.createStatement()
+            ) {
+                statement.execute("SHUTDOWN");
+            }
+        }
+    }
+
+    /**
+     * Reads go to the healthy replica.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void readsFromReplica() throws SQLException {
+        final ReadReplicas replicas = new ReadReplicas(
+            this.primary, List.of(this.replica),
+            source -> Duration.ZERO, Duration.ofSeconds(2)
+        );
+        replicas.check();
+        MatcherAssert.assertThat(replicas.count(), Matchers.is(1));
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, DbRoute.REPLICA),
+            Matchers.equalTo("replica")
+        );
+    }
+
+    /**
+     * Writes, and statements without a route, go to the primary.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void writesToPrimary() throws SQLException {
+        final ReadReplicas replicas = new ReadReplicas(
+            this.primary, List.of(this.replica),
+            source -> Duration.ZERO, Duration.ofSeconds(2)
+        );
+        replicas.check();
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, DbRoute.PRIMARY),
+            Matchers.equalTo("primary")
+        );
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, null),
+            Matchers.equalTo("primary")
+        );
+    }
+
+    /**
+     * Before the first check, the reads go to the primary.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void readsFromPrimaryBeforeCheck() throws SQLException {
+        final ReadReplicas replicas = new ReadReplicas(
+            this.primary, List.of(this.replica),
+            source -> Duration.ZERO, Duration.ofSeconds(2)
+        );
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, DbRoute.REPLICA),
+            Matchers.equalTo("primary")
+        );
+    }
+
+    /**
+     * A replica which lags too much, or whose lag is unknown,
+     * is not used.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void skipsLaggingReplica() throws SQLException {
+        final ReadReplicas lagging = new ReadReplicas(
+            this.primary, List.of(this.replica),
+            source -> Duration.ofSeconds(30), Duration.ofSeconds(2)
+        );
+        lagging.check();
+        MatcherAssert.assertThat(lagging.count(), Matchers.is(0));
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(lagging, DbRoute.REPLICA),
+            Matchers.equalTo("primary")
+        );
+        final ReadReplicas unknown = new ReadReplicas(
+            this.primary, List.of(this.replica),
+            source -> null, Duration.ofSeconds(2)
+        );
+        unknown.check();
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(unknown, DbRoute.REPLICA),
+            Matchers.equalTo("primary")
+        );
+    }
+
+    /**
+     * A replica which refuses the connection is not used anymore,
+     * until the next check.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void fallsBackWhenReplicaIsDown() throws SQLException {
+        final DataSource down = Mockito.mock(DataSource.class);
+        Mockito.when(down.getConnection()).thenThrow(
+            new SQLException("Replica is down.")
+        );
+        final ReadReplicas replicas = new ReadReplicas(
+            this.primary, List.of(down),
+            source -> Duration.ZERO, Duration.ofSeconds(2)
+        );
+        replicas.check();
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, DbRoute.REPLICA),
+            Matchers.equalTo("primary")
+        );
+        MatcherAssert.assertThat(replicas.count(), Matchers.is(0));
+        ReadReplicasTestCase.name(replicas, DbRoute.REPLICA);
+        Mockito.verify(down, Mockito.times(1)).getConnection();
+    }
+
+    /**
+     * Without replicas, everything goes to the primary.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void worksWithoutReplicas() throws SQLException {
+        final ReadReplicas replicas = new ReadReplicas(this.primary);
+        replicas.check();
+        MatcherAssert.assertThat(
+            ReadReplicasTestCase.name(replicas, DbRoute.REPLICA),
+            Matchers.equalTo("primary")
+        );
+    }
+
+    /**
+     * Name of the database which serves a statement on the given route.
+     * @param replicas ReadReplicas.
+     * @param route Route, null for none.
+     * @return Name of the database.
+     * @throws SQLException If something goes wrong.
+     */
+    private static String name(
+        final ReadReplicas replicas,
+        final DbRoute route
+    ) throws SQLException {
+        final String name;
+        if(route != null) {
+            route.use();
+        }
+        try (
+            Connection connection = replicas.getConnection();
+            Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery(
+                "SELECT name FROM self_database"
+            )
+        ) {
+            result.next();
+            name = result.getString("name");
+        } finally {
+            DbRoute.clear();
+        }
+        return name;
+    }
+
+    /**
+     * Embedded database which knows its name.
+     * @param name Name.
+     * @return DataSource.
+     * @throws SQLException If something goes wrong.
+     */
+    private static DataSource database(final String name)
+        throws SQLException {
+        final JdbcDataSource database = new JdbcDataSource();
+        database.setURL(
+            "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1"
+        );
+        try (
+            Connection connection = database.getConnection();
+            Statement statement = connection.createStatement()
+        ) {
+            statement.execute(
+                "CREATE TABLE self_database (name VARCHAR(32))"
+            );
+            statement.execute(
+                "INSERT INTO self_database VALUES ('" + name + "')"
+            );
+        }
+        return database;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.db;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link ReplicationLag}, reading the replication status
+ * from a table of an embedded database.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ReplicationLagTestCase {
+
+    /**
+     * Query of the replication status.
+     */
+    private static final String QUERY = "SELECT * FROM replica_status";
+
+    /**
+     * It reads the lag of a replica.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void readsLag() throws SQLException {
+        MatcherAssert.assertThat(
+            new ReplicationLag(QUERY, "Seconds_Behind_Master").apply(
+                ReplicationLagTestCase.status("lagging", "3")
+            ),
+            Matchers.equalTo(Duration.ofSeconds(3))
+        );
+    }
+
+    /**
+     * A stopped replication has an unknown lag.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void stoppedReplicationHasUnknownLag() throws SQLException {
+        MatcherAssert.assertThat(
+            new ReplicationLag(QUERY, "Seconds_Behind_Master").apply(
+                ReplicationLagTestCase.status("stopped", "NULL")
+            ),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A database which is not replicating has no lag.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void notReplicatingHasNoLag() throws SQLException {
+        MatcherAssert.assertThat(
+            new ReplicationLag(QUERY, "Seconds_Behind_Master").apply(
+                ReplicationLagTestCase.status("standalone", null)
+            ),
+            Matchers.equalTo(Duration.ZERO)
+        );
+    }
+
+    /**
+     * A replica which cannot be queried has an unknown lag.
+     * @throws SQLException If something goes wrong.
+     */
+    @Test
+    public void unreachableReplicaHasUnknownLag() throws SQLException {
+        final DataSource down = Mockito.mock(DataSource.class);
+        Mockito.when(down.getConnection()).thenThrow(
+            new SQLException("Replica is down.")
+        );
+        MatcherAssert.assertThat(
+            new ReplicationLag().apply(down), Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Embedded database with a replication status.
+     * @param name Name of the database.
+     * @param seconds Seconds behind the primary, null for no status.
+     * @return DataSource.
+     * @throws SQLException If something goes wrong.
+     */
+    private static DataSource status(final String name, final String seconds)
+        throws SQLException {
+        final JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (
+            Connection connection = database.getConnection();
+            Statement statement = connection.createStatement()
+        ) {
+            statement.execute(
+                "CREATE TABLE IF NOT EXISTS replica_status "
+                + "(Seconds_Behind_Master BIGINT)"
+            );
+            statement.execute("DELETE FROM replica_status");
+            if(seconds != null) {
+                statement.execute(
+                    "INSERT INTO replica_status VALUES (" + seconds + ")"
+                );
+            }
+        }
+        return database;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.events;
+
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.User;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.json.Json;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link UserEvents}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class UserEventsTestCase {
+
+    /**
+     * It keeps a limited number of streams per User.
+     */
+    @Test
+    public void keepsLimitedStreamsPerUser() {
+        final UserEvents events = new UserEvents(Duration.ofMinutes(1), 2);
+        final User mihai = this.mockUser("mihai");
+        events.subscribe(mihai);
+        events.subscribe(mihai);
+        events.subscribe(this.mockUser("MIHAI"));
+        events.subscribe(this.mockUser("john"));
+        MatcherAssert.assertThat(events.subscribers(mihai), Matchers.is(2));
+        MatcherAssert.assertThat(
+            events.subscribers(this.mockUser("john")), Matchers.is(1)
+        );
+        MatcherAssert.assertThat(
+            events.subscribers(this.mockUser("george")), Matchers.is(0)
+        );
+    }
+
+    /**
+     * Publishing to a User with open streams works, publishing to a User
+     * without any does nothing.
+     */
+    @Test
+    public void publishesEvents() {
+        final UserEvents events = new UserEvents();
+        final User mihai = this.mockUser("mihai");
+        final SseEmitter stream = events.subscribe(mihai);
+        events.publish(
+            mihai,
+            "wallet.updated",
+            Json.createObjectBuilder().add("project", "mihai/test").build()
+        );
+        events.publish(
+            this.mockUser("john"),
+            "wallet.updated",
+            Json.createObjectBuilder().build()
+        );
+        MatcherAssert.assertThat(stream, Matchers.notNullValue());
+        MatcherAssert.assertThat(events.subscribers(mihai), Matchers.is(1));
+    }
+
+    /**
+     * The key of a User is its provider and username, lowercase.
+     */
+    @Test
+    public void keyIsProviderAndUsername() {
+        MatcherAssert.assertThat(
+            UserEvents.key(this.mockUser("Mihai")),
+            Matchers.equalTo("github/mihai")
+        );
+    }
+
+    /**
+     * Mock a Github User.
+     * @param username Username.
+     * @return User.
+     */
+    private User mockUser(final String username) {
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.username()).thenReturn(username);
+        return user;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+
+/**
+ * Unit tests for {@link RateLimitFilter}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class RateLimitFilterTestCase {
+
+    /**
+     * It reads the Project out of the API path.
+     */
+    @Test
+    public void readsProjectFromPath() {
+        MatcherAssert.assertThat(
+            RateLimitFilter.project(
+                "/api/projects/AmihaiEmil/Docker-Java-Api/contracts"
+            ),
+            Matchers.is("amihaiemil/docker-java-api")
+        );
+        MatcherAssert.assertThat(
+            RateLimitFilter.project("/api/projects/amihaiemil"),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            RateLimitFilter.project("/api/wallets"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Requests over the Project's burst get 429 with Retry-After.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void limitsProject() throws Exception {
+        final RateLimitFilter filter = new RateLimitFilter(
+            new TokenBuckets(1, 1),
+            new TokenBuckets(100, 100)
+        );
+        final FilterChain chain = Mockito.mock(FilterChain.class);
+        final MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(RateLimitFilterTestCase.request(), first, chain);
+        MatcherAssert.assertThat(first.getStatus(), Matchers.is(200));
+        final MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(RateLimitFilterTestCase.request(), second, chain);
+        MatcherAssert.assertThat(second.getStatus(), Matchers.is(429));
+        MatcherAssert.assertThat(
+            second.getHeader("Retry-After"), Matchers.is("1")
+        );
+        Mockito.verify(chain, Mockito.times(1)).doFilter(
+            Mockito.any(), Mockito.any()
+        );
+    }
+
+    /**
+     * A User over their own limit does not use up the Project's tokens,
+     * so the other Users of the Project are not limited because of them.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void limitedUserDoesNotTakeProjectTokens() throws Exception {
+        final RateLimitFilter filter = new RateLimitFilter(
+            new TokenBuckets(0.001, 2),
+            new TokenBuckets(0.001, 1)
+        );
+        final FilterChain chain = Mockito.mock(FilterChain.class);
+        for(int idx = 0; idx < 3; ++idx) {
+            final MockHttpServletRequest greedy = RateLimitFilterTestCase
+                .request();
+            greedy.setUserPrincipal(() -> "greedy");
+            filter.doFilter(greedy, new MockHttpServletResponse(), chain);
+        }
+        final MockHttpServletRequest other = RateLimitFilterTestCase
+            .request();
+        other.setUserPrincipal(() -> "other");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(other, response, chain);
+        MatcherAssert.assertThat(response.getStatus(), Matchers.is(200));
+        Mockito.verify(chain, Mockito.times(2)).doFilter(
+            Mockito.any(), Mockito.any()
+        );
+    }
+
+    /**
+     * Paths outside of the API are not limited.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void ignoresNonApiPaths() throws Exception {
+        final RateLimitFilter filter = new RateLimitFilter(
+            new TokenBuckets(1, 1),
+            new TokenBuckets(1, 1)
+        );
+        final FilterChain chain = Mockito.mock(FilterChain.class);
+        for(int idx = 0; idx < 3; ++idx) {
+            final MockHttpServletRequest request = new MockHttpServletRequest(
+                "GET", "/project/amihaiemil/docker-java-api"
+            );
+            request.setServletPath("/project/amihaiemil/docker-java-api");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+        Mockito.verify(chain, Mockito.times(3)).doFilter(
+            Mockito.any(), Mockito.any()
+        );
+    }
+
+    /**
+     * A request to the contracts of a Project.
+     * @return MockHttpServletRequest.
+     */
+    private static MockHttpServletRequest request() {
+        final MockHttpServletRequest request = new MockHttpServletRequest(
+            "GET", "/api/projects/amihaiemil/docker-java-api/contracts"
+        );
+        request.setServletPath(
+            "/api/projects/amihaiemil/docker-java-api/contracts"
+        );
+        return request;
+    }
+}
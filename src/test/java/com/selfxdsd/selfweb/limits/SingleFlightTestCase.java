@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class SingleFlightTestCase {
+
+    /**
+     * Concurrent callers of the same key share one computation.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void coalescesConcurrentCalls() throws Exception {
+        final SingleFlight flights = new SingleFlight();
+        final AtomicInteger computed = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            results.add(
+                pool.submit(
+                    () -> flights.run(
+                        "key",
+                        () -> {
+                            computed.incrementAndGet();
+                            started.countDown();
+                            SingleFlightTestCase.await(release);
+                            return "value";
+                        }
+                    )
+                )
+            );
+            started.await();
+            for(int idx = 0; idx < 3; ++idx) {
+                results.add(
+                    pool.submit(
+                        () -> flights.run(
+                            "key",
+                            () -> {
+                                computed.incrementAndGet();
+                                return "other";
+                            }
+                        )
+                    )
+                );
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for(final Future<String> result : results) {
+                MatcherAssert.assertThat(
+                    result.get(5, TimeUnit.SECONDS), Matchers.is("value")
+                );
+            }
+            MatcherAssert.assertThat(computed.get(), Matchers.is(1));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Once a computation is done, the next call computes again.
+     */
+    @Test
+    public void computesAgainAfterDone() {
+        final SingleFlight flights = new SingleFlight();
+        final AtomicInteger computed = new AtomicInteger();
+        flights.run("key", computed::incrementAndGet);
+        MatcherAssert.assertThat(
+            flights.run("key", computed::incrementAndGet), Matchers.is(2)
+        );
+    }
+
+    /**
+     * The exception of the computation reaches the caller.
+     */
+    @Test
+    public void propagatesException() {
+        final SingleFlight flights = new SingleFlight();
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> flights.run(
+                "key",
+                () -> {
+                    throw new IllegalArgumentException("bad");
+                }
+            )
+        );
+    }
+
+    /**
+     * Wait for the latch.
+     * @param latch Latch.
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
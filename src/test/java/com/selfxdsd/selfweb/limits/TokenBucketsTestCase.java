@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.limits;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TokenBuckets}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class TokenBucketsTestCase {
+
+    /**
+     * A bucket lets the burst through, then asks to wait.
+     */
+    @Test
+    public void limitsAfterBurst() {
+        final TokenBuckets buckets = new TokenBuckets(1, 3);
+        for(int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                buckets.take("project:amihaiemil/docker-java-api"),
+                Matchers.is(0L)
+            );
+        }
+        MatcherAssert.assertThat(
+            buckets.take("project:amihaiemil/docker-java-api"),
+            Matchers.allOf(
+                Matchers.greaterThan(0L),
+                Matchers.lessThanOrEqualTo(1_000_000_000L)
+            )
+        );
+    }
+
+    /**
+     * Each key has its own bucket.
+     */
+    @Test
+    public void keysHaveSeparateBuckets() {
+        final TokenBuckets buckets = new TokenBuckets(1, 1);
+        MatcherAssert.assertThat(buckets.take("one"), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            buckets.take("one"), Matchers.greaterThan(0L)
+        );
+        MatcherAssert.assertThat(buckets.take("two"), Matchers.is(0L));
+    }
+}
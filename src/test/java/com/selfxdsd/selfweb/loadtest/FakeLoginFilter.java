@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fake OAuth2 login, active only with the "loadtest" profile. A request
+ * carrying the X-Load-User header is logged in as that Github user: we
+ * store an OAuth2 authentication in its session, the same way Spring
+ * Security does after a real OAuth2 login. The session cookie is enough
+ * for the next requests.<br><br>
+ *
+ * It runs right before Spring Security's filter chain, which then loads
+ * the authentication from the session.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+@Profile("loadtest")
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class FakeLoginFilter extends OncePerRequestFilter {
+
+    /**
+     * Header with the username to log in.
+     */
+    public static final String HEADER = "X-Load-User";
+
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain chain
+    ) throws ServletException, IOException {
+        final String username = request.getHeader(HEADER);
+        if(username != null && !username.isBlank()) {
+            final HttpSession session = request.getSession();
+            final String key = HttpSessionSecurityContextRepository
+                .SPRING_SECURITY_CONTEXT_KEY;
+            if(session.getAttribute(key) == null) {
+                session.setAttribute(key, FakeLoginFilter.context(username));
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Security context of a User logged in with Github.
+     * @param username Username.
+     * @return SecurityContext.
+     */
+    private static SecurityContext context(final String username) {
+        final Map<String, Object> attributes = Map.of(
+            "login", username,
+            "name", username,
+            "email", username + "@loadtest.local"
+        );
+        final OAuth2User principal = new DefaultOAuth2User(
+            List.of(new OAuth2UserAuthority(attributes)),
+            attributes,
+            "login"
+        );
+        final SecurityContext context = SecurityContextHolder
+            .createEmptyContext();
+        context.setAuthentication(
+            new OAuth2AuthenticationToken(
+                principal, principal.getAuthorities(), Seed.PROVIDER
+            )
+        );
+        return context;
+    }
+}
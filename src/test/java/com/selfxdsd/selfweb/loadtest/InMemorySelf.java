@@ -0,0 +1,501 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Contracts;
+import com.selfxdsd.api.Contributor;
+import com.selfxdsd.api.Contributors;
+import com.selfxdsd.api.InvoicedTasks;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.Login;
+import com.selfxdsd.api.Payment;
+import com.selfxdsd.api.PaymentMethods;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.ProjectManagers;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.Self;
+import com.selfxdsd.api.Task;
+import com.selfxdsd.api.Tasks;
+import com.selfxdsd.api.User;
+import com.selfxdsd.api.Wallet;
+import com.selfxdsd.api.Wallets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Self kept in memory, used instead of {@link
+ * com.selfxdsd.selfweb.SelfCoreComponent} when the app runs with the
+ * "loadtest" profile. It is seeded at startup with synthetic Users,
+ * Projects, Contracts, Tasks and Invoices (see {@link Seed}), so the
+ * app can be load-tested without MySQL, the Providers or Stripe.<br><br>
+ *
+ * The data is read-only: everything is built before the first request
+ * and never changes, so it can be read concurrently without locking.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+@Component
+@Profile("loadtest")
+public class InMemorySelf implements Self {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(
+        InMemorySelf.class
+    );
+
+    /**
+     * Fixed moment, all the dates are relative to it.
+     */
+    private static final LocalDateTime NOW = LocalDateTime.of(
+        2021, 3, 1, 10, 30
+    );
+
+    /**
+     * Users, by username.
+     */
+    private final Map<String, User> users;
+
+    /**
+     * Projects, by repo full name.
+     */
+    private final Map<String, Project> projects;
+
+    /**
+     * Contributors, by username.
+     */
+    private final Map<String, Contributor> contributors;
+
+    /**
+     * Ctor for Spring.
+     * @param users Number of Users.
+     * @param projects Projects owned by each User.
+     * @param contracts Contracts of each Project.
+     * @param tasks Tasks of each Contract.
+     * @param invoices Invoices of each Contract.
+     * @checkstyle ParameterNumber (15 lines)
+     */
+    @Autowired
+    public InMemorySelf(
+        @Value("${self.loadtest.users}") final int users,
+        @Value("${self.loadtest.projects}") final int projects,
+        @Value("${self.loadtest.contracts}") final int contracts,
+        @Value("${self.loadtest.tasks}") final int tasks,
+        @Value("${self.loadtest.invoices}") final int invoices
+    ) {
+        this(new Seed(users, projects, contracts, tasks, invoices));
+    }
+
+    /**
+     * Ctor.
+     * @param seed Shape of the synthetic data.
+     */
+    public InMemorySelf(final Seed seed) {
+        this.users = new HashMap<>();
+        this.projects = new HashMap<>();
+        this.contributors = new HashMap<>();
+        this.seed(seed);
+        LOG.info(
+            "Seeded {} users, {} projects and {} contracts in memory.",
+            this.users.size(),
+            this.projects.size(),
+            this.projects.size() * seed.contracts()
+        );
+    }
+
+    @Override
+    public User login(final Login login) {
+        User user = this.users.get(login.username());
+        if(user == null) {
+            user = InMemorySelf.user(
+                login.username(), List.of(), List.of()
+            );
+        }
+        return user;
+    }
+
+    @Override
+    public User authenticate(final String token) {
+        return null;
+    }
+
+    @Override
+    public ProjectManagers projectManagers() {
+        return new Stand<>(ProjectManagers.class).build();
+    }
+
+    @Override
+    public Projects projects() {
+        return InMemorySelf.projects(
+            new ArrayList<>(this.projects.values())
+        );
+    }
+
+    @Override
+    public Contributors contributors() {
+        return new Stand<>(
+            Contributors.class, new ArrayList<>(this.contributors.values())
+        ).answer(
+            "getById", args -> this.contributors.get((String) args[0])
+        ).build();
+    }
+
+    @Override
+    public void close() {
+        LOG.info("Closing the in-memory Self.");
+    }
+
+    /**
+     * Build all the synthetic data.
+     * @param seed Shape of the synthetic data.
+     */
+    private void seed(final Seed seed) {
+        final List<List<Project>> owned = new ArrayList<>();
+        final List<List<Contract>> assigned = new ArrayList<>();
+        for(int idx = 0; idx < seed.users(); ++idx) {
+            owned.add(new ArrayList<>());
+            assigned.add(new ArrayList<>());
+            final String username = seed.username(idx);
+            final User user = InMemorySelf.user(
+                username, owned.get(idx), assigned.get(idx)
+            );
+            this.users.put(username, user);
+            this.contributors.put(username, user.asContributor());
+        }
+        for(int owner = 0; owner < seed.users(); ++owner) {
+            for(int repo = 0; repo < seed.projects(); ++repo) {
+                final List<Contract> contracts = new ArrayList<>();
+                final Project project = InMemorySelf.project(
+                    seed.repo(owner, repo),
+                    this.users.get(seed.username(owner)),
+                    contracts
+                );
+                for(int next = 1; next <= seed.contracts(); ++next) {
+                    final Contract contract = InMemorySelf.contract(
+                        project, seed.username(owner + next), seed
+                    );
+                    contracts.add(contract);
+                    assigned.get(Math.floorMod(owner + next, seed.users()))
+                        .add(contract);
+                }
+                owned.get(owner).add(project);
+                this.projects.put(project.repoFullName(), project);
+            }
+        }
+    }
+
+    /**
+     * Build a User.
+     * @param username Username.
+     * @param owned Projects owned by the User, filled later.
+     * @param assigned Contracts of the User, filled later.
+     * @return User.
+     */
+    private static User user(
+        final String username,
+        final List<Project> owned,
+        final List<Contract> assigned
+    ) {
+        final Contributor contributor = new Stand<>(Contributor.class)
+            .with("username", username)
+            .with("provider", Seed.PROVIDER)
+            .with("contracts", InMemorySelf.contracts(assigned))
+            .answer(
+                "contract",
+                args -> InMemorySelf.find(
+                    assigned, (String) args[0], username, (String) args[2]
+                )
+            ).build();
+        return new Stand<>(User.class)
+            .with("username", username)
+            .with("email", username + "@loadtest.local")
+            .with("role", "user")
+            .with(
+                "provider",
+                new Stand<>(Provider.class)
+                    .with("name", Seed.PROVIDER)
+                    .build()
+            )
+            .with("projects", InMemorySelf.projects(owned))
+            .with("asContributor", contributor)
+            .with("asAdmin", null)
+            .build();
+    }
+
+    /**
+     * Build a Project with an active Wallet.
+     * @param repo Repo full name.
+     * @param owner Owner.
+     * @param contracts Contracts of the Project, filled later.
+     * @return Project.
+     */
+    private static Project project(
+        final String repo,
+        final User owner,
+        final List<Contract> contracts
+    ) {
+        final Wallet wallet = new Stand<>(Wallet.class)
+            .with("type", "FAKE")
+            .with("active", Boolean.TRUE)
+            .with("cash", BigDecimal.valueOf(10_000_000))
+            .with("debt", BigDecimal.ZERO)
+            .with("available", BigDecimal.valueOf(10_000_000))
+            .with("paymentMethods", new Stand<>(PaymentMethods.class).build())
+            .build();
+        final Wallets wallets = new Stand<>(Wallets.class, List.of(wallet))
+            .with("active", wallet)
+            .build();
+        return new Stand<>(Project.class)
+            .with("repoFullName", repo)
+            .with("provider", Seed.PROVIDER)
+            .with("owner", owner)
+            .with("wallets", wallets)
+            .with("contracts", InMemorySelf.contracts(contracts))
+            .answer("tasks", args -> InMemorySelf.tasks(contracts))
+            .build();
+    }
+
+    /**
+     * Build a Contract, with its Tasks and Invoices.
+     * @param project Project.
+     * @param contributor Contributor's username.
+     * @param seed Shape of the synthetic data.
+     * @return Contract.
+     */
+    private static Contract contract(
+        final Project project,
+        final String contributor,
+        final Seed seed
+    ) {
+        final BigDecimal rate = BigDecimal.valueOf(2500);
+        final List<Task> tasks = new ArrayList<>();
+        for(int idx = 0; idx < seed.tasks(); ++idx) {
+            tasks.add(InMemorySelf.task(idx, rate));
+        }
+        final List<Invoice> invoices = new ArrayList<>();
+        for(int idx = 1; idx <= seed.invoices(); ++idx) {
+            invoices.add(InMemorySelf.invoice(idx, idx < seed.invoices()));
+        }
+        return new Stand<>(Contract.class)
+            .with(
+                "contractId",
+                new Contract.Id(
+                    project.repoFullName(),
+                    contributor,
+                    Seed.PROVIDER,
+                    Seed.ROLE
+                )
+            )
+            .with("project", project)
+            .with("hourlyRate", rate)
+            .with(
+                "value",
+                rate.multiply(BigDecimal.valueOf(seed.tasks()))
+            )
+            .with("revenue", BigDecimal.valueOf(50_000L * seed.invoices()))
+            .with("markedForRemoval", null)
+            .with("tasks", new Stand<>(Tasks.class, tasks).build())
+            .with(
+                "invoices",
+                new Stand<>(Invoices.class, invoices)
+                    .answer(
+                        "getById",
+                        args -> InMemorySelf.invoice(invoices, (int) args[0])
+                    )
+                    .answer("active", args -> InMemorySelf.active(invoices))
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * Projects, looked up by repo full name.
+     * @param projects Projects, may be filled later.
+     * @return Projects.
+     */
+    private static Projects projects(final List<Project> projects) {
+        return new Stand<>(Projects.class, projects)
+            .answer(
+                "getProjectById",
+                args -> {
+                    Project found = null;
+                    for(final Project project : projects) {
+                        if(project.repoFullName().equals(args[0])) {
+                            found = project;
+                            break;
+                        }
+                    }
+                    return found;
+                }
+            ).build();
+    }
+
+    /**
+     * Open Tasks of a Project: the Tasks of all its Contracts.
+     * @param contracts Contracts of the Project.
+     * @return Tasks.
+     */
+    private static Tasks tasks(final List<Contract> contracts) {
+        final List<Task> open = new ArrayList<>();
+        for(final Contract contract : contracts) {
+            contract.tasks().forEach(open::add);
+        }
+        return new Stand<>(Tasks.class, open).build();
+    }
+
+    /**
+     * Contracts, looked up by id.
+     * @param contracts Contracts, may be filled later.
+     * @return Contracts.
+     */
+    private static Contracts contracts(final List<Contract> contracts) {
+        return new Stand<>(Contracts.class, contracts)
+            .answer("count", args -> contracts.size())
+            .answer(
+                "findById",
+                args -> {
+                    final Contract.Id id = (Contract.Id) args[0];
+                    return InMemorySelf.find(
+                        contracts,
+                        id.getRepoFullName(),
+                        id.getContributorUsername(),
+                        id.getRole()
+                    );
+                }
+            ).build();
+    }
+
+    /**
+     * Find a Contract.
+     * @param contracts Contracts to search.
+     * @param repo Repo full name.
+     * @param contributor Contributor's username.
+     * @param role Role.
+     * @return Contract or null if it is missing.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    private static Contract find(
+        final List<Contract> contracts,
+        final String repo,
+        final String contributor,
+        final String role
+    ) {
+        Contract found = null;
+        for(final Contract contract : contracts) {
+            final Contract.Id id = contract.contractId();
+            if(id.getRepoFullName().equals(repo)
+                && id.getContributorUsername().equals(contributor)
+                && id.getRole().equals(role)) {
+                found = contract;
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Build an assigned Task.
+     * @param idx Index of the Task.
+     * @param rate Hourly rate of the Contract.
+     * @return Task.
+     */
+    private static Task task(final int idx, final BigDecimal rate) {
+        return new Stand<>(Task.class)
+            .with("issueId", String.valueOf(idx + 1))
+            .with("assignmentDate", NOW.minusDays(idx % 10))
+            .with("deadline", NOW.plusDays(10 - idx % 10))
+            .with("estimation", 60)
+            .with("value", rate)
+            .build();
+    }
+
+    /**
+     * Build an Invoice.
+     * @param id Invoice id.
+     * @param paid Is it paid?
+     * @return Invoice.
+     */
+    private static Invoice invoice(final int id, final boolean paid) {
+        Payment latest = null;
+        if(paid) {
+            latest = new Stand<>(Payment.class)
+                .with("status", Payment.Status.SUCCESSFUL)
+                .with("failReason", "")
+                .with("transactionId", "fake_" + id)
+                .with("paymentTime", NOW.minusDays(id))
+                .build();
+        }
+        return new Stand<>(Invoice.class)
+            .with("invoiceId", id)
+            .with("createdAt", NOW.minusMonths(id))
+            .with("isPaid", paid)
+            .with("amount", BigDecimal.valueOf(50_000))
+            .with("totalAmount", BigDecimal.valueOf(54_000))
+            .with("latest", latest)
+            .with("tasks", new Stand<>(InvoicedTasks.class).build())
+            .build();
+    }
+
+    /**
+     * The active Invoice, which is the last one.
+     * @param invoices Invoices.
+     * @return Invoice or null if there are no Invoices.
+     */
+    private static Invoice active(final List<Invoice> invoices) {
+        Invoice active = null;
+        if(!invoices.isEmpty()) {
+            active = invoices.get(invoices.size() - 1);
+        }
+        return active;
+    }
+
+    /**
+     * Find an Invoice by id.
+     * @param invoices Invoices.
+     * @param id Invoice id.
+     * @return Invoice or null if it is missing.
+     */
+    private static Invoice invoice(final List<Invoice> invoices, final int id) {
+        Invoice found = null;
+        if(id >= 1 && id <= invoices.size()) {
+            found = invoices.get(id - 1);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Contributor;
+import com.selfxdsd.api.Login;
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.User;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.stream.StreamSupport;
+
+/**
+ * Unit tests for {@link InMemorySelf}. They check that the seeded data
+ * has the shape which the {@link LoadGenerator} expects.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class InMemorySelfTestCase {
+
+    /**
+     * A seeded User owns its Projects, which have Contracts with the
+     * next Users.
+     */
+    @Test
+    public void seedsOwnedProjects() {
+        final Seed seed = new Seed(5, 2, 3, 4, 6);
+        final User user = new InMemorySelf(seed).login(this.login("loaduser4"));
+        MatcherAssert.assertThat(user.username(), Matchers.is("loaduser4"));
+        MatcherAssert.assertThat(user.provider().name(), Matchers.is("github"));
+        final Project project = user.projects().getProjectById(
+            "loaduser4/repo1", "github"
+        );
+        MatcherAssert.assertThat(project.owner(), Matchers.sameInstance(user));
+        MatcherAssert.assertThat(project.contracts().count(), Matchers.is(3));
+        final Contract contract = project.contracts().findById(
+            new Contract.Id("loaduser4/repo1", "loaduser0", "github", "DEV")
+        );
+        MatcherAssert.assertThat(
+            StreamSupport.stream(contract.tasks().spliterator(), false)
+                .count(),
+            Matchers.is(4L)
+        );
+        MatcherAssert.assertThat(
+            contract.invoices().getById(6).isPaid(), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            contract.invoices().getById(5).isPaid(), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            contract.project().wallets().active().type(), Matchers.is("FAKE")
+        );
+    }
+
+    /**
+     * A seeded User is Contributor to the Projects of the previous Users.
+     */
+    @Test
+    public void seedsContributorContracts() {
+        final Seed seed = new Seed(5, 2, 3, 4, 6);
+        final Contributor contributor = new InMemorySelf(seed)
+            .login(this.login("loaduser0"))
+            .asContributor();
+        MatcherAssert.assertThat(
+            StreamSupport.stream(contributor.contracts().spliterator(), false)
+                .count(),
+            Matchers.is(6L)
+        );
+        MatcherAssert.assertThat(
+            contributor.contract("loaduser4/repo0", "github", "DEV"),
+            Matchers.notNullValue()
+        );
+        MatcherAssert.assertThat(
+            contributor.contract("loaduser1/repo0", "github", "DEV"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Projects can be found by their full name.
+     */
+    @Test
+    public void findsProjects() {
+        final InMemorySelf self = new InMemorySelf(new Seed(3, 1, 1, 1, 1));
+        MatcherAssert.assertThat(
+            self.projects().getProjectById("loaduser2/repo0", "github")
+                .repoFullName(),
+            Matchers.is("loaduser2/repo0")
+        );
+        MatcherAssert.assertThat(
+            self.projects().getProjectById("loaduser2/repo1", "github"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * Mock the Login of a User.
+     * @param username Username.
+     * @return Login.
+     */
+    private Login login(final String username) {
+        final Login login = Mockito.mock(Login.class);
+        Mockito.when(login.username()).thenReturn(username);
+        return login;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the requests sent to one endpoint, in nanoseconds.
+ * Thread-safe: all the virtual users of the load test record here.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+final class Latencies {
+
+    /**
+     * Lock of the recorded values.
+     */
+    private final Object lock;
+
+    /**
+     * Recorded latencies; only the first "count" values are used.
+     */
+    private long[] values;
+
+    /**
+     * Number of recorded latencies.
+     */
+    private int count;
+
+    /**
+     * Number of failed requests.
+     */
+    private int errors;
+
+    /**
+     * Ctor.
+     */
+    Latencies() {
+        this.lock = new Object();
+        this.values = new long[1024];
+    }
+
+    /**
+     * Record a request.
+     * @param nanos Latency, in nanoseconds.
+     * @param success Was the request successful?
+     */
+    void record(final long nanos, final boolean success) {
+        synchronized (this.lock) {
+            if(this.count == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.count * 2);
+            }
+            this.values[this.count] = nanos;
+            this.count = this.count + 1;
+            if(!success) {
+                this.errors = this.errors + 1;
+            }
+        }
+    }
+
+    /**
+     * Number of recorded requests.
+     * @return Integer.
+     */
+    int count() {
+        synchronized (this.lock) {
+            return this.count;
+        }
+    }
+
+    /**
+     * Number of failed requests.
+     * @return Integer.
+     */
+    int errors() {
+        synchronized (this.lock) {
+            return this.errors;
+        }
+    }
+
+    /**
+     * Percentile of the latencies (nearest rank), in milliseconds.
+     * @param percent Percentile, between 0 (exclusive) and 100.
+     * @return Milliseconds or 0 if nothing was recorded.
+     */
+    double percentile(final double percent) {
+        final long[] sorted;
+        synchronized (this.lock) {
+            sorted = Arrays.copyOf(this.values, this.count);
+        }
+        double millis = 0;
+        if(sorted.length > 0) {
+            Arrays.sort(sorted);
+            final int rank = (int) Math.ceil(percent / 100 * sorted.length);
+            millis = sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Latencies}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class LatenciesTestCase {
+
+    /**
+     * It computes the nearest-rank percentiles, in milliseconds.
+     */
+    @Test
+    public void computesPercentiles() {
+        final Latencies latencies = new Latencies();
+        for(int millis = 2000; millis > 0; --millis) {
+            latencies.record(millis * 1_000_000L, millis % 100 != 0);
+        }
+        MatcherAssert.assertThat(latencies.count(), Matchers.is(2000));
+        MatcherAssert.assertThat(latencies.errors(), Matchers.is(20));
+        MatcherAssert.assertThat(
+            latencies.percentile(50), Matchers.is(1000.0)
+        );
+        MatcherAssert.assertThat(
+            latencies.percentile(95), Matchers.is(1900.0)
+        );
+        MatcherAssert.assertThat(
+            latencies.percentile(99), Matchers.is(1980.0)
+        );
+        MatcherAssert.assertThat(
+            latencies.percentile(100), Matchers.is(2000.0)
+        );
+    }
+
+    /**
+     * Without any request, the percentiles are 0.
+     */
+    @Test
+    public void emptyIsZero() {
+        MatcherAssert.assertThat(
+            new Latencies().percentile(99), Matchers.is(0.0)
+        );
+    }
+}
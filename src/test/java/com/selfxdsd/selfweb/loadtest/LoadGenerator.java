@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scripted workload against the /api endpoints of an app running with
+ * the "loadtest" profile. Each virtual user logs in as one of the seeded
+ * Users (see {@link FakeLoginFilter}) and calls the endpoints in a loop,
+ * with its own session. After the warmup, the latencies are recorded
+ * per endpoint and at the end we print the throughput and the p50, p95
+ * and p99 latencies of each one.<br><br>
+ *
+ * Run it with "mvn -Ploadtest test-compile exec:java", the settings are
+ * the system properties loadtest.url, loadtest.users (must match
+ * self.loadtest.users of the server), loadtest.concurrency,
+ * loadtest.warmup-seconds and loadtest.duration-seconds.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class LoadGenerator {
+
+    /**
+     * Base URL of the app.
+     */
+    private final String url;
+
+    /**
+     * Shape of the data seeded on the server.
+     */
+    private final Seed seed;
+
+    /**
+     * Number of concurrent virtual users.
+     */
+    private final int concurrency;
+
+    /**
+     * Latencies, by endpoint.
+     */
+    private final Map<String, Latencies> latencies;
+
+    /**
+     * Ctor.
+     * @param url Base URL of the app.
+     * @param seed Shape of the data seeded on the server.
+     * @param concurrency Number of concurrent virtual users.
+     */
+    public LoadGenerator(
+        final String url,
+        final Seed seed,
+        final int concurrency
+    ) {
+        this.url = url;
+        this.seed = seed;
+        this.concurrency = concurrency;
+        this.latencies = new LinkedHashMap<>();
+        for(final String[] endpoint : this.endpoints(0)) {
+            this.latencies.put(endpoint[0], new Latencies());
+        }
+    }
+
+    /**
+     * Run the load test.
+     * @param args Command-line args, not used.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final LoadGenerator generator = new LoadGenerator(
+            System.getProperty("loadtest.url", "http://localhost:8080"),
+            new Seed(Integer.getInteger("loadtest.users", 50), 1, 1, 0, 0),
+            Integer.getInteger("loadtest.concurrency", 16)
+        );
+        generator.run(
+            Duration.ofSeconds(
+                Integer.getInteger("loadtest.warmup-seconds", 10)
+            ),
+            Duration.ofSeconds(
+                Integer.getInteger("loadtest.duration-seconds", 60)
+            )
+        );
+    }
+
+    /**
+     * Run the workload and print the report.
+     * @param warmup Time during which nothing is recorded.
+     * @param duration Time during which the latencies are recorded.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void run(final Duration warmup, final Duration duration)
+        throws InterruptedException {
+        final long start = System.nanoTime();
+        final long recordFrom = start + warmup.toNanos();
+        final long stopAt = recordFrom + duration.toNanos();
+        final ExecutorService users = Executors.newFixedThreadPool(
+            this.concurrency
+        );
+        for(int idx = 0; idx < this.concurrency; ++idx) {
+            final int user = idx;
+            users.execute(() -> this.user(user, recordFrom, stopAt));
+        }
+        users.shutdown();
+        users.awaitTermination(
+            warmup.plus(duration).plusMinutes(1).toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+        users.shutdownNow();
+        this.report(System.out, duration);
+    }
+
+    /**
+     * Print the report.
+     * @param out Where to print.
+     * @param duration Time during which the latencies were recorded.
+     */
+    void report(final PrintStream out, final Duration duration) {
+        final double seconds = duration.toMillis() / 1000.0;
+        out.println(
+            String.format(
+                Locale.ROOT, "%-62s %8s %6s %9s %8s %8s %8s",
+                "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p95 ms", "p99 ms"
+            )
+        );
+        for(final Map.Entry<String, Latencies> entry
+            : this.latencies.entrySet()) {
+            final Latencies lat = entry.getValue();
+            out.println(
+                String.format(
+                    Locale.ROOT, "%-62s %8d %6d %9.1f %8.2f %8.2f %8.2f",
+                    entry.getKey(), lat.count(), lat.errors(),
+                    lat.count() / seconds,
+                    lat.percentile(50), lat.percentile(95),
+                    lat.percentile(99)
+                )
+            );
+        }
+    }
+
+    /**
+     * One virtual user: call the endpoints in a loop, with its own session.
+     * @param user Index of the virtual user, gives the seeded User.
+     * @param recordFrom When to start recording, in System.nanoTime().
+     * @param stopAt When to stop, in System.nanoTime().
+     */
+    private void user(
+        final int user,
+        final long recordFrom,
+        final long stopAt
+    ) {
+        final HttpClient client = HttpClient.newBuilder()
+            .cookieHandler(new CookieManager())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        final List<String[]> endpoints = this.endpoints(user);
+        int next = 0;
+        while(System.nanoTime() < stopAt
+            && !Thread.currentThread().isInterrupted()) {
+            final String[] endpoint = endpoints.get(next % endpoints.size());
+            next = next + 1;
+            final HttpRequest request = HttpRequest
+                .newBuilder(URI.create(this.url + endpoint[1]))
+                .header(FakeLoginFilter.HEADER, this.seed.username(user))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+            final long begin = System.nanoTime();
+            boolean success;
+            try {
+                final int status = client.send(
+                    request, HttpResponse.BodyHandlers.discarding()
+                ).statusCode();
+                success = status >= 200 && status < 300;
+            } catch (final IOException ex) {
+                success = false;
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                success = false;
+            }
+            if(begin >= recordFrom) {
+                this.latencies.get(endpoint[0]).record(
+                    System.nanoTime() - begin, success
+                );
+            }
+        }
+    }
+
+    /**
+     * Endpoints called by a virtual user: pairs of endpoint name and path.
+     * The User calls the Contracts of the first Project it owns and its own
+     * Contract with the previous User's first Project.
+     * @param user Index of the virtual user.
+     * @return List of endpoint name and path.
+     */
+    private List<String[]> endpoints(final int user) {
+        final String owned = this.seed.repo(user, 0);
+        final String contributor = this.seed.username(user + 1);
+        final String assigned = this.seed.repo(user - 1, 0);
+        final String role = "?role=" + Seed.ROLE;
+        final List<String[]> endpoints = new ArrayList<>();
+        endpoints.add(new String[] {"/api/users/self", "/api/users/self"});
+        endpoints.add(new String[] {"/api/contributor", "/api/contributor"});
+        endpoints.add(
+            new String[] {
+                "/api/contributor/contracts/{repo}/tasks",
+                "/api/contributor/contracts/" + assigned + "/tasks" + role,
+            }
+        );
+        endpoints.add(
+            new String[] {
+                "/api/contributor/contracts/{repo}/invoices",
+                "/api/contributor/contracts/" + assigned + "/invoices" + role,
+            }
+        );
+        endpoints.add(
+            new String[] {
+                "/api/projects/{repo}/contracts",
+                "/api/projects/" + owned + "/contracts",
+            }
+        );
+        endpoints.add(
+            new String[] {
+                "/api/projects/{repo}/contracts/{username}/tasks",
+                "/api/projects/" + owned + "/contracts/" + contributor
+                    + "/tasks" + role,
+            }
+        );
+        endpoints.add(
+            new String[] {
+                "/api/projects/{repo}/contracts/{username}/invoices",
+                "/api/projects/" + owned + "/contracts/" + contributor
+                    + "/invoices" + role,
+            }
+        );
+        endpoints.add(
+            new String[] {
+                "/api/projects/{repo}/wallets",
+                "/api/projects/" + owned + "/wallets",
+            }
+        );
+        return endpoints;
+    }
+}
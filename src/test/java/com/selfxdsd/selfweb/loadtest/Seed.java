@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+/**
+ * Shape of the synthetic data of the load test. Every User owns the same
+ * number of Projects and each Project has Contracts with the next Users,
+ * in order: the Contributors of "loaduser3/repo0" are loaduser4,
+ * loaduser5 etc. This way, the load generator knows which URLs are valid
+ * for each User without asking the server.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class Seed {
+
+    /**
+     * Provider of all the synthetic data.
+     */
+    public static final String PROVIDER = "github";
+
+    /**
+     * Role of all the Contracts.
+     */
+    public static final String ROLE = "DEV";
+
+    /**
+     * Number of Users.
+     */
+    private final int users;
+
+    /**
+     * Projects owned by each User.
+     */
+    private final int projects;
+
+    /**
+     * Contracts of each Project.
+     */
+    private final int contracts;
+
+    /**
+     * Tasks of each Contract.
+     */
+    private final int tasks;
+
+    /**
+     * Invoices of each Contract.
+     */
+    private final int invoices;
+
+    /**
+     * Ctor.
+     * @param users Number of Users.
+     * @param projects Projects owned by each User.
+     * @param contracts Contracts of each Project.
+     * @param tasks Tasks of each Contract.
+     * @param invoices Invoices of each Contract.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    public Seed(
+        final int users,
+        final int projects,
+        final int contracts,
+        final int tasks,
+        final int invoices
+    ) {
+        if(users < 2 || contracts >= users) {
+            throw new IllegalArgumentException(
+                "Need at least 2 users and more users than contracts"
+                + " per project."
+            );
+        }
+        this.users = users;
+        this.projects = projects;
+        this.contracts = contracts;
+        this.tasks = tasks;
+        this.invoices = invoices;
+    }
+
+    /**
+     * Number of Users.
+     * @return Integer.
+     */
+    public int users() {
+        return this.users;
+    }
+
+    /**
+     * Projects owned by each User.
+     * @return Integer.
+     */
+    public int projects() {
+        return this.projects;
+    }
+
+    /**
+     * Contracts of each Project.
+     * @return Integer.
+     */
+    public int contracts() {
+        return this.contracts;
+    }
+
+    /**
+     * Tasks of each Contract.
+     * @return Integer.
+     */
+    public int tasks() {
+        return this.tasks;
+    }
+
+    /**
+     * Invoices of each Contract.
+     * @return Integer.
+     */
+    public int invoices() {
+        return this.invoices;
+    }
+
+    /**
+     * Username of a User.
+     * @param user Index of the User, wraps around.
+     * @return Username.
+     */
+    public String username(final int user) {
+        return "loaduser" + Math.floorMod(user, this.users);
+    }
+
+    /**
+     * Full name of one of the User's repos.
+     * @param user Index of the owner, wraps around.
+     * @param project Index of the Project.
+     * @return Repo full name.
+     */
+    public String repo(final int user, final int project) {
+        return this.username(user) + "/repo" + project;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-in of a self-api interface, built with a dynamic Proxy.
+ * The methods are answered by name, with fixed values or with functions
+ * of the call's arguments.<br><br>
+ *
+ * If it is given elements, the stand-in is also an Iterable over them
+ * (iterator(), spliterator() and forEach() read the list). The list is
+ * read on every call, so it can be filled after the stand-in is built.
+ * Any other method throws UnsupportedOperationException, which the load
+ * test reports as a failed request.<br><br>
+ *
+ * It is also the stand-in of the JMH benchmarks (see benchmarks/pom.xml),
+ * so they measure our JSON output and not a database or a mocking
+ * library.
+ * @param <T> Type of the stand-in.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class Stand<T> implements InvocationHandler {
+
+    /**
+     * Type of the stand-in.
+     */
+    private final Class<T> type;
+
+    /**
+     * Answers of the methods, by method name.
+     */
+    private final Map<String, Function<Object[], Object>> answers;
+
+    /**
+     * Elements, if the stand-in is Iterable.
+     */
+    private final List<?> elements;
+
+    /**
+     * Ctor.
+     * @param type Type of the stand-in.
+     */
+    public Stand(final Class<T> type) {
+        this(type, List.of());
+    }
+
+    /**
+     * Ctor.
+     * @param type Type of the stand-in.
+     * @param elements Elements, if the stand-in is Iterable.
+     */
+    public Stand(final Class<T> type, final List<?> elements) {
+        this.type = type;
+        this.elements = elements;
+        this.answers = new HashMap<>();
+    }
+
+    /**
+     * Answer the given method with a fixed value.
+     * @param method Method name.
+     * @param value Value, can be null.
+     * @return This.
+     */
+    public Stand<T> with(final String method, final Object value) {
+        return this.answer(method, args -> value);
+    }
+
+    /**
+     * Answer the given method with a function of its arguments.
+     * @param method Method name.
+     * @param answer Answer.
+     * @return This.
+     */
+    public Stand<T> answer(
+        final String method,
+        final Function<Object[], Object> answer
+    ) {
+        this.answers.put(method, answer);
+        return this;
+    }
+
+    /**
+     * Build the stand-in.
+     * @return T.
+     */
+    public T build() {
+        return this.type.cast(
+            Proxy.newProxyInstance(
+                this.type.getClassLoader(),
+                new Class<?>[] {this.type},
+                this
+            )
+        );
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(
+        final Object proxy,
+        final Method method,
+        final Object[] args
+    ) {
+        final String name = method.getName();
+        final Object result;
+        if(this.answers.containsKey(name)) {
+            result = this.answers.get(name).apply(args);
+        } else if("iterator".equals(name)) {
+            result = this.elements.iterator();
+        } else if("spliterator".equals(name)) {
+            result = this.elements.spliterator();
+        } else if("forEach".equals(name)) {
+            this.elements.forEach(
+                elem -> ((Consumer<Object>) args[0]).accept(elem)
+            );
+            result = null;
+        } else if("hashCode".equals(name)) {
+            result = System.identityHashCode(proxy);
+        } else if("equals".equals(name)) {
+            result = proxy == args[0];
+        } else if("toString".equals(name)) {
+            result = "Stand of " + this.type.getSimpleName();
+        } else {
+            throw new UnsupportedOperationException(
+                this.type.getSimpleName() + "." + name
+                + " is not answered by this stand-in."
+            );
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link Outbound}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class OutboundTestCase {
+
+    /**
+     * A successful call is timed and its result returned.
+     */
+    @Test
+    public void timesSuccessfulCall() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        MatcherAssert.assertThat(
+            Outbound.timed(registry, "stripe", "pay", () -> "paid"),
+            Matchers.equalTo("paid")
+        );
+        final Timer timer = registry.get(Outbound.TIMER)
+            .tag("target", "stripe")
+            .tag("operation", "pay")
+            .tag("outcome", "success")
+            .timer();
+        MatcherAssert.assertThat(timer.count(), Matchers.is(1L));
+    }
+
+    /**
+     * A failed call is timed with the error outcome and its exception
+     * is rethrown.
+     */
+    @Test
+    public void timesFailedCall() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> Outbound.timed(
+                registry, "provider", "activate",
+                () -> {
+                    throw new IllegalStateException("Github is down.");
+                }
+            )
+        );
+        final Timer timer = registry.get(Outbound.TIMER)
+            .tag("target", "provider")
+            .tag("outcome", "error")
+            .timer();
+        MatcherAssert.assertThat(timer.count(), Matchers.is(1L));
+    }
+
+    /**
+     * Without any registry, the call still goes through.
+     */
+    @Test
+    public void worksWithoutRegistry() {
+        MatcherAssert.assertThat(
+            Outbound.provider("repo", () -> 42),
+            Matchers.is(42)
+        );
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.metrics;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+import javax.json.JsonObject;
+
+/**
+ * Unit tests for {@link RequestTrace}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class RequestTraceTestCase {
+
+    /**
+     * The spans are summed up by target in the Server-Timing header.
+     */
+    @Test
+    public void sumsSegmentsInServerTiming() {
+        final RequestTrace trace = new RequestTrace("GET /api/contributor");
+        trace.span("provider", "organizations", 120_000_000L);
+        trace.span("db", "READ", 2_000_000L);
+        trace.span("provider", "organization_repos", 30_500_000L);
+        trace.finish();
+        MatcherAssert.assertThat(
+            trace.serverTiming(),
+            Matchers.startsWith(
+                "provider;dur=150.5;desc=\"2 calls\", "
+                + "db;dur=2.0;desc=\"1 calls\", total;dur="
+            )
+        );
+        final JsonObject json = trace.json();
+        MatcherAssert.assertThat(
+            json.getString("request"), Matchers.is("GET /api/contributor")
+        );
+        MatcherAssert.assertThat(
+            json.getJsonObject("segments").getJsonObject("provider")
+                .getJsonNumber("ms").doubleValue(),
+            Matchers.is(150.5)
+        );
+        MatcherAssert.assertThat(
+            json.getJsonArray("spans").size(), Matchers.is(3)
+        );
+    }
+
+    /**
+     * Spans are recorded only in the trace of the current thread,
+     * and within() attaches a trace to another thread.
+     */
+    @Test
+    public void recordsInCurrentThreadOnly() throws Exception {
+        final RequestTrace trace = new RequestTrace("GET /api/x").start();
+        RequestTrace.record("stripe", "pay", 1_000_000L);
+        final Thread other = new Thread(
+            () -> {
+                RequestTrace.record("db", "READ", 1_000_000L);
+                RequestTrace.within(
+                    trace,
+                    () -> {
+                        RequestTrace.record("db", "WRITE", 1_000_000L);
+                        return true;
+                    }
+                );
+            }
+        );
+        other.start();
+        other.join();
+        trace.finish();
+        MatcherAssert.assertThat(RequestTrace.current(), Matchers.nullValue());
+        MatcherAssert.assertThat(
+            trace.json().getJsonArray("spans").size(), Matchers.is(2)
+        );
+    }
+
+    /**
+     * Outbound calls are added to the current trace.
+     */
+    @Test
+    public void tracesOutboundCalls() {
+        final RequestTrace trace = new RequestTrace("POST /api/pay").start();
+        Outbound.stripe("pay", () -> "paid");
+        trace.finish();
+        MatcherAssert.assertThat(
+            trace.json().getJsonObject("segments").getJsonObject("stripe")
+                .getInt("calls"),
+            Matchers.is(1)
+        );
+    }
+}
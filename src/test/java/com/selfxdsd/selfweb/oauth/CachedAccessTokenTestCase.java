@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.oauth;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Unit tests for {@link CachedAccessToken}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class CachedAccessTokenTestCase {
+
+    /**
+     * A token without a refresh token is loaded once, even if Spring
+     * says it expired.
+     */
+    @Test
+    public void loadsTokenOnce() {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("github", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "github", "gh123", Duration.ofSeconds(-10), false
+                )
+            );
+        final CachedAccessToken token = new CachedAccessToken(
+            clients, new TokenRefresher(), "github", "mihai"
+        );
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("gh123"));
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("gh123"));
+        Mockito.verify(clients, Mockito.times(1))
+            .loadAuthorizedClient("github", "mihai");
+    }
+
+    /**
+     * A token which is about to expire is refreshed when it is read.
+     */
+    @Test
+    public void refreshesExpiringToken() {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("gitlab", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "gitlab", "old", Duration.ofSeconds(10), true
+                )
+            );
+        final TokenRefresher refresher = Mockito.mock(TokenRefresher.class);
+        Mockito.when(refresher.refresh("gitlab", "mihai")).thenReturn(
+            CachedAccessTokenTestCase.client(
+                "gitlab", "new", Duration.ofHours(2), true
+            )
+        );
+        final CachedAccessToken token = new CachedAccessToken(
+            clients, refresher, "gitlab", "mihai"
+        );
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("new"));
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("new"));
+        Mockito.verify(refresher, Mockito.times(1)).refresh("gitlab", "mihai");
+        Mockito.verify(clients, Mockito.times(1))
+            .loadAuthorizedClient("gitlab", "mihai");
+    }
+
+    /**
+     * If the token cannot be refreshed, the loaded one is used.
+     */
+    @Test
+    public void usesLoadedTokenIfRefreshFails() {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("gitlab", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "gitlab", "old", Duration.ofSeconds(10), true
+                )
+            );
+        final CachedAccessToken token = new CachedAccessToken(
+            clients, new TokenRefresher(), "gitlab", "mihai"
+        );
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("old"));
+    }
+
+    /**
+     * It complains if the User has no authorized client.
+     */
+    @Test
+    public void complainsIfNoClient() {
+        final CachedAccessToken token = new CachedAccessToken(
+            Mockito.mock(OAuth2AuthorizedClientService.class),
+            new TokenRefresher(),
+            "github",
+            "mihai"
+        );
+        Assertions.assertThrows(IllegalStateException.class, token::value);
+    }
+
+    /**
+     * A token is idle if it was not read for a while.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void becomesIdle() throws Exception {
+        final CachedAccessToken token = new CachedAccessToken(
+            Mockito.mock(OAuth2AuthorizedClientService.class),
+            new TokenRefresher(),
+            "github",
+            "mihai"
+        );
+        MatcherAssert.assertThat(
+            token.idle(Duration.ofMinutes(1)), Matchers.is(false)
+        );
+        Thread.sleep(20);
+        MatcherAssert.assertThat(
+            token.idle(Duration.ofMillis(5)), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Authorized client.
+     * @param registration Client registration id.
+     * @param value Value of the access token.
+     * @param expiresIn Time until the access token expires.
+     * @param refreshable Does it have a refresh token?
+     * @return OAuth2AuthorizedClient.
+     * @checkstyle ParameterNumber (10 lines)
+     */
+    static OAuth2AuthorizedClient client(
+        final String registration,
+        final String value,
+        final Duration expiresIn,
+        final boolean refreshable
+    ) {
+        final Instant now = Instant.now();
+        final OAuth2RefreshToken refresh;
+        if(refreshable) {
+            refresh = new OAuth2RefreshToken("refresh-" + value, now);
+        } else {
+            refresh = null;
+        }
+        return new OAuth2AuthorizedClient(
+            ClientRegistration.withRegistrationId(registration)
+                .clientId("self")
+                .authorizationGrantType(
+                    AuthorizationGrantType.AUTHORIZATION_CODE
+                )
+                .redirectUriTemplate("{baseUrl}/login/oauth2/code/{id}")
+                .authorizationUri("https://example.com/oauth/authorize")
+                .tokenUri("https://example.com/oauth/token")
+                .build(),
+            "mihai",
+            new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER,
+                value,
+                now.minusSeconds(60),
+                now.plus(expiresIn)
+            ),
+            refresh
+        );
+    }
+}
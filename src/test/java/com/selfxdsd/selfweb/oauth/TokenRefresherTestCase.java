@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.oauth;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link TokenRefresher}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class TokenRefresherTestCase {
+
+    /**
+     * Without a manager, nothing is refreshed.
+     */
+    @Test
+    public void refreshesNothingWithoutManager() {
+        MatcherAssert.assertThat(
+            new TokenRefresher().refresh("gitlab", "mihai"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A failed refresh returns null.
+     */
+    @Test
+    public void returnsNullIfRefreshFails() {
+        final OAuth2AuthorizedClientManager manager = Mockito.mock(
+            OAuth2AuthorizedClientManager.class
+        );
+        Mockito.when(manager.authorize(Mockito.any())).thenThrow(
+            new OAuth2AuthorizationException(new OAuth2Error("invalid_grant"))
+        );
+        MatcherAssert.assertThat(
+            new TokenRefresher(
+                manager, null, Duration.ofMinutes(5), Duration.ofMinutes(30)
+            ).refresh("gitlab", "mihai"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A slow refresh of one User's client does not hold the refresh of
+     * another User's client.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refreshesClientsIndependently() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final OAuth2AuthorizedClientManager manager = Mockito.mock(
+            OAuth2AuthorizedClientManager.class
+        );
+        Mockito.when(manager.authorize(Mockito.any())).thenAnswer(
+            inv -> {
+                final OAuth2AuthorizeRequest request = inv.getArgument(0);
+                if("slow".equals(request.getPrincipal().getName())) {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return CachedAccessTokenTestCase.client(
+                    "gitlab", "new", Duration.ofHours(2), true
+                );
+            }
+        );
+        final TokenRefresher refresher = new TokenRefresher(
+            manager, null, Duration.ofMinutes(5), Duration.ofMinutes(30)
+        );
+        final CompletableFuture<OAuth2AuthorizedClient> slow =
+            CompletableFuture.supplyAsync(
+                () -> refresher.refresh("gitlab", "slow")
+            );
+        try {
+            MatcherAssert.assertThat(
+                started.await(5, TimeUnit.SECONDS), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(
+                CompletableFuture.supplyAsync(
+                    () -> refresher.refresh("gitlab", "fast")
+                ).get(2, TimeUnit.SECONDS),
+                Matchers.notNullValue()
+            );
+            MatcherAssert.assertThat(slow.isDone(), Matchers.is(false));
+        } finally {
+            release.countDown();
+        }
+        MatcherAssert.assertThat(
+            slow.get(5, TimeUnit.SECONDS), Matchers.notNullValue()
+        );
+    }
+
+    /**
+     * A refreshable token is refreshed ahead of its expiry and the
+     * login uses the new token, without loading it again.
+     */
+    @Test
+    public void refreshesAheadOfExpiry() {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("gitlab", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "gitlab", "old", Duration.ofMinutes(10), true
+                )
+            );
+        final OAuth2AuthorizedClientManager manager = Mockito.mock(
+            OAuth2AuthorizedClientManager.class
+        );
+        Mockito.when(manager.authorize(Mockito.any())).thenReturn(
+            CachedAccessTokenTestCase.client(
+                "gitlab", "new", Duration.ofHours(2), true
+            )
+        );
+        final ScheduledExecutorService scheduler = Mockito.mock(
+            ScheduledExecutorService.class
+        );
+        final CachedAccessToken token = new CachedAccessToken(
+            clients,
+            new TokenRefresher(
+                manager, scheduler,
+                Duration.ofMinutes(5), Duration.ofMinutes(30)
+            ),
+            "gitlab",
+            "mihai"
+        );
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("old"));
+        final ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        final ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(
+            Runnable.class
+        );
+        Mockito.verify(scheduler).schedule(
+            refresh.capture(), delay.capture(),
+            Mockito.eq(TimeUnit.MILLISECONDS)
+        );
+        MatcherAssert.assertThat(
+            delay.getValue(),
+            Matchers.allOf(
+                Matchers.greaterThan(Duration.ofMinutes(4).toMillis()),
+                Matchers.lessThanOrEqualTo(Duration.ofMinutes(5).toMillis())
+            )
+        );
+        refresh.getValue().run();
+        MatcherAssert.assertThat(token.value(), Matchers.equalTo("new"));
+        final ArgumentCaptor<OAuth2AuthorizeRequest> request =
+            ArgumentCaptor.forClass(OAuth2AuthorizeRequest.class);
+        Mockito.verify(manager).authorize(request.capture());
+        MatcherAssert.assertThat(
+            request.getValue().getClientRegistrationId(),
+            Matchers.equalTo("gitlab")
+        );
+        MatcherAssert.assertThat(
+            request.getValue().getPrincipal().getName(),
+            Matchers.equalTo("mihai")
+        );
+        Mockito.verify(clients, Mockito.times(1))
+            .loadAuthorizedClient("gitlab", "mihai");
+    }
+
+    /**
+     * An idle token is not refreshed anymore.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void doesNotRefreshIdleToken() throws Exception {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("gitlab", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "gitlab", "old", Duration.ofMinutes(10), true
+                )
+            );
+        final OAuth2AuthorizedClientManager manager = Mockito.mock(
+            OAuth2AuthorizedClientManager.class
+        );
+        final ScheduledExecutorService scheduler = Mockito.mock(
+            ScheduledExecutorService.class
+        );
+        final CachedAccessToken token = new CachedAccessToken(
+            clients,
+            new TokenRefresher(
+                manager, scheduler,
+                Duration.ofMinutes(5), Duration.ofMillis(5)
+            ),
+            "gitlab",
+            "mihai"
+        );
+        token.value();
+        final ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(
+            Runnable.class
+        );
+        Mockito.verify(scheduler).schedule(
+            refresh.capture(), Mockito.anyLong(),
+            Mockito.eq(TimeUnit.MILLISECONDS)
+        );
+        Thread.sleep(20);
+        refresh.getValue().run();
+        Mockito.verify(manager, Mockito.never()).authorize(Mockito.any());
+    }
+
+    /**
+     * Tokens without a refresh token are not scheduled.
+     */
+    @Test
+    public void doesNotScheduleNotRefreshableToken() {
+        final OAuth2AuthorizedClientService clients = Mockito.mock(
+            OAuth2AuthorizedClientService.class
+        );
+        Mockito.when(clients.loadAuthorizedClient("github", "mihai"))
+            .thenReturn(
+                CachedAccessTokenTestCase.client(
+                    "github", "gh123", Duration.ofSeconds(1), false
+                )
+            );
+        final ScheduledExecutorService scheduler = Mockito.mock(
+            ScheduledExecutorService.class
+        );
+        new CachedAccessToken(
+            clients,
+            new TokenRefresher(
+                Mockito.mock(OAuth2AuthorizedClientManager.class),
+                scheduler,
+                Duration.ofMinutes(5),
+                Duration.ofMinutes(30)
+            ),
+            "github",
+            "mihai"
+        ).value();
+        Mockito.verifyNoInteractions(scheduler);
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.payments;
+
+import com.selfxdsd.api.Contract;
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.User;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link BatchReport}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class BatchReportTestCase {
+
+    /**
+     * It reserves cash only while the Wallet covers the Invoices.
+     */
+    @Test
+    public void reservesAvailableCash() {
+        final BatchReport report = new BatchReport(BigDecimal.valueOf(2500));
+        MatcherAssert.assertThat(
+            report.reserve(this.mockInvoice(1, 1000)), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            report.reserve(this.mockInvoice(2, 2000)), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            report.reserve(this.mockInvoice(3, 1500)), Matchers.is(true)
+        );
+        final JsonObject json = this.json(report.response());
+        MatcherAssert.assertThat(
+            json.getJsonNumber("reserved").bigDecimalValue(),
+            Matchers.comparesEqualTo(BigDecimal.valueOf(25))
+        );
+    }
+
+    /**
+     * The report is 202 ACCEPTED while some payments are running.
+     */
+    @Test
+    public void acceptedWhilePending() {
+        final BatchReport report = new BatchReport(BigDecimal.valueOf(5000));
+        final Contract contract = Mockito.mock(Contract.class);
+        Mockito.when(contract.contractId()).thenReturn(
+            new Contract.Id("mihai/test", "john", "github", "DEV")
+        );
+        final Invoice invoice = this.mockInvoice(1, 1000);
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.username()).thenReturn("mihai");
+        final PaymentJob job = new PaymentJobs(
+            Duration.ofMinutes(1), task -> { }
+        ).pay(user, 1, () -> ResponseEntity.ok("{}"));
+        report.submitted(contract, invoice, job);
+        report.skipped(contract, this.mockInvoice(2, 0), "Nothing to pay.");
+        final ResponseEntity<String> resp = report.response();
+        MatcherAssert.assertThat(
+            resp.getStatusCode(), Matchers.is(HttpStatus.ACCEPTED)
+        );
+        final JsonObject json = this.json(resp);
+        MatcherAssert.assertThat(json.getInt("pending"), Matchers.is(1));
+        MatcherAssert.assertThat(
+            json.getJsonArray("invoices").getJsonObject(0).getString("job"),
+            Matchers.is(job.id())
+        );
+        MatcherAssert.assertThat(
+            json.getJsonArray("invoices").getJsonObject(1)
+                .getString("status"),
+            Matchers.is("SKIPPED")
+        );
+    }
+
+    /**
+     * Read the body of the report.
+     * @param resp Response.
+     * @return JsonObject.
+     */
+    private JsonObject json(final ResponseEntity<String> resp) {
+        return Json.createReader(
+            new StringReader(resp.getBody())
+        ).readObject();
+    }
+
+    /**
+     * Mock an Invoice.
+     * @param id Id.
+     * @param total Total amount, in cents.
+     * @return Invoice.
+     */
+    private Invoice mockInvoice(final int id, final long total) {
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.invoiceId()).thenReturn(id);
+        Mockito.when(invoice.totalAmount())
+            .thenReturn(BigDecimal.valueOf(total));
+        return invoice;
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.payments;
+
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.User;
+import com.selfxdsd.api.exceptions.WalletPaymentException;
+import com.selfxdsd.selfweb.events.UserEvents;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link PaymentJobs}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PaymentJobsTestCase {
+
+    /**
+     * A running or successful payment is not started again and, until
+     * it is done, its response is 202 ACCEPTED pointing to the job.
+     */
+    @Test
+    public void paysInvoiceOnlyOnce() {
+        final List<Runnable> queued = new ArrayList<>();
+        final PaymentJobs payments = new PaymentJobs(
+            Duration.ofMinutes(10), queued::add
+        );
+        final AtomicInteger paid = new AtomicInteger();
+        final User user = this.mockUser("mihai");
+        final PaymentJob first = payments.pay(
+            user,
+            1,
+            () -> ResponseEntity.ok(this.paid(paid.incrementAndGet()))
+        );
+        final PaymentJob second = payments.pay(
+            user,
+            1,
+            () -> ResponseEntity.ok(this.paid(paid.incrementAndGet()))
+        );
+        MatcherAssert.assertThat(second, Matchers.sameInstance(first));
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+            first.response().getStatusCode(),
+            Matchers.is(HttpStatus.ACCEPTED)
+        );
+        MatcherAssert.assertThat(
+            first.response().getHeaders().getFirst("Location"),
+            Matchers.is("/api/payments/" + first.id())
+        );
+        queued.get(0).run();
+        MatcherAssert.assertThat(first.finished(), Matchers.is(true));
+        MatcherAssert.assertThat(paid.get(), Matchers.is(1));
+        MatcherAssert.assertThat(first.outcome(), Matchers.is("SUCCESSFUL"));
+        MatcherAssert.assertThat(
+            first.response().getStatusCode(),
+            Matchers.is(HttpStatus.OK)
+        );
+        MatcherAssert.assertThat(
+            payments.pay(user, 1, () -> ResponseEntity.ok(this.paid(1))),
+            Matchers.sameInstance(first)
+        );
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+    }
+
+    /**
+     * A failed payment can be retried, with a new job.
+     */
+    @Test
+    public void retriesFailedPayment() {
+        final PaymentJobs payments = new PaymentJobs();
+        final User user = this.mockUser("mihai");
+        final PaymentJob failed = payments.pay(
+            user,
+            4,
+            () -> {
+                throw new IllegalStateException("Stripe is down.");
+            }
+        );
+        MatcherAssert.assertThat(failed.outcome(), Matchers.is("ERROR"));
+        final PaymentJob retried = payments.pay(
+            user, 4, () -> ResponseEntity.ok(this.paid(4))
+        );
+        MatcherAssert.assertThat(
+            retried, Matchers.not(Matchers.sameInstance(failed))
+        );
+        MatcherAssert.assertThat(retried.outcome(), Matchers.is("SUCCESSFUL"));
+    }
+
+    /**
+     * A failed payment gives the same response as the API's exception
+     * handlers would.
+     */
+    @Test
+    public void reportsPaymentException() {
+        final WalletPaymentException declined = Mockito.mock(
+            WalletPaymentException.class
+        );
+        final PaymentJobs payments = new PaymentJobs();
+        final PaymentJob job = payments.pay(
+            this.mockUser("mihai"),
+            2,
+            () -> {
+                throw declined;
+            }
+        );
+        MatcherAssert.assertThat(job.finished(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            job.response().getStatusCode(),
+            Matchers.is(HttpStatus.PRECONDITION_FAILED)
+        );
+        final PaymentJob broken = payments.pay(
+            this.mockUser("mihai"),
+            2,
+            () -> {
+                throw new IllegalStateException("Stripe is down.");
+            }
+        );
+        MatcherAssert.assertThat(
+            broken.response().getStatusCode(),
+            Matchers.is(HttpStatus.INTERNAL_SERVER_ERROR)
+        );
+    }
+
+    /**
+     * A successful payment which changed the Wallet is pushed as
+     * invoice.paid and wallet.updated.
+     */
+    @Test
+    public void publishesPaidInvoiceAndUpdatedWallet() {
+        final UserEvents events = Mockito.mock(UserEvents.class);
+        final PaymentJobs payments = new PaymentJobs(
+            Duration.ofMinutes(10), Runnable::run, events
+        );
+        payments.pay(
+            this.mockUser("mihai"),
+            5,
+            () -> ResponseEntity.ok(
+                Json.createObjectBuilder()
+                    .add("paid", 5)
+                    .add("project", "mihai/test")
+                    .add(
+                        "wallet",
+                        Json.createObjectBuilder().add("type", "FAKE")
+                    )
+                    .build()
+                    .toString()
+            )
+        );
+        Mockito.verify(events).publish(
+            Mockito.eq("github/mihai"),
+            Mockito.eq("invoice.paid"),
+            Mockito.any(JsonObject.class)
+        );
+        Mockito.verify(events).publish(
+            Mockito.eq("github/mihai"),
+            Mockito.eq("wallet.updated"),
+            Mockito.argThat(
+                (JsonObject data) -> "mihai/test".equals(
+                    data.getString("project")
+                ) && "FAKE".equals(
+                    data.getJsonObject("wallet").getString("type")
+                )
+            )
+        );
+    }
+
+    /**
+     * A job can only be found by the User who started it.
+     */
+    @Test
+    public void findsJobOfOwnerOnly() {
+        final PaymentJobs payments = new PaymentJobs();
+        final PaymentJob job = payments.pay(
+            this.mockUser("mihai"), 3, () -> ResponseEntity.ok(this.paid(3))
+        );
+        MatcherAssert.assertThat(
+            payments.job(this.mockUser("Mihai"), job.id()),
+            Matchers.sameInstance(job)
+        );
+        MatcherAssert.assertThat(
+            payments.job(this.mockUser("john"), job.id()),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            payments.job(this.mockUser("mihai"), "missing"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * A second User paying the same Invoice joins the running job: they
+     * can poll it and they get its events too.
+     */
+    @Test
+    public void secondPayerJoinsRunningJob() {
+        final List<Runnable> queued = new ArrayList<>();
+        final UserEvents events = Mockito.mock(UserEvents.class);
+        final PaymentJobs payments = new PaymentJobs(
+            Duration.ofMinutes(10), queued::add, events
+        );
+        final User mihai = this.mockUser("mihai");
+        final User vlad = this.mockUser("vlad");
+        final PaymentJob first = payments.pay(
+            mihai, 7, () -> ResponseEntity.ok(this.paid(7))
+        );
+        final PaymentJob second = payments.pay(
+            vlad, 7, () -> ResponseEntity.ok(this.paid(7))
+        );
+        MatcherAssert.assertThat(second, Matchers.sameInstance(first));
+        MatcherAssert.assertThat(
+            payments.job(vlad, first.id()), Matchers.sameInstance(first)
+        );
+        MatcherAssert.assertThat(queued, Matchers.hasSize(1));
+        queued.get(0).run();
+        Mockito.verify(events).publish(
+            Mockito.eq("github/mihai"),
+            Mockito.eq("invoice.paid"),
+            Mockito.any(JsonObject.class)
+        );
+        Mockito.verify(events).publish(
+            Mockito.eq("github/vlad"),
+            Mockito.eq("invoice.paid"),
+            Mockito.any(JsonObject.class)
+        );
+    }
+
+    /**
+     * Body of a paid Invoice.
+     * @param invoice Id of the Invoice.
+     * @return String JSON.
+     */
+    private String paid(final int invoice) {
+        return Json.createObjectBuilder()
+            .add("paid", invoice)
+            .build()
+            .toString();
+    }
+
+    /**
+     * Mock a Github User.
+     * @param username Username.
+     * @return User.
+     */
+    private User mockUser(final String username) {
+        final User user = Mockito.mock(User.class);
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn("github");
+        Mockito.when(user.provider()).thenReturn(provider);
+        Mockito.when(user.username()).thenReturn(username);
+        return user;
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link DiskPdfCache}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class DiskPdfCacheTestCase {
+
+    /**
+     * A PDF is rendered only once, then it is served from the disk.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void rendersOnlyOnce(@TempDir final Path dir) throws IOException {
+        final PdfCache cache = new DiskPdfCache(dir, 1024);
+        final AtomicInteger renders = new AtomicInteger();
+        final PdfRenderer renderer = out -> {
+            renders.incrementAndGet();
+            out.write("%PDF-invoice".getBytes(StandardCharsets.UTF_8));
+        };
+        MatcherAssert.assertThat(cache.get("abc"), Matchers.nullValue());
+        final ByteArrayOutputStream first = new ByteArrayOutputStream();
+        cache.write("abc", renderer, first);
+        final ByteArrayOutputStream second = new ByteArrayOutputStream();
+        cache.write("abc", renderer, second);
+        MatcherAssert.assertThat(renders.get(), Matchers.is(1));
+        MatcherAssert.assertThat(
+            second.toString(StandardCharsets.UTF_8),
+            Matchers.equalTo("%PDF-invoice")
+        );
+        MatcherAssert.assertThat(
+            first.toByteArray(),
+            Matchers.equalTo(second.toByteArray())
+        );
+        MatcherAssert.assertThat(
+            Files.exists(cache.get("abc")),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * The least recently used PDF is deleted when the cache gets too big.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void evictsLeastRecentlyUsed(@TempDir final Path dir)
+        throws IOException {
+        final PdfCache cache = new DiskPdfCache(dir, 25);
+        final PdfRenderer renderer = out -> out.write(new byte[10]);
+        cache.write("one", renderer, new ByteArrayOutputStream());
+        cache.write("two", renderer, new ByteArrayOutputStream());
+        cache.get("one");
+        cache.write("three", renderer, new ByteArrayOutputStream());
+        MatcherAssert.assertThat(cache.get("two"), Matchers.nullValue());
+        MatcherAssert.assertThat(cache.get("one"), Matchers.notNullValue());
+        MatcherAssert.assertThat(cache.get("three"), Matchers.notNullValue());
+        MatcherAssert.assertThat(
+            Files.exists(dir.resolve("two.pdf")),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * The PDFs left in the directory by a previous run are reused.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void reusesExistingFiles(@TempDir final Path dir)
+        throws IOException {
+        Files.write(dir.resolve("old.pdf"), new byte[5]);
+        final PdfCache cache = new DiskPdfCache(dir, 1024);
+        MatcherAssert.assertThat(cache.get("old"), Matchers.notNullValue());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(
+            "old",
+            pdf -> {
+                throw new IllegalStateException("Should not render.");
+            },
+            out
+        );
+        MatcherAssert.assertThat(out.size(), Matchers.is(5));
+    }
+
+    /**
+     * A PDF evicted while it is being written is deleted only once the
+     * write is done.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void keepsPdfWhileWritten(@TempDir final Path dir)
+        throws IOException {
+        final PdfCache cache = new DiskPdfCache(dir, 25);
+        final PdfRenderer renderer = out -> out.write(new byte[10]);
+        final AtomicBoolean kept = new AtomicBoolean();
+        final OutputStream none = OutputStream.nullOutputStream();
+        cache.write(
+            "one",
+            renderer,
+            new OutputStream() {
+                @Override
+                public void write(final int data) throws IOException {
+                    if(cache.get("two") == null) {
+                        cache.write("two", renderer, none);
+                        cache.write("three", renderer, none);
+                        kept.set(
+                            cache.get("one") == null
+                            && Files.exists(dir.resolve("one.pdf"))
+                        );
+                    }
+                }
+            }
+        );
+        MatcherAssert.assertThat(kept.get(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            Files.exists(dir.resolve("one.pdf")),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * An evicted PDF stays on disk during the grace period, for the
+     * downloads sent by the servlet container.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void keepsEvictedPdfDuringGrace(@TempDir final Path dir)
+        throws IOException {
+        final PdfCache cache = new DiskPdfCache(
+            dir, 25, Duration.ofMinutes(1)
+        );
+        final PdfRenderer renderer = out -> out.write(new byte[10]);
+        cache.prepare("one", renderer);
+        cache.prepare("two", renderer);
+        cache.prepare("three", renderer);
+        MatcherAssert.assertThat(cache.get("one"), Matchers.nullValue());
+        MatcherAssert.assertThat(
+            Files.exists(dir.resolve("one.pdf")),
+            Matchers.is(true)
+        );
+    }
+}
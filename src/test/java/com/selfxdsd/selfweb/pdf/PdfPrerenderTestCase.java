@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import com.selfxdsd.api.Invoice;
+import com.selfxdsd.api.Invoices;
+import com.selfxdsd.api.PlatformInvoice;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for {@link PdfPrerender}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PdfPrerenderTestCase {
+
+    /**
+     * A paid Invoice and its PlatformInvoice are rendered into the cache.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void rendersPaidInvoice(@TempDir final Path dir)
+        throws IOException {
+        final Invoice invoice = this.mockInvoice(true);
+        final PlatformInvoice platform = Mockito.mock(PlatformInvoice.class);
+        Mockito.when(platform.id()).thenReturn(2);
+        Mockito.when(platform.serialNumber()).thenReturn("SLFX0002");
+        Mockito.when(invoice.platformInvoice()).thenReturn(platform);
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(invoices.getById(1)).thenReturn(invoice);
+        new PdfPrerender(
+            new InvoicePdfs(new DiskPdfCache(dir, 1024)), Runnable::run
+        ).paid(invoices, 1);
+        Mockito.verify(invoice, Mockito.times(1))
+            .toPdf(Mockito.any(OutputStream.class));
+        Mockito.verify(platform, Mockito.times(1))
+            .toPdf(Mockito.any(OutputStream.class));
+        MatcherAssert.assertThat(this.count(dir), Matchers.is(2L));
+    }
+
+    /**
+     * An unpaid Invoice is not rendered.
+     * @param dir Temporary directory.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void skipsUnpaidInvoice(@TempDir final Path dir)
+        throws IOException {
+        final Invoice invoice = this.mockInvoice(false);
+        final Invoices invoices = Mockito.mock(Invoices.class);
+        Mockito.when(invoices.getById(1)).thenReturn(invoice);
+        new PdfPrerender(
+            new InvoicePdfs(new DiskPdfCache(dir, 1024)), Runnable::run
+        ).paid(invoices, 1);
+        Mockito.verify(invoice, Mockito.never())
+            .toPdf(Mockito.any(OutputStream.class));
+        MatcherAssert.assertThat(this.count(dir), Matchers.is(0L));
+    }
+
+    /**
+     * Mock an Invoice.
+     * @param paid Is it paid?
+     * @return Invoice.
+     */
+    private Invoice mockInvoice(final boolean paid) {
+        final Invoice invoice = Mockito.mock(Invoice.class);
+        Mockito.when(invoice.invoiceId()).thenReturn(1);
+        Mockito.when(invoice.isPaid()).thenReturn(paid);
+        Mockito.when(invoice.totalAmount()).thenReturn(BigDecimal.TEN);
+        return invoice;
+    }
+
+    /**
+     * Count the cached PDFs.
+     * @param dir Cache directory.
+     * @return Number of PDF files.
+     * @throws IOException If something goes wrong.
+     */
+    private long count(final Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                .filter(file -> file.toString().endsWith(".pdf"))
+                .count();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.pdf;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Unit tests for {@link PdfZips}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PdfZipsTestCase {
+
+    /**
+     * All the PDFs end up in the archive, rendered in parallel.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void zipsAllPdfs() throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try (PdfZips zips = new PdfZips(pool, 2)) {
+            final Map<String, PdfRenderer> pdfs = new LinkedHashMap<>();
+            for(int idx = 0; idx < 5; ++idx) {
+                final String content = "pdf" + idx;
+                pdfs.put(
+                    "invoice_" + idx + ".pdf",
+                    out -> out.write(content.getBytes(StandardCharsets.UTF_8))
+                );
+            }
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            zips.zip(pdfs).writeTo(out);
+            final Map<String, String> entries = this.unzip(out.toByteArray());
+            MatcherAssert.assertThat(entries.size(), Matchers.is(5));
+            for(int idx = 0; idx < 5; ++idx) {
+                MatcherAssert.assertThat(
+                    entries.get("invoice_" + idx + ".pdf"),
+                    Matchers.equalTo("pdf" + idx)
+                );
+            }
+        }
+    }
+
+    /**
+     * An empty archive is written if there are no PDFs.
+     * @throws IOException If something goes wrong.
+     */
+    @Test
+    public void zipsNoPdfs() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PdfZips().zip(Map.of()).writeTo(out);
+        MatcherAssert.assertThat(
+            this.unzip(out.toByteArray()).isEmpty(),
+            Matchers.is(true)
+        );
+    }
+
+    /**
+     * A failed render fails the whole export.
+     */
+    @Test
+    public void failsIfRenderFails() {
+        final Map<String, PdfRenderer> pdfs = Map.of(
+            "broken.pdf",
+            out -> {
+                throw new IOException("Render failed.");
+            }
+        );
+        Assertions.assertThrows(
+            IOException.class,
+            () -> new PdfZips().zip(pdfs).writeTo(new ByteArrayOutputStream())
+        );
+    }
+
+    /**
+     * Read the entries of a ZIP archive.
+     * @param zip Archive bytes.
+     * @return Contents by entry name.
+     * @throws IOException If something goes wrong.
+     */
+    private Map<String, String> unzip(final byte[] zip) throws IOException {
+        final Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(
+            new ByteArrayInputStream(zip)
+        )) {
+            ZipEntry entry = in.getNextEntry();
+            while(entry != null) {
+                entries.put(
+                    entry.getName(),
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                );
+                entry = in.getNextEntry();
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link PriorityCalls}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class PriorityCallsTestCase {
+
+    /**
+     * Queued interactive calls run before the queued background ones.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void runsInteractiveFirst() throws Exception {
+        final PriorityCalls calls = new PriorityCalls(1, 10, "test-");
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(4);
+            final List<String> order = new CopyOnWriteArrayList<>();
+            calls.execute(() -> PriorityCallsTestCase.await(release));
+            calls.background().execute(
+                PriorityCallsTestCase.call(order, "background 1", done)
+            );
+            calls.background().execute(
+                PriorityCallsTestCase.call(order, "background 2", done)
+            );
+            calls.execute(
+                PriorityCallsTestCase.call(order, "interactive 1", done)
+            );
+            calls.execute(
+                PriorityCallsTestCase.call(order, "interactive 2", done)
+            );
+            release.countDown();
+            MatcherAssert.assertThat(
+                done.await(5, TimeUnit.SECONDS), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(
+                order,
+                Matchers.contains(
+                    "interactive 1", "interactive 2",
+                    "background 1", "background 2"
+                )
+            );
+        } finally {
+            calls.shutdownNow();
+        }
+    }
+
+    /**
+     * Calls over the max queue size are rejected.
+     */
+    @Test
+    public void rejectsWhenFull() {
+        final PriorityCalls calls = new PriorityCalls(1, 1, "test-");
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            calls.execute(() -> PriorityCallsTestCase.await(release));
+            calls.execute(() -> { });
+            Assertions.assertThrows(
+                RejectedExecutionException.class,
+                () -> calls.background().execute(() -> { })
+            );
+            release.countDown();
+        } finally {
+            calls.shutdownNow();
+        }
+    }
+
+    /**
+     * A call which records its name.
+     * @param order Recorded names.
+     * @param name Name of the call.
+     * @param done Counted down when the call ran.
+     * @return Runnable.
+     */
+    private static Runnable call(
+        final List<String> order,
+        final String name,
+        final CountDownLatch done
+    ) {
+        return () -> {
+            order.add(name);
+            done.countDown();
+        };
+    }
+
+    /**
+     * Wait for the latch.
+     * @param latch Latch.
+     */
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
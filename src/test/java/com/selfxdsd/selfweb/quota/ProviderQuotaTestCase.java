@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import com.selfxdsd.api.Provider;
+import com.selfxdsd.api.User;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link ProviderQuota}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ProviderQuotaTestCase {
+
+    /**
+     * Background calls are deferred when the probed quota is low.
+     */
+    @Test
+    public void defersBackgroundWhenLow() {
+        final ProviderQuota quotas = new ProviderQuota(
+            0.2, Duration.ofMinutes(1), auth -> ProviderQuotaTestCase.low()
+        );
+        final User user = ProviderQuotaTestCase.mockUser();
+        MatcherAssert.assertThat(quotas.allows(user), Matchers.is(true));
+        quotas.check(user, Mockito.mock(Authentication.class));
+        MatcherAssert.assertThat(quotas.allows(user), Matchers.is(false));
+    }
+
+    /**
+     * The quota of a token is probed at most once per interval.
+     */
+    @Test
+    public void probesOncePerInterval() {
+        final AtomicInteger probes = new AtomicInteger();
+        final ProviderQuota quotas = new ProviderQuota(
+            0.2, Duration.ofMinutes(1),
+            auth -> {
+                probes.incrementAndGet();
+                return new HttpHeaders();
+            }
+        );
+        final User user = ProviderQuotaTestCase.mockUser();
+        final Authentication auth = Mockito.mock(Authentication.class);
+        quotas.check(user, auth);
+        quotas.check(user, auth);
+        quotas.check(user, null);
+        MatcherAssert.assertThat(probes.get(), Matchers.is(1));
+    }
+
+    /**
+     * Background calls wait for the interactive call of the same User.
+     */
+    @Test
+    public void interactiveCallsGoFirst() {
+        final ProviderQuota quotas = new ProviderQuota();
+        final User user = ProviderQuotaTestCase.mockUser();
+        MatcherAssert.assertThat(
+            quotas.interactive(user, () -> quotas.allows(user)),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(quotas.allows(user), Matchers.is(true));
+    }
+
+    /**
+     * Github headers with 10 calls out of 5000 left.
+     * @return HttpHeaders.
+     */
+    private static HttpHeaders low() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Limit", "5000");
+        headers.set("X-RateLimit-Remaining", "10");
+        headers.set(
+            "X-RateLimit-Reset",
+            String.valueOf(System.currentTimeMillis() / 1000 + 3600)
+        );
+        return headers;
+    }
+
+    /**
+     * Mock a Github User.
+     * @return User.
+     */
+    private static User mockUser() {
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(user.provider()).thenReturn(provider);
+        return user;
+    }
+}
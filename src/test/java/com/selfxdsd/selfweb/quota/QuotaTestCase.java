@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.quota;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for {@link Quota}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class QuotaTestCase {
+
+    /**
+     * An unknown quota never holds back.
+     */
+    @Test
+    public void unknownIsNotLow() {
+        final Quota quota = new Quota();
+        quota.spend();
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(false));
+        MatcherAssert.assertThat(quota.remaining(), Matchers.is(-1));
+    }
+
+    /**
+     * It reads Github's headers and is low under the reserve.
+     */
+    @Test
+    public void readsGithubHeaders() {
+        final Quota quota = new Quota();
+        quota.update(QuotaTestCase.headers("X-RateLimit-", 5000, 1001));
+        MatcherAssert.assertThat(quota.remaining(), Matchers.is(1001));
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(false));
+        quota.spend();
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(true));
+    }
+
+    /**
+     * It reads Gitlab's headers.
+     */
+    @Test
+    public void readsGitlabHeaders() {
+        final Quota quota = new Quota();
+        quota.update(QuotaTestCase.headers("RateLimit-", 2000, 10));
+        MatcherAssert.assertThat(quota.remaining(), Matchers.is(10));
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(true));
+    }
+
+    /**
+     * Retry-After (secondary rate limit) empties the quota.
+     */
+    @Test
+    public void retryAfterEmptiesQuota() {
+        final Quota quota = new Quota();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "60");
+        quota.update(headers);
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(true));
+        MatcherAssert.assertThat(
+            quota.stale(Duration.ofMinutes(1)), Matchers.is(false)
+        );
+    }
+
+    /**
+     * A quota whose window was reset is not low anymore.
+     */
+    @Test
+    public void resetQuotaIsNotLow() {
+        final Quota quota = new Quota();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set("X-RateLimit-Limit", "5000");
+        headers.set("X-RateLimit-Remaining", "0");
+        headers.set(
+            "X-RateLimit-Reset",
+            String.valueOf(System.currentTimeMillis() / 1000 - 1)
+        );
+        quota.update(headers);
+        MatcherAssert.assertThat(quota.low(0.2), Matchers.is(false));
+    }
+
+    /**
+     * Background calls wait while an interactive call is in flight.
+     */
+    @Test
+    public void busyWhileInteractive() {
+        final Quota quota = new Quota();
+        quota.started();
+        MatcherAssert.assertThat(quota.busy(0.2), Matchers.is(true));
+        quota.ended();
+        MatcherAssert.assertThat(quota.busy(0.2), Matchers.is(false));
+    }
+
+    /**
+     * Rate-limit headers, resetting in one hour.
+     * @param prefix Prefix of the headers.
+     * @param limit Limit.
+     * @param remaining Remaining calls.
+     * @return HttpHeaders.
+     */
+    private static HttpHeaders headers(
+        final String prefix,
+        final int limit,
+        final int remaining
+    ) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(prefix + "Limit", String.valueOf(limit));
+        headers.set(prefix + "Remaining", String.valueOf(remaining));
+        headers.set(
+            prefix + "Reset",
+            String.valueOf(System.currentTimeMillis() / 1000 + 3600)
+        );
+        return headers;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BloomFilter}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class BloomFilterTestCase {
+
+    /**
+     * An added key is always found.
+     */
+    @Test
+    public void findsAddedKeys() {
+        final BloomFilter filter = new BloomFilter(1000, 0.01);
+        for(int idx = 0; idx < 1000; ++idx) {
+            filter.put("github/owner/repo" + idx);
+        }
+        for(int idx = 0; idx < 1000; ++idx) {
+            MatcherAssert.assertThat(
+                filter.mightContain("github/owner/repo" + idx),
+                Matchers.is(true)
+            );
+        }
+        MatcherAssert.assertThat(filter.count(), Matchers.is(1000));
+    }
+
+    /**
+     * The false positives stay close to the wanted rate.
+     */
+    @Test
+    public void keepsFalsePositivesLow() {
+        final BloomFilter filter = new BloomFilter(1000, 0.01);
+        for(int idx = 0; idx < 1000; ++idx) {
+            filter.put("github/owner/repo" + idx);
+        }
+        int positives = 0;
+        for(int idx = 0; idx < 10_000; ++idx) {
+            if(filter.mightContain("github/other/missing" + idx)) {
+                positives = positives + 1;
+            }
+        }
+        MatcherAssert.assertThat(positives, Matchers.lessThan(300));
+        MatcherAssert.assertThat(
+            filter.falsePositiveRate(), Matchers.lessThan(0.03)
+        );
+    }
+
+    /**
+     * An empty filter contains nothing and takes little memory.
+     */
+    @Test
+    public void emptyFilterContainsNothing() {
+        final BloomFilter filter = new BloomFilter(100_000, 0.01);
+        MatcherAssert.assertThat(
+            filter.mightContain("github/mihai/test"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            filter.bytes(), Matchers.lessThan(200_000L)
+        );
+        MatcherAssert.assertThat(
+            filter.falsePositiveRate(), Matchers.is(0.0)
+        );
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.Project;
+import com.selfxdsd.api.Projects;
+import com.selfxdsd.api.Self;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+/**
+ * Unit tests for {@link ManagedRepos}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class ManagedReposTestCase {
+
+    /**
+     * Before it is loaded, no repo is ruled out.
+     */
+    @Test
+    public void rulesOutNothingBeforeLoad() {
+        final ManagedRepos managed = new ManagedRepos(
+            ManagedReposTestCase.mockSelf()
+        );
+        MatcherAssert.assertThat(
+            managed.absent("mihai/missing", "github"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Once loaded, it rules out the repos which are not managed,
+     * ignoring the case.
+     */
+    @Test
+    public void rulesOutNotManagedRepos() {
+        final ManagedRepos managed = new ManagedRepos(
+            ManagedReposTestCase.mockSelf()
+        );
+        managed.load();
+        MatcherAssert.assertThat(
+            managed.absent("Mihai/Test", "github"), Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            managed.absent("mihai/test", "gitlab"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            managed.absent("mihai/missing", "github"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(managed.count(), Matchers.is(1));
+        MatcherAssert.assertThat(managed.bytes(), Matchers.greaterThan(0L));
+    }
+
+    /**
+     * An activated repo is not ruled out anymore.
+     */
+    @Test
+    public void addsActivatedRepos() {
+        final ManagedRepos managed = new ManagedRepos(
+            ManagedReposTestCase.mockSelf()
+        );
+        managed.load();
+        managed.activated("mihai/new", "github");
+        MatcherAssert.assertThat(
+            managed.absent("mihai/new", "github"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Mock Self with one Github Project, mihai/test.
+     * @return Self.
+     */
+    private static Self mockSelf() {
+        final Project project = Mockito.mock(Project.class);
+        Mockito.when(project.repoFullName()).thenReturn("mihai/test");
+        Mockito.when(project.provider()).thenReturn("github");
+        final Projects projects = Mockito.mock(Projects.class);
+        Mockito.when(projects.iterator()).thenAnswer(
+            inv -> List.of(project).iterator()
+        );
+        final Self self = Mockito.mock(Self.class);
+        Mockito.when(self.projects()).thenReturn(projects);
+        return self;
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.*;
+import com.selfxdsd.selfweb.quota.ProviderQuota;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link OrgReposFetch}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class OrgReposFetchTestCase {
+
+    /**
+     * It fetches the Repos of all the Organizations, in parallel.
+     */
+    @Test
+    public void fetchesAllOrganizations() {
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final Repo core = this.mockRepo("self-xdsd/self-core");
+        final Repo other = this.mockRepo("amihaiemil/docker-java-api");
+        final User user = this.mockUser(
+            this.mockOrg(web, core), this.mockOrg(other)
+        );
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            final OrgRepos repos = new OrgReposFetch(
+                pool, 2, Duration.ofSeconds(5)
+            ).fetch(user);
+            MatcherAssert.assertThat(
+                repos.all(),
+                Matchers.contains(web, core, other)
+            );
+            MatcherAssert.assertThat(
+                repos.repo("Self-XDSD/Self-Core"),
+                Matchers.is(core)
+            );
+            MatcherAssert.assertThat(repos.complete(), Matchers.is(true));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * An Organization which fails is flagged, the others are
+     * still fetched.
+     */
+    @Test
+    public void flagsFailedOrganization() {
+        final Organization failing = Mockito.mock(Organization.class);
+        Mockito.when(failing.organizationId()).thenReturn("down-org");
+        Mockito.when(failing.repos()).thenThrow(
+            new IllegalStateException("Provider is down.")
+        );
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(failing, this.mockOrg(web));
+        final OrgRepos repos = new OrgReposFetch().fetch(user);
+        MatcherAssert.assertThat(repos.all(), Matchers.contains(web));
+        MatcherAssert.assertThat(repos.complete(), Matchers.is(false));
+        MatcherAssert.assertThat(
+            repos.failed(),
+            Matchers.hasEntry("down-org", "error")
+        );
+    }
+
+    /**
+     * An Organization which does not answer in time is flagged.
+     */
+    @Test
+    public void flagsTimedOutOrganization() {
+        final Repos slow = Mockito.mock(Repos.class);
+        Mockito.when(slow.iterator()).thenAnswer(
+            inv -> {
+                Thread.sleep(2000);
+                return List.<Repo>of().iterator();
+            }
+        );
+        final Organization late = Mockito.mock(Organization.class);
+        Mockito.when(late.organizationId()).thenReturn("late-org");
+        Mockito.when(late.repos()).thenReturn(slow);
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrg(web), late);
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            final OrgRepos repos = new OrgReposFetch(
+                pool, 2, Duration.ofMillis(200)
+            ).fetch(user);
+            MatcherAssert.assertThat(repos.all(), Matchers.contains(web));
+            MatcherAssert.assertThat(
+                repos.failed(),
+                Matchers.hasEntry("late-org", "timeout")
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A call which times out gives its slot back right away, so the
+     * remaining Organizations are still fetched.
+     */
+    @Test
+    public void timedOutCallFreesItsSlot() {
+        final Repos hanging = Mockito.mock(Repos.class);
+        Mockito.when(hanging.iterator()).thenAnswer(
+            inv -> {
+                Thread.sleep(60_000);
+                return List.<Repo>of().iterator();
+            }
+        );
+        final Organization late = Mockito.mock(Organization.class);
+        Mockito.when(late.organizationId()).thenReturn("late-org");
+        Mockito.when(late.repos()).thenReturn(hanging);
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(late, this.mockOrg(web));
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            final long start = System.currentTimeMillis();
+            final OrgRepos repos = new OrgReposFetch(
+                pool, 1, Duration.ofMillis(200)
+            ).fetch(user);
+            MatcherAssert.assertThat(repos.all(), Matchers.contains(web));
+            MatcherAssert.assertThat(
+                repos.failed(),
+                Matchers.allOf(
+                    Matchers.hasEntry("late-org", "timeout"),
+                    Matchers.aMapWithSize(1)
+                )
+            );
+            MatcherAssert.assertThat(
+                System.currentTimeMillis() - start,
+                Matchers.lessThan(5_000L)
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * The concurrent fetches of the same User (e.g. two tabs) share
+     * the User's slots.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void sharesSlotsAcrossRequests() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger most = new AtomicInteger();
+        final Repos slow = Mockito.mock(Repos.class);
+        Mockito.when(slow.iterator()).thenAnswer(
+            inv -> {
+                most.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(100);
+                running.decrementAndGet();
+                return List.<Repo>of().iterator();
+            }
+        );
+        final Organization first = Mockito.mock(Organization.class);
+        Mockito.when(first.repos()).thenReturn(slow);
+        final Organization second = Mockito.mock(Organization.class);
+        Mockito.when(second.repos()).thenReturn(slow);
+        final User user = this.mockUser(first, second);
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final ExecutorService tabs = Executors.newFixedThreadPool(2);
+        try {
+            final OrgReposFetch fetch = new OrgReposFetch(
+                pool, 1, Duration.ofSeconds(5)
+            );
+            final CompletableFuture<OrgRepos> one = CompletableFuture
+                .supplyAsync(() -> fetch.fetch(user), tabs);
+            final CompletableFuture<OrgRepos> two = CompletableFuture
+                .supplyAsync(() -> fetch.fetch(user), tabs);
+            MatcherAssert.assertThat(
+                one.get(10, TimeUnit.SECONDS).complete(), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(
+                two.get(10, TimeUnit.SECONDS).complete(), Matchers.is(true)
+            );
+            MatcherAssert.assertThat(most.get(), Matchers.is(1));
+        } finally {
+            pool.shutdownNow();
+            tabs.shutdownNow();
+        }
+    }
+
+    /**
+     * A background refresh is deferred when the User's quota is low,
+     * while the interactive fetch still goes through.
+     */
+    @Test
+    public void defersRefreshWhenQuotaIsLow() {
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrg(web));
+        final HttpHeaders low = new HttpHeaders();
+        low.set(HttpHeaders.RETRY_AFTER, "60");
+        final OrgReposFetch fetch = new OrgReposFetch(
+            Runnable::run, 2, Duration.ofSeconds(5),
+            new ProviderQuota(0.2, Duration.ofMinutes(1), auth -> low)
+        );
+        MatcherAssert.assertThat(
+            fetch.refresh(user, Mockito.mock(Authentication.class)),
+            Matchers.nullValue()
+        );
+        MatcherAssert.assertThat(
+            fetch.fetch(user).all(), Matchers.contains(web)
+        );
+    }
+
+    /**
+     * A background refresh fetches the Repos while the quota allows it.
+     */
+    @Test
+    public void refreshesWithinQuota() {
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final Repo core = this.mockRepo("self-xdsd/self-core");
+        final User user = this.mockUser(
+            this.mockOrg(web), this.mockOrg(core)
+        );
+        final OrgRepos repos = new OrgReposFetch().refresh(user, null);
+        MatcherAssert.assertThat(
+            repos.all(), Matchers.contains(web, core)
+        );
+        MatcherAssert.assertThat(repos.complete(), Matchers.is(true));
+    }
+
+    /**
+     * The calls made on the pool do not read the User, which is a
+     * session-scoped bean, only available on the request's thread.
+     */
+    @Test
+    public void readsUserOnlyOnRequestThread() {
+        final Repo web = this.mockRepo("self-xdsd/self-web");
+        final Repo core = this.mockRepo("self-xdsd/self-core");
+        final User user = OrgReposFetchTestCase.requestScoped(
+            this.mockUser(this.mockOrg(web), this.mockOrg(core))
+        );
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            final OrgReposFetch fetch = new OrgReposFetch(
+                pool, 2, Duration.ofSeconds(5)
+            );
+            final OrgRepos fetched = fetch.fetch(user);
+            MatcherAssert.assertThat(fetched.failed(), Matchers.anEmptyMap());
+            MatcherAssert.assertThat(
+                fetched.all(), Matchers.contains(web, core)
+            );
+            final OrgRepos refreshed = fetch.refresh(user, null);
+            MatcherAssert.assertThat(
+                refreshed.failed(), Matchers.anEmptyMap()
+            );
+            MatcherAssert.assertThat(
+                refreshed.all(), Matchers.contains(web, core)
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A User which, like the session-scoped bean, cannot be read
+     * outside of the thread which created it.
+     * @param user Delegate.
+     * @return User.
+     */
+    static User requestScoped(final User user) {
+        final Thread owner = Thread.currentThread();
+        return (User) Proxy.newProxyInstance(
+            User.class.getClassLoader(),
+            new Class<?>[] {User.class},
+            (proxy, method, args) -> {
+                if(Thread.currentThread() != owner) {
+                    throw new IllegalStateException(
+                        "No thread-bound request found."
+                    );
+                }
+                return method.invoke(user, args);
+            }
+        );
+    }
+
+    /**
+     * Mock a Repo.
+     * @param fullName Full name.
+     * @return Repo.
+     */
+    private Repo mockRepo(final String fullName) {
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.fullName()).thenReturn(fullName);
+        return repo;
+    }
+
+    /**
+     * Mock an Organization.
+     * @param repos Organization's Repos.
+     * @return Organization.
+     */
+    private Organization mockOrg(final Repo... repos) {
+        final Repos all = Mockito.mock(Repos.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            inv -> List.of(repos).iterator()
+        );
+        final Organization org = Mockito.mock(Organization.class);
+        Mockito.when(org.repos()).thenReturn(all);
+        return org;
+    }
+
+    /**
+     * Mock a Github User.
+     * @param orgs User's Organizations.
+     * @return User.
+     */
+    private User mockUser(final Organization... orgs) {
+        final Organizations all = Mockito.mock(Organizations.class);
+        Mockito.when(all.iterator()).thenAnswer(
+            inv -> List.of(orgs).iterator()
+        );
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(provider.organizations()).thenReturn(all);
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(user.provider()).thenReturn(provider);
+        return user;
+    }
+}
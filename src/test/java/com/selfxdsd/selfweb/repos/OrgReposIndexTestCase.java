@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2020-2021, Self XDSD Contributors
+ * All rights reserved.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"),
+ * to read the Software only. Permission is hereby NOT GRANTED to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software.
+ * <p>
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY,
+ * OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+ * OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.selfxdsd.selfweb.repos;
+
+import com.selfxdsd.api.*;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link OrgReposIndex}.
+ * @author Mihai Andronache (amihaiemil@gmail.com)
+ * @version $Id$
+ * @since 0.0.6
+ */
+public final class OrgReposIndexTestCase {
+
+    /**
+     * It finds an Organization Repo by its full name, ignoring the case.
+     */
+    @Test
+    public void findsRepoIgnoringCase() {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrgs(repo));
+        final OrgReposIndex index = new OrgReposIndex();
+        MatcherAssert.assertThat(
+            index.repo(user, "Self-XDSD/Self-Web"),
+            Matchers.is(repo)
+        );
+        MatcherAssert.assertThat(
+            index.repo(user, "self-xdsd/missing"),
+            Matchers.nullValue()
+        );
+    }
+
+    /**
+     * It walks the Organizations only once, the following lookups
+     * are served from the index.
+     */
+    @Test
+    public void walksOrganizationsOnce() {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrgs(repo));
+        final OrgReposIndex index = new OrgReposIndex();
+        index.repo(user, "self-xdsd/self-web");
+        index.repo(user, "self-xdsd/self-core");
+        MatcherAssert.assertThat(
+            index.repos(user),
+            Matchers.contains(repo)
+        );
+        Mockito.verify(user.provider(), Mockito.times(1)).organizations();
+    }
+
+    /**
+     * After invalidation, the index is built again.
+     */
+    @Test
+    public void rebuildsAfterInvalidation() {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrgs(repo));
+        final OrgReposIndex index = new OrgReposIndex();
+        index.repo(user, "self-xdsd/self-web");
+        index.invalidate(user);
+        index.repo(user, "self-xdsd/self-web");
+        Mockito.verify(user.provider(), Mockito.times(2)).organizations();
+    }
+
+    /**
+     * A missing Repo rebuilds the index, but at most once every tenth
+     * of the TTL.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void rebuildsOnMissAtMostOnceInAWhile() throws Exception {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrgs(repo));
+        final OrgReposIndex index = new OrgReposIndex(
+            Duration.ofMillis(500), Runnable::run
+        );
+        index.find(user, "self-xdsd/missing");
+        index.find(user, "self-xdsd/missing");
+        index.find(user, "self-xdsd/typo");
+        Mockito.verify(user.provider(), Mockito.times(1)).organizations();
+        Thread.sleep(100);
+        MatcherAssert.assertThat(
+            index.find(user, "self-xdsd/missing"), Matchers.nullValue()
+        );
+        Mockito.verify(user.provider(), Mockito.times(2)).organizations();
+        MatcherAssert.assertThat(
+            index.find(user, "self-xdsd/self-web"), Matchers.is(repo)
+        );
+        Mockito.verify(user.provider(), Mockito.times(2)).organizations();
+    }
+
+    /**
+     * An expired index is still served, while it is refreshed.
+     */
+    @Test
+    public void refreshesExpiredIndex() {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User user = this.mockUser(this.mockOrgs(repo));
+        final OrgReposIndex index = new OrgReposIndex(
+            Duration.ofMillis(-1), Runnable::run
+        );
+        index.repo(user, "self-xdsd/self-web");
+        MatcherAssert.assertThat(
+            index.repo(user, "self-xdsd/self-web"),
+            Matchers.is(repo)
+        );
+        Mockito.verify(user.provider(), Mockito.times(2)).organizations();
+    }
+
+    /**
+     * The background refresh does not read the User, which is a
+     * session-scoped bean, only available on the request's thread.
+     * @throws Exception If something goes wrong.
+     */
+    @Test
+    public void refreshesWithoutReadingUser() throws Exception {
+        final Repo repo = this.mockRepo("self-xdsd/self-web");
+        final User mock = this.mockUser(this.mockOrgs(repo));
+        final Provider provider = mock.provider();
+        final User user = OrgReposFetchTestCase.requestScoped(mock);
+        final ExecutorService refresher = Executors.newSingleThreadExecutor();
+        final OrgReposIndex index = new OrgReposIndex(
+            Duration.ofMillis(-1), refresher
+        );
+        index.repo(user, "self-xdsd/self-web");
+        index.repo(user, "self-xdsd/self-web");
+        refresher.shutdown();
+        MatcherAssert.assertThat(
+            refresher.awaitTermination(5, TimeUnit.SECONDS),
+            Matchers.is(true)
+        );
+        Mockito.verify(provider, Mockito.times(2)).organizations();
+        MatcherAssert.assertThat(
+            index.snapshot(user).complete(), Matchers.is(true)
+        );
+    }
+
+    /**
+     * Mock a Repo.
+     * @param fullName Full name.
+     * @return Repo.
+     */
+    private Repo mockRepo(final String fullName) {
+        final Repo repo = Mockito.mock(Repo.class);
+        Mockito.when(repo.fullName()).thenReturn(fullName);
+        return repo;
+    }
+
+    /**
+     * Mock the Organizations, with one Organization holding the Repo.
+     * @param repo Repo.
+     * @return Organizations.
+     */
+    private Organizations mockOrgs(final Repo repo) {
+        final Repos repos = Mockito.mock(Repos.class);
+        Mockito.when(repos.iterator()).thenAnswer(
+            inv -> List.of(repo).iterator()
+        );
+        final Organization org = Mockito.mock(Organization.class);
+        Mockito.when(org.repos()).thenReturn(repos);
+        final Organizations orgs = Mockito.mock(Organizations.class);
+        Mockito.when(orgs.iterator()).thenAnswer(
+            inv -> List.of(org).iterator()
+        );
+        return orgs;
+    }
+
+    /**
+     * Mock a Github User.
+     * @param orgs User's Organizations.
+     * @return User.
+     */
+    private User mockUser(final Organizations orgs) {
+        final Provider provider = Mockito.mock(Provider.class);
+        Mockito.when(provider.name()).thenReturn(Provider.Names.GITHUB);
+        Mockito.when(provider.organizations()).thenReturn(orgs);
+        final User user = Mockito.mock(User.class);
+        Mockito.when(user.username()).thenReturn("mihai");
+        Mockito.when(user.provider()).thenReturn(provider);
+        return user;
+    }
+}